@@ -0,0 +1,191 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams.benchmarks;
+
+import static com.tomgibara.streams.benchmarks.Payloads.CHUNK;
+import static com.tomgibara.streams.benchmarks.Payloads.SIZE;
+import static com.tomgibara.streams.benchmarks.Payloads.STRING_BYTES;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Performs the operations of {@link ReadBenchmark} with
+ * <code>java.io.DataInputStream</code> to provide a baseline. Strings are read
+ * as an int length followed by chars, matching the encoding of
+ * <code>ReadStream.readChars()</code>.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaselineReadBenchmark {
+
+	public enum Source {
+		// DataInputStream over a byte array
+		BYTES,
+		// DataInputStream over a BufferedInputStream over a byte array
+		BUFFERED_BYTES,
+		// DataInputStream over a BufferedInputStream over a file
+		BUFFERED_FILE,
+	}
+
+	@Param
+	public Source source;
+
+	private byte[] data;
+	private Path file;
+
+	private final byte[] chunk = new byte[CHUNK];
+	private DataInputStream stream;
+
+	@Setup(Level.Trial)
+	public void prepare() throws IOException {
+		data = Payloads.strings();
+		file = Payloads.tempFile(data);
+	}
+
+	@TearDown(Level.Trial)
+	public void cleanup() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Setup(Level.Invocation)
+	public void open() throws IOException {
+		switch (source) {
+		case BYTES:
+			stream = new DataInputStream(new ByteArrayInputStream(data));
+			break;
+		case BUFFERED_BYTES:
+			stream = new DataInputStream(new BufferedInputStream(new ByteArrayInputStream(data)));
+			break;
+		case BUFFERED_FILE:
+			stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file.toFile())));
+			break;
+		default:
+			throw new IllegalStateException();
+		}
+	}
+
+	@TearDown(Level.Invocation)
+	public void close() throws IOException {
+		stream.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public void readByte(Blackhole bh) throws IOException {
+		DataInputStream s = stream;
+		for (int i = 0; i < SIZE; i++) {
+			bh.consume(s.readByte());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / 4)
+	public void readInt(Blackhole bh) throws IOException {
+		DataInputStream s = stream;
+		for (int i = 0; i < SIZE / 4; i++) {
+			bh.consume(s.readInt());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / 8)
+	public void readLong(Blackhole bh) throws IOException {
+		DataInputStream s = stream;
+		for (int i = 0; i < SIZE / 8; i++) {
+			bh.consume(s.readLong());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / 8)
+	public void readDouble(Blackhole bh) throws IOException {
+		DataInputStream s = stream;
+		for (int i = 0; i < SIZE / 8; i++) {
+			bh.consume(s.readDouble());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / CHUNK)
+	public void readBytes(Blackhole bh) throws IOException {
+		DataInputStream s = stream;
+		byte[] bs = chunk;
+		for (int i = 0; i < SIZE / CHUNK; i++) {
+			s.readFully(bs);
+			bh.consume(bs);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / CHUNK)
+	public void skip() throws IOException {
+		DataInputStream s = stream;
+		for (int i = 0; i < SIZE / CHUNK; i++) {
+			// skipBytes may skip fewer bytes than requested, eg. only those buffered
+			for (int n = CHUNK; n > 0; ) {
+				int k = s.skipBytes(n);
+				if (k == 0) throw new IOException("skip failed");
+				n -= k;
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / STRING_BYTES)
+	public void readChars(Blackhole bh) throws IOException {
+		DataInputStream s = stream;
+		for (int i = 0; i < SIZE / STRING_BYTES; i++) {
+			char[] cs = new char[s.readInt()];
+			for (int j = 0; j < cs.length; j++) {
+				cs[j] = s.readChar();
+			}
+			bh.consume(new String(cs));
+		}
+	}
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams.benchmarks;
+
+import static com.tomgibara.streams.benchmarks.Payloads.CHUNK;
+import static com.tomgibara.streams.benchmarks.Payloads.SIZE;
+import static com.tomgibara.streams.benchmarks.Payloads.STRING;
+import static com.tomgibara.streams.benchmarks.Payloads.STRING_BYTES;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Performs the operations of {@link WriteBenchmark} with
+ * <code>java.io.DataOutputStream</code> to provide a baseline. Strings are
+ * written as an int length followed by chars, matching the encoding of
+ * <code>WriteStream.writeChars(CharSequence)</code>.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaselineWriteBenchmark {
+
+	public enum Target {
+		// DataOutputStream over a byte array
+		BYTES,
+		// DataOutputStream over a BufferedOutputStream over a byte array
+		BUFFERED_BYTES,
+		// DataOutputStream over a BufferedOutputStream over a file
+		BUFFERED_FILE,
+	}
+
+	@Param
+	public Target target;
+
+	private ByteArrayOutputStream out;
+	private Path file;
+
+	private final byte[] chunk = new byte[CHUNK];
+	private DataOutputStream stream;
+
+	@Setup(Level.Trial)
+	public void prepare() throws IOException {
+		out = new ByteArrayOutputStream(SIZE);
+		file = Files.createTempFile("streams-benchmark", ".bin");
+		file.toFile().deleteOnExit();
+	}
+
+	@TearDown(Level.Trial)
+	public void cleanup() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Setup(Level.Invocation)
+	public void open() throws IOException {
+		switch (target) {
+		case BYTES:
+			out.reset();
+			stream = new DataOutputStream(out);
+			break;
+		case BUFFERED_BYTES:
+			out.reset();
+			stream = new DataOutputStream(new BufferedOutputStream(out));
+			break;
+		case BUFFERED_FILE:
+			stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file.toFile())));
+			break;
+		default:
+			throw new IllegalStateException();
+		}
+	}
+
+	@TearDown(Level.Invocation)
+	public void close() throws IOException {
+		stream.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public void writeByte() throws IOException {
+		DataOutputStream s = stream;
+		for (int i = 0; i < SIZE; i++) {
+			s.writeByte(i);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / 4)
+	public void writeInt() throws IOException {
+		DataOutputStream s = stream;
+		for (int i = 0; i < SIZE / 4; i++) {
+			s.writeInt(i);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / 8)
+	public void writeLong() throws IOException {
+		DataOutputStream s = stream;
+		for (int i = 0; i < SIZE / 8; i++) {
+			s.writeLong(i);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / 8)
+	public void writeDouble() throws IOException {
+		DataOutputStream s = stream;
+		for (int i = 0; i < SIZE / 8; i++) {
+			s.writeDouble(i);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / CHUNK)
+	public void writeBytes() throws IOException {
+		DataOutputStream s = stream;
+		byte[] bs = chunk;
+		for (int i = 0; i < SIZE / CHUNK; i++) {
+			s.write(bs);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / STRING_BYTES)
+	public void writeChars() throws IOException {
+		DataOutputStream s = stream;
+		for (int i = 0; i < SIZE / STRING_BYTES; i++) {
+			s.writeInt(STRING.length());
+			s.writeChars(STRING);
+		}
+	}
+
+}
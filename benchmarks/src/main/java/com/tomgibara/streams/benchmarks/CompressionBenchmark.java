@@ -0,0 +1,151 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tomgibara.streams.ReadStream;
+import com.tomgibara.streams.StreamBytes;
+import com.tomgibara.streams.Streams;
+import com.tomgibara.streams.WriteStream;
+
+/**
+ * Compares the compression stages: fast LZ, deflate and block-parallel
+ * deflate. Each invocation compresses (or decompresses) an 8MB payload of
+ * structured records; the auxiliary <code>megabytes</code> counter reports
+ * uncompressed throughput and <code>compressedMegabytes</code> compressed
+ * throughput, so that their quotient gives the compression ratio.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+
+	private static final int SIZE = 8 << 20;
+	private static final int PARALLEL_BLOCK_SIZE = 1 << 20;
+
+	public enum Codec {
+		FAST_LZ,
+		DEFLATE_1,
+		DEFLATE_6,
+		PARALLEL_DEFLATE_6,
+	}
+
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class Counters {
+
+		public double megabytes;
+
+		// auxiliary counters are reported as rates, so the ratio cannot be reported directly
+		public double compressedMegabytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			megabytes = 0;
+			compressedMegabytes = 0;
+		}
+	}
+
+	@Param
+	public Codec codec;
+
+	private final ForkJoinPool pool = ForkJoinPool.commonPool();
+	private byte[] data;
+	private byte[] compressed;
+	private StreamBytes output;
+	private byte[] input;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		data = Payloads.records(SIZE);
+		output = Streams.bytes(SIZE);
+		int length = compress(data);
+		compressed = Arrays.copyOf(output.directBytes(), length);
+		input = new byte[SIZE];
+	}
+
+	@Benchmark
+	public int compress(Counters counters) {
+		int length = compress(data);
+		counters.megabytes += SIZE / (double) (1 << 20);
+		counters.compressedMegabytes += length / (double) (1 << 20);
+		return length;
+	}
+
+	@Benchmark
+	public byte[] decompress(Counters counters) {
+		try (ReadStream r = decompressor(Streams.bytes(compressed).readStream())) {
+			r.readBytes(input);
+		}
+		counters.megabytes += SIZE / (double) (1 << 20);
+		counters.compressedMegabytes += compressed.length / (double) (1 << 20);
+		return input;
+	}
+
+	// returns the compressed length; the backing array is reused between calls
+	private int compress(byte[] bytes) {
+		try (WriteStream w = compressor(output.writeStream())) {
+			w.writeBytes(bytes);
+		}
+		return output.length();
+	}
+
+	private WriteStream compressor(WriteStream w) {
+		switch (codec) {
+		case FAST_LZ: return w.compressedFast();
+		case DEFLATE_1: return w.deflated(1);
+		case DEFLATE_6: return w.deflated(6);
+		case PARALLEL_DEFLATE_6: return w.deflatedParallel(6, PARALLEL_BLOCK_SIZE, pool);
+		default: throw new IllegalStateException();
+		}
+	}
+
+	private ReadStream decompressor(ReadStream r) {
+		switch (codec) {
+		case FAST_LZ: return r.decompressedFast();
+		case DEFLATE_1:
+		case DEFLATE_6: return r.inflated();
+		case PARALLEL_DEFLATE_6: return r.inflatedParallel(pool);
+		default: throw new IllegalStateException();
+		}
+	}
+
+}
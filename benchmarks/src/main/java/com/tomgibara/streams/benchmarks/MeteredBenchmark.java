@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams.benchmarks;
+
+import static com.tomgibara.streams.benchmarks.Payloads.CHUNK;
+import static com.tomgibara.streams.benchmarks.Payloads.SIZE;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.tomgibara.streams.ReadStream;
+import com.tomgibara.streams.StreamMetrics;
+import com.tomgibara.streams.Streams;
+import com.tomgibara.streams.WriteStream;
+
+/**
+ * Measures the per-operation cost, in nanoseconds, of metering a stream. The
+ * overhead of metering is the difference between the <code>metered</code>
+ * and unmetered scores.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeteredBenchmark {
+
+	@Param({"false", "true"})
+	public boolean metered;
+
+	private final StreamMetrics metrics = Streams.metrics();
+	private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK);
+	private byte[] data;
+	private ReadStream reader;
+	private WriteStream writer;
+
+	@Setup(Level.Trial)
+	public void prepare() {
+		data = new byte[SIZE];
+	}
+
+	@Setup(Level.Invocation)
+	public void open() {
+		reader = Streams.bytes(data).readStream();
+		writer = Streams.bytes(data, 0, SIZE).writeStream();
+		if (metered) {
+			reader = reader.metered(metrics);
+			writer = writer.metered(metrics);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / 4)
+	public void readInt(Blackhole bh) {
+		ReadStream r = reader;
+		for (int i = 0; i < SIZE / 4; i++) {
+			bh.consume(r.readInt());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / 4)
+	public void writeInt() {
+		WriteStream w = writer;
+		for (int i = 0; i < SIZE / 4; i++) {
+			w.writeInt(i);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / CHUNK)
+	public void fillBuffer(Blackhole bh) {
+		ReadStream r = reader;
+		ByteBuffer b = buffer;
+		for (int i = 0; i < SIZE / CHUNK; i++) {
+			b.clear();
+			r.fillBuffer(b);
+			bh.consume(b);
+		}
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams.benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import com.tomgibara.streams.StreamBytes;
+import com.tomgibara.streams.Streams;
+import com.tomgibara.streams.WriteStream;
+
+/**
+ * Shared payloads for the benchmarks. Every benchmark invocation processes a
+ * whole payload, so that the cost of opening a stream is amortized over many
+ * operations.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class Payloads {
+
+	// the number of bytes processed by each invocation
+	static final int SIZE = 1 << 20;
+	// the size of each bulk operation
+	static final int CHUNK = 1024;
+	// the string written repeatedly by writeChars, its encoding occupies 64 bytes
+	static final String STRING = "the quick brown fox jumps over";
+	// the length prefix and chars, a literal since it is used in annotations
+	static final int STRING_BYTES = 64;
+
+	// the payload consists of repeated strings so that it can be read both as primitives and as chars
+	static byte[] strings() {
+		StreamBytes bytes = Streams.bytes(SIZE, SIZE);
+		try (WriteStream w = bytes.writeStream()) {
+			for (int i = 0; i < SIZE / STRING_BYTES; i++) {
+				w.writeChars(STRING);
+			}
+		}
+		return bytes.bytes();
+	}
+
+	// moderately compressible data, roughly approximating structured records
+	static byte[] records(int size) {
+		Random r = new Random(0L);
+		StreamBytes bytes = Streams.bytes(size, size);
+		try (WriteStream w = bytes.writeStream()) {
+			long id = 1_000_000L;
+			for (int i = 0; i < size / 32; i++) {
+				id += r.nextInt(10);
+				w.writeLong(id);
+				w.writeInt(r.nextInt(1000));
+				w.writeDouble(Math.round(r.nextGaussian() * 1000) / 100.0);
+				w.writeInt(r.nextInt(4));
+				w.writeLong(1_500_000_000_000L + i * 1000L);
+			}
+		}
+		return bytes.bytes();
+	}
+
+	static Path tempFile(byte[] contents) throws IOException {
+		Path file = Files.createTempFile("streams-benchmark", ".bin");
+		file.toFile().deleteOnExit();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.wrap(contents);
+			while (buffer.hasRemaining()) channel.write(buffer);
+		}
+		return file;
+	}
+
+	private Payloads() { }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams.benchmarks;
+
+import static com.tomgibara.streams.benchmarks.Payloads.CHUNK;
+import static com.tomgibara.streams.benchmarks.Payloads.SIZE;
+import static com.tomgibara.streams.benchmarks.Payloads.STRING_BYTES;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.tomgibara.streams.ReadStream;
+import com.tomgibara.streams.StreamBuffering;
+import com.tomgibara.streams.StreamCloser;
+import com.tomgibara.streams.Streams;
+
+/**
+ * Measures the throughput of each operation on each {@link ReadStream}
+ * implementation; scores are reported per operation. Compare with
+ * {@link BaselineReadBenchmark}.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadBenchmark {
+
+	public enum Source {
+		BYTES,
+		HEAP_BUFFER,
+		DIRECT_BUFFER,
+		CHANNEL,
+		INPUT,
+		DATA_INPUT,
+	}
+
+	@Param
+	public Source source;
+
+	private byte[] data;
+	private ByteBuffer heapData;
+	private ByteBuffer directData;
+	private Path file;
+	private FileChannel channel;
+
+	private final byte[] chunk = new byte[CHUNK];
+	private ByteBuffer buffer;
+	private ReadStream stream;
+
+	@Setup(Level.Trial)
+	public void prepare() throws IOException {
+		data = Payloads.strings();
+		heapData = ByteBuffer.wrap(data);
+		directData = ByteBuffer.allocateDirect(data.length);
+		directData.put(data).flip();
+		file = Payloads.tempFile(data);
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+	}
+
+	@TearDown(Level.Trial)
+	public void cleanup() throws IOException {
+		channel.close();
+		Files.deleteIfExists(file);
+	}
+
+	@Setup(Level.Invocation)
+	public void open() throws IOException {
+		switch (source) {
+		case BYTES:
+			stream = Streams.bytes(data).readStream();
+			break;
+		case HEAP_BUFFER:
+			heapData.clear();
+			stream = Streams.streamBuffer(heapData).readStream();
+			break;
+		case DIRECT_BUFFER:
+			directData.clear();
+			stream = Streams.streamBuffer(directData).readStream();
+			break;
+		case CHANNEL:
+			channel.position(0L);
+			stream = Streams.streamReadable(channel).closedWith(StreamCloser.doNothing());
+			break;
+		case INPUT:
+			stream = Streams.streamInput(new ByteArrayInputStream(data));
+			break;
+		case DATA_INPUT:
+			stream = Streams.streamDataInput(new DataInputStream(new ByteArrayInputStream(data)));
+			break;
+		default:
+			throw new IllegalStateException();
+		}
+		// use the buffer type that the stream prefers
+		if (buffer == null || buffer.isDirect() != (stream.getBuffering() == StreamBuffering.PREFER_DIRECT)) {
+			buffer = stream.getBuffering() == StreamBuffering.PREFER_DIRECT ? ByteBuffer.allocateDirect(CHUNK) : ByteBuffer.allocate(CHUNK);
+		}
+	}
+
+	@TearDown(Level.Invocation)
+	public void close() {
+		stream.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public void readByte(Blackhole bh) {
+		ReadStream s = stream;
+		for (int i = 0; i < SIZE; i++) {
+			bh.consume(s.readByte());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / 4)
+	public void readInt(Blackhole bh) {
+		ReadStream s = stream;
+		for (int i = 0; i < SIZE / 4; i++) {
+			bh.consume(s.readInt());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / 8)
+	public void readLong(Blackhole bh) {
+		ReadStream s = stream;
+		for (int i = 0; i < SIZE / 8; i++) {
+			bh.consume(s.readLong());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / 8)
+	public void readDouble(Blackhole bh) {
+		ReadStream s = stream;
+		for (int i = 0; i < SIZE / 8; i++) {
+			bh.consume(s.readDouble());
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / CHUNK)
+	public void readBytes(Blackhole bh) {
+		ReadStream s = stream;
+		byte[] bs = chunk;
+		for (int i = 0; i < SIZE / CHUNK; i++) {
+			s.readBytes(bs);
+			bh.consume(bs);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / CHUNK)
+	public void fillBuffer(Blackhole bh) {
+		ReadStream s = stream;
+		ByteBuffer b = buffer;
+		for (int i = 0; i < SIZE / CHUNK; i++) {
+			b.clear();
+			s.fillBuffer(b);
+			bh.consume(b);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / CHUNK)
+	public void skip() {
+		ReadStream s = stream;
+		for (int i = 0; i < SIZE / CHUNK; i++) {
+			s.skip(CHUNK);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / STRING_BYTES)
+	public void readChars(Blackhole bh) {
+		ReadStream s = stream;
+		for (int i = 0; i < SIZE / STRING_BYTES; i++) {
+			bh.consume(s.readChars());
+		}
+	}
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams.benchmarks;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tomgibara.streams.ReadStream;
+import com.tomgibara.streams.StreamTransfer;
+import com.tomgibara.streams.Streams;
+import com.tomgibara.streams.WriteStream;
+
+/**
+ * Sweeps source type &times; target type &times; buffer size &times;
+ * buffering for {@link StreamTransfer}. The auxiliary
+ * <code>gigabytes</code> counter reports throughput in GB/s. The
+ * <code>DEFAULT</code> buffering uses whatever buffer the transfer would
+ * choose for itself, so comparing it with the <code>HEAP</code> and
+ * <code>DIRECT</code> rows shows whether the default table is choosing well.
+ *
+ * <p>
+ * Files are created in <code>/dev/shm</code> where it is available so that
+ * measurements are not dominated by storage; a different directory can be
+ * specified with the <code>streams.benchmark.dir</code> system property.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransferBenchmark {
+
+	private static final int SIZE = 16 << 20;
+
+	public enum Source {
+		BYTES,
+		HEAP_BUFFER,
+		DIRECT_BUFFER,
+		CHANNEL,
+		INPUT,
+	}
+
+	public enum Target {
+		BYTES,
+		HEAP_BUFFER,
+		DIRECT_BUFFER,
+		CHANNEL,
+		OUTPUT,
+	}
+
+	public enum Buffering {
+		// the buffer chosen by StreamTransfer
+		DEFAULT,
+		HEAP,
+		DIRECT,
+	}
+
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class Counters {
+
+		public double gigabytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			gigabytes = 0;
+		}
+	}
+
+	@Param
+	public Source source;
+
+	@Param
+	public Target target;
+
+	@Param({"1024", "8192", "65536", "262144"})
+	public int bufferSize;
+
+	@Param
+	public Buffering buffering;
+
+	private byte[] data;
+	private ByteBuffer heapData;
+	private ByteBuffer directData;
+	private Path inFile;
+	private Path outFile;
+	private byte[] outBytes;
+	private ByteBuffer outHeap;
+	private ByteBuffer outDirect;
+
+	private ByteBuffer buffer;
+	private ReadStream reader;
+	private WriteStream writer;
+
+	@Setup(Level.Trial)
+	public void prepare() throws IOException {
+		data = Payloads.records(SIZE);
+		heapData = ByteBuffer.wrap(data);
+		directData = ByteBuffer.allocateDirect(SIZE);
+		directData.put(data).flip();
+		Path dir = directory();
+		inFile = Files.createTempFile(dir, "streams-benchmark", ".in");
+		outFile = Files.createTempFile(dir, "streams-benchmark", ".out");
+		Files.write(inFile, data);
+		outBytes = new byte[SIZE];
+		outHeap = ByteBuffer.allocate(SIZE);
+		outDirect = ByteBuffer.allocateDirect(SIZE);
+		switch (buffering) {
+		case HEAP:   buffer = ByteBuffer.allocate(bufferSize);       break;
+		case DIRECT: buffer = ByteBuffer.allocateDirect(bufferSize); break;
+		default:     buffer = null;
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void cleanup() throws IOException {
+		Files.deleteIfExists(inFile);
+		Files.deleteIfExists(outFile);
+	}
+
+	@Setup(Level.Invocation)
+	public void open() throws IOException {
+		switch (source) {
+		case BYTES:         reader = Streams.bytes(data).readStream(); break;
+		case HEAP_BUFFER:   reader = Streams.streamBuffer(heapData.duplicate()).readStream(); break;
+		case DIRECT_BUFFER: reader = Streams.streamBuffer(directData.duplicate()).readStream(); break;
+		case CHANNEL:       reader = Streams.streamReadable(FileChannel.open(inFile)); break;
+		case INPUT:         reader = Streams.streamInput(new FileInputStream(inFile.toFile())); break;
+		default: throw new IllegalStateException();
+		}
+		switch (target) {
+		case BYTES:         writer = Streams.bytes(outBytes, 0, SIZE).writeStream(); break;
+		case HEAP_BUFFER:   writer = Streams.streamBuffer((ByteBuffer) outHeap.clear()).writeStream(); break;
+		case DIRECT_BUFFER: writer = Streams.streamBuffer((ByteBuffer) outDirect.clear()).writeStream(); break;
+		case CHANNEL:       writer = Streams.streamWritable(FileChannel.open(outFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)); break;
+		case OUTPUT:        writer = Streams.streamOutput(new FileOutputStream(outFile.toFile())); break;
+		default: throw new IllegalStateException();
+		}
+	}
+
+	@TearDown(Level.Invocation)
+	public void close() {
+		reader.close();
+		writer.close();
+	}
+
+	@Benchmark
+	public long transfer(Counters counters) {
+		StreamTransfer transfer;
+		if (buffer == null) {
+			transfer = reader.to(writer, bufferSize);
+		} else {
+			buffer.clear();
+			transfer = reader.to(writer, buffer);
+		}
+		long count = transfer.transferFully().bytesTransfered();
+		counters.gigabytes += count / 1e9;
+		return count;
+	}
+
+	private static Path directory() {
+		String dir = System.getProperty("streams.benchmark.dir");
+		if (dir != null) return Paths.get(dir);
+		Path shm = Paths.get("/dev/shm");
+		return Files.isDirectory(shm) && Files.isWritable(shm) ? shm : Paths.get(System.getProperty("java.io.tmpdir"));
+	}
+
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams.benchmarks;
+
+import static com.tomgibara.streams.benchmarks.Payloads.CHUNK;
+import static com.tomgibara.streams.benchmarks.Payloads.SIZE;
+import static com.tomgibara.streams.benchmarks.Payloads.STRING;
+import static com.tomgibara.streams.benchmarks.Payloads.STRING_BYTES;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tomgibara.streams.StreamBuffering;
+import com.tomgibara.streams.StreamCloser;
+import com.tomgibara.streams.Streams;
+import com.tomgibara.streams.WriteStream;
+
+/**
+ * Measures the throughput of each operation on each {@link WriteStream}
+ * implementation; scores are reported per operation. Destinations are sized
+ * to hold a whole invocation and are reused to avoid measuring growth.
+ * Compare with {@link BaselineWriteBenchmark}.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteBenchmark {
+
+	public enum Target {
+		BYTES,
+		HEAP_BUFFER,
+		DIRECT_BUFFER,
+		CHANNEL,
+		OUTPUT,
+		DATA_OUTPUT,
+	}
+
+	@Param
+	public Target target;
+
+	private byte[] bytes;
+	private ByteBuffer heapData;
+	private ByteBuffer directData;
+	private ByteArrayOutputStream out;
+	private Path file;
+	private FileChannel channel;
+
+	private final byte[] chunk = new byte[CHUNK];
+	private ByteBuffer buffer;
+	private WriteStream stream;
+
+	@Setup(Level.Trial)
+	public void prepare() throws IOException {
+		bytes = new byte[SIZE];
+		heapData = ByteBuffer.allocate(SIZE);
+		directData = ByteBuffer.allocateDirect(SIZE);
+		out = new ByteArrayOutputStream(SIZE);
+		file = Files.createTempFile("streams-benchmark", ".bin");
+		file.toFile().deleteOnExit();
+		channel = FileChannel.open(file, StandardOpenOption.WRITE);
+	}
+
+	@TearDown(Level.Trial)
+	public void cleanup() throws IOException {
+		channel.close();
+		Files.deleteIfExists(file);
+	}
+
+	@Setup(Level.Invocation)
+	public void open() throws IOException {
+		switch (target) {
+		case BYTES:
+			stream = Streams.bytes(bytes, 0, SIZE).writeStream();
+			break;
+		case HEAP_BUFFER:
+			heapData.clear();
+			stream = Streams.streamBuffer(heapData).writeStream();
+			break;
+		case DIRECT_BUFFER:
+			directData.clear();
+			stream = Streams.streamBuffer(directData).writeStream();
+			break;
+		case CHANNEL:
+			channel.position(0L);
+			stream = Streams.streamWritable(channel).closedWith(StreamCloser.doNothing());
+			break;
+		case OUTPUT:
+			out.reset();
+			stream = Streams.streamOutput(out);
+			break;
+		case DATA_OUTPUT:
+			out.reset();
+			stream = Streams.streamDataOutput(new DataOutputStream(out));
+			break;
+		default:
+			throw new IllegalStateException();
+		}
+		// use the buffer type that the stream prefers
+		if (buffer == null || buffer.isDirect() != (stream.getBuffering() == StreamBuffering.PREFER_DIRECT)) {
+			buffer = stream.getBuffering() == StreamBuffering.PREFER_DIRECT ? ByteBuffer.allocateDirect(CHUNK) : ByteBuffer.allocate(CHUNK);
+		}
+	}
+
+	@TearDown(Level.Invocation)
+	public void close() {
+		stream.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE)
+	public void writeByte() {
+		WriteStream s = stream;
+		for (int i = 0; i < SIZE; i++) {
+			s.writeByte((byte) i);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / 4)
+	public void writeInt() {
+		WriteStream s = stream;
+		for (int i = 0; i < SIZE / 4; i++) {
+			s.writeInt(i);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / 8)
+	public void writeLong() {
+		WriteStream s = stream;
+		for (int i = 0; i < SIZE / 8; i++) {
+			s.writeLong(i);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / 8)
+	public void writeDouble() {
+		WriteStream s = stream;
+		for (int i = 0; i < SIZE / 8; i++) {
+			s.writeDouble(i);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / CHUNK)
+	public void writeBytes() {
+		WriteStream s = stream;
+		byte[] bs = chunk;
+		for (int i = 0; i < SIZE / CHUNK; i++) {
+			s.writeBytes(bs);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / CHUNK)
+	public void drainBuffer() {
+		WriteStream s = stream;
+		ByteBuffer b = buffer;
+		for (int i = 0; i < SIZE / CHUNK; i++) {
+			b.clear();
+			s.drainBuffer(b);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(SIZE / STRING_BYTES)
+	public void writeChars() {
+		WriteStream s = stream;
+		for (int i = 0; i < SIZE / STRING_BYTES; i++) {
+			s.writeChars(STRING);
+		}
+	}
+
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static com.tomgibara.streams.BitWriteStream.mask;
+
+/**
+ * <p>
+ * A stream that reads values of arbitrary bit length from a wrapped stream.
+ * Bits are drawn from the wrapped stream one long at a time via
+ * {@link ReadStream#readLong()} and consumed most-significant first. Bytes and
+ * other primitives read from this stream occupy the corresponding number of
+ * bits and need not be aligned.
+ *
+ * <p>
+ * This class reads the bits written by a {@link BitWriteStream}. Since bits
+ * are drawn from the wrapped stream in whole longs, the wrapped stream is
+ * expected to supply a multiple of eight bytes.
+ *
+ * <p>
+ * Instances of this class are obtained via {@link ReadStream#bits()}.
+ *
+ * @author Tom Gibara
+ *
+ * @see BitWriteStream
+ */
+
+public final class BitReadStream implements ReadStream {
+
+	// reused by the default sequence methods of ReadStream to avoid allocation
+	private static final ThreadLocal<BitReadStream> pooled = ThreadLocal.withInitial(() -> new BitReadStream(null));
+
+	// obtains a bit stream over the supplied stream which must be released after use
+	static BitReadStream borrow(ReadStream wrapped) {
+		BitReadStream bits = pooled.get();
+		// a sequence nested within another on the same thread cannot share the pooled instance
+		if (bits.wrapped != null) return new BitReadStream(wrapped);
+		bits.wrapped = wrapped;
+		return bits;
+	}
+
+	private ReadStream wrapped;
+	// the unread bits are the low count bits
+	private long acc = 0L;
+	private int count = 0;
+	private long bitPosition = 0L;
+	private boolean closed = false;
+	// state reused by the sequence codings, allocated on first use
+	private long[] scratch = null;
+	private XorCoding coder = null;
+
+	BitReadStream(ReadStream wrapped) {
+		this.wrapped = wrapped;
+	}
+
+	// detaches a borrowed bit stream from the stream it wrapped
+	void release() {
+		wrapped = null;
+		acc = 0L;
+		count = 0;
+		bitPosition = 0L;
+		closed = false;
+	}
+
+	long[] scratch() {
+		if (scratch == null) scratch = new long[SequenceCoding.BLOCK_SIZE];
+		return scratch;
+	}
+
+	XorCoding coder(int wordSize) {
+		if (coder == null) coder = new XorCoding();
+		return coder.reset(wordSize);
+	}
+
+	/**
+	 * Reads a number of bits, returning them as the least significant bits of
+	 * a long. Bits that are not read are zero.
+	 *
+	 * @param count
+	 *            the number of bits to read, from 0 to 64 inclusive
+	 * @return the bits read
+	 * @throws StreamException
+	 *             if the bits could not be read
+	 */
+
+	public long readBits(int count) throws StreamException {
+		if (count < 0 || count > 64) throw new IllegalArgumentException("invalid count");
+		if (closed) StreamException.raiseClosed();
+		long bits;
+		if (count <= this.count) {
+			this.count -= count;
+			bits = acc >>> this.count & mask(count);
+		} else {
+			// the accumulator is empty if count is 64, so shifting by 64 (ie. zero) is harmless
+			int need = count - this.count;
+			long high = acc & mask(this.count);
+			acc = wrapped.readLong();
+			this.count = 64 - need;
+			bits = high << need | acc >>> this.count;
+		}
+		bitPosition += count;
+		return bits;
+	}
+
+	/**
+	 * Skips a number of bits. Whole longs are skipped via
+	 * {@link ReadStream#skip(long)} on the wrapped stream.
+	 *
+	 * @param count
+	 *            the number of bits to skip
+	 * @throws StreamException
+	 *             if the bits could not be skipped
+	 */
+
+	public void skipBits(long count) throws StreamException {
+		if (count < 0L) throw new IllegalArgumentException("negative count");
+		if (closed) StreamException.raiseClosed();
+		if (count <= this.count) {
+			this.count -= count;
+			bitPosition += count;
+			return;
+		}
+		long remaining = count - this.count;
+		bitPosition += this.count;
+		this.count = 0;
+		long longs = remaining >>> 6;
+		wrapped.skip(longs << 3);
+		bitPosition += longs << 6;
+		readBits((int) remaining & 63);
+	}
+
+	/**
+	 * Reads a single bit.
+	 *
+	 * @return the bit read
+	 * @throws StreamException
+	 *             if the bit could not be read
+	 */
+
+	public boolean readBit() throws StreamException {
+		return readBits(1) != 0L;
+	}
+
+	/**
+	 * Reads values into an array, each occupying a fixed number of bits. Values
+	 * narrower than 32 bits are not sign extended.
+	 *
+	 * @param values
+	 *            an array to receive the values
+	 * @param off
+	 *            the index at which the first value is to be stored
+	 * @param len
+	 *            the number of values to read
+	 * @param width
+	 *            the number of bits read for each value, from 0 to 32
+	 *            inclusive
+	 * @throws StreamException
+	 *             if the values could not be read
+	 */
+
+	public void readInts(int[] values, int off, int len, int width) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		if (width < 0 || width > 32) throw new IllegalArgumentException("invalid width");
+		if (off < 0 || len < 0 || off + len > values.length) throw new IndexOutOfBoundsException();
+		int lim = off + len;
+		for (int i = off; i < lim; i++) {
+			values[i] = (int) readBits(width);
+		}
+	}
+
+	/**
+	 * Skips bits until the number of bits read is a multiple of the specified
+	 * boundary.
+	 *
+	 * @param boundary
+	 *            a power of two no greater than 64
+	 * @return the number of bits skipped to achieve alignment
+	 * @throws StreamException
+	 *             if the bits could not be skipped
+	 */
+
+	public int align(int boundary) throws StreamException {
+		if (boundary <= 0 || boundary > 64 || Integer.bitCount(boundary) != 1) throw new IllegalArgumentException("invalid boundary");
+		int padding = (int) -bitPosition & (boundary - 1);
+		readBits(padding);
+		return padding;
+	}
+
+	/**
+	 * The number of bits read from this stream.
+	 *
+	 * @return the bit position of the stream
+	 */
+
+	public long bitPosition() {
+		return bitPosition;
+	}
+
+	@Override
+	public byte readByte() throws StreamException {
+		return (byte) readBits(8);
+	}
+
+	@Override
+	public void readBytes(byte[] bs, int off, int len) throws StreamException {
+		if (closed) StreamException.raiseClosed();
+		if (count == 0 && len >= 8) {
+			// accumulator is empty: whole longs can pass straight through
+			int length = len & ~7;
+			wrapped.readBytes(bs, off, length);
+			bitPosition += (long) length << 3;
+			off += length;
+			len -= length;
+		}
+		int lim = off + len;
+		for (int i = off; i < lim; i++) {
+			bs[i] = (byte) readBits(8);
+		}
+	}
+
+	@Override
+	public void readBytes(byte[] bs) throws StreamException {
+		readBytes(bs, 0, bs.length);
+	}
+
+	@Override
+	public short readShort() throws StreamException {
+		return (short) readBits(16);
+	}
+
+	@Override
+	public char readChar() throws StreamException {
+		return (char) readBits(16);
+	}
+
+	@Override
+	public int readInt() throws StreamException {
+		return (int) readBits(32);
+	}
+
+	@Override
+	public long readLong() throws StreamException {
+		return readBits(64);
+	}
+
+	/**
+	 * Reads encoded values directly from this stream, consistent with
+	 * {@link BitWriteStream#writeLongSequence(long[], int, int, SequenceCodec)}.
+	 */
+
+	@Override
+	public void readLongSequence(long[] values, int off, int len) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		SequenceCoding.readLongs(this, values, off, len);
+	}
+
+	/**
+	 * Reads encoded values directly from this stream, consistent with
+	 * {@link BitWriteStream#writeIntSequence(int[], int, int, SequenceCodec)}.
+	 */
+
+	@Override
+	public void readIntSequence(int[] values, int off, int len) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		SequenceCoding.readInts(this, values, off, len);
+	}
+
+	/**
+	 * Reads encoded values directly from this stream, consistent with
+	 * {@link BitWriteStream#writeDoubleSequence(double[], int, int, int)}.
+	 */
+
+	@Override
+	public void readDoubleSequence(double[] values, int off, int len, int blockSize) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		if (blockSize < 0) throw new IllegalArgumentException("negative blockSize");
+		XorCoding.readDoubles(this, values, off, len, blockSize);
+	}
+
+	/**
+	 * Reads encoded values directly from this stream, consistent with
+	 * {@link BitWriteStream#writeFloatSequence(float[], int, int, int)}.
+	 */
+
+	@Override
+	public void readFloatSequence(float[] values, int off, int len, int blockSize) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		if (blockSize < 0) throw new IllegalArgumentException("negative blockSize");
+		XorCoding.readFloats(this, values, off, len, blockSize);
+	}
+
+	@Override
+	public void skipDoubleSequence(int len, int blockSize) throws StreamException {
+		if (blockSize <= 0) throw new IllegalArgumentException("non-positive blockSize");
+		if (len < 0 || len % blockSize != 0) throw new IllegalArgumentException("len not a whole number of blocks");
+		XorCoding.skipBlocks(this, len, blockSize);
+	}
+
+	/**
+	 * Discards any unread bits and closes the wrapped stream.
+	 */
+
+	@Override
+	public void close() throws StreamException {
+		if (closed) return;
+		closed = true;
+		count = 0;
+		wrapped.close();
+	}
+
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+/**
+ * <p>
+ * A stream that writes values of arbitrary bit length to a wrapped stream.
+ * Bits are accumulated most-significant first into a long which is written to
+ * the wrapped stream via {@link WriteStream#writeLong(long)} each time it is
+ * filled. Bytes and other primitives written to this stream occupy the
+ * corresponding number of bits and need not be aligned.
+ *
+ * <p>
+ * Because the wrapped stream only receives whole longs, bits that partially
+ * fill the accumulator are only written when the stream is aligned to a
+ * 64-bit boundary, which occurs automatically when the stream is closed. The
+ * bits written to this stream can be read back with a {@link BitReadStream}.
+ *
+ * <p>
+ * Instances of this class are obtained via {@link WriteStream#bits()}.
+ *
+ * @author Tom Gibara
+ *
+ * @see BitReadStream
+ */
+
+public final class BitWriteStream implements WriteStream {
+
+	static long mask(int count) {
+		return count == 0 ? 0L : -1L >>> (64 - count);
+	}
+
+	// reused by the default sequence methods of WriteStream to avoid allocation
+	private static final ThreadLocal<BitWriteStream> pooled = ThreadLocal.withInitial(() -> new BitWriteStream(null));
+
+	// obtains a bit stream over the supplied stream which must be released after use
+	static BitWriteStream borrow(WriteStream wrapped) {
+		BitWriteStream bits = pooled.get();
+		// a sequence nested within another on the same thread cannot share the pooled instance
+		if (bits.wrapped != null) return new BitWriteStream(wrapped);
+		bits.wrapped = wrapped;
+		return bits;
+	}
+
+	private WriteStream wrapped;
+	// bits are accumulated in the low bits
+	private long acc = 0L;
+	private int count = 0;
+	private long bitPosition = 0L;
+	private boolean closed = false;
+	// state reused by the sequence codings, allocated on first use
+	private long[] scratch = null;
+	private XorCoding coder = null;
+
+	BitWriteStream(WriteStream wrapped) {
+		this.wrapped = wrapped;
+	}
+
+	// detaches a borrowed bit stream from the stream it wrapped
+	void release() {
+		wrapped = null;
+		acc = 0L;
+		count = 0;
+		bitPosition = 0L;
+		closed = false;
+	}
+
+	long[] scratch() {
+		if (scratch == null) scratch = new long[SequenceCoding.BLOCK_SIZE];
+		return scratch;
+	}
+
+	XorCoding coder(int wordSize) {
+		if (coder == null) coder = new XorCoding();
+		return coder.reset(wordSize);
+	}
+
+	/**
+	 * Writes the least significant bits of a value, most significant bit
+	 * first.
+	 *
+	 * @param value
+	 *            the value whose bits are to be written
+	 * @param count
+	 *            the number of bits to write, from 0 to 64 inclusive
+	 * @throws StreamException
+	 *             if the bits could not be written
+	 */
+
+	public void writeBits(long value, int count) throws StreamException {
+		if (count < 0 || count > 64) throw new IllegalArgumentException("invalid count");
+		if (closed) StreamException.raiseClosed();
+		if (count == 0) return;
+		value &= mask(count);
+		int free = 64 - this.count;
+		if (count < free) {
+			acc = acc << count | value;
+			this.count += count;
+		} else {
+			// the accumulator is empty if count is 64, so shifting by 64 (ie. zero) is harmless
+			int rem = count - free;
+			wrapped.writeLong(acc << free | value >>> rem);
+			acc = value & mask(rem);
+			this.count = rem;
+		}
+		bitPosition += count;
+	}
+
+	/**
+	 * Writes a single bit.
+	 *
+	 * @param bit
+	 *            the bit to write
+	 * @throws StreamException
+	 *             if the bit could not be written
+	 */
+
+	public void writeBit(boolean bit) throws StreamException {
+		writeBits(bit ? 1L : 0L, 1);
+	}
+
+	/**
+	 * Writes values from an array, each occupying a fixed number of bits; the
+	 * least significant bits of each value are written.
+	 *
+	 * @param values
+	 *            an array of values
+	 * @param off
+	 *            the index of the first value to write
+	 * @param len
+	 *            the number of values to write
+	 * @param width
+	 *            the number of bits written for each value, from 0 to 32
+	 *            inclusive
+	 * @throws StreamException
+	 *             if the values could not be written
+	 */
+
+	public void writeInts(int[] values, int off, int len, int width) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		if (width < 0 || width > 32) throw new IllegalArgumentException("invalid width");
+		if (off < 0 || len < 0 || off + len > values.length) throw new IndexOutOfBoundsException();
+		int lim = off + len;
+		for (int i = off; i < lim; i++) {
+			writeBits(values[i], width);
+		}
+	}
+
+	/**
+	 * Writes zero bits until the number of bits written is a multiple of the
+	 * specified boundary. Aligning to 64 bits causes all accumulated bits to be
+	 * written to the wrapped stream.
+	 *
+	 * @param boundary
+	 *            a power of two no greater than 64
+	 * @return the number of bits written to achieve alignment
+	 * @throws StreamException
+	 *             if the padding could not be written
+	 */
+
+	public int align(int boundary) throws StreamException {
+		if (boundary <= 0 || boundary > 64 || Integer.bitCount(boundary) != 1) throw new IllegalArgumentException("invalid boundary");
+		int padding = (int) -bitPosition & (boundary - 1);
+		writeBits(0L, padding);
+		return padding;
+	}
+
+	/**
+	 * The number of bits written to this stream.
+	 *
+	 * @return the bit position of the stream
+	 */
+
+	public long bitPosition() {
+		return bitPosition;
+	}
+
+	@Override
+	public void writeByte(byte v) throws StreamException {
+		writeBits(v, 8);
+	}
+
+	@Override
+	public void writeBytes(byte[] bs, int off, int len) throws StreamException {
+		if (closed) StreamException.raiseClosed();
+		if (count == 0 && len >= 8) {
+			// accumulator is empty: whole longs can pass straight through
+			int length = len & ~7;
+			wrapped.writeBytes(bs, off, length);
+			bitPosition += (long) length << 3;
+			off += length;
+			len -= length;
+		}
+		int lim = off + len;
+		for (int i = off; i < lim; i++) {
+			writeBits(bs[i], 8);
+		}
+	}
+
+	@Override
+	public void writeBytes(byte[] bs) throws StreamException {
+		writeBytes(bs, 0, bs.length);
+	}
+
+	@Override
+	public int tryWriteBytes(byte[] bs, int off, int len) throws StreamException {
+		writeBytes(bs, off, len);
+		return len;
+	}
+
+	@Override
+	public void writeShort(short v) throws StreamException {
+		writeBits(v, 16);
+	}
+
+	@Override
+	public void writeChar(char v) throws StreamException {
+		writeBits(v, 16);
+	}
+
+	@Override
+	public void writeInt(int v) throws StreamException {
+		writeBits(v, 32);
+	}
+
+	@Override
+	public void writeLong(long v) throws StreamException {
+		writeBits(v, 64);
+	}
+
+	/**
+	 * Writes the encoded values directly to this stream without any padding;
+	 * the encoding need not begin or end on a 64-bit boundary.
+	 */
+
+	@Override
+	public void writeLongSequence(long[] values, int off, int len, SequenceCodec codec) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		if (codec == null) throw new IllegalArgumentException("null codec");
+		SequenceCoding.writeLongs(this, values, off, len, codec);
+	}
+
+	/**
+	 * Writes the encoded values directly to this stream without any padding;
+	 * the encoding need not begin or end on a 64-bit boundary.
+	 */
+
+	@Override
+	public void writeIntSequence(int[] values, int off, int len, SequenceCodec codec) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		if (codec == null) throw new IllegalArgumentException("null codec");
+		SequenceCoding.writeInts(this, values, off, len, codec);
+	}
+
+	/**
+	 * Writes the encoded values directly to this stream. An unblocked
+	 * encoding is not padded; a blocked encoding is aligned to 64-bit
+	 * boundaries relative to the start of this stream.
+	 */
+
+	@Override
+	public void writeDoubleSequence(double[] values, int off, int len, int blockSize) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		if (blockSize < 0) throw new IllegalArgumentException("negative blockSize");
+		XorCoding.writeDoubles(this, values, off, len, blockSize);
+	}
+
+	/**
+	 * Writes the encoded values directly to this stream. An unblocked
+	 * encoding is not padded; a blocked encoding is aligned to 64-bit
+	 * boundaries relative to the start of this stream.
+	 */
+
+	@Override
+	public void writeFloatSequence(float[] values, int off, int len, int blockSize) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		if (blockSize < 0) throw new IllegalArgumentException("negative blockSize");
+		XorCoding.writeFloats(this, values, off, len, blockSize);
+	}
+
+	/**
+	 * Aligns the stream to a 64-bit boundary and closes the wrapped stream.
+	 */
+
+	@Override
+	public void close() throws StreamException {
+		if (closed) return;
+		align(64);
+		closed = true;
+		wrapped.close();
+	}
+
+}
@@ -0,0 +1,456 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * <p>
+ * A size-bounded cache of fixed-size blocks read from seekable channels. A
+ * single cache may be shared by any number of streams over any number of
+ * channels, and by streams operating on different threads; streams are
+ * obtained via {@link Streams#cachedReadable(SeekableByteChannel, BlockCache)}.
+ *
+ * <p>
+ * Blocks are held on the heap and evicted using the clock algorithm: each
+ * block carries a reference bit that is set whenever the block is hit, and a
+ * block is only evicted once the clock hand has passed it without it being
+ * referenced. This approximates least-recently-used eviction without any
+ * per-hit reordering.
+ *
+ * <p>
+ * To reduce contention between threads, the blocks are divided between up to
+ * sixteen segments, each with its own lock, index and clock; a block is
+ * assigned to a segment by hashing its key. Consequently, eviction
+ * approximates least-recently-used order within each segment rather than
+ * across the whole cache. A hit copies the cached bytes from the requested
+ * position to the end of the block, not the whole block.
+ *
+ * <p>
+ * The cache assumes that the cached content of a channel does not change; if
+ * a channel is modified, the cache should be cleared. The number of hits,
+ * misses, prefetched blocks and evictions are counted and may be used to tune
+ * the size of the cache.
+ *
+ * <p>
+ * Channels are held weakly; once a channel has been garbage collected, its
+ * blocks are discarded and its identity within the cache may be reused by
+ * another channel. Positions beyond 2<sup>40</sup> blocks into a channel
+ * cannot be cached.
+ *
+ * @author Tom Gibara
+ *
+ * @see Streams#blockCache(int, int)
+ */
+
+public final class BlockCache {
+
+	// number of bits used to identify the block within a channel
+	private static final int BLOCK_BITS = 40;
+	// the number of distinct channel identifiers available
+	private static final int MAX_IDS = 1 << 63 - BLOCK_BITS;
+	private static final long NO_KEY = -1L;
+	// the greatest number of segments into which the blocks are divided
+	private static final int MAX_SEGMENTS = 16;
+	// the least number of blocks for which a segment is created
+	private static final int MIN_SEGMENT_BLOCKS = 8;
+
+	private static long hash(long key) {
+		return key * 0x9e3779b97f4a7c15L;
+	}
+
+	private final int blockSize;
+	private final int blockCount;
+	private final Map<SeekableByteChannel, Registration> ids = new WeakHashMap<>();
+	// registrations are enqueued when their channels are collected, so that their ids can be recycled
+	private final ReferenceQueue<SeekableByteChannel> released = new ReferenceQueue<>();
+	private final Segment[] segments;
+	private final int segmentMask;
+	private final int maxIds;
+	private int nextId = 0;
+	// ids recycled from collected channels, all blocks of which have been discarded
+	private int[] freeIds = new int[0];
+	private int freeCount = 0;
+
+	BlockCache(int blockSize, int blockCount) {
+		this(blockSize, blockCount, MAX_IDS);
+	}
+
+	// the number of ids may be reduced for testing
+	BlockCache(int blockSize, int blockCount, int maxIds) {
+		this.blockSize = blockSize;
+		this.blockCount = blockCount;
+		this.maxIds = maxIds;
+		int count = 1;
+		while (count < MAX_SEGMENTS && count * 2 * MIN_SEGMENT_BLOCKS <= blockCount) count <<= 1;
+		segments = new Segment[count];
+		for (int i = 0; i < count; i++) {
+			segments[i] = new Segment(blockSize, blockCount / count + (i < blockCount % count ? 1 : 0));
+		}
+		segmentMask = count - 1;
+	}
+
+	/**
+	 * The number of bytes in each cached block.
+	 *
+	 * @return the block size
+	 */
+
+	public int blockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * The greatest number of blocks that the cache will hold.
+	 *
+	 * @return the block count
+	 */
+
+	public int blockCount() {
+		return blockCount;
+	}
+
+	/**
+	 * The number of block reads that were satisfied by the cache.
+	 *
+	 * @return the number of cache hits
+	 */
+
+	public long hits() {
+		long hits = 0L;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				hits += segment.hits;
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * The number of block reads that required the channel to be read.
+	 *
+	 * @return the number of cache misses
+	 */
+
+	public long misses() {
+		long misses = 0L;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				misses += segment.misses;
+			}
+		}
+		return misses;
+	}
+
+	/**
+	 * The number of blocks that were read ahead of their being requested, in
+	 * response to sequential access by a stream.
+	 *
+	 * @return the number of prefetched blocks
+	 */
+
+	public long prefetches() {
+		long prefetches = 0L;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				prefetches += segment.prefetches;
+			}
+		}
+		return prefetches;
+	}
+
+	/**
+	 * The number of blocks that have been evicted from the cache to make room
+	 * for others.
+	 *
+	 * @return the number of evictions
+	 */
+
+	public long evictions() {
+		long evictions = 0L;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				evictions += segment.evictions;
+			}
+		}
+		return evictions;
+	}
+
+	/**
+	 * Discards all cached blocks and resets the statistics of the cache. The
+	 * storage of the cache is retained.
+	 */
+
+	public void clear() {
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		int used = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				used += segment.used;
+			}
+		}
+		return "BlockCache[blockSize=" + blockSize + ", blockCount=" + blockCount + ", used=" + used + ", hits=" + hits() + ", misses=" + misses() + "]";
+	}
+
+	// package scoped methods called by cached streams
+
+	// identifies a channel in the keys of its blocks
+	synchronized long register(SeekableByteChannel channel) {
+		Registration registration = ids.get(channel);
+		if (registration == null) {
+			registration = new Registration(channel, nextId(), released);
+			ids.put(channel, registration);
+		}
+		return (long) registration.id << BLOCK_BITS;
+	}
+
+	// copies a cached block into the supplied array from the given offset, returning its length or -1 if it was not cached
+	int get(long channelKey, long block, int from, byte[] bytes) {
+		long key = key(channelKey, block);
+		Segment segment = segment(key);
+		synchronized (segment) {
+			return segment.get(key, from, bytes);
+		}
+	}
+
+	// caches consecutive blocks read from a channel, the first of which was requested
+	void put(long channelKey, long block, byte[] bytes, int length) {
+		for (int off = 0; off < length; off += blockSize, block++) {
+			long key = key(channelKey, block);
+			Segment segment = segment(key);
+			synchronized (segment) {
+				segment.put(key, bytes, off, Math.min(blockSize, length - off), off > 0);
+			}
+		}
+	}
+
+	private static long key(long channelKey, long block) {
+		// larger block indices would collide with the identifiers of other channels
+		if (block >>> BLOCK_BITS != 0L) throw new StreamException("position beyond cacheable range");
+		return channelKey | block;
+	}
+
+	// issues unused ids before recycling those of collected channels
+	private int nextId() {
+		if (nextId < maxIds) return nextId++;
+		if (freeCount == 0) reclaimIds();
+		if (freeCount == 0) throw new IllegalStateException("too many channels");
+		return freeIds[--freeCount];
+	}
+
+	// discards the blocks of collected channels so that their ids may be reused
+	private void reclaimIds() {
+		int count = 0;
+		int[] reclaimed = new int[16];
+		for (Registration r; (r = (Registration) released.poll()) != null; ) {
+			if (count == reclaimed.length) reclaimed = Arrays.copyOf(reclaimed, count * 2);
+			reclaimed[count++] = r.id;
+		}
+		if (count == 0) return;
+		Arrays.sort(reclaimed, 0, count);
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				segment.discard(reclaimed, count);
+			}
+		}
+		freeIds = reclaimed;
+		freeCount = count;
+	}
+
+	// segments are chosen with the high bits of the hash, indices use lower bits
+	private Segment segment(long key) {
+		return segments[(int) (hash(key) >>> 60) & segmentMask];
+	}
+
+	// an independently locked share of the blocks, evicted with its own clock
+	private static final class Segment {
+
+		private final int blockSize;
+		private final int blockCount;
+		private final Index index;
+		private final byte[][] blocks;
+		private final int[] lengths;
+		private final long[] keys;
+		private final boolean[] referenced;
+		private int used = 0;
+		private int hand = 0;
+
+		private long hits = 0L;
+		private long misses = 0L;
+		private long prefetches = 0L;
+		private long evictions = 0L;
+
+		Segment(int blockSize, int blockCount) {
+			this.blockSize = blockSize;
+			this.blockCount = blockCount;
+			index = new Index(blockCount);
+			blocks = new byte[blockCount][];
+			lengths = new int[blockCount];
+			keys = new long[blockCount];
+			referenced = new boolean[blockCount];
+		}
+
+		int get(long key, int from, byte[] bytes) {
+			int slot = index.get(key);
+			if (slot == -1) {
+				misses++;
+				return -1;
+			}
+			hits++;
+			referenced[slot] = true;
+			int length = lengths[slot];
+			if (from < length) System.arraycopy(blocks[slot], from, bytes, from, length - from);
+			return length;
+		}
+
+		void put(long key, byte[] bytes, int off, int count, boolean prefetched) {
+			if (index.get(key) != -1) return;
+			int slot = claim();
+			byte[] data = blocks[slot];
+			if (data == null) blocks[slot] = data = new byte[blockSize];
+			System.arraycopy(bytes, off, data, 0, count);
+			lengths[slot] = count;
+			keys[slot] = key;
+			index.put(key, slot);
+			if (prefetched) prefetches++;
+		}
+
+		void clear() {
+			index.clear();
+			Arrays.fill(keys, NO_KEY);
+			Arrays.fill(referenced, false);
+			used = 0;
+			hand = 0;
+			hits = 0L;
+			misses = 0L;
+			prefetches = 0L;
+			evictions = 0L;
+		}
+
+		// discards the blocks of channels with the given ids, supplied in ascending order
+		void discard(int[] ids, int count) {
+			for (int slot = 0; slot < used; slot++) {
+				long key = keys[slot];
+				if (key == NO_KEY || Arrays.binarySearch(ids, 0, count, (int) (key >>> BLOCK_BITS)) < 0) continue;
+				index.remove(key);
+				keys[slot] = NO_KEY;
+				referenced[slot] = false;
+			}
+		}
+
+		private int claim() {
+			if (used < blockCount) return used++;
+			while (true) {
+				int slot = hand;
+				hand = hand + 1 == blockCount ? 0 : hand + 1;
+				if (referenced[slot]) {
+					referenced[slot] = false;
+				} else {
+					// slots may have been emptied by discarding blocks
+					if (keys[slot] != NO_KEY) {
+						index.remove(keys[slot]);
+						keys[slot] = NO_KEY;
+						evictions++;
+					}
+					return slot;
+				}
+			}
+		}
+	}
+
+	// records the id of a channel, and is enqueued when the channel is collected
+	private static final class Registration extends WeakReference<SeekableByteChannel> {
+
+		final int id;
+
+		Registration(SeekableByteChannel channel, int id, ReferenceQueue<SeekableByteChannel> queue) {
+			super(channel, queue);
+			this.id = id;
+		}
+	}
+
+	// an open addressing map from block keys to slots, using linear probing
+	private static final class Index {
+
+		private final long[] keys;
+		private final int[] slots;
+		private final int mask;
+
+		Index(int blockCount) {
+			int capacity = Integer.highestOneBit(Math.max(2, blockCount) * 2 - 1) << 1;
+			keys = new long[capacity];
+			slots = new int[capacity];
+			mask = capacity - 1;
+			Arrays.fill(keys, NO_KEY);
+		}
+
+		int get(long key) {
+			for (int i = hash(key); ; i = i + 1 & mask) {
+				long k = keys[i];
+				if (k == key) return slots[i];
+				if (k == NO_KEY) return -1;
+			}
+		}
+
+		void put(long key, int slot) {
+			int i = hash(key);
+			while (keys[i] != NO_KEY) i = i + 1 & mask;
+			keys[i] = key;
+			slots[i] = slot;
+		}
+
+		void remove(long key) {
+			int i = hash(key);
+			while (keys[i] != key) {
+				if (keys[i] == NO_KEY) return;
+				i = i + 1 & mask;
+			}
+			// shift back subsequent entries so that no probe sequence is broken
+			for (int j = i + 1 & mask; keys[j] != NO_KEY; j = j + 1 & mask) {
+				int h = hash(keys[j]);
+				if ((j - h & mask) >= (j - i & mask)) {
+					keys[i] = keys[j];
+					slots[i] = slots[j];
+					i = j;
+				}
+			}
+			keys[i] = NO_KEY;
+		}
+
+		void clear() {
+			Arrays.fill(keys, NO_KEY);
+		}
+
+		private int hash(long key) {
+			return (int) (BlockCache.hash(key) >>> 32) & mask;
+		}
+	}
+
+}
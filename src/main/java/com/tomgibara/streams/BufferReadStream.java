@@ -16,14 +16,22 @@
  */
 package com.tomgibara.streams;
 
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 
-final class BufferReadStream implements ReadStream {
+import com.tomgibara.streams.StreamStatistics.Type;
+
+final class BufferReadStream implements SeekableReadStream {
 
 	private final ByteBuffer buffer;
+	// the buffer position at which the stream starts
+	private final int start;
+	private boolean closed = false;
 
 	BufferReadStream(ByteBuffer buffer) {
 		this.buffer = buffer;
+		start = buffer.position();
+		StreamStatistics.opened(Type.BUFFER_READ);
 	}
 
 	@Override
@@ -80,6 +88,14 @@ final class BufferReadStream implements ReadStream {
 		buffer.get(bs, off, len);
 	}
 
+	@Override
+	public int tryReadBytes(byte[] bs, int off, int len) {
+		if (bs == null) throw new IllegalArgumentException("null bs");
+		int length = Math.min(len, buffer.remaining());
+		buffer.get(bs, off, length);
+		return length;
+	}
+
 	@Override
 	public void fillBuffer(ByteBuffer buffer) {
 		if (buffer == null) throw new IllegalArgumentException("null buffer");
@@ -110,4 +126,37 @@ final class BufferReadStream implements ReadStream {
 		return buffer.isDirect() ? StreamBuffering.PREFER_DIRECT : StreamBuffering.PREFER_INDIRECT;
 	}
 
+	@Override
+	public void close() {
+		if (closed) return;
+		closed = true;
+		StreamStatistics.closed(Type.BUFFER_READ);
+	}
+
+	@Override
+	public long position() {
+		return buffer.position() - start;
+	}
+
+	@Override
+	public long size() {
+		return buffer.limit() - start;
+	}
+
+	@Override
+	public void seek(long position) {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (position > buffer.limit() - start) {
+			((Buffer) buffer).position(buffer.limit());
+			throw EndOfStreamException.instance();
+		}
+		((Buffer) buffer).position(start + (int) position);
+	}
+
+	@Override
+	public void truncate(long size) {
+		if (size < 0L) throw new IllegalArgumentException("negative size");
+		if (size < buffer.limit() - start) ((Buffer) buffer).limit(start + (int) size);
+	}
+
 }
@@ -16,14 +16,24 @@
  */
 package com.tomgibara.streams;
 
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 
-final class BufferWriteStream implements WriteStream {
+import com.tomgibara.streams.StreamStatistics.Type;
+
+final class BufferWriteStream implements SeekableWriteStream {
 
 	private final ByteBuffer buffer;
+	// the buffer position at which the stream starts
+	private final int start;
+	// a reusable view of the buffer for claims
+	private ByteBuffer claimed = null;
+	private boolean closed = false;
 
 	BufferWriteStream(ByteBuffer buffer) {
 		this.buffer = buffer;
+		start = buffer.position();
+		StreamStatistics.opened(Type.BUFFER_WRITE);
 	}
 
 	@Override
@@ -80,6 +90,14 @@ final class BufferWriteStream implements WriteStream {
 		buffer.put(bs, off, len);
 	}
 
+	@Override
+	public int tryWriteBytes(byte[] bs, int off, int len) {
+		if (bs == null) throw new IllegalArgumentException("null bs");
+		int length = Math.min(len, buffer.remaining());
+		buffer.put(bs, off, length);
+		return length;
+	}
+
 	@Override
 	public void drainBuffer(ByteBuffer buffer) throws StreamException {
 		if (buffer == null) throw new IllegalArgumentException("null buffer");
@@ -87,9 +105,88 @@ final class BufferWriteStream implements WriteStream {
 		this.buffer.put(buffer);
 	}
 
+	@Override
+	public ByteBuffer claim(int length) {
+		if (length < 0) throw new IllegalArgumentException("negative length");
+		if (buffer.remaining() < length) throw EndOfStreamException.instance();
+		if (claimed == null) claimed = buffer.duplicate();
+		int position = buffer.position();
+		((Buffer) claimed).limit(position + length).position(position);
+		claimed.order(buffer.order());
+		return claimed;
+	}
+
+	@Override
+	public void commit(ByteBuffer claim) {
+		if (claim == null) throw new IllegalArgumentException("null claim");
+		if (claim != claimed) throw new IllegalArgumentException("not claimed");
+		int position = claim.position();
+		if (position < buffer.position() || position > buffer.limit()) throw new IllegalArgumentException("not claimed");
+		((Buffer) buffer).position(position);
+	}
+
 	@Override
 	public StreamBuffering getBuffering() {
 		return buffer.isDirect() ? StreamBuffering.PREFER_DIRECT : StreamBuffering.PREFER_INDIRECT;
 	}
 
+	@Override
+	public void close() {
+		if (closed) return;
+		closed = true;
+		StreamStatistics.closed(Type.BUFFER_WRITE);
+	}
+
+	@Override
+	public long position() {
+		return buffer.position() - start;
+	}
+
+	@Override
+	public long size() {
+		return buffer.limit() - start;
+	}
+
+	@Override
+	public void seek(long position) {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (position > buffer.limit() - start) {
+			((Buffer) buffer).position(buffer.limit());
+			throw EndOfStreamException.instance();
+		}
+		((Buffer) buffer).position(start + (int) position);
+	}
+
+	@Override
+	public void truncate(long size) {
+		if (size < 0L) throw new IllegalArgumentException("negative size");
+		if (size < buffer.limit() - start) ((Buffer) buffer).limit(start + (int) size);
+	}
+
+	@Override
+	public void patchByte(long position, byte v) {
+		buffer.put(patchIndex(position, 1), v);
+	}
+
+	@Override
+	public void patchShort(long position, short v) {
+		buffer.putShort(patchIndex(position, 2), v);
+	}
+
+	@Override
+	public void patchInt(long position, int v) {
+		buffer.putInt(patchIndex(position, 4), v);
+	}
+
+	@Override
+	public void patchLong(long position, long v) {
+		buffer.putLong(patchIndex(position, 8), v);
+	}
+
+	private int patchIndex(long position, int length) {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (position > buffer.limit() - start - length) throw EndOfStreamException.instance();
+		return start + (int) position;
+	}
+
 }
@@ -18,21 +18,26 @@ package com.tomgibara.streams;
 
 import java.nio.ByteBuffer;
 
+import com.tomgibara.streams.StreamStatistics.Type;
+
 /**
  * Reads values from a byte array. When the bytes in the array (or array
  * segment) are exhausted calling any read method on this class will result in
  * an {@link EndOfStreamException} being thrown. Closing this stream has no
- * effect.
+ * effect. Positions are measured from the start of the array segment and
+ * truncating the stream only limits the bytes that may be read; the array is
+ * never modified.
  *
  * @author Tom Gibara
  *
  * @see EndOfStreamException#EOS
  */
 
-final class BytesReadStream implements ReadStream {
+final class BytesReadStream implements SeekableReadStream {
 
 	private final byte[] bytes;
-	private final int limit;
+	private final int start;
+	private int limit;
 	private int position;
 
 	/**
@@ -44,8 +49,10 @@ final class BytesReadStream implements ReadStream {
 
 	BytesReadStream(byte[] bytes) {
 		this.bytes = bytes;
+		this.start = 0;
 		this.limit = bytes.length;
 		this.position = 0;
+		StreamStatistics.opened(Type.BYTES_READ);
 	}
 
 	/**
@@ -69,13 +76,15 @@ final class BytesReadStream implements ReadStream {
 		int limit = off + len;
 		if (limit > length) throw new IllegalArgumentException("off + len exceeds length");
 		this.bytes = bytes;
+		this.start = off;
 		this.position = off;
 		this.limit = limit;
+		StreamStatistics.opened(Type.BYTES_READ);
 	}
 
 	@Override
 	public long position() {
-		return position < 0 ? -1 - position : position;
+		return (position < 0 ? -1 - position : position) - start;
 	}
 
 	@Override
@@ -99,6 +108,15 @@ final class BytesReadStream implements ReadStream {
 		position += len;
 	}
 
+	@Override
+	public int tryReadBytes(byte[] bs, int off, int len) {
+		if (position < 0) StreamException.raiseClosed();
+		int length = Math.min(len, limit - position);
+		System.arraycopy(bytes, position, bs, off, length);
+		position += length;
+		return length;
+	}
+
 	@Override
 	public char readChar() {
 		requireBytes(2);
@@ -167,7 +185,7 @@ final class BytesReadStream implements ReadStream {
 		if (position < 0) StreamException.raiseClosed();
 		int remaining = limit - position;
 		if (length > remaining) {
-			position = remaining;
+			position = limit;
 			throw EndOfStreamException.instance();
 		}
 		position += length;
@@ -186,9 +204,47 @@ final class BytesReadStream implements ReadStream {
 		position += length;
 	}
 
+	@Override
+	public void readAt(long position, ByteBuffer buffer) {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (buffer == null) throw new IllegalArgumentException("null buffer");
+		if (this.position < 0) StreamException.raiseClosed();
+		if (position >= limit - start) return;
+		int from = start + (int) position;
+		buffer.put(bytes, from, Math.min(buffer.remaining(), limit - from));
+	}
+
 	@Override
 	public void close() {
-		if (position >= 0) position = -1 - position;
+		if (position < 0) return;
+		StreamStatistics.closed(Type.BYTES_READ);
+		position = -1 - position;
+	}
+
+	@Override
+	public long size() {
+		if (position < 0) StreamException.raiseClosed();
+		return limit - start;
+	}
+
+	@Override
+	public void seek(long position) {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (this.position < 0) StreamException.raiseClosed();
+		if (position > limit - start) {
+			this.position = limit;
+			throw EndOfStreamException.instance();
+		}
+		this.position = start + (int) position;
+	}
+
+	@Override
+	public void truncate(long size) {
+		if (size < 0L) throw new IllegalArgumentException("negative size");
+		if (position < 0) StreamException.raiseClosed();
+		if (size >= limit - start) return;
+		limit = start + (int) size;
+		if (position > limit) position = limit;
 	}
 
 	private void requireBytes(int count) {
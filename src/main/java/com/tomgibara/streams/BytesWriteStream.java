@@ -16,18 +16,23 @@
  */
 package com.tomgibara.streams;
 
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 
+import com.tomgibara.streams.StreamStatistics.Type;
+
 /**
  * Writes values to a growable byte array. Closing this writer results in all
- * subsequent writes throwing an {@link EndOfStreamException}.
+ * subsequent writes throwing an {@link EndOfStreamException}. Only bytes that
+ * have already been written may be patched.
  *
  * @author Tom Gibara
  *
  */
 
-final class BytesWriteStream implements WriteStream {
+final class BytesWriteStream implements PatchableWriteStream {
 
 	private static final int MIN_CAPACITY_INCR = 32;
 	private static final int MAX_CAPACITY_INCR = 1024 * 1024;
@@ -35,12 +40,15 @@ final class BytesWriteStream implements WriteStream {
 	private byte[] bytes;
 	private final int maxCapacity;
 	private int position;
+	// a reusable view of the bytes for claims
+	private ByteBuffer claimed = null;
 
 	BytesWriteStream(byte[] bytes, int maxCapacity) {
 		// invariant: maxCapacity >= bytes.length
 		this.bytes = bytes;
 		this.maxCapacity = maxCapacity;
 		position = 0;
+		StreamStatistics.opened(Type.BYTES_WRITE);
 	}
 
 	@Override
@@ -64,6 +72,14 @@ final class BytesWriteStream implements WriteStream {
 		position += len;
 	}
 
+	@Override
+	public int tryWriteBytes(byte[] vs, int off, int len) {
+		int length = attemptFurtherCapacity(len);
+		System.arraycopy(vs, off, bytes, position, length);
+		position += length;
+		return length;
+	}
+
 	@Override
 	public void writeBoolean(boolean v) {
 		ensureFurtherCapacity(1);
@@ -124,6 +140,73 @@ final class BytesWriteStream implements WriteStream {
 		position += length;
 	}
 
+	@Override
+	public ByteBuffer claim(int length) {
+		if (length < 0) throw new IllegalArgumentException("negative length");
+		ensureFurtherCapacity(length);
+		if (claimed == null || claimed.array() != bytes) {
+			claimed = ByteBuffer.wrap(bytes);
+		}
+		((Buffer) claimed).limit(position + length).position(position);
+		claimed.order(ByteOrder.BIG_ENDIAN);
+		return claimed;
+	}
+
+	@Override
+	public void commit(ByteBuffer claim) {
+		if (claim == null) throw new IllegalArgumentException("null claim");
+		if (claim != claimed || claim.array() != bytes) throw new IllegalArgumentException("not claimed");
+		if (isClosed()) StreamException.raiseClosed();
+		int p = claim.position();
+		if (p < position) throw new IllegalArgumentException("not claimed");
+		position = p;
+	}
+
+	@Override
+	public long reserve(int length) {
+		if (length < 0) throw new IllegalArgumentException("negative length");
+		ensureFurtherCapacity(length);
+		int mark = position;
+		position += length;
+		Arrays.fill(bytes, mark, position, (byte) 0);
+		return mark;
+	}
+
+	@Override
+	public void patchByte(long position, byte v) {
+		int i = patchIndex(position, 1);
+		bytes[i] = v;
+	}
+
+	@Override
+	public void patchShort(long position, short v) {
+		int i = patchIndex(position, 2);
+		bytes[i++] = (byte) (v >>  8);
+		bytes[i  ] = (byte) (v      );
+	}
+
+	@Override
+	public void patchInt(long position, int v) {
+		int i = patchIndex(position, 4);
+		bytes[i++] = (byte) (v >> 24);
+		bytes[i++] = (byte) (v >> 16);
+		bytes[i++] = (byte) (v >>  8);
+		bytes[i  ] = (byte) (v      );
+	}
+
+	@Override
+	public void patchLong(long position, long v) {
+		int i = patchIndex(position, 8);
+		bytes[i++] = (byte) (v >> 56);
+		bytes[i++] = (byte) (v >> 48);
+		bytes[i++] = (byte) (v >> 40);
+		bytes[i++] = (byte) (v >> 32);
+		bytes[i++] = (byte) (v >> 24);
+		bytes[i++] = (byte) (v >> 16);
+		bytes[i++] = (byte) (v >>  8);
+		bytes[i  ] = (byte) (v      );
+	}
+
 	/**
 	 * Closes the writer. All subsequent attempts to write to the writer will
 	 * fail with an {@link EndOfStreamException} as per the {@link #close()}
@@ -132,6 +215,8 @@ final class BytesWriteStream implements WriteStream {
 
 	@Override
 	public void close() {
+		if (isClosed()) return;
+		StreamStatistics.closed(Type.BYTES_WRITE);
 		position = -1 - position;
 	}
 
@@ -191,10 +276,19 @@ final class BytesWriteStream implements WriteStream {
 			if (c - bytes.length > MAX_CAPACITY_INCR) c = bytes.length + MAX_CAPACITY_INCR;
 			if (c < required) c = required;
 			if (c > maxCapacity) c = maxCapacity;
+			StreamEvents.bytesGrown(bytes.length, c);
+			StreamStatistics.bytesGrown(bytes.length);
 			bytes = Arrays.copyOf(bytes, c);
 		}
 	}
 
+	private int patchIndex(long position, int length) {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (isClosed()) StreamException.raiseClosed();
+		if (position > this.position - length) throw EndOfStreamException.instance();
+		return (int) position;
+	}
+
 	private int attemptFurtherCapacity(int n) {
 		if (isClosed()) StreamException.raiseClosed();
 		int required = position + n;
@@ -207,6 +301,8 @@ final class BytesWriteStream implements WriteStream {
 			if (c - bytes.length > MAX_CAPACITY_INCR) c = bytes.length + MAX_CAPACITY_INCR;
 			if (c < required) c = required;
 			if (c > maxCapacity) c = maxCapacity;
+			StreamEvents.bytesGrown(bytes.length, c);
+			StreamStatistics.bytesGrown(bytes.length);
 			bytes = Arrays.copyOf(bytes, c);
 		}
 		return required - position;
@@ -0,0 +1,307 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+
+import com.tomgibara.streams.StreamStatistics.Type;
+
+/**
+ * Reads values from a {@link SeekableByteChannel} through a shared
+ * {@link BlockCache}. The stream holds a private copy of the block containing
+ * its position, so most reads are served without consulting the cache. A
+ * block obtained from the cache is only copied from the position at which it
+ * was requested.
+ * Blocks that miss the cache are read from the channel; when the stream
+ * detects sequential access, the number of blocks read ahead is doubled with
+ * each consecutive miss, up to a fixed limit. Over a {@link FileChannel}
+ * positional reads are used, otherwise the channel position is saved and
+ * restored around each read. Closing the stream does not close the channel.
+ *
+ * @author Tom Gibara
+ *
+ * @see BlockCache
+ */
+
+final class CachedReadStream implements SeekableReadStream {
+
+	// the greatest number of blocks read from the channel at once
+	private static final int MAX_READ_AHEAD = 8;
+	// the greatest number of bytes read ahead, so that large blocks cannot overflow the read size
+	private static final int MAX_READ_AHEAD_BYTES = 1 << 26;
+
+	private final SeekableByteChannel channel;
+	private final BlockCache cache;
+	private final long channelKey;
+	private final int blockSize;
+	private final int maxReadAhead;
+	// a private copy of the current block
+	private final byte[] current;
+	// the position of the current block in the channel and its length
+	private long base = 0L;
+	private int length = 0;
+	// the offset from which the current block has been copied
+	private int start = 0;
+	// the stream position, negative when closed
+	private long position = 0L;
+	// reduced by truncation
+	private long limit = Long.MAX_VALUE;
+	// sequential access detection
+	private long nextMiss = -1L;
+	private int readAhead = 1;
+	// lazily allocated to read multiple blocks
+	private byte[] readBuffer = null;
+
+	CachedReadStream(SeekableByteChannel channel, BlockCache cache) {
+		this.channel = channel;
+		this.cache = cache;
+		channelKey = cache.register(channel);
+		blockSize = cache.blockSize();
+		maxReadAhead = Math.max(1, Math.min(MAX_READ_AHEAD, MAX_READ_AHEAD_BYTES / blockSize));
+		current = new byte[blockSize];
+		StreamStatistics.opened(Type.CACHED_READ);
+	}
+
+	@Override
+	public byte readByte() throws StreamException {
+		if (available() == 0) throw EndOfStreamException.instance();
+		return current[(int) (position++ - base)];
+	}
+
+	@Override
+	public void readBytes(byte[] bs) throws StreamException {
+		readBytes(bs, 0, bs.length);
+	}
+
+	@Override
+	public void readBytes(byte[] bs, int off, int len) throws StreamException {
+		if (tryReadBytes(bs, off, len) < len) throw EndOfStreamException.instance();
+	}
+
+	@Override
+	public int tryReadBytes(byte[] bs, int off, int len) throws StreamException {
+		if (off < 0 || len < 0 || off + len > bs.length) throw new IndexOutOfBoundsException();
+		int count = 0;
+		while (count < len) {
+			int available = available();
+			if (available == 0) break;
+			int length = Math.min(available, len - count);
+			System.arraycopy(current, (int) (position - base), bs, off + count, length);
+			position += length;
+			count += length;
+		}
+		return count;
+	}
+
+	@Override
+	public boolean readBoolean() throws StreamException {
+		return readByte() != 0;
+	}
+
+	@Override
+	public short readShort() throws StreamException {
+		if (available() < 2) return SeekableReadStream.super.readShort();
+		int i = (int) (position - base);
+		position += 2;
+		return (short) (current[i] << 8 | current[i + 1] & 0xff);
+	}
+
+	@Override
+	public char readChar() throws StreamException {
+		if (available() < 2) return SeekableReadStream.super.readChar();
+		int i = (int) (position - base);
+		position += 2;
+		return (char) (current[i] << 8 | current[i + 1] & 0xff);
+	}
+
+	@Override
+	public int readInt() throws StreamException {
+		if (available() < 4) return SeekableReadStream.super.readInt();
+		int i = (int) (position - base);
+		position += 4;
+		return
+				 current[i    ]         << 24 |
+				(current[i + 1] & 0xff) << 16 |
+				(current[i + 2] & 0xff) <<  8 |
+				 current[i + 3] & 0xff;
+	}
+
+	@Override
+	public long readLong() throws StreamException {
+		if (available() < 8) return SeekableReadStream.super.readLong();
+		return (long) readInt() << 32 | readInt() & 0xffffffffL;
+	}
+
+	@Override
+	public float readFloat() throws StreamException {
+		return Float.intBitsToFloat(readInt());
+	}
+
+	@Override
+	public double readDouble() throws StreamException {
+		return Double.longBitsToDouble(readLong());
+	}
+
+	@Override
+	public void fillBuffer(ByteBuffer buffer) throws StreamException {
+		while (buffer.hasRemaining()) {
+			int available = available();
+			if (available == 0) break;
+			int length = Math.min(available, buffer.remaining());
+			buffer.put(current, (int) (position - base), length);
+			position += length;
+		}
+	}
+
+	@Override
+	public void skip(long length) throws StreamException {
+		if (length < 0L) throw new IllegalArgumentException("negative length");
+		if (position < 0L) StreamException.raiseClosed();
+		long size = size();
+		if (length > size - position) {
+			position = size;
+			throw EndOfStreamException.instance();
+		}
+		position += length;
+	}
+
+	@Override
+	public StreamBuffering getBuffering() {
+		return StreamBuffering.PREFER_INDIRECT;
+	}
+
+	@Override
+	public long position() {
+		return position;
+	}
+
+	@Override
+	public long size() throws StreamException {
+		if (position < 0L) StreamException.raiseClosed();
+		try {
+			return Math.min(limit, channel.size());
+		} catch (IOException e) {
+			throw new StreamException(e);
+		}
+	}
+
+	@Override
+	public void seek(long position) throws StreamException {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		long size = size();
+		if (position > size) {
+			this.position = size;
+			throw EndOfStreamException.instance();
+		}
+		this.position = position;
+	}
+
+	/**
+	 * Limits the bytes that may be read from the stream; the channel is not
+	 * modified.
+	 */
+
+	@Override
+	public void truncate(long size) throws StreamException {
+		if (size < 0L) throw new IllegalArgumentException("negative size");
+		if (position < 0L) StreamException.raiseClosed();
+		if (size >= limit) return;
+		limit = size;
+		if (length > 0 && base + length > limit) length = (int) Math.max(0L, limit - base);
+		if (position > limit) position = limit;
+	}
+
+	/**
+	 * Closes the stream but not the underlying channel.
+	 */
+
+	@Override
+	public void close() {
+		if (position < 0L) return;
+		StreamStatistics.closed(Type.CACHED_READ);
+		position = -1L;
+	}
+
+	// the number of bytes available in the current block at the stream position, loading the block as necessary
+	private int available() {
+		if (position < 0L) StreamException.raiseClosed();
+		long offset = position - base;
+		if (offset >= start && offset < length) return length - (int) offset;
+		if (position >= limit) return 0;
+		long block = position / blockSize;
+		base = block * blockSize;
+		length = load(block, (int) (position - base));
+		if (base + length > limit) length = (int) (limit - base);
+		offset = position - base;
+		return offset < length ? length - (int) offset : 0;
+	}
+
+	// loads the block into the current copy, setting the offset from which it was copied
+	private int load(long block, int from) {
+		int length = cache.get(channelKey, block, from, current);
+		if (length >= 0) {
+			start = from;
+			return length;
+		}
+		start = 0;
+		// detect sequential access
+		readAhead = block == nextMiss ? Math.min(readAhead * 2, maxReadAhead) : 1;
+		nextMiss = block + readAhead;
+		if (readAhead == 1) {
+			length = read(block * blockSize, current, blockSize);
+			cache.put(channelKey, block, current, length);
+		} else {
+			int size = readAhead * blockSize;
+			if (readBuffer == null || readBuffer.length < size) readBuffer = new byte[size];
+			int count = read(block * blockSize, readBuffer, size);
+			cache.put(channelKey, block, readBuffer, count);
+			length = Math.min(count, blockSize);
+			System.arraycopy(readBuffer, 0, current, 0, length);
+		}
+		return length;
+	}
+
+	// reads from the channel at the specified position without disturbing its position
+	private int read(long position, byte[] bytes, int length) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+		try {
+			if (channel instanceof FileChannel) {
+				FileChannel file = (FileChannel) channel;
+				while (buffer.hasRemaining()) {
+					if (file.read(buffer, position + buffer.position()) == -1) break;
+				}
+			} else synchronized (channel) {
+				long original = channel.position();
+				channel.position(position);
+				try {
+					while (buffer.hasRemaining()) {
+						if (channel.read(buffer) == -1) break;
+					}
+				} finally {
+					channel.position(original);
+				}
+			}
+		} catch (IOException e) {
+			throw new StreamException(e);
+		}
+		return buffer.position();
+	}
+
+}
@@ -18,12 +18,15 @@ package com.tomgibara.streams;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
 
+import com.tomgibara.streams.StreamStatistics.Type;
+
 /**
  * Reads values from a {@link ReadableByteChannel}. Any {@link IOException}
  * encountered by this class is wrapped as {@link StreamException} and rethrown.
@@ -39,11 +42,17 @@ import java.nio.channels.SeekableByteChannel;
  * @see EndOfStreamException#EOS
  */
 
-final class ChannelReadStream implements ReadStream {
+class ChannelReadStream implements ReadStream {
+
+	// bulk reads of no more than this many bytes are staged through a buffer owned by the stream
+	private static final int STAGED_LENGTH = 1024;
 
 	private final ReadableByteChannel channel;
 	private final ByteBuffer buffer = ByteBuffer.allocate(8);
 	private final SeekableByteChannel seeker;
+	// stages short bulk reads so that they allocate nothing without retaining the caller's array
+	private ByteBuffer staging = null;
+	private boolean closed = false;
 
 	/**
 	 * Creates a stream that reads from the supplied channel. Bytes will be read
@@ -56,6 +65,7 @@ final class ChannelReadStream implements ReadStream {
 	ChannelReadStream(ReadableByteChannel channel) {
 		this.channel = channel;
 		seeker = Streams.seekerForChannel(channel);
+		StreamStatistics.opened(Type.CHANNEL_READ);
 	}
 
 	@Override
@@ -65,12 +75,17 @@ final class ChannelReadStream implements ReadStream {
 
 	@Override
 	public void readBytes(byte[] bs) throws StreamException {
-		fillBuffer(ByteBuffer.wrap(bs));
+		readArray(bs, 0, bs.length);
 	}
 
 	@Override
 	public void readBytes(byte[] bs, int off, int len) throws StreamException {
-		fillBuffer(ByteBuffer.wrap(bs, off, len));
+		readArray(bs, off, len);
+	}
+
+	@Override
+	public int tryReadBytes(byte[] bs, int off, int len) throws StreamException {
+		return readArray(bs, off, len);
 	}
 
 	@Override
@@ -115,14 +130,17 @@ final class ChannelReadStream implements ReadStream {
 
 	@Override
 	public void fillBuffer(ByteBuffer buffer) throws StreamException {
+		Object event = StreamEvents.beginBuffer();
+		int position = buffer.position();
 		try {
 			while (buffer.hasRemaining()) {
 				int count = channel.read(buffer);
-				if (count == -1) return;
+				if (count == -1) break;
 			}
 		} catch (IOException e) {
 			throw new StreamException(e);
 		}
+		StreamEvents.endFill(event, buffer.position() - position, buffer);
 	}
 
 	@Override
@@ -137,6 +155,7 @@ final class ChannelReadStream implements ReadStream {
 		}
 		if (position < 0L) { // seeker not actually supported, so fall back to default implementation
 			ReadStream.super.skip(length);
+			return;
 		}
 		// use position to skip
 		position += length;
@@ -187,6 +206,9 @@ final class ChannelReadStream implements ReadStream {
 
 	@Override
 	public void close() {
+		if (closed) return;
+		closed = true;
+		StreamStatistics.closed(Type.CHANNEL_READ);
 		try {
 			channel.close();
 		} catch (IOException e) {
@@ -213,4 +235,21 @@ final class ChannelReadStream implements ReadStream {
 		return buffer;
 	}
 
+	// reads into an array slice, returning the number of bytes read
+	private int readArray(byte[] bs, int off, int len) {
+		if (off < 0 || len < 0 || off + len > bs.length) throw new IndexOutOfBoundsException();
+		if (len > STAGED_LENGTH) {
+			ByteBuffer buffer = ByteBuffer.wrap(bs, off, len);
+			fillBuffer(buffer);
+			return buffer.position() - off;
+		}
+		if (staging == null) staging = ByteBuffer.allocate(STAGED_LENGTH);
+		((Buffer) staging).clear().limit(len);
+		fillBuffer(staging);
+		int count = staging.position();
+		((Buffer) staging).flip();
+		staging.get(bs, off, count);
+		return count;
+	}
+
 }
@@ -18,12 +18,15 @@ package com.tomgibara.streams;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.channels.WritableByteChannel;
 
+import com.tomgibara.streams.StreamStatistics.Type;
+
 /**
  * Writes values to a {@link WritableByteChannel}. Any {@link IOException}
  * encountered by this class is wrapped as a {@link StreamException} and
@@ -39,11 +42,17 @@ import java.nio.channels.WritableByteChannel;
  * @see EndOfStreamException#EOS
  */
 
-final class ChannelWriteStream implements WriteStream {
+class ChannelWriteStream implements WriteStream {
+
+	// bulk writes of no more than this many bytes are staged through a buffer owned by the stream
+	private static final int STAGED_LENGTH = 1024;
 
 	private final WritableByteChannel channel;
 	private final ByteBuffer buffer = ByteBuffer.allocate(8);
 	private final SeekableByteChannel seeker;
+	// stages short bulk writes so that they allocate nothing without retaining the caller's array
+	private ByteBuffer staging = null;
+	private boolean closed = false;
 
 	/**
 	 * Creates a stream that writes to the supplied channel. Bytes will be
@@ -56,6 +65,7 @@ final class ChannelWriteStream implements WriteStream {
 	ChannelWriteStream(WritableByteChannel channel) {
 		this.channel = channel;
 		seeker = Streams.seekerForChannel(channel);
+		StreamStatistics.opened(Type.CHANNEL_WRITE);
 	}
 
 	@Override
@@ -65,12 +75,17 @@ final class ChannelWriteStream implements WriteStream {
 
 	@Override
 	public void writeBytes(byte[] bs) throws StreamException {
-		drainBuffer(ByteBuffer.wrap(bs));
+		writeArray(bs, 0, bs.length);
 	}
 
 	@Override
 	public void writeBytes(byte[] bs, int off, int len) throws StreamException {
-		drainBuffer(ByteBuffer.wrap(bs, off, len));
+		writeArray(bs, off, len);
+	}
+
+	@Override
+	public int tryWriteBytes(byte[] bs, int off, int len) throws StreamException {
+		return writeArray(bs, off, len);
 	}
 
 	@Override
@@ -110,14 +125,17 @@ final class ChannelWriteStream implements WriteStream {
 
 	@Override
 	public void drainBuffer(ByteBuffer buffer) throws StreamException {
+		Object event = StreamEvents.beginBuffer();
+		int position = buffer.position();
 		try {
 			while (buffer.hasRemaining()) {
 				int count = channel.write(buffer);
-				if (count == -1) return;
+				if (count == -1) break;
 			}
 		} catch (IOException e) {
 			throw new StreamException(e);
 		}
+		StreamEvents.endDrain(event, buffer.position() - position, buffer);
 	}
 
 	/**
@@ -155,6 +173,9 @@ final class ChannelWriteStream implements WriteStream {
 
 	@Override
 	public void close() throws StreamException {
+		if (closed) return;
+		closed = true;
+		StreamStatistics.closed(Type.CHANNEL_WRITE);
 		try {
 			channel.close();
 		} catch (IOException e) {
@@ -186,4 +207,19 @@ final class ChannelWriteStream implements WriteStream {
 		if (eos) throw EndOfStreamException.instance();
 	}
 
+	// writes from an array slice, returning the number of bytes written
+	private int writeArray(byte[] bs, int off, int len) {
+		if (off < 0 || len < 0 || off + len > bs.length) throw new IndexOutOfBoundsException();
+		if (len > STAGED_LENGTH) {
+			ByteBuffer buffer = ByteBuffer.wrap(bs, off, len);
+			drainBuffer(buffer);
+			return buffer.position() - off;
+		}
+		if (staging == null) staging = ByteBuffer.allocate(STAGED_LENGTH);
+		((Buffer) staging).clear();
+		staging.put(bs, off, len).flip();
+		drainBuffer(staging);
+		return staging.position();
+	}
+
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * <p>
+ * Passes buffers directly to zlib codecs.
+ *
+ * <p>
+ * This is the Java 8 implementation, in which codecs only accept arrays:
+ * {@link #supported()} returns false and the remaining methods must not be
+ * called, so that codec streams stage direct buffers through arrays. On Java
+ * 11 and later it is replaced by the version in the multi-release layer of
+ * the jar, which passes buffers to the codecs without copying.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class CodecBuffers {
+
+	// a method rather than a constant, so that callers are not compiled against its value
+	static boolean supported() {
+		return false;
+	}
+
+	// sets the remaining bytes of the buffer as the input to the deflater
+	static void setInput(Deflater deflater, ByteBuffer input) {
+		throw new UnsupportedOperationException();
+	}
+
+	// inflates into the remaining space of the buffer, returning the number of bytes inflated
+	static int inflate(Inflater inflater, ByteBuffer output) throws DataFormatException {
+		throw new UnsupportedOperationException();
+	}
+
+	private CodecBuffers() { }
+
+}
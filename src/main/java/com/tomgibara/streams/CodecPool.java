@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Bounded pools of {@link Deflater} and {@link Inflater} instances. Both types
+ * hold native zlib state that is comparatively expensive to initialize and
+ * release, so instances are reset and retained for reuse when a stream is
+ * closed. Instances returned to a full pool are ended immediately.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class CodecPool {
+
+	// the greatest number of idle instances of each type that are retained
+	private static final int POOL_SIZE = 32;
+
+	private static final ArrayBlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+	private static final ArrayBlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+
+	static Deflater deflater(int level) {
+		Deflater deflater = deflaters.poll();
+		if (deflater == null) return new Deflater(level);
+		deflater.setLevel(level);
+		return deflater;
+	}
+
+	static void release(Deflater deflater) {
+		deflater.reset();
+		if (!deflaters.offer(deflater)) deflater.end();
+	}
+
+	static Inflater inflater() {
+		Inflater inflater = inflaters.poll();
+		return inflater == null ? new Inflater() : inflater;
+	}
+
+	static void release(Inflater inflater) {
+		inflater.reset();
+		if (!inflaters.offer(inflater)) inflater.end();
+	}
+
+	private CodecPool() { }
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Base class for streams that decode bytes read from a wrapped stream. Decoded
+ * bytes are produced into a staging array from which small reads are served;
+ * reads that are at least as large as the staging array are produced directly
+ * into the destination array, as are large direct buffers by subclasses that
+ * can decode into them in place. The position of the stream is the number of
+ * decoded bytes read.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+abstract class CodecReadStream implements ReadStream {
+
+	final ReadStream wrapped;
+	private final byte[] output;
+	private int outputPosition = 0;
+	private int outputLimit = 0;
+	private long position = 0L;
+	private boolean closed = false;
+
+	CodecReadStream(ReadStream wrapped, int stageSize) {
+		this.wrapped = wrapped;
+		output = new byte[stageSize];
+	}
+
+	// decodes at least one byte into the array, returning the number decoded or -1 at the end of the data
+	// the length is guaranteed to be no smaller than the stage size
+	abstract int produce(byte[] bs, int off, int len);
+
+	// whether large direct buffers should be passed to produce(ByteBuffer) instead of being staged
+	boolean producesBuffers() {
+		return false;
+	}
+
+	// decodes at least one byte into the remaining space of the buffer, returning the number decoded or -1 at the end of the data
+	// the remaining space is guaranteed to be no smaller than the stage size
+	int produce(ByteBuffer buffer) {
+		throw new UnsupportedOperationException();
+	}
+
+	// called once on close, before the wrapped stream is closed
+	abstract void release();
+
+	@Override
+	public byte readByte() throws StreamException {
+		if (outputPosition == outputLimit && !fillOutput()) throw EndOfStreamException.instance();
+		position ++;
+		return output[outputPosition++];
+	}
+
+	@Override
+	public void readBytes(byte[] bs) throws StreamException {
+		readBytes(bs, 0, bs.length);
+	}
+
+	@Override
+	public void readBytes(byte[] bs, int off, int len) throws StreamException {
+		if (tryReadBytes(bs, off, len) < len) throw EndOfStreamException.instance();
+	}
+
+	@Override
+	public int tryReadBytes(byte[] bs, int off, int len) throws StreamException {
+		int remaining = len;
+		while (remaining > 0) {
+			int available = outputLimit - outputPosition;
+			if (available > 0) {
+				int length = Math.min(available, remaining);
+				System.arraycopy(output, outputPosition, bs, off, length);
+				outputPosition += length;
+				off += length;
+				remaining -= length;
+			} else if (remaining >= output.length) {
+				// large reads bypass the output array
+				checkClosed();
+				int length = produce(bs, off, remaining);
+				if (length < 0) break;
+				off += length;
+				remaining -= length;
+			} else if (!fillOutput()) {
+				break;
+			}
+		}
+		int read = len - remaining;
+		position += read;
+		return read;
+	}
+
+	@Override
+	public short readShort() throws StreamException {
+		if (outputLimit - outputPosition < 2) return ReadStream.super.readShort();
+		position += 2;
+		return (short) (output[outputPosition++] << 8 | output[outputPosition++] & 0xff);
+	}
+
+	@Override
+	public char readChar() throws StreamException {
+		if (outputLimit - outputPosition < 2) return ReadStream.super.readChar();
+		position += 2;
+		return (char) (output[outputPosition++] << 8 | output[outputPosition++] & 0xff);
+	}
+
+	@Override
+	public int readInt() throws StreamException {
+		if (outputLimit - outputPosition < 4) return ReadStream.super.readInt();
+		position += 4;
+		return
+				 output[outputPosition++]         << 24 |
+				(output[outputPosition++] & 0xff) << 16 |
+				(output[outputPosition++] & 0xff) <<  8 |
+				 output[outputPosition++] & 0xff;
+	}
+
+	@Override
+	public long readLong() throws StreamException {
+		if (outputLimit - outputPosition < 8) return ReadStream.super.readLong();
+		position += 8;
+		return
+				 (long) output[outputPosition++]         << 56 |
+				((long) output[outputPosition++] & 0xff) << 48 |
+				((long) output[outputPosition++] & 0xff) << 40 |
+				((long) output[outputPosition++] & 0xff) << 32 |
+				((long) output[outputPosition++] & 0xff) << 24 |
+				(       output[outputPosition++] & 0xff) << 16 |
+				(       output[outputPosition++] & 0xff) <<  8 |
+				        output[outputPosition++] & 0xff;
+	}
+
+	@Override
+	public void fillBuffer(ByteBuffer buffer) throws StreamException {
+		if (closed || !buffer.hasRemaining()) return;
+		if (buffer.hasArray()) {
+			int read = tryReadBytes(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+			buffer.position(buffer.position() + read);
+		} else {
+			do {
+				if (outputPosition == outputLimit && buffer.remaining() >= output.length && producesBuffers()) {
+					// large buffers bypass the output array
+					checkClosed();
+					int length = produce(buffer);
+					if (length < 0) return;
+					position += length;
+					continue;
+				}
+				if (outputPosition == outputLimit && !fillOutput()) return;
+				int length = Math.min(outputLimit - outputPosition, buffer.remaining());
+				buffer.put(output, outputPosition, length);
+				outputPosition += length;
+				position += length;
+			} while (buffer.hasRemaining());
+		}
+	}
+
+	@Override
+	public StreamBuffering getBuffering() {
+		return StreamBuffering.PREFER_INDIRECT;
+	}
+
+	@Override
+	public long position() {
+		return position;
+	}
+
+	/**
+	 * Releases any decoding resources and closes the wrapped stream.
+	 */
+
+	@Override
+	public void close() throws StreamException {
+		if (closed) return;
+		closed = true;
+		outputPosition = 0;
+		outputLimit = 0;
+		release();
+		wrapped.close();
+	}
+
+	private boolean fillOutput() {
+		checkClosed();
+		outputPosition = 0;
+		int length = produce(output, 0, output.length);
+		outputLimit = Math.max(length, 0);
+		return length > 0;
+	}
+
+	private void checkClosed() {
+		if (closed) StreamException.raiseClosed();
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Base class for streams that encode bytes before writing them to a wrapped
+ * stream. Small writes are staged in an array which is passed to
+ * {@link #consume(byte[], int, int)} when full; large writes and heap buffers
+ * are passed to it directly without copying. Large direct buffers are passed
+ * to {@link #consume(ByteBuffer)} by subclasses that can encode them in place.
+ * The position of the stream is the number of unencoded bytes written.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+abstract class CodecWriteStream implements WriteStream {
+
+	final WriteStream wrapped;
+	private final byte[] input;
+	private int count = 0;
+	private long position = 0L;
+	private boolean closed = false;
+
+	CodecWriteStream(WriteStream wrapped, int stageSize) {
+		this.wrapped = wrapped;
+		input = new byte[stageSize];
+	}
+
+	// encodes the supplied bytes, which must not be retained beyond the call
+	abstract void consume(byte[] bs, int off, int len);
+
+	// whether large direct buffers should be passed to consume(ByteBuffer) instead of being staged
+	boolean consumesBuffers() {
+		return false;
+	}
+
+	// encodes the remaining bytes of the buffer, which must not be retained beyond the call
+	void consume(ByteBuffer buffer) {
+		throw new UnsupportedOperationException();
+	}
+
+	// called once on close after all bytes have been consumed, should complete the encoding
+	abstract void finish();
+
+	@Override
+	public void writeByte(byte v) throws StreamException {
+		ensureInput(1);
+		input[count++] = v;
+		position ++;
+	}
+
+	@Override
+	public void writeBytes(byte[] bs) throws StreamException {
+		writeBytes(bs, 0, bs.length);
+	}
+
+	@Override
+	public void writeBytes(byte[] bs, int off, int len) throws StreamException {
+		ensureInput(0);
+		if (len <= input.length - count) {
+			System.arraycopy(bs, off, input, count, len);
+			count += len;
+		} else {
+			flushInput();
+			consume(bs, off, len);
+		}
+		position += len;
+	}
+
+	@Override
+	public int tryWriteBytes(byte[] bs, int off, int len) throws StreamException {
+		writeBytes(bs, off, len);
+		return len;
+	}
+
+	@Override
+	public void writeShort(short v) throws StreamException {
+		ensureInput(2);
+		input[count++] = (byte) (v >>  8);
+		input[count++] = (byte) (v      );
+		position += 2;
+	}
+
+	@Override
+	public void writeChar(char v) throws StreamException {
+		ensureInput(2);
+		input[count++] = (byte) (v >>  8);
+		input[count++] = (byte) (v      );
+		position += 2;
+	}
+
+	@Override
+	public void writeInt(int v) throws StreamException {
+		ensureInput(4);
+		input[count++] = (byte) (v >> 24);
+		input[count++] = (byte) (v >> 16);
+		input[count++] = (byte) (v >>  8);
+		input[count++] = (byte) (v      );
+		position += 4;
+	}
+
+	@Override
+	public void writeLong(long v) throws StreamException {
+		ensureInput(8);
+		input[count++] = (byte) (v >> 56);
+		input[count++] = (byte) (v >> 48);
+		input[count++] = (byte) (v >> 40);
+		input[count++] = (byte) (v >> 32);
+		input[count++] = (byte) (v >> 24);
+		input[count++] = (byte) (v >> 16);
+		input[count++] = (byte) (v >>  8);
+		input[count++] = (byte) (v      );
+		position += 8;
+	}
+
+	@Override
+	public void drainBuffer(ByteBuffer buffer) throws StreamException {
+		int remaining = buffer.remaining();
+		if (remaining == 0) return;
+		if (buffer.hasArray()) {
+			writeBytes(buffer.array(), buffer.arrayOffset() + buffer.position(), remaining);
+			buffer.position(buffer.limit());
+		} else {
+			ensureInput(0);
+			if (remaining > input.length - count && consumesBuffers()) {
+				flushInput();
+				consume(buffer);
+				position += remaining;
+				return;
+			}
+			do {
+				if (count == input.length) flushInput();
+				int length = Math.min(buffer.remaining(), input.length - count);
+				buffer.get(input, count, length);
+				count += length;
+			} while (buffer.hasRemaining());
+			position += remaining;
+		}
+	}
+
+	@Override
+	public StreamBuffering getBuffering() {
+		return StreamBuffering.PREFER_INDIRECT;
+	}
+
+	@Override
+	public long position() {
+		return position;
+	}
+
+	/**
+	 * Completes the encoding and closes the wrapped stream.
+	 */
+
+	@Override
+	public void close() throws StreamException {
+		if (closed) return;
+		try {
+			flushInput();
+		} finally {
+			// finishing releases any pooled codec, so it must happen even if the input could not be flushed
+			try {
+				finish();
+			} finally {
+				closed = true;
+			}
+		}
+		wrapped.close();
+	}
+
+	private void ensureInput(int length) {
+		if (closed) StreamException.raiseClosed();
+		if (input.length - count < length) flushInput();
+	}
+
+	private void flushInput() {
+		if (count == 0) return;
+		consume(input, 0, count);
+		count = 0;
+	}
+}
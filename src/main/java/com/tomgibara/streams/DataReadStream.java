@@ -23,12 +23,16 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 
+import com.tomgibara.streams.StreamStatistics.Type;
+
 final class DataReadStream implements ReadStream {
 
 	private final DataInput in;
+	private boolean closed = false;
 
 	DataReadStream(DataInput in) {
 		this.in = in;
+		StreamStatistics.opened(Type.DATA_INPUT);
 	}
 
 	@Override
@@ -186,6 +190,9 @@ final class DataReadStream implements ReadStream {
 
 	@Override
 	public void close() {
+		if (closed) return;
+		closed = true;
+		StreamStatistics.closed(Type.DATA_INPUT);
 		if (in instanceof Closeable) {
 			try {
 				((Closeable) in).close();
@@ -23,12 +23,16 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import com.tomgibara.streams.StreamStatistics.Type;
+
 final class DataWriteStream implements WriteStream {
 
 	private final DataOutput out;
+	private boolean closed = false;
 
 	DataWriteStream(DataOutput out) {
 		this.out = out;
+		StreamStatistics.opened(Type.DATA_OUTPUT);
 	}
 
 	@Override
@@ -156,6 +160,9 @@ final class DataWriteStream implements WriteStream {
 
 	@Override
 	public void close() {
+		if (closed) return;
+		closed = true;
+		StreamStatistics.closed(Type.DATA_OUTPUT);
 		if (out instanceof Closeable) {
 			try {
 				((Closeable) out).close();
@@ -22,6 +22,8 @@ import java.io.InputStream;
 import java.io.PrintWriter;
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+import java.util.concurrent.ForkJoinPool;
 
 import com.tomgibara.fundament.Producer;
 
@@ -141,6 +143,48 @@ class DebugReadStream extends WrappedReadStream {
 		super.readChars(cs, off, len);
 	}
 
+	@Override
+	public void readLongSequence(long[] values, int off, int len) throws StreamException {
+		writeIdentity();
+		writer.println("readLongSequence(" + debugString(values) + ", " + off + ", " + len + ")");
+		super.readLongSequence(values, off, len);
+	}
+
+	@Override
+	public void readIntSequence(int[] values, int off, int len) throws StreamException {
+		writeIdentity();
+		writer.println("readIntSequence(" + debugString(values) + ", " + off + ", " + len + ")");
+		super.readIntSequence(values, off, len);
+	}
+
+	@Override
+	public void readDoubleSequence(double[] values, int off, int len, int blockSize) throws StreamException {
+		writeIdentity();
+		writer.println("readDoubleSequence(" + debugString(values) + ", " + off + ", " + len + ", " + blockSize + ")");
+		super.readDoubleSequence(values, off, len, blockSize);
+	}
+
+	@Override
+	public void readFloatSequence(float[] values, int off, int len, int blockSize) throws StreamException {
+		writeIdentity();
+		writer.println("readFloatSequence(" + debugString(values) + ", " + off + ", " + len + ", " + blockSize + ")");
+		super.readFloatSequence(values, off, len, blockSize);
+	}
+
+	@Override
+	public void skipDoubleSequence(int len, int blockSize) throws StreamException {
+		writeIdentity();
+		writer.println("skipDoubleSequence(" + len + ", " + blockSize + ")");
+		super.skipDoubleSequence(len, blockSize);
+	}
+
+	@Override
+	public void skipFloatSequence(int len, int blockSize) throws StreamException {
+		writeIdentity();
+		writer.println("skipFloatSequence(" + len + ", " + blockSize + ")");
+		super.skipFloatSequence(len, blockSize);
+	}
+
 	@Override
 	public String readChars() throws StreamException {
 		writeIdentity();
@@ -165,7 +209,7 @@ class DebugReadStream extends WrappedReadStream {
 	@Override
 	public void skip(long length) throws StreamException {
 		writeIdentity();
-		writer.println("fillBuffer(" + length + ")");
+		writer.println("skip(" + length + ")");
 		super.skip(length);
 	}
 
@@ -176,6 +220,20 @@ class DebugReadStream extends WrappedReadStream {
 		return super.bounded(length);
 	}
 
+	@Override
+	public MarkableReadStream markable(int lookahead) {
+		writeIdentity();
+		writer.println("markable(" + lookahead + ")");
+		return super.markable(lookahead);
+	}
+
+	@Override
+	public PushbackReadStream pushback() {
+		writeIdentity();
+		writer.println("pushback()");
+		return super.pushback();
+	}
+
 	@Override
 	public ReadStream closedWith(StreamCloser closer) {
 		writeIdentity();
@@ -218,6 +276,55 @@ class DebugReadStream extends WrappedReadStream {
 		return super.debug(writer, identity);
 	}
 
+	@Override
+	public ReadStream metered(StreamMetrics metrics) {
+		writeIdentity();
+		writer.println("metered(" + debugString(metrics) + ")");
+		return super.metered(metrics);
+	}
+
+	@Override
+	public ReadStream traced(TraceRecorder recorder, String identity) {
+		writeIdentity();
+		writer.println("traced(" + debugString(recorder) + "," + identity + ")");
+		return super.traced(recorder, identity);
+	}
+
+	@Override
+	public ReadStream digested(MessageDigest digest) {
+		writeIdentity();
+		writer.println("digested(" + debugString(digest) + ")");
+		return super.digested(digest);
+	}
+
+	@Override
+	public ReadStream inflated() {
+		writeIdentity();
+		writer.println("inflated()");
+		return super.inflated();
+	}
+
+	@Override
+	public ReadStream inflatedParallel(ForkJoinPool pool) {
+		writeIdentity();
+		writer.println("inflatedParallel(" + debugString(pool) + ")");
+		return super.inflatedParallel(pool);
+	}
+
+	@Override
+	public BitReadStream bits() {
+		writeIdentity();
+		writer.println("bits()");
+		return super.bits();
+	}
+
+	@Override
+	public ReadStream decompressedFast() {
+		writeIdentity();
+		writer.println("decompressedFast()");
+		return super.decompressedFast();
+	}
+
 	@Override
 	public InputStream asInputStream() {
 		writeIdentity();
@@ -22,6 +22,8 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.util.concurrent.ForkJoinPool;
 
 import com.tomgibara.fundament.Consumer;
 
@@ -128,6 +130,34 @@ final class DebugWriteStream extends WrappedWriteStream {
 		super.writeChars(cs, off, len);
 	}
 
+	@Override
+	public void writeLongSequence(long[] values, int off, int len, SequenceCodec codec) {
+		writeIdentity();
+		writer.println("writeLongSequence(" + debugString(values) + ", " + off + ", " + len + ", " + codec + ")");
+		super.writeLongSequence(values, off, len, codec);
+	}
+
+	@Override
+	public void writeIntSequence(int[] values, int off, int len, SequenceCodec codec) {
+		writeIdentity();
+		writer.println("writeIntSequence(" + debugString(values) + ", " + off + ", " + len + ", " + codec + ")");
+		super.writeIntSequence(values, off, len, codec);
+	}
+
+	@Override
+	public void writeDoubleSequence(double[] values, int off, int len, int blockSize) {
+		writeIdentity();
+		writer.println("writeDoubleSequence(" + debugString(values) + ", " + off + ", " + len + ", " + blockSize + ")");
+		super.writeDoubleSequence(values, off, len, blockSize);
+	}
+
+	@Override
+	public void writeFloatSequence(float[] values, int off, int len, int blockSize) {
+		writeIdentity();
+		writer.println("writeFloatSequence(" + debugString(values) + ", " + off + ", " + len + ", " + blockSize + ")");
+		super.writeFloatSequence(values, off, len, blockSize);
+	}
+
 	@Override
 	public void writeChars(CharSequence cs) {
 		writeIdentity();
@@ -149,6 +179,20 @@ final class DebugWriteStream extends WrappedWriteStream {
 		super.drainBuffer(buffer);
 	}
 
+	@Override
+	public ByteBuffer claim(int length) {
+		writeIdentity();
+		writer.println("claim(" + length + ")");
+		return super.claim(length);
+	}
+
+	@Override
+	public void commit(ByteBuffer claim) {
+		writeIdentity();
+		writer.println("commit(" + debugString(claim) + ")");
+		super.commit(claim);
+	}
+
 	@Override
 	public WriteStream bounded(long length) {
 		writeIdentity();
@@ -156,6 +200,13 @@ final class DebugWriteStream extends WrappedWriteStream {
 		return super.bounded(length);
 	}
 
+	@Override
+	public PatchableWriteStream patchable() {
+		writeIdentity();
+		writer.println("patchable()");
+		return super.patchable();
+	}
+
 	@Override
 	public WriteStream closedWith(StreamCloser closer) {
 		writeIdentity();
@@ -198,6 +249,55 @@ final class DebugWriteStream extends WrappedWriteStream {
 		return super.debug(writer, identity);
 	}
 
+	@Override
+	public WriteStream metered(StreamMetrics metrics) {
+		writeIdentity();
+		writer.println("metered(" + debugString(metrics) + ")");
+		return super.metered(metrics);
+	}
+
+	@Override
+	public WriteStream traced(TraceRecorder recorder, String identity) {
+		writeIdentity();
+		writer.println("traced(" + debugString(recorder) + "," + identity + ")");
+		return super.traced(recorder, identity);
+	}
+
+	@Override
+	public WriteStream digested(MessageDigest digest) {
+		writeIdentity();
+		writer.println("digested(" + debugString(digest) + ")");
+		return super.digested(digest);
+	}
+
+	@Override
+	public WriteStream deflated(int level) {
+		writeIdentity();
+		writer.println("deflated(" + level + ")");
+		return super.deflated(level);
+	}
+
+	@Override
+	public WriteStream deflatedParallel(int level, int blockSize, ForkJoinPool pool) {
+		writeIdentity();
+		writer.println("deflatedParallel(" + level + ", " + blockSize + ", " + debugString(pool) + ")");
+		return super.deflatedParallel(level, blockSize, pool);
+	}
+
+	@Override
+	public BitWriteStream bits() {
+		writeIdentity();
+		writer.println("bits()");
+		return super.bits();
+	}
+
+	@Override
+	public WriteStream compressedFast() {
+		writeIdentity();
+		writer.println("compressedFast()");
+		return super.compressedFast();
+	}
+
 	@Override
 	public OutputStream asOutputStream() {
 		writeIdentity();
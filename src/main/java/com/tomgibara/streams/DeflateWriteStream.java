@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses bytes in the zlib format before writing them to a wrapped stream.
+ * Small writes are staged in an array which is compressed when full; large
+ * writes and heap buffers are passed to the deflater without copying, as are
+ * large direct buffers on Java 11 and later. The
+ * deflater is drawn from a shared pool and returned to it when the stream is
+ * closed, at which point the compressed data is finished and the wrapped
+ * stream is closed.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class DeflateWriteStream extends CodecWriteStream {
+
+	private static final byte[] NO_INPUT = new byte[0];
+
+	private final byte[] output = new byte[Streams.BUFFER_SIZE];
+	private final Deflater deflater;
+
+	DeflateWriteStream(WriteStream wrapped, int level) {
+		super(wrapped, Streams.BUFFER_SIZE);
+		deflater = CodecPool.deflater(level);
+	}
+
+	@Override
+	void consume(byte[] bs, int off, int len) {
+		deflater.setInput(bs, off, len);
+		while (!deflater.needsInput()) {
+			writeOutput(deflater.deflate(output));
+		}
+	}
+
+	@Override
+	boolean consumesBuffers() {
+		return CodecBuffers.supported();
+	}
+
+	@Override
+	void consume(ByteBuffer buffer) {
+		CodecBuffers.setInput(deflater, buffer);
+		try {
+			while (!deflater.needsInput()) {
+				writeOutput(deflater.deflate(output));
+			}
+		} finally {
+			// the deflater must not retain the caller's buffer
+			deflater.setInput(NO_INPUT);
+		}
+	}
+
+	@Override
+	void finish() {
+		try {
+			deflater.finish();
+			while (!deflater.finished()) {
+				writeOutput(deflater.deflate(output));
+			}
+		} finally {
+			CodecPool.release(deflater);
+		}
+	}
+
+	private void writeOutput(int length) {
+		if (length > 0) wrapped.writeBytes(output, 0, length);
+	}
+}
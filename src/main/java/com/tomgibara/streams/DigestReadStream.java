@@ -0,0 +1,154 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+/**
+ * Updates a {@link MessageDigest} with every byte that is read from a wrapped
+ * stream. Primitives are read into a small scratch array before being decoded
+ * big-endian, and filled buffers are passed to the digest whole.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class DigestReadStream implements ReadStream {
+
+	private final ReadStream wrapped;
+	private final MessageDigest digest;
+	private final byte[] scratch = new byte[8];
+	// lazily allocated, holds skipped bytes so that they can be digested
+	private byte[] skipped = null;
+
+	DigestReadStream(ReadStream wrapped, MessageDigest digest) {
+		this.wrapped = wrapped;
+		this.digest = digest;
+	}
+
+	@Override
+	public byte readByte() throws StreamException {
+		byte b = wrapped.readByte();
+		digest.update(b);
+		return b;
+	}
+
+	@Override
+	public void readBytes(byte[] bs) throws StreamException {
+		wrapped.readBytes(bs);
+		digest.update(bs);
+	}
+
+	@Override
+	public void readBytes(byte[] bs, int off, int len) throws StreamException {
+		wrapped.readBytes(bs, off, len);
+		digest.update(bs, off, len);
+	}
+
+	@Override
+	public int tryReadBytes(byte[] bs, int off, int len) throws StreamException {
+		int read = wrapped.tryReadBytes(bs, off, len);
+		digest.update(bs, off, read);
+		return read;
+	}
+
+	@Override
+	public short readShort() throws StreamException {
+		read(2);
+		return (short) (scratch[0] << 8 | scratch[1] & 0xff);
+	}
+
+	@Override
+	public char readChar() throws StreamException {
+		read(2);
+		return (char) (scratch[0] << 8 | scratch[1] & 0xff);
+	}
+
+	@Override
+	public int readInt() throws StreamException {
+		read(4);
+		return
+				 scratch[0]         << 24 |
+				(scratch[1] & 0xff) << 16 |
+				(scratch[2] & 0xff) <<  8 |
+				 scratch[3] & 0xff;
+	}
+
+	@Override
+	public long readLong() throws StreamException {
+		read(8);
+		return
+				 (long) scratch[0]         << 56 |
+				((long) scratch[1] & 0xff) << 48 |
+				((long) scratch[2] & 0xff) << 40 |
+				((long) scratch[3] & 0xff) << 32 |
+				((long) scratch[4] & 0xff) << 24 |
+				(       scratch[5] & 0xff) << 16 |
+				(       scratch[6] & 0xff) <<  8 |
+				        scratch[7] & 0xff;
+	}
+
+	@Override
+	public void fillBuffer(ByteBuffer buffer) throws StreamException {
+		int position = buffer.position();
+		wrapped.fillBuffer(buffer);
+		int end = buffer.position();
+		if (end == position) return;
+		// digest exactly the bytes that were supplied by the wrapped stream
+		// narrowing the buffer in place avoids allocating a duplicate
+		int limit = buffer.limit();
+		((Buffer) buffer).limit(end).position(position);
+		digest.update(buffer);
+		((Buffer) buffer).limit(limit);
+	}
+
+	@Override
+	public void skip(long length) throws StreamException {
+		if (length < 0L) throw new IllegalArgumentException("negative length");
+		// skipped bytes must still be digested
+		if (length > scratch.length && skipped == null) skipped = new byte[Streams.SKIP_BUFFER_SIZE];
+		byte[] bytes = length > scratch.length ? skipped : scratch;
+		while (length > 0L) {
+			int r = (int) Math.min(length, bytes.length);
+			wrapped.readBytes(bytes, 0, r);
+			digest.update(bytes, 0, r);
+			length -= r;
+		}
+	}
+
+	@Override
+	public StreamBuffering getBuffering() {
+		return wrapped.getBuffering();
+	}
+
+	@Override
+	public long position() throws StreamException {
+		return wrapped.position();
+	}
+
+	@Override
+	public void close() throws StreamException {
+		wrapped.close();
+	}
+
+	private void read(int length) {
+		wrapped.readBytes(scratch, 0, length);
+		digest.update(scratch, 0, length);
+	}
+}
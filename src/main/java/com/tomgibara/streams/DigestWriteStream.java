@@ -0,0 +1,138 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+
+/**
+ * Updates a {@link MessageDigest} with every byte that is successfully written
+ * to a wrapped stream. Primitives are encoded big-endian into a small scratch
+ * array so that the digest and the wrapped stream receive identical bytes, and
+ * buffers are passed to the digest whole.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class DigestWriteStream implements WriteStream {
+
+	private final WriteStream wrapped;
+	private final MessageDigest digest;
+	private final byte[] scratch = new byte[8];
+
+	DigestWriteStream(WriteStream wrapped, MessageDigest digest) {
+		this.wrapped = wrapped;
+		this.digest = digest;
+	}
+
+	@Override
+	public void writeByte(byte v) throws StreamException {
+		wrapped.writeByte(v);
+		digest.update(v);
+	}
+
+	@Override
+	public void writeBytes(byte[] bs) throws StreamException {
+		wrapped.writeBytes(bs);
+		digest.update(bs);
+	}
+
+	@Override
+	public void writeBytes(byte[] bs, int off, int len) throws StreamException {
+		wrapped.writeBytes(bs, off, len);
+		digest.update(bs, off, len);
+	}
+
+	@Override
+	public int tryWriteBytes(byte[] bs, int off, int len) throws StreamException {
+		int written = wrapped.tryWriteBytes(bs, off, len);
+		digest.update(bs, off, written);
+		return written;
+	}
+
+	@Override
+	public void writeShort(short v) throws StreamException {
+		scratch[0] = (byte) (v >>  8);
+		scratch[1] = (byte) (v      );
+		write(2);
+	}
+
+	@Override
+	public void writeChar(char v) throws StreamException {
+		scratch[0] = (byte) (v >>  8);
+		scratch[1] = (byte) (v      );
+		write(2);
+	}
+
+	@Override
+	public void writeInt(int v) throws StreamException {
+		scratch[0] = (byte) (v >> 24);
+		scratch[1] = (byte) (v >> 16);
+		scratch[2] = (byte) (v >>  8);
+		scratch[3] = (byte) (v      );
+		write(4);
+	}
+
+	@Override
+	public void writeLong(long v) throws StreamException {
+		scratch[0] = (byte) (v >> 56);
+		scratch[1] = (byte) (v >> 48);
+		scratch[2] = (byte) (v >> 40);
+		scratch[3] = (byte) (v >> 32);
+		scratch[4] = (byte) (v >> 24);
+		scratch[5] = (byte) (v >> 16);
+		scratch[6] = (byte) (v >>  8);
+		scratch[7] = (byte) (v      );
+		write(8);
+	}
+
+	@Override
+	public void drainBuffer(ByteBuffer buffer) throws StreamException {
+		int position = buffer.position();
+		wrapped.drainBuffer(buffer);
+		int end = buffer.position();
+		if (end == position) return;
+		// digest exactly the bytes that were accepted by the wrapped stream
+		// narrowing the buffer in place avoids allocating a duplicate
+		int limit = buffer.limit();
+		((Buffer) buffer).limit(end).position(position);
+		digest.update(buffer);
+		((Buffer) buffer).limit(limit);
+	}
+
+	@Override
+	public StreamBuffering getBuffering() {
+		return wrapped.getBuffering();
+	}
+
+	@Override
+	public long position() throws StreamException {
+		return wrapped.position();
+	}
+
+	@Override
+	public void close() throws StreamException {
+		wrapped.close();
+	}
+
+	private void write(int length) {
+		wrapped.writeBytes(scratch, 0, length);
+		digest.update(scratch, 0, length);
+	}
+}
@@ -72,7 +72,9 @@ public class EndOfStreamException extends StreamException {
 	 */
 
 	public static EndOfStreamException instance() {
-		return EOS == null ? new EndOfStreamException() : EOS;
+		if (EOS != null) return EOS;
+		StreamStatistics.endOfStreamCreated();
+		return new EndOfStreamException();
 	}
 
 	/**
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decompresses zlib format bytes read from a wrapped stream. Compressed bytes
+ * are drawn from the wrapped stream in bulk via
+ * {@link ReadStream#fillBuffer(ByteBuffer)} and large reads are inflated
+ * directly into the destination array, or on Java 11 and later into the
+ * destination buffer even when it is direct. The inflater is drawn from a shared
+ * pool and returned to it when the stream is closed.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class InflateReadStream extends CodecReadStream {
+
+	private final byte[] input = new byte[Streams.BUFFER_SIZE];
+	private final ByteBuffer inputBuffer = ByteBuffer.wrap(input);
+	private final Inflater inflater;
+
+	InflateReadStream(ReadStream wrapped) {
+		super(wrapped, Streams.BUFFER_SIZE);
+		inflater = CodecPool.inflater();
+	}
+
+	@Override
+	int produce(byte[] bs, int off, int len) {
+		try {
+			while (true) {
+				int length = inflater.inflate(bs, off, len);
+				if (length > 0) return length;
+				if (inflater.finished()) return -1;
+				if (inflater.needsDictionary()) throw new StreamException("preset dictionary required");
+				if (inflater.needsInput()) fillInput();
+			}
+		} catch (DataFormatException e) {
+			throw new StreamException(e);
+		}
+	}
+
+	@Override
+	boolean producesBuffers() {
+		return CodecBuffers.supported();
+	}
+
+	@Override
+	int produce(ByteBuffer buffer) {
+		try {
+			while (true) {
+				int length = CodecBuffers.inflate(inflater, buffer);
+				if (length > 0) return length;
+				if (inflater.finished()) return -1;
+				if (inflater.needsDictionary()) throw new StreamException("preset dictionary required");
+				if (inflater.needsInput()) fillInput();
+			}
+		} catch (DataFormatException e) {
+			throw new StreamException(e);
+		}
+	}
+
+	@Override
+	void release() {
+		CodecPool.release(inflater);
+	}
+
+	private void fillInput() {
+		inputBuffer.clear();
+		wrapped.fillBuffer(inputBuffer);
+		int count = inputBuffer.position();
+		if (count == 0) throw new StreamException("truncated compressed data");
+		inflater.setInput(input, 0, count);
+	}
+}
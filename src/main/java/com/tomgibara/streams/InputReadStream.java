@@ -22,6 +22,8 @@ import java.io.InputStream;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 
+import com.tomgibara.streams.StreamStatistics.Type;
+
 /**
  * Reads values from an {@link InputStream}. Any {@link IOException} encountered
  * by this class is wrapped as {@link StreamException} and rethrown. Any
@@ -37,6 +39,7 @@ final class InputReadStream implements ReadStream {
 	private final InputStream in;
 
 	private byte[] buffer = null;
+	private boolean closed = false;
 
 	/**
 	 * Creates a new stream which obtains bytes data from an underlying
@@ -48,6 +51,7 @@ final class InputReadStream implements ReadStream {
 
 	InputReadStream(InputStream in) {
 		this.in = in;
+		StreamStatistics.opened(Type.INPUT);
 	}
 
 	@Override
@@ -61,6 +65,11 @@ final class InputReadStream implements ReadStream {
 		}
 	}
 
+	@Override
+	public void readBytes(byte[] bs) {
+		readBytes(bs, 0, bs.length);
+	}
+
 	@Override
 	public void readBytes(byte[] bs, int off, int len) {
 		try {
@@ -70,6 +79,21 @@ final class InputReadStream implements ReadStream {
 		}
 	}
 
+	@Override
+	public int tryReadBytes(byte[] bs, int off, int len) throws StreamException {
+		int read = 0;
+		try {
+			while (read < len) {
+				int r = in.read(bs, off + read, len - read);
+				if (r < 0) break;
+				read += r;
+			}
+		} catch (IOException e) {
+			throw new StreamException(e);
+		}
+		return read;
+	}
+
 	@Override
 	public int readInt() {
 		if (buffer == null) buffer = new byte[8];
@@ -175,6 +199,9 @@ final class InputReadStream implements ReadStream {
 
 	@Override
 	public void close() {
+		if (closed) return;
+		closed = true;
+		StreamStatistics.closed(Type.INPUT);
 		try {
 			in.close();
 		} catch (IOException e) {
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * <p>
+ * Compresses and decompresses raw blocks using the LZ4 block format: a
+ * sequence of tokens, each introducing a run of literals followed by a match
+ * against previously decoded bytes at an offset of at most 65535. Matches are
+ * found with a single-probe hash table, trading compression ratio for speed.
+ *
+ * <p>
+ * The source is read through a little-endian buffer view so that candidate
+ * matches are probed and extended a word at a time, and the search steps
+ * further between probes the longer it goes without finding a match, so that
+ * incompressible data is passed over quickly.
+ *
+ * <p>
+ * Blocks are independent and carry no length information; framing is the
+ * responsibility of the caller.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class LZBlocks {
+
+	static final int HASH_TABLE_SIZE = 1 << 14;
+
+	private static final int MIN_MATCH = 4;
+	private static final int LAST_LITERALS = 5;
+	private static final int MF_LIMIT = 12;
+	private static final int MAX_OFFSET = 65535;
+	// the search step grows by one for every 2^SKIP_STRENGTH bytes passed without a match
+	private static final int SKIP_STRENGTH = 6;
+
+	// the largest number of bytes that compressing the given number of bytes may produce
+	static int maxCompressedLength(int length) {
+		return length + length / 255 + 16;
+	}
+
+	// compresses the source bytes into the destination, returning the compressed length
+	// the destination must have capacity for maxCompressedLength(srcLen) bytes
+	// the table must have HASH_TABLE_SIZE entries; stale entries are tolerated since every candidate match is verified
+	static int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int[] table) {
+		ByteBuffer words = ByteBuffer.wrap(src).order(ByteOrder.LITTLE_ENDIAN);
+		int srcEnd = srcOff + srcLen;
+		int anchor = srcOff;
+		int op = dstOff;
+		if (srcLen > MF_LIMIT) {
+			int mfLimit = srcEnd - MF_LIMIT;
+			int matchLimit = srcEnd - LAST_LITERALS;
+			table[hash(words.getInt(srcOff))] = srcOff;
+			int ip = srcOff + 1;
+			search: while (true) {
+				// find a match, skipping faster through incompressible data
+				int ref;
+				while (true) {
+					if (ip > mfLimit) break search;
+					int seq = words.getInt(ip);
+					int h = hash(seq);
+					ref = table[h];
+					table[h] = ip;
+					if (ref >= srcOff && ref < ip && ip - ref <= MAX_OFFSET && words.getInt(ref) == seq) break;
+					ip += 1 + (ip - anchor >>> SKIP_STRENGTH);
+				}
+				// extend the match backwards over pending literals
+				while (ip > anchor && ref > srcOff && src[ip - 1] == src[ref - 1]) {
+					ip--;
+					ref--;
+				}
+				// extend the match forwards, a word at a time while a whole word precedes the limit
+				int matchEnd = extend(words, ip + MIN_MATCH, ref + MIN_MATCH, matchLimit);
+				op = writeSequence(src, anchor, ip - anchor, ip - ref, matchEnd - ip, dst, op);
+				ip = matchEnd;
+				anchor = ip;
+				if (ip > mfLimit) break;
+				table[hash(words.getInt(ip - 2))] = ip - 2;
+			}
+		}
+		// the final sequence consists only of literals
+		int literals = srcEnd - anchor;
+		int tokenIndex = op++;
+		if (literals < 15) {
+			dst[tokenIndex] = (byte) (literals << 4);
+		} else {
+			dst[tokenIndex] = (byte) 0xf0;
+			op = writeLength(literals - 15, dst, op);
+		}
+		System.arraycopy(src, anchor, dst, op, literals);
+		op += literals;
+		return op - dstOff;
+	}
+
+	// decompresses exactly dstLen bytes from exactly srcLen compressed bytes
+	// all lengths and offsets are checked so that malformed input cannot read or write out of bounds
+	static void decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) {
+		int ip = srcOff;
+		int srcEnd = srcOff + srcLen;
+		int op = dstOff;
+		int dstEnd = dstOff + dstLen;
+		while (true) {
+			if (ip == srcEnd) throw malformed();
+			int token = src[ip++] & 0xff;
+
+			// literals
+			int literals = token >>> 4;
+			if (literals == 15) {
+				int b;
+				do {
+					if (ip == srcEnd) throw malformed();
+					b = src[ip++] & 0xff;
+					literals += b;
+				} while (b == 255);
+			}
+			if (literals > srcEnd - ip || literals > dstEnd - op) throw malformed();
+			System.arraycopy(src, ip, dst, op, literals);
+			ip += literals;
+			op += literals;
+			if (ip == srcEnd) break;
+
+			// match
+			if (srcEnd - ip < 2) throw malformed();
+			int offset = src[ip++] & 0xff | (src[ip++] & 0xff) << 8;
+			int ref = op - offset;
+			if (offset == 0 || ref < dstOff) throw malformed();
+			int length = token & 0xf;
+			if (length == 15) {
+				int b;
+				do {
+					if (ip == srcEnd) throw malformed();
+					b = src[ip++] & 0xff;
+					length += b;
+				} while (b == 255);
+			}
+			length += MIN_MATCH;
+			if (length > dstEnd - op) throw malformed();
+			int end = op + length;
+			if (offset >= length) {
+				System.arraycopy(dst, ref, dst, op, length);
+				op = end;
+			} else {
+				// overlapping matches repeat the bytes between ref and op, copy in doubling chunks
+				while (op < end) {
+					int chunk = Math.min(op - ref, end - op);
+					System.arraycopy(dst, ref, dst, op, chunk);
+					op += chunk;
+				}
+			}
+		}
+		if (op != dstEnd) throw malformed();
+	}
+
+	private static int writeSequence(byte[] src, int literalOff, int literals, int offset, int matchLength, byte[] dst, int op) {
+		int tokenIndex = op++;
+		int token;
+		if (literals < 15) {
+			token = literals << 4;
+		} else {
+			token = 0xf0;
+			op = writeLength(literals - 15, dst, op);
+		}
+		System.arraycopy(src, literalOff, dst, op, literals);
+		op += literals;
+		dst[op++] = (byte) offset;
+		dst[op++] = (byte) (offset >>> 8);
+		int length = matchLength - MIN_MATCH;
+		if (length < 15) {
+			token |= length;
+		} else {
+			token |= 0x0f;
+			op = writeLength(length - 15, dst, op);
+		}
+		dst[tokenIndex] = (byte) token;
+		return op;
+	}
+
+	private static int writeLength(int length, byte[] dst, int op) {
+		while (length >= 255) {
+			dst[op++] = (byte) 255;
+			length -= 255;
+		}
+		dst[op++] = (byte) length;
+		return op;
+	}
+
+	// returns the end of the match that continues from the given positions, which may not extend beyond the limit
+	private static int extend(ByteBuffer words, int ip, int ref, int limit) {
+		while (ip <= limit - 8) {
+			long diff = words.getLong(ip) ^ words.getLong(ref);
+			// the lowest differing bit lies in the first differing byte, since the words are little-endian
+			if (diff != 0L) return ip + (Long.numberOfTrailingZeros(diff) >>> 3);
+			ip += 8;
+			ref += 8;
+		}
+		while (ip < limit && words.get(ip) == words.get(ref)) {
+			ip++;
+			ref++;
+		}
+		return ip;
+	}
+
+	private static int hash(int seq) {
+		return seq * -1640531535 >>> 18;
+	}
+
+	private static StreamException malformed() {
+		return new StreamException("malformed compressed block");
+	}
+
+	private LZBlocks() { }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+/**
+ * Decompresses bytes framed by an {@link LZWriteStream}. Headers are read as
+ * they are needed, so no bytes beyond the terminating header are consumed
+ * from the wrapped stream.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class LZReadStream extends CodecReadStream {
+
+	private static final int MAX_COMPRESSED_LENGTH = LZBlocks.maxCompressedLength(LZWriteStream.BLOCK_SIZE);
+
+	private final byte[] input = new byte[MAX_COMPRESSED_LENGTH];
+	private boolean started = false;
+	private boolean finished = false;
+
+	LZReadStream(ReadStream wrapped) {
+		super(wrapped, LZWriteStream.BLOCK_SIZE);
+	}
+
+	@Override
+	int produce(byte[] bs, int off, int len) {
+		if (finished) return -1;
+		try {
+			if (!started) {
+				if (wrapped.readInt() != LZWriteStream.MAGIC) throw new StreamException("invalid compressed data");
+				started = true;
+			}
+			int header = wrapped.readInt();
+			if (header == 0) {
+				finished = true;
+				return -1;
+			}
+			if ((header & LZWriteStream.STORED_FLAG) != 0) {
+				int length = header & ~LZWriteStream.STORED_FLAG;
+				if (length == 0 || length > LZWriteStream.BLOCK_SIZE) throw new StreamException("invalid block length");
+				wrapped.readBytes(bs, off, length);
+				return length;
+			}
+			int length = wrapped.readInt();
+			if (header > MAX_COMPRESSED_LENGTH || length <= 0 || length > LZWriteStream.BLOCK_SIZE) throw new StreamException("invalid block length");
+			wrapped.readBytes(input, 0, header);
+			LZBlocks.decompress(input, 0, header, bs, off, length);
+			return length;
+		} catch (EndOfStreamException e) {
+			throw new StreamException("truncated compressed data");
+		}
+	}
+
+	@Override
+	void release() {
+		finished = true;
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+/**
+ * <p>
+ * Compresses bytes into independent LZ blocks before writing them to a
+ * wrapped stream. The framing consists of a magic number followed by a
+ * sequence of blocks, each introduced by an int header, and terminated by a
+ * zero header.
+ *
+ * <p>
+ * A header with its top bit set introduces a block of stored bytes whose
+ * length is given by the remaining bits; this is used when a block does not
+ * compress. Any other non-zero header gives the length of a compressed block,
+ * and is followed by an int giving its uncompressed length.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class LZWriteStream extends CodecWriteStream {
+
+	static final int MAGIC = 0x4c5a4231; // "LZB1"
+	static final int BLOCK_SIZE = 1 << 16;
+	static final int STORED_FLAG = 0x80000000;
+
+	private static final int HEADER_SIZE = 8;
+
+	private final int[] table = new int[LZBlocks.HASH_TABLE_SIZE];
+	private final byte[] output = new byte[HEADER_SIZE + LZBlocks.maxCompressedLength(BLOCK_SIZE)];
+
+	LZWriteStream(WriteStream wrapped) {
+		super(wrapped, BLOCK_SIZE);
+		wrapped.writeInt(MAGIC);
+	}
+
+	@Override
+	void consume(byte[] bs, int off, int len) {
+		while (len > 0) {
+			int length = Math.min(len, BLOCK_SIZE);
+			writeBlock(bs, off, length);
+			off += length;
+			len -= length;
+		}
+	}
+
+	@Override
+	void finish() {
+		wrapped.writeInt(0);
+	}
+
+	private void writeBlock(byte[] bs, int off, int len) {
+		int compressed = LZBlocks.compress(bs, off, len, output, HEADER_SIZE, table);
+		if (compressed < len) {
+			writeHeaderInt(0, compressed);
+			writeHeaderInt(4, len);
+			wrapped.writeBytes(output, 0, HEADER_SIZE + compressed);
+		} else {
+			wrapped.writeInt(STORED_FLAG | len);
+			wrapped.writeBytes(bs, off, len);
+		}
+	}
+
+	private void writeHeaderInt(int i, int v) {
+		output[i    ] = (byte) (v >> 24);
+		output[i + 1] = (byte) (v >> 16);
+		output[i + 2] = (byte) (v >>  8);
+		output[i + 3] = (byte) (v      );
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Buffers a bounded number of bytes from an underlying stream to support
+ * marking and peeking. The buffer is filled in bulk via
+ * {@link ReadStream#fillBuffer(ByteBuffer)}, so the underlying stream may be
+ * read up to lookahead bytes in advance of this stream. Bulk reads that
+ * cannot be satisfied from the buffer and need not be retained for a mark
+ * are made directly on the underlying stream.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class LookaheadReadStream implements MarkableReadStream {
+
+	private final ReadStream stream;
+	private final byte[] bytes;
+	private final ByteBuffer buffer;
+	private final int lookahead;
+	// the position of the next byte, the end of the buffered bytes and the mark (-1 if none) within the array
+	private int position = 0;
+	private int end = 0;
+	private int mark = -1;
+
+	LookaheadReadStream(ReadStream stream, int lookahead) {
+		this.stream = stream;
+		this.lookahead = lookahead;
+		bytes = new byte[lookahead];
+		buffer = ByteBuffer.wrap(bytes);
+	}
+
+	// markable methods
+
+	@Override
+	public int lookahead() {
+		return lookahead;
+	}
+
+	@Override
+	public void mark() {
+		mark = position;
+	}
+
+	@Override
+	public void reset() throws StreamException {
+		if (mark < 0) throw new StreamException("no valid mark");
+		position = mark;
+	}
+
+	@Override
+	public boolean isMarked() {
+		return mark >= 0;
+	}
+
+	@Override
+	public byte peekByte() throws StreamException {
+		if (ensure(1) == 0) throw EndOfStreamException.instance();
+		return bytes[position];
+	}
+
+	@Override
+	public int peek(ByteBuffer buffer) throws StreamException {
+		if (buffer == null) throw new IllegalArgumentException("null buffer");
+		int length = Math.min(ensure(Math.min(buffer.remaining(), lookahead)), buffer.remaining());
+		buffer.put(bytes, position, length);
+		return length;
+	}
+
+	// read methods
+
+	@Override
+	public byte readByte() throws StreamException {
+		if (position == end && ensure(1) == 0) throw EndOfStreamException.instance();
+		return bytes[position++];
+	}
+
+	@Override
+	public void readBytes(byte[] bs) throws StreamException {
+		readBytes(bs, 0, bs.length);
+	}
+
+	@Override
+	public void readBytes(byte[] bs, int off, int len) throws StreamException {
+		int count = copy(bs, off, len);
+		if (count < len) {
+			bypass();
+			stream.readBytes(bs, off + count, len - count);
+		}
+	}
+
+	@Override
+	public int tryReadBytes(byte[] bs, int off, int len) throws StreamException {
+		int count = copy(bs, off, len);
+		if (count == len) return count;
+		bypass();
+		return count + stream.tryReadBytes(bs, off + count, len - count);
+	}
+
+	@Override
+	public boolean readBoolean() throws StreamException {
+		return readByte() != 0;
+	}
+
+	@Override
+	public short readShort() throws StreamException {
+		if (end - position < 2 && ensure(2) < 2) return MarkableReadStream.super.readShort();
+		int i = position;
+		position += 2;
+		return (short) (bytes[i] << 8 | bytes[i + 1] & 0xff);
+	}
+
+	@Override
+	public char readChar() throws StreamException {
+		if (end - position < 2 && ensure(2) < 2) return MarkableReadStream.super.readChar();
+		int i = position;
+		position += 2;
+		return (char) (bytes[i] << 8 | bytes[i + 1] & 0xff);
+	}
+
+	@Override
+	public int readInt() throws StreamException {
+		if (end - position < 4 && ensure(4) < 4) return MarkableReadStream.super.readInt();
+		int i = position;
+		position += 4;
+		return
+				 bytes[i    ]         << 24 |
+				(bytes[i + 1] & 0xff) << 16 |
+				(bytes[i + 2] & 0xff) <<  8 |
+				 bytes[i + 3] & 0xff;
+	}
+
+	@Override
+	public long readLong() throws StreamException {
+		if (end - position < 8 && ensure(8) < 8) return MarkableReadStream.super.readLong();
+		return (long) readInt() << 32 | readInt() & 0xffffffffL;
+	}
+
+	@Override
+	public float readFloat() throws StreamException {
+		return Float.intBitsToFloat(readInt());
+	}
+
+	@Override
+	public double readDouble() throws StreamException {
+		return Double.longBitsToDouble(readLong());
+	}
+
+	@Override
+	public void fillBuffer(ByteBuffer buffer) throws StreamException {
+		int length = Math.min(available(buffer.remaining()), buffer.remaining());
+		buffer.put(bytes, position, length);
+		position += length;
+		if (buffer.hasRemaining()) {
+			bypass();
+			stream.fillBuffer(buffer);
+		}
+	}
+
+	@Override
+	public void skip(long length) throws StreamException {
+		if (length < 0L) throw new IllegalArgumentException("negative length");
+		int count = (int) Math.min(available((int) Math.min(length, Integer.MAX_VALUE)), length);
+		position += count;
+		if (count < length) {
+			bypass();
+			stream.skip(length - count);
+		}
+	}
+
+	@Override
+	public StreamBuffering getBuffering() {
+		return stream.getBuffering();
+	}
+
+	@Override
+	public long position() throws StreamException {
+		long position = stream.position();
+		return position < 0L ? position : position - (end - this.position);
+	}
+
+	@Override
+	public MarkableReadStream markable(int lookahead) {
+		if (lookahead <= 0) throw new IllegalArgumentException("non-positive lookahead");
+		return lookahead <= this.lookahead ? this : MarkableReadStream.super.markable(lookahead);
+	}
+
+	@Override
+	public void close() throws StreamException {
+		stream.close();
+	}
+
+	// copies buffered bytes, buffering more only if necessary to retain the mark
+	private int copy(byte[] bs, int off, int len) {
+		if (off < 0 || len < 0 || off + len > bs.length) throw new IndexOutOfBoundsException();
+		int length = Math.min(available(len), len);
+		System.arraycopy(bytes, position, bs, off, length);
+		position += length;
+		return length;
+	}
+
+	// the number of buffered bytes available to a bulk operation of the specified length
+	// these are topped up only when a mark would otherwise be lost
+	private int available(int length) {
+		int available = end - position;
+		if (available >= length || mark < 0) return available;
+		return ensure(Math.min(length, lookahead - (position - mark)));
+	}
+
+	// called before reading directly from the underlying stream, when the buffer has been exhausted
+	// the mark is only retained if the buffer was exhausted by the end of the stream
+	private void bypass() {
+		if (mark >= 0 && position - mark >= lookahead) mark = -1;
+	}
+
+	// attempts to buffer at least n bytes beyond the position, n never exceeding the lookahead
+	// returns the number of bytes available, which may be fewer only if the stream is exhausted
+	private int ensure(int n) {
+		int available = end - position;
+		if (available >= n) return available;
+		int keep = mark;
+		// drop the mark if it cannot be retained
+		if (keep < 0 || position - keep + n > lookahead) {
+			mark = -1;
+			keep = position;
+		}
+		if (keep > 0) {
+			System.arraycopy(bytes, keep, bytes, 0, end - keep);
+			position -= keep;
+			end -= keep;
+			if (mark >= 0) mark -= keep;
+		}
+		((Buffer) buffer).limit(lookahead).position(end);
+		stream.fillBuffer(buffer);
+		end = buffer.position();
+		return end - position;
+	}
+
+}
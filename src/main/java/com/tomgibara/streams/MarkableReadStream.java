@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * A read stream that can look ahead of its position and return to a
+ * previously marked position. The distance over which this is possible is
+ * bounded by the lookahead of the stream, fixed when the stream is created
+ * via {@link ReadStream#markable(int)}.
+ *
+ * <p>
+ * A mark remains valid until more than lookahead bytes have been read, or
+ * peeked, beyond it; the stream may be reset to a valid mark any number of
+ * times. Marking and peeking allocate nothing, so a single markable stream can
+ * support any number of parses.
+ *
+ * @author Tom Gibara
+ *
+ * @see ReadStream#markable(int)
+ */
+
+public interface MarkableReadStream extends ReadStream {
+
+	/**
+	 * The greatest number of bytes that may be peeked, or read after a mark
+	 * without invalidating it.
+	 *
+	 * @return the lookahead of the stream
+	 */
+
+	int lookahead();
+
+	/**
+	 * Marks the current position of the stream, replacing any existing mark.
+	 */
+
+	void mark();
+
+	/**
+	 * Returns the stream to the marked position.
+	 *
+	 * @throws StreamException
+	 *             if no mark has been set, or if the mark is no longer valid
+	 */
+
+	void reset() throws StreamException;
+
+	/**
+	 * Whether the stream has a mark to which it can be reset.
+	 *
+	 * @return true if {@link #reset()} will succeed, false otherwise
+	 */
+
+	boolean isMarked();
+
+	/**
+	 * Returns the next byte of the stream without consuming it.
+	 *
+	 * @return the next byte
+	 * @throws StreamException
+	 *             if the stream is exhausted or an error occurs
+	 */
+
+	byte peekByte() throws StreamException;
+
+	/**
+	 * Copies upcoming bytes of the stream into the supplied buffer without
+	 * consuming them. No more than {@link #lookahead()} bytes are copied; if
+	 * fewer bytes than this, and than the buffer has remaining, are copied then
+	 * the stream is exhausted.
+	 *
+	 * @param buffer
+	 *            the buffer into which upcoming bytes are copied
+	 * @return the number of bytes copied into the buffer
+	 * @throws StreamException
+	 *             if an error occurs reading from the stream
+	 */
+
+	int peek(ByteBuffer buffer) throws StreamException;
+
+}
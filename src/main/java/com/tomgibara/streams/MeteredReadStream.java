@@ -0,0 +1,256 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static com.tomgibara.streams.StreamMetrics.Operation.BOOLEAN;
+import static com.tomgibara.streams.StreamMetrics.Operation.BUFFER;
+import static com.tomgibara.streams.StreamMetrics.Operation.BYTE;
+import static com.tomgibara.streams.StreamMetrics.Operation.BYTES;
+import static com.tomgibara.streams.StreamMetrics.Operation.CHAR;
+import static com.tomgibara.streams.StreamMetrics.Operation.CHARS;
+import static com.tomgibara.streams.StreamMetrics.Operation.CLOSE;
+import static com.tomgibara.streams.StreamMetrics.Operation.DOUBLE;
+import static com.tomgibara.streams.StreamMetrics.Operation.FLOAT;
+import static com.tomgibara.streams.StreamMetrics.Operation.INT;
+import static com.tomgibara.streams.StreamMetrics.Operation.LONG;
+import static com.tomgibara.streams.StreamMetrics.Operation.SHORT;
+import static com.tomgibara.streams.StreamMetrics.Operation.SKIP;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Records the operations performed on a wrapped stream into a
+ * {@link StreamMetrics}. Counts are only updated for operations that complete;
+ * an {@link EndOfStreamException} is recorded before it is rethrown.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class MeteredReadStream implements ReadStream {
+
+	private final ReadStream wrapped;
+	private final StreamMetrics metrics;
+
+	MeteredReadStream(ReadStream wrapped, StreamMetrics metrics) {
+		this.wrapped = wrapped;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public byte readByte() throws StreamException {
+		try {
+			byte v = wrapped.readByte();
+			metrics.read(BYTE, 1);
+			return v;
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void readBytes(byte[] bs) throws StreamException {
+		try {
+			wrapped.readBytes(bs);
+			metrics.read(BYTES, bs.length);
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void readBytes(byte[] bs, int off, int len) throws StreamException {
+		try {
+			wrapped.readBytes(bs, off, len);
+			metrics.read(BYTES, len);
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public int tryReadBytes(byte[] bs, int off, int len) throws StreamException {
+		int read = wrapped.tryReadBytes(bs, off, len);
+		metrics.read(BYTES, read);
+		if (read < len) metrics.endOfStream();
+		return read;
+	}
+
+	@Override
+	public boolean readBoolean() throws StreamException {
+		try {
+			boolean v = wrapped.readBoolean();
+			metrics.read(BOOLEAN, 1);
+			return v;
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public short readShort() throws StreamException {
+		try {
+			short v = wrapped.readShort();
+			metrics.read(SHORT, 2);
+			return v;
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public char readChar() throws StreamException {
+		try {
+			char v = wrapped.readChar();
+			metrics.read(CHAR, 2);
+			return v;
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public int readInt() throws StreamException {
+		try {
+			int v = wrapped.readInt();
+			metrics.read(INT, 4);
+			return v;
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public long readLong() throws StreamException {
+		try {
+			long v = wrapped.readLong();
+			metrics.read(LONG, 8);
+			return v;
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public float readFloat() throws StreamException {
+		try {
+			float v = wrapped.readFloat();
+			metrics.read(FLOAT, 4);
+			return v;
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public double readDouble() throws StreamException {
+		try {
+			double v = wrapped.readDouble();
+			metrics.read(DOUBLE, 8);
+			return v;
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void readChars(char[] cs) throws StreamException {
+		try {
+			wrapped.readChars(cs);
+			metrics.read(CHARS, 2L * cs.length);
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void readChars(char[] cs, int off, int len) throws StreamException {
+		try {
+			wrapped.readChars(cs, off, len);
+			metrics.read(CHARS, 2L * len);
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public String readChars() throws StreamException {
+		try {
+			String str = wrapped.readChars();
+			// length prefix and chars
+			metrics.read(CHARS, 4L + 2L * str.length());
+			return str;
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void fillBuffer(ByteBuffer buffer) throws StreamException {
+		int position = buffer.position();
+		long start = System.nanoTime();
+		wrapped.fillBuffer(buffer);
+		metrics.timed(BUFFER, System.nanoTime() - start);
+		metrics.read(BUFFER, buffer.position() - position);
+		if (buffer.hasRemaining()) metrics.endOfStream();
+	}
+
+	@Override
+	public void skip(long length) throws StreamException {
+		long start = System.nanoTime();
+		try {
+			wrapped.skip(length);
+			metrics.read(SKIP, length);
+		} catch (EndOfStreamException e) {
+			metrics.called(SKIP);
+			metrics.endOfStream();
+			throw e;
+		} finally {
+			metrics.timed(SKIP, System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public StreamBuffering getBuffering() {
+		return wrapped.getBuffering();
+	}
+
+	@Override
+	public long position() throws StreamException {
+		return wrapped.position();
+	}
+
+	@Override
+	public void close() throws StreamException {
+		metrics.called(CLOSE);
+		wrapped.close();
+	}
+
+}
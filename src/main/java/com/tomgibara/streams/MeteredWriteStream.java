@@ -0,0 +1,231 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static com.tomgibara.streams.StreamMetrics.Operation.BOOLEAN;
+import static com.tomgibara.streams.StreamMetrics.Operation.BUFFER;
+import static com.tomgibara.streams.StreamMetrics.Operation.BYTE;
+import static com.tomgibara.streams.StreamMetrics.Operation.BYTES;
+import static com.tomgibara.streams.StreamMetrics.Operation.CHAR;
+import static com.tomgibara.streams.StreamMetrics.Operation.CHARS;
+import static com.tomgibara.streams.StreamMetrics.Operation.CLOSE;
+import static com.tomgibara.streams.StreamMetrics.Operation.DOUBLE;
+import static com.tomgibara.streams.StreamMetrics.Operation.FLOAT;
+import static com.tomgibara.streams.StreamMetrics.Operation.INT;
+import static com.tomgibara.streams.StreamMetrics.Operation.LONG;
+import static com.tomgibara.streams.StreamMetrics.Operation.SHORT;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Records the operations performed on a wrapped stream into a
+ * {@link StreamMetrics}. Counts are only updated for operations that complete;
+ * an {@link EndOfStreamException} is recorded before it is rethrown.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class MeteredWriteStream implements WriteStream {
+
+	private final WriteStream wrapped;
+	private final StreamMetrics metrics;
+
+	MeteredWriteStream(WriteStream wrapped, StreamMetrics metrics) {
+		this.wrapped = wrapped;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public void writeByte(byte v) throws StreamException {
+		try {
+			wrapped.writeByte(v);
+			metrics.written(BYTE, 1);
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void writeBytes(byte[] bs) throws StreamException {
+		try {
+			wrapped.writeBytes(bs);
+			metrics.written(BYTES, bs.length);
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void writeBytes(byte[] bs, int off, int len) throws StreamException {
+		try {
+			wrapped.writeBytes(bs, off, len);
+			metrics.written(BYTES, len);
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public int tryWriteBytes(byte[] bs, int off, int len) throws StreamException {
+		int written = wrapped.tryWriteBytes(bs, off, len);
+		metrics.written(BYTES, written);
+		if (written < len) metrics.endOfStream();
+		return written;
+	}
+
+	@Override
+	public void writeBoolean(boolean v) throws StreamException {
+		try {
+			wrapped.writeBoolean(v);
+			metrics.written(BOOLEAN, 1);
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void writeShort(short v) throws StreamException {
+		try {
+			wrapped.writeShort(v);
+			metrics.written(SHORT, 2);
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void writeChar(char v) throws StreamException {
+		try {
+			wrapped.writeChar(v);
+			metrics.written(CHAR, 2);
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void writeInt(int v) throws StreamException {
+		try {
+			wrapped.writeInt(v);
+			metrics.written(INT, 4);
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void writeLong(long v) throws StreamException {
+		try {
+			wrapped.writeLong(v);
+			metrics.written(LONG, 8);
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void writeFloat(float v) throws StreamException {
+		try {
+			wrapped.writeFloat(v);
+			metrics.written(FLOAT, 4);
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void writeDouble(double v) throws StreamException {
+		try {
+			wrapped.writeDouble(v);
+			metrics.written(DOUBLE, 8);
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void writeChars(char[] cs) throws StreamException {
+		try {
+			wrapped.writeChars(cs);
+			metrics.written(CHARS, 2L * cs.length);
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void writeChars(char[] cs, int off, int len) throws StreamException {
+		try {
+			wrapped.writeChars(cs, off, len);
+			metrics.written(CHARS, 2L * len);
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void writeChars(CharSequence cs) throws StreamException {
+		try {
+			wrapped.writeChars(cs);
+			// length prefix and chars
+			metrics.written(CHARS, 4L + 2L * cs.length());
+		} catch (EndOfStreamException e) {
+			metrics.endOfStream();
+			throw e;
+		}
+	}
+
+	@Override
+	public void drainBuffer(ByteBuffer buffer) throws StreamException {
+		int position = buffer.position();
+		long start = System.nanoTime();
+		wrapped.drainBuffer(buffer);
+		metrics.timed(BUFFER, System.nanoTime() - start);
+		metrics.written(BUFFER, buffer.position() - position);
+		if (buffer.hasRemaining()) metrics.endOfStream();
+	}
+
+	@Override
+	public StreamBuffering getBuffering() {
+		return wrapped.getBuffering();
+	}
+
+	@Override
+	public long position() throws StreamException {
+		return wrapped.position();
+	}
+
+	@Override
+	public void close() throws StreamException {
+		metrics.called(CLOSE);
+		wrapped.close();
+	}
+
+}
@@ -19,6 +19,8 @@ package com.tomgibara.streams;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import com.tomgibara.streams.StreamStatistics.Type;
+
 /**
  * Writes values to an {@link OutputStream}. Any {@link IOException} encountered
  * by this class is wrapped as {@link StreamException} and rethrown.
@@ -30,6 +32,7 @@ import java.io.OutputStream;
 final class OutputWriteStream implements WriteStream {
 
 	private final OutputStream out;
+	private boolean closed = false;
 
 	/**
 	 * Creates a new stream which writes to an underlying {@link OutputStream}.
@@ -40,6 +43,7 @@ final class OutputWriteStream implements WriteStream {
 
 	OutputWriteStream(OutputStream out) {
 		this.out = out;
+		StreamStatistics.opened(Type.OUTPUT);
 	}
 
 	@Override
@@ -60,6 +64,13 @@ final class OutputWriteStream implements WriteStream {
 		}
 	}
 
+	@Override
+	public int tryWriteBytes(byte[] bs, int off, int len) {
+		// output streams have no end-of-stream condition to report
+		writeBytes(bs, off, len);
+		return len;
+	}
+
 	@Override
 	public void writeChar(char v) {
 		try {
@@ -130,6 +141,9 @@ final class OutputWriteStream implements WriteStream {
 
 	@Override
 	public void close() {
+		if (closed) return;
+		closed = true;
+		StreamStatistics.closed(Type.OUTPUT);
 		try {
 			out.close();
 		} catch (IOException e) {
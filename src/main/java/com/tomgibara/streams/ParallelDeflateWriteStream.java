@@ -0,0 +1,133 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.Deflater;
+
+/**
+ * <p>
+ * Compresses bytes into independent zlib blocks on a {@link ForkJoinPool}
+ * before writing them, in order, to a wrapped stream. The framing consists of
+ * a magic number followed by a sequence of blocks and terminated by a zero
+ * int. Each block is introduced by its compressed length and its uncompressed
+ * length, so that a reader can locate every block without decompressing its
+ * predecessors.
+ *
+ * <p>
+ * The number of blocks being compressed at any one time is bounded by twice
+ * the parallelism of the pool; writes block while the oldest outstanding
+ * block is completed and written.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class ParallelDeflateWriteStream extends CodecWriteStream {
+
+	static final int MAGIC = 0x50444231; // "PDB1"
+	static final int MAX_BLOCK_SIZE = 1 << 26;
+
+	// the most bytes that deflating a block may produce, per zlib's conservative deflateBound
+	static int maxCompressedLength(int rawLength) {
+		return rawLength + ((rawLength + 7) >> 3) + ((rawLength + 63) >> 6) + 5 + 6;
+	}
+
+	private final int level;
+	private final int blockSize;
+	private final ForkJoinPool pool;
+	private final int maxPending;
+	private final ArrayDeque<ForkJoinTask<Block>> pending;
+	// blocks whose arrays may be reused
+	private final ArrayDeque<Block> free;
+
+	ParallelDeflateWriteStream(WriteStream wrapped, int level, int blockSize, ForkJoinPool pool) {
+		super(wrapped, blockSize);
+		this.level = level;
+		this.blockSize = blockSize;
+		this.pool = pool;
+		maxPending = 2 * pool.getParallelism();
+		pending = new ArrayDeque<>(maxPending);
+		free = new ArrayDeque<>(maxPending);
+		wrapped.writeInt(MAGIC);
+	}
+
+	@Override
+	void consume(byte[] bs, int off, int len) {
+		while (len > 0) {
+			int length = Math.min(len, blockSize);
+			if (pending.size() == maxPending) writeBlock();
+			Block block = free.isEmpty() ? new Block(blockSize) : free.poll();
+			System.arraycopy(bs, off, block.raw, 0, length);
+			block.rawLength = length;
+			pending.add(pool.submit(block));
+			off += length;
+			len -= length;
+		}
+	}
+
+	@Override
+	void finish() {
+		while (!pending.isEmpty()) writeBlock();
+		wrapped.writeInt(0);
+	}
+
+	private void writeBlock() {
+		Block block = pending.poll().join();
+		wrapped.writeInt(block.compressedLength);
+		wrapped.writeInt(block.rawLength);
+		wrapped.writeBytes(block.compressed, 0, block.compressedLength);
+		free.add(block);
+	}
+
+	private final class Block implements Callable<Block> {
+
+		final byte[] raw;
+		int rawLength;
+		byte[] compressed;
+		int compressedLength;
+
+		Block(int size) {
+			raw = new byte[size];
+			// sufficient for all but incompressible data
+			compressed = new byte[size + (size >> 8) + 64];
+		}
+
+		@Override
+		public Block call() {
+			Deflater deflater = CodecPool.deflater(level);
+			try {
+				deflater.setInput(raw, 0, rawLength);
+				deflater.finish();
+				int length = 0;
+				while (true) {
+					length += deflater.deflate(compressed, length, compressed.length - length);
+					if (deflater.finished()) break;
+					if (length == compressed.length) compressed = Arrays.copyOf(compressed, 2 * length);
+				}
+				compressedLength = length;
+				return this;
+			} finally {
+				CodecPool.release(deflater);
+			}
+		}
+	}
+}
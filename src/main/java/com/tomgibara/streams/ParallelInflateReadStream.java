@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decompresses blocks framed by a {@link ParallelDeflateWriteStream}. Block
+ * headers allow compressed blocks to be read ahead of the consumer and
+ * decompressed concurrently on a {@link ForkJoinPool}; as with the writer, the
+ * number of outstanding blocks is bounded by twice the parallelism of the
+ * pool. No bytes beyond the terminating header are consumed from the wrapped
+ * stream.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class ParallelInflateReadStream extends CodecReadStream {
+
+	private final ForkJoinPool pool;
+	private final int maxPending;
+	private final ArrayDeque<ForkJoinTask<byte[]>> pending;
+	private boolean started = false;
+	private boolean ended = false;
+	private byte[] block = null;
+	private int blockPosition = 0;
+
+	ParallelInflateReadStream(ReadStream wrapped, ForkJoinPool pool) {
+		super(wrapped, Streams.BUFFER_SIZE);
+		this.pool = pool;
+		maxPending = 2 * pool.getParallelism();
+		pending = new ArrayDeque<>(maxPending);
+	}
+
+	@Override
+	int produce(byte[] bs, int off, int len) {
+		if (block == null || blockPosition == block.length) {
+			readAhead();
+			if (pending.isEmpty()) return -1;
+			block = pending.poll().join();
+			blockPosition = 0;
+			readAhead();
+		}
+		int length = Math.min(len, block.length - blockPosition);
+		System.arraycopy(block, blockPosition, bs, off, length);
+		blockPosition += length;
+		return length;
+	}
+
+	@Override
+	void release() {
+		// outstanding tasks return their inflaters to the pool when they complete
+		pending.clear();
+		ended = true;
+		block = null;
+	}
+
+	private void readAhead() {
+		try {
+			if (!started) {
+				if (wrapped.readInt() != ParallelDeflateWriteStream.MAGIC) throw new StreamException("invalid compressed data");
+				started = true;
+			}
+			while (!ended && pending.size() < maxPending) {
+				int compressedLength = wrapped.readInt();
+				if (compressedLength == 0) {
+					ended = true;
+					break;
+				}
+				int rawLength = wrapped.readInt();
+				if (rawLength <= 0 || rawLength > ParallelDeflateWriteStream.MAX_BLOCK_SIZE) throw new StreamException("invalid block length");
+				// bounded before allocating so that corrupt data cannot request an excessive array
+				if (compressedLength < 0 || compressedLength > ParallelDeflateWriteStream.maxCompressedLength(rawLength)) throw new StreamException("invalid block length");
+				byte[] compressed = new byte[compressedLength];
+				wrapped.readBytes(compressed);
+				pending.add(pool.submit(inflation(compressed, rawLength)));
+			}
+		} catch (EndOfStreamException e) {
+			throw new StreamException("truncated compressed data");
+		}
+	}
+
+	private static Callable<byte[]> inflation(byte[] compressed, int rawLength) {
+		return () -> {
+			byte[] raw = new byte[rawLength];
+			Inflater inflater = CodecPool.inflater();
+			try {
+				inflater.setInput(compressed);
+				int length = 0;
+				while (length < rawLength) {
+					int count = inflater.inflate(raw, length, rawLength - length);
+					if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) break;
+					length += count;
+				}
+				if (length != rawLength) throw new StreamException("malformed compressed block");
+				return raw;
+			} catch (DataFormatException e) {
+				throw new StreamException(e);
+			} finally {
+				CodecPool.release(inflater);
+			}
+		};
+	}
+}
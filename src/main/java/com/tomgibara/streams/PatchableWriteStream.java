@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+/**
+ * <p>
+ * A write stream in which bytes that have already been written may be
+ * overwritten. This supports structures, such as length-prefixed records, in
+ * which a value that precedes some data can only be determined after the
+ * data has been written: the space for the value is reserved with
+ * {@link #reserve(int)}, the data is written, and the value is then patched
+ * into the reserved space at the position that was returned.
+ *
+ * <p>
+ * Patches may only be applied to bytes within the stream; patching never
+ * extends a stream and attempting to patch bytes beyond its end raises an
+ * {@link EndOfStreamException}. Patching does not change the position of the
+ * stream.
+ *
+ * <p>
+ * Streams over arrays, buffers and seekable channels are patchable directly.
+ * Any other stream may be made patchable with {@link WriteStream#patchable()}
+ * which holds back written bytes only while a reservation remains unpatched.
+ *
+ * @author Tom Gibara
+ *
+ * @see WriteStream#patchable()
+ */
+
+public interface PatchableWriteStream extends WriteStream {
+
+	/**
+	 * Writes the specified number of zero bytes to the stream and returns the
+	 * position of the first, at which the bytes may subsequently be patched.
+	 *
+	 * @param length
+	 *            the number of bytes to reserve
+	 * @return the position of the reserved bytes
+	 * @throws StreamException
+	 *             if the bytes could not be written
+	 */
+
+	default long reserve(int length) throws StreamException {
+		if (length < 0) throw new IllegalArgumentException("negative length");
+		long position = position();
+		if (position < 0L) throw new StreamException("position unavailable");
+		for (int i = 0; i < length; i++) {
+			writeByte((byte) 0);
+		}
+		return position;
+	}
+
+	/**
+	 * Overwrites a single byte.
+	 *
+	 * @param position
+	 *            the position of the byte
+	 * @param v
+	 *            the replacement byte
+	 * @throws StreamException
+	 *             if the byte could not be patched
+	 */
+
+	void patchByte(long position, byte v) throws StreamException;
+
+	/**
+	 * Overwrites two bytes with a short value, as per
+	 * {@link #writeShort(short)}.
+	 *
+	 * @param position
+	 *            the position of the first byte
+	 * @param v
+	 *            the replacement value
+	 * @throws StreamException
+	 *             if the bytes could not be patched
+	 */
+
+	default void patchShort(long position, short v) throws StreamException {
+		patchByte(position    , (byte) (v >>  8));
+		patchByte(position + 1, (byte) (v      ));
+	}
+
+	/**
+	 * Overwrites four bytes with an int value, as per {@link #writeInt(int)}.
+	 *
+	 * @param position
+	 *            the position of the first byte
+	 * @param v
+	 *            the replacement value
+	 * @throws StreamException
+	 *             if the bytes could not be patched
+	 */
+
+	default void patchInt(long position, int v) throws StreamException {
+		patchByte(position    , (byte) (v >> 24));
+		patchByte(position + 1, (byte) (v >> 16));
+		patchByte(position + 2, (byte) (v >>  8));
+		patchByte(position + 3, (byte) (v      ));
+	}
+
+	/**
+	 * Overwrites eight bytes with a long value, as per
+	 * {@link #writeLong(long)}.
+	 *
+	 * @param position
+	 *            the position of the first byte
+	 * @param v
+	 *            the replacement value
+	 * @throws StreamException
+	 *             if the bytes could not be patched
+	 */
+
+	default void patchLong(long position, long v) throws StreamException {
+		patchInt(position    , (int) (v >> 32));
+		patchInt(position + 4, (int) (v      ));
+	}
+
+	@Override
+	default PatchableWriteStream patchable() {
+		return this;
+	}
+
+}
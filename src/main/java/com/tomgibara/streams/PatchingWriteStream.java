@@ -0,0 +1,333 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Makes any stream patchable by holding back the bytes written from the
+ * earliest unpatched reservation onwards. While no reservation is outstanding,
+ * writes pass directly to the underlying stream.
+ *
+ * <p>
+ * A reservation is patched once every one of its bytes has been covered by a
+ * patch, in any number of patches of any width; once the earliest
+ * reservation is patched, the held bytes preceding the next unpatched
+ * reservation (or all held bytes, if none remains) are written to the
+ * underlying stream. The stream tracks the ranges of reserved bytes that
+ * remain unpatched to do this. Only held bytes
+ * may be patched. Positions are measured from the creation of the stream.
+ * Closing the stream writes any held bytes, including unpatched reservations,
+ * before closing the underlying stream.
+ */
+
+final class PatchingWriteStream implements PatchableWriteStream {
+
+	private static final int MIN_CAPACITY = 64;
+	private static final int MIN_RESERVATIONS = 8;
+
+	private final WriteStream stream;
+	// bytes held back, beginning with the earliest unpatched reservation
+	private byte[] held = new byte[MIN_CAPACITY];
+	private int length = 0;
+	// the position of the first held byte
+	private long base = 0L;
+	// unpatched ranges of reserved bytes, in ascending order, from head for count
+	private long[] starts = new long[MIN_RESERVATIONS];
+	private long[] ends = new long[MIN_RESERVATIONS];
+	// the position of the reservation to which each range belongs
+	private long[] origins = new long[MIN_RESERVATIONS];
+	private int head = 0;
+	private int count = 0;
+
+	PatchingWriteStream(WriteStream stream) {
+		this.stream = stream;
+	}
+
+	@Override
+	public void writeByte(byte v) {
+		if (count == 0) {
+			stream.writeByte(v);
+			base ++;
+		} else {
+			int i = hold(1);
+			held[i] = v;
+		}
+	}
+
+	@Override
+	public void writeBytes(byte[] bs) {
+		writeBytes(bs, 0, bs.length);
+	}
+
+	@Override
+	public void writeBytes(byte[] bs, int off, int len) {
+		if (count == 0) {
+			stream.writeBytes(bs, off, len);
+			base += len;
+		} else {
+			int i = hold(len);
+			System.arraycopy(bs, off, held, i, len);
+		}
+	}
+
+	@Override
+	public int tryWriteBytes(byte[] bs, int off, int len) {
+		if (count == 0) {
+			int n = stream.tryWriteBytes(bs, off, len);
+			base += n;
+			return n;
+		}
+		int i = hold(len);
+		System.arraycopy(bs, off, held, i, len);
+		return len;
+	}
+
+	@Override
+	public void writeShort(short v) {
+		if (count == 0) {
+			stream.writeShort(v);
+			base += 2;
+		} else {
+			put(hold(2), v);
+		}
+	}
+
+	@Override
+	public void writeChar(char v) {
+		if (count == 0) {
+			stream.writeChar(v);
+			base += 2;
+		} else {
+			put(hold(2), (short) v);
+		}
+	}
+
+	@Override
+	public void writeInt(int v) {
+		if (count == 0) {
+			stream.writeInt(v);
+			base += 4;
+		} else {
+			put(hold(4), v);
+		}
+	}
+
+	@Override
+	public void writeLong(long v) {
+		if (count == 0) {
+			stream.writeLong(v);
+			base += 8;
+		} else {
+			put(hold(8), v);
+		}
+	}
+
+	@Override
+	public void drainBuffer(ByteBuffer buffer) {
+		if (count == 0) {
+			int remaining = buffer.remaining();
+			stream.drainBuffer(buffer);
+			base += remaining - buffer.remaining();
+		} else {
+			int len = buffer.remaining();
+			int i = hold(len);
+			buffer.get(held, i, len);
+		}
+	}
+
+	@Override
+	public long reserve(int length) {
+		if (length < 0) throw new IllegalArgumentException("negative length");
+		long position = position();
+		if (length == 0) return position;
+		int i = hold(length);
+		Arrays.fill(held, i, i + length, (byte) 0);
+		insert(head + count, position, position + length, position);
+		return position;
+	}
+
+	@Override
+	public void patchByte(long position, byte v) {
+		held[patchIndex(position, 1)] = v;
+		patched(position, 1);
+	}
+
+	@Override
+	public void patchShort(long position, short v) {
+		put(patchIndex(position, 2), v);
+		patched(position, 2);
+	}
+
+	@Override
+	public void patchInt(long position, int v) {
+		put(patchIndex(position, 4), v);
+		patched(position, 4);
+	}
+
+	@Override
+	public void patchLong(long position, long v) {
+		put(patchIndex(position, 8), v);
+		patched(position, 8);
+	}
+
+	@Override
+	public StreamBuffering getBuffering() {
+		return stream.getBuffering();
+	}
+
+	@Override
+	public long position() {
+		return base + length;
+	}
+
+	@Override
+	public void close() {
+		if (length > 0) {
+			count = 0;
+			release(length);
+		}
+		stream.close();
+	}
+
+	// returns the index at which the bytes should be stored
+	private int hold(int n) {
+		int required = length + n;
+		if (required < 0) throw new IllegalStateException("too many held bytes");
+		if (required > held.length) {
+			int capacity = Math.max(required, held.length * 2);
+			if (capacity < 0) capacity = required;
+			held = Arrays.copyOf(held, capacity);
+		}
+		int i = length;
+		length = required;
+		return i;
+	}
+
+	private int patchIndex(long position, int n) {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (position < base) throw new IllegalArgumentException("position already written");
+		if (position > base + length - n) throw EndOfStreamException.instance();
+		return (int) (position - base);
+	}
+
+	// removes a patched range of bytes from the unpatched ranges, releasing any bytes that precede the earliest unpatched reservation
+	private void patched(long position, int n) {
+		long end = position + n;
+		// find the first range that ends after the patch starts
+		int lo = head;
+		int hi = head + count;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (ends[mid] <= position) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		for (int i = lo; i < head + count && starts[i] < end; ) {
+			if (starts[i] < position) {
+				if (ends[i] > end) {
+					// the patch splits the range
+					i = insert(i + 1, end, ends[i], origins[i]) - 1;
+					ends[i] = position;
+					break;
+				}
+				ends[i] = position;
+				i++;
+			} else if (ends[i] > end) {
+				starts[i] = end;
+				break;
+			} else {
+				remove(i);
+				// removing the first range advances the head
+				if (i < head) i = head;
+			}
+		}
+		if (count == 0) {
+			head = 0;
+			if (length > 0) release(length);
+		} else if (origins[head] > base) {
+			release((int) (origins[head] - base));
+		}
+	}
+
+	// returns the index at which the range was inserted
+	private int insert(int i, long start, long end, long origin) {
+		if (head + count == starts.length) {
+			if (count * 2 > starts.length) {
+				starts = Arrays.copyOf(starts, starts.length * 2);
+				ends = Arrays.copyOf(ends, ends.length * 2);
+				origins = Arrays.copyOf(origins, origins.length * 2);
+			} else {
+				System.arraycopy(starts, head, starts, 0, count);
+				System.arraycopy(ends, head, ends, 0, count);
+				System.arraycopy(origins, head, origins, 0, count);
+				i -= head;
+				head = 0;
+			}
+		}
+		int lim = head + count;
+		System.arraycopy(starts, i, starts, i + 1, lim - i);
+		System.arraycopy(ends, i, ends, i + 1, lim - i);
+		System.arraycopy(origins, i, origins, i + 1, lim - i);
+		starts[i] = start;
+		ends[i] = end;
+		origins[i] = origin;
+		count ++;
+		return i;
+	}
+
+	private void remove(int i) {
+		if (i == head) {
+			head ++;
+		} else {
+			int lim = head + count;
+			System.arraycopy(starts, i + 1, starts, i, lim - i - 1);
+			System.arraycopy(ends, i + 1, ends, i, lim - i - 1);
+			System.arraycopy(origins, i + 1, origins, i, lim - i - 1);
+		}
+		count --;
+	}
+
+	private void release(int n) {
+		stream.writeBytes(held, 0, n);
+		length -= n;
+		System.arraycopy(held, n, held, 0, length);
+		base += n;
+	}
+
+	private void put(int i, short v) {
+		held[i++] = (byte) (v >>  8);
+		held[i  ] = (byte) (v      );
+	}
+
+	private void put(int i, int v) {
+		held[i++] = (byte) (v >> 24);
+		held[i++] = (byte) (v >> 16);
+		held[i++] = (byte) (v >>  8);
+		held[i  ] = (byte) (v      );
+	}
+
+	private void put(int i, long v) {
+		put(i    , (int) (v >> 32));
+		put(i + 4, (int) (v      ));
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * A read stream to which bytes may be returned so that they are read again.
+ * Unread bytes are held in a ring that grows as necessary, so bytes may be
+ * unread any number of times, in any quantity, without the stream being
+ * wrapped further.
+ *
+ * <p>
+ * Bytes are returned to the front of the stream: after unreading an array
+ * segment, the next byte read is the first byte of the segment. Unread bytes
+ * need not have been read from the stream.
+ *
+ * <p>
+ * The position of the stream is that of the underlying stream less the number
+ * of unread bytes that are held. If more bytes are held than have been read
+ * from the underlying stream, no position is available and -1 is reported.
+ *
+ * @author Tom Gibara
+ *
+ * @see ReadStream#pushback()
+ */
+
+public interface PushbackReadStream extends ReadStream {
+
+	/**
+	 * Returns a single byte to the front of the stream.
+	 *
+	 * @param b
+	 *            the byte to be read next
+	 */
+
+	void unread(byte b);
+
+	/**
+	 * Returns an array segment to the front of the stream.
+	 *
+	 * @param bs
+	 *            an array containing the bytes
+	 * @param off
+	 *            the index of the first byte to be read next
+	 * @param len
+	 *            the number of bytes to be returned
+	 */
+
+	void unread(byte[] bs, int off, int len);
+
+	/**
+	 * Returns all bytes in an array to the front of the stream.
+	 *
+	 * @param bs
+	 *            the bytes to be read next
+	 */
+
+	default void unread(byte[] bs) {
+		if (bs == null) throw new IllegalArgumentException("null bs");
+		unread(bs, 0, bs.length);
+	}
+
+	/**
+	 * Returns the remaining bytes of a buffer to the front of the stream. The
+	 * position of the buffer is advanced to its limit.
+	 *
+	 * @param buffer
+	 *            a buffer containing the bytes to be read next
+	 */
+
+	void unread(ByteBuffer buffer);
+
+	/**
+	 * The number of unread bytes that will be read before any further bytes
+	 * are read from the underlying stream.
+	 *
+	 * @return the number of bytes held by the stream
+	 */
+
+	int unreadCount();
+
+}
@@ -21,8 +21,11 @@ import java.io.PrintWriter;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
+import java.security.MessageDigest;
+import java.util.concurrent.ForkJoinPool;
 
 import com.tomgibara.fundament.Producer;
+import com.tomgibara.streams.SlowPathDetector.Path;
 
 /**
  * <p>
@@ -39,6 +42,12 @@ import com.tomgibara.fundament.Producer;
  * Unless otherwise indicated, attempting to write beyond the capacity of the
  * stream will raise an {@link EndOfStreamException}.
  *
+ * <p>
+ * Once constructed, the streams provided by this package allocate nothing
+ * when reading primitives, reading into arrays, filling buffers or skipping
+ * bytes. Methods that return objects, such as {@link #readChars()}, are
+ * excepted.
+ *
  * @author Tom Gibara
  * @see EndOfStreamException
  */
@@ -70,6 +79,7 @@ public interface ReadStream extends CloseableStream {
 	 */
 
 	default void readBytes(byte bs[]) throws StreamException {
+		SlowPathDetector.detected(this, Path.READ_BYTES, bs.length);
 		for (int i = 0; i < bs.length; i++) {
 			bs[i] = readByte();
 		}
@@ -92,6 +102,7 @@ public interface ReadStream extends CloseableStream {
 	 */
 
 	default void readBytes(byte bs[], int off, int len) throws StreamException {
+		SlowPathDetector.detected(this, Path.READ_BYTES, len);
 		int lim = off + len;
 		for (int i = off; i < lim; i++) {
 			bs[i] = readByte();
@@ -119,6 +130,7 @@ public interface ReadStream extends CloseableStream {
 	 */
 
 	default int tryReadBytes(byte bs[], int off, int len) throws StreamException {
+		SlowPathDetector.detected(this, Path.TRY_READ_BYTES, len);
 		int i = off;
 		int lim = off + len;
 		try {
@@ -258,6 +270,7 @@ public interface ReadStream extends CloseableStream {
 	 */
 
 	default void readChars(char[] cs) throws StreamException {
+		SlowPathDetector.detected(this, Path.READ_CHARS, 2L * cs.length);
 		for (int i = 0; i < cs.length; i++) {
 			cs[i] = readChar();
 		}
@@ -279,12 +292,178 @@ public interface ReadStream extends CloseableStream {
 	 */
 
 	default void readChars(char[] cs, int off, int len) throws StreamException {
+		SlowPathDetector.detected(this, Path.READ_CHARS, 2L * len);
 		int lim = off + len;
 		for (int i = off; i < lim; i++) {
 			cs[i] = readChar();
 		}
 	}
 
+	/**
+	 * Reads a sequence of longs that was written with
+	 * {@link WriteStream#writeLongSequence(long[], int, int, SequenceCodec)}
+	 * into an array slice. The number of values read must match the number
+	 * written.
+	 *
+	 * @param values
+	 *            a long array
+	 * @param off
+	 *            the index at which the first value read is stored
+	 * @param len
+	 *            the number of values to be read
+	 * @throws StreamException
+	 *             if an error occurs reading the values
+	 */
+
+	default void readLongSequence(long[] values, int off, int len) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		BitReadStream bits = BitReadStream.borrow(this);
+		try {
+			SequenceCoding.readLongs(bits, values, off, len);
+			bits.align(64);
+		} finally {
+			bits.release();
+		}
+	}
+
+	/**
+	 * Reads a sequence of ints that was written with
+	 * {@link WriteStream#writeIntSequence(int[], int, int, SequenceCodec)}
+	 * into an array slice. The number of values read must match the number
+	 * written.
+	 *
+	 * @param values
+	 *            an int array
+	 * @param off
+	 *            the index at which the first value read is stored
+	 * @param len
+	 *            the number of values to be read
+	 * @throws StreamException
+	 *             if an error occurs reading the values
+	 */
+
+	default void readIntSequence(int[] values, int off, int len) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		BitReadStream bits = BitReadStream.borrow(this);
+		try {
+			SequenceCoding.readInts(bits, values, off, len);
+			bits.align(64);
+		} finally {
+			bits.release();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Reads a sequence of doubles that was written with
+	 * {@link WriteStream#writeDoubleSequence(double[], int, int, int)} into an
+	 * array slice. The block size must match that with which the values were
+	 * written.
+	 *
+	 * <p>
+	 * A sequence that was written with a zero block size must be read with a
+	 * single call. Otherwise, the sequence may be read (and skipped) in parts,
+	 * provided each part other than the last consists of whole blocks.
+	 *
+	 * @param values
+	 *            a double array
+	 * @param off
+	 *            the index at which the first value read is stored
+	 * @param len
+	 *            the number of values to be read
+	 * @param blockSize
+	 *            the number of values in each block, or zero if the values
+	 *            were not divided into blocks
+	 * @throws StreamException
+	 *             if an error occurs reading the values
+	 */
+
+	default void readDoubleSequence(double[] values, int off, int len, int blockSize) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		if (blockSize < 0) throw new IllegalArgumentException("negative blockSize");
+		BitReadStream bits = BitReadStream.borrow(this);
+		try {
+			XorCoding.readDoubles(bits, values, off, len, blockSize);
+			bits.align(64);
+		} finally {
+			bits.release();
+		}
+	}
+
+	/**
+	 * Reads a sequence of floats that was written with
+	 * {@link WriteStream#writeFloatSequence(float[], int, int, int)} into an
+	 * array slice. The constraints described for
+	 * {@link #readDoubleSequence(double[], int, int, int)} apply.
+	 *
+	 * @param values
+	 *            a float array
+	 * @param off
+	 *            the index at which the first value read is stored
+	 * @param len
+	 *            the number of values to be read
+	 * @param blockSize
+	 *            the number of values in each block, or zero if the values
+	 *            were not divided into blocks
+	 * @throws StreamException
+	 *             if an error occurs reading the values
+	 */
+
+	default void readFloatSequence(float[] values, int off, int len, int blockSize) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		if (blockSize < 0) throw new IllegalArgumentException("negative blockSize");
+		BitReadStream bits = BitReadStream.borrow(this);
+		try {
+			XorCoding.readFloats(bits, values, off, len, blockSize);
+			bits.align(64);
+		} finally {
+			bits.release();
+		}
+	}
+
+	/**
+	 * Skips whole blocks of a double sequence that was written with a
+	 * non-zero block size by
+	 * {@link WriteStream#writeDoubleSequence(double[], int, int, int)}. The
+	 * skipped blocks are not decoded.
+	 *
+	 * @param len
+	 *            the number of values to skip, a multiple of the block size
+	 * @param blockSize
+	 *            the number of values in each block
+	 * @throws StreamException
+	 *             if an error occurs skipping the values
+	 */
+
+	default void skipDoubleSequence(int len, int blockSize) throws StreamException {
+		if (blockSize <= 0) throw new IllegalArgumentException("non-positive blockSize");
+		if (len < 0 || len % blockSize != 0) throw new IllegalArgumentException("len not a whole number of blocks");
+		BitReadStream bits = BitReadStream.borrow(this);
+		try {
+			XorCoding.skipBlocks(bits, len, blockSize);
+		} finally {
+			bits.release();
+		}
+	}
+
+	/**
+	 * Skips whole blocks of a float sequence that was written with a non-zero
+	 * block size by
+	 * {@link WriteStream#writeFloatSequence(float[], int, int, int)}. The
+	 * skipped blocks are not decoded.
+	 *
+	 * @param len
+	 *            the number of values to skip, a multiple of the block size
+	 * @param blockSize
+	 *            the number of values in each block
+	 * @throws StreamException
+	 *             if an error occurs skipping the values
+	 */
+
+	default void skipFloatSequence(int len, int blockSize) throws StreamException {
+		skipDoubleSequence(len, blockSize);
+	}
+
 	/**
 	 * <p>
 	 * Reads a string from the stream. The stream implementation is expected to
@@ -321,12 +500,13 @@ public interface ReadStream extends CloseableStream {
 	default void fillBuffer(ByteBuffer buffer) throws StreamException {
 		if (!buffer.hasRemaining()) return; // nothing to do
 		if (buffer.hasArray()) {
-			int offset = buffer.arrayOffset();
+			int position = buffer.position();
 			byte[] array = buffer.array();
 			int remaining = buffer.remaining();
-			int read = tryReadBytes(array, offset, remaining);
-			((Buffer) buffer).position(buffer.position() + read);
+			int read = tryReadBytes(array, buffer.arrayOffset() + position, remaining);
+			((Buffer) buffer).position(position + read);
 		} else {
+			SlowPathDetector.detected(this, Path.FILL_BUFFER, buffer.remaining());
 			try {
 				do {
 					buffer.put(readByte());
@@ -368,9 +548,13 @@ public interface ReadStream extends CloseableStream {
 			}
 			// falls through if no buffering
 		}
-		for (; length > 0; length --) {
+		if (length == 0L) return;
+		SlowPathDetector.detected(this, Path.SKIP, length);
+		Object event = StreamEvents.beginSkip();
+		for (long i = length; i > 0; i--) {
 			readByte();
 		}
+		StreamEvents.endSkip(event, length);
 	}
 
 	/**
@@ -388,6 +572,47 @@ public interface ReadStream extends CloseableStream {
 		return new BoundedReadStream(this, length);
 	}
 
+	/**
+	 * <p>
+	 * A reader that draws from the same stream of bytes, but which can peek at
+	 * upcoming bytes and reset to a marked position, provided that it does not
+	 * move more than the specified number of bytes beyond the mark. This
+	 * supports format detection and parsers that need to look ahead of the
+	 * bytes they consume.
+	 *
+	 * <p>
+	 * The returned stream buffers up to <code>lookahead</code> bytes, filling
+	 * its buffer in bulk via {@link #fillBuffer(ByteBuffer)}; consequently this
+	 * stream may be read ahead of the returned stream by that number of
+	 * bytes, and should not be used directly after the returned stream has
+	 * been read. The buffer is reused throughout the life of the stream.
+	 *
+	 * @param lookahead
+	 *            the greatest number of bytes that may be peeked or read after
+	 *            a mark
+	 * @return a stream supporting mark, reset and peek
+	 */
+
+	default MarkableReadStream markable(int lookahead) {
+		if (lookahead <= 0) throw new IllegalArgumentException("non-positive lookahead");
+		return new LookaheadReadStream(this, lookahead);
+	}
+
+	/**
+	 * A reader that draws from the same stream of bytes, but to which bytes
+	 * may be returned to be read again. Any number of bytes may be unread
+	 * without further wrapping the stream, which makes it suitable for parsers
+	 * that over-read. Calling this method on a stream that already supports
+	 * pushback returns the same stream.
+	 *
+	 * @return a stream supporting unread operations
+	 * @see StreamTransfer.Result#residualStream()
+	 */
+
+	default PushbackReadStream pushback() {
+		return new UnreadReadStream(this);
+	}
+
 	/**
 	 * A reader that guards the close method of this reader with the specified
 	 * closer implementation.
@@ -414,6 +639,11 @@ public interface ReadStream extends CloseableStream {
 	 * stream. If the returned stream is closed before this stream is exhausted
 	 * then both streams are closed.
 	 *
+	 * <p>
+	 * Sequences are flattened rather than nested: if either stream was itself
+	 * produced by sequencing streams, it may be consumed by this method, after
+	 * which reading from it raises a {@link StreamException}.
+	 *
 	 * @param stream
 	 *            a stream from which data should be read once this stream is
 	 *            exhausted
@@ -424,7 +654,7 @@ public interface ReadStream extends CloseableStream {
 
 	default ReadStream andThen(ReadStream stream) {
 		if (stream == null) throw new IllegalArgumentException("null stream");
-		return new SeqReadStream(StreamCloser.closeStream(), this, stream);
+		return SeqReadStream.sequence(StreamCloser.closeStream(), this, stream);
 	}
 
 	/**
@@ -441,6 +671,11 @@ public interface ReadStream extends CloseableStream {
 	 * supplied {@link StreamCloser} is applied to this stream before the
 	 * secondary stream is closed.
 	 *
+	 * <p>
+	 * Sequences are flattened rather than nested: if either stream was itself
+	 * produced by sequencing streams, it may be consumed by this method, after
+	 * which reading from it raises a {@link StreamException}.
+	 *
 	 * @param closer
 	 *            logic to be performed on this stream before returning data
 	 *            from the secondary stream
@@ -455,7 +690,7 @@ public interface ReadStream extends CloseableStream {
 	default ReadStream andThen(StreamCloser closer, ReadStream stream) {
 		if (closer == null) throw new IllegalArgumentException("null closer");
 		if (stream == null) throw new IllegalArgumentException("null stream");
-		return new SeqReadStream(closer, this, stream);
+		return SeqReadStream.sequence(closer, this, stream);
 	}
 
 	/**
@@ -469,6 +704,11 @@ public interface ReadStream extends CloseableStream {
 	 * If the returned stream is closed before the supplied stream is exhausted
 	 * then both streams are closed.
 	 *
+	 * <p>
+	 * Sequences are flattened rather than nested: if either stream was itself
+	 * produced by sequencing streams, it may be consumed by this method, after
+	 * which reading from it raises a {@link StreamException}.
+	 *
 	 * @param stream
 	 *            a stream from which data should be read to exhaustion before
 	 *            this stream is read
@@ -480,7 +720,7 @@ public interface ReadStream extends CloseableStream {
 
 	default ReadStream butFirst(ReadStream stream) {
 		if (stream == null) throw new IllegalArgumentException("null stream");
-		return new SeqReadStream(StreamCloser.closeStream(), stream, this);
+		return SeqReadStream.sequence(StreamCloser.closeStream(), stream, this);
 	}
 
 	/**
@@ -496,6 +736,11 @@ public interface ReadStream extends CloseableStream {
 	 * supplied {@link StreamCloser} is applied to it stream before the this
 	 * stream is closed.
 	 *
+	 * <p>
+	 * Sequences are flattened rather than nested: if either stream was itself
+	 * produced by sequencing streams, it may be consumed by this method, after
+	 * which reading from it raises a {@link StreamException}.
+	 *
 	 * @param stream
 	 *            a stream from which data should be read to exhaustion before
 	 *            this stream is read
@@ -511,7 +756,7 @@ public interface ReadStream extends CloseableStream {
 	default ReadStream butFirst(ReadStream stream, StreamCloser closer) {
 		if (stream == null) throw new IllegalArgumentException("null stream");
 		if (closer == null) throw new IllegalArgumentException("null closer");
-		return new SeqReadStream(closer, stream, this);
+		return SeqReadStream.sequence(closer, stream, this);
 	}
 
 	/**
@@ -538,6 +783,146 @@ public interface ReadStream extends CloseableStream {
 		return new DebugReadStream(this, writer, identity);
 	}
 
+	/**
+	 * <p>
+	 * A reader that draws from the same stream of bytes, but which records
+	 * its usage in the supplied metrics: the number of bytes read, the number
+	 * of calls made to each type of operation, the end-of-stream conditions
+	 * encountered and the time spent in {@link #fillBuffer(ByteBuffer)} and
+	 * {@link #skip(long)}.
+	 *
+	 * <p>
+	 * Unlike {@link #debug(PrintWriter, String)}, metering is inexpensive
+	 * enough to remain enabled in production. The same metrics may be shared
+	 * by any number of streams.
+	 *
+	 * @param metrics
+	 *            the metrics to be updated
+	 * @return a stream that meters this stream
+	 * @see Streams#metrics()
+	 */
+
+	default ReadStream metered(StreamMetrics metrics) {
+		if (metrics == null) throw new IllegalArgumentException("null metrics");
+		return new MeteredReadStream(this, metrics);
+	}
+
+	/**
+	 * <p>
+	 * A reader that draws from the same stream of bytes, but which records each
+	 * operation into the supplied trace recorder. Recording is performed
+	 * without allocation and without I/O so that, unlike
+	 * {@link #debug(PrintWriter, String)}, tracing has little effect on the
+	 * timing of the code being investigated.
+	 *
+	 * <p>
+	 * The recorded operations are output in the same format as debug streams
+	 * when the recorder is dumped. The same recorder may be shared by multiple
+	 * streams, in which case the supplied identity distinguishes their
+	 * entries.
+	 *
+	 * @param recorder
+	 *            the recorder into which operations should be recorded
+	 * @param identity
+	 *            an identifier for the traced stream, may be null
+	 * @return a stream that wraps this stream with tracing
+	 * @see Streams#traceRecorder(int)
+	 */
+
+	default ReadStream traced(TraceRecorder recorder, String identity) {
+		if (recorder == null) throw new IllegalArgumentException("null recorder");
+		return new TracedReadStream(this, recorder, identity);
+	}
+
+	/**
+	 * <p>
+	 * A reader that draws from the same stream of bytes, but which updates the
+	 * supplied digest with every byte that it reads. Bytes read in bulk (for
+	 * example via {@link #fillBuffer(ByteBuffer)}) are passed to the digest in
+	 * a single update.
+	 *
+	 * <p>
+	 * The digest is not reset by the returned stream; the caller remains
+	 * responsible for obtaining the digest value, typically after the stream
+	 * has been read to exhaustion.
+	 *
+	 * @param digest
+	 *            the digest to be updated with the bytes read
+	 * @return a stream that digests the bytes read from this stream
+	 */
+
+	default ReadStream digested(MessageDigest digest) {
+		if (digest == null) throw new IllegalArgumentException("null digest");
+		return new DigestReadStream(this, digest);
+	}
+
+	/**
+	 * <p>
+	 * A reader that decompresses zlib format data (as produced by
+	 * {@link WriteStream#deflated(int)} or a
+	 * <code>java.util.zip.DeflaterOutputStream</code>) read from this stream.
+	 * Compressed data is drawn from this stream in bulk, so bytes that follow
+	 * the end of the compressed data may be consumed from this stream.
+	 *
+	 * <p>
+	 * The <code>Inflater</code> used by the returned stream is drawn from a
+	 * bounded pool and is returned to that pool when the stream is closed;
+	 * closing the returned stream also closes this stream.
+	 *
+	 * @return a stream of the decompressed bytes
+	 * @see WriteStream#deflated(int)
+	 */
+
+	default ReadStream inflated() {
+		return new InflateReadStream(this);
+	}
+
+	/**
+	 * A reader that decompresses data read from this stream that was
+	 * compressed by {@link WriteStream#deflatedParallel(int, int, ForkJoinPool)}.
+	 * Compressed blocks are read ahead of the returned stream and decompressed
+	 * concurrently on the supplied pool. No bytes that follow the end of the
+	 * compressed data are consumed from this stream. Closing the returned
+	 * stream also closes this stream.
+	 *
+	 * @param pool
+	 *            the pool on which blocks are decompressed
+	 * @return a stream of the decompressed bytes
+	 * @see WriteStream#deflatedParallel(int, int, ForkJoinPool)
+	 */
+
+	default ReadStream inflatedParallel(ForkJoinPool pool) {
+		if (pool == null) throw new IllegalArgumentException("null pool");
+		return new ParallelInflateReadStream(this, pool);
+	}
+
+	/**
+	 * A reader of values with arbitrary bit lengths. Bits are read from this
+	 * stream as longs. Closing the returned stream also closes this stream.
+	 *
+	 * @return a stream that reads bits from this stream
+	 * @see WriteStream#bits()
+	 */
+
+	default BitReadStream bits() {
+		return new BitReadStream(this);
+	}
+
+	/**
+	 * A reader that decompresses data read from this stream that was
+	 * compressed by {@link WriteStream#compressedFast()}. Unlike
+	 * {@link #inflated()}, no bytes that follow the end of the compressed data
+	 * are consumed from this stream. Closing the returned stream also closes
+	 * this stream.
+	 *
+	 * @return a stream of the decompressed bytes
+	 * @see WriteStream#compressedFast()
+	 */
+
+	default ReadStream decompressedFast() {
+		return new LZReadStream(this);
+	}
+
 	/**
 	 * Returns an <code>InputStream</code> that draws from the same stream of
 	 * bytes.
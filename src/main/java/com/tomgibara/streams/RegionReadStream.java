@@ -0,0 +1,241 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.tomgibara.streams.StreamStatistics.Type;
+
+/**
+ * Reads values from a region of a {@link FileChannel} using positional reads.
+ * The stream maintains its own position and never modifies that of the
+ * channel. Calls to {@link #readAt(long, ByteBuffer)} share no mutable state
+ * and so may be made concurrently. Closing the stream does not close the
+ * channel.
+ *
+ * @author Tom Gibara
+ *
+ * @see StreamRegion
+ */
+
+final class RegionReadStream implements SeekableReadStream {
+
+	// bulk reads of no more than this many bytes are staged through a buffer owned by the stream
+	private static final int STAGED_LENGTH = 1024;
+
+	private final FileChannel channel;
+	private final long start;
+	private final ByteBuffer buffer = ByteBuffer.allocate(8);
+	// the length of the region, which may be reduced by truncation
+	private long limit;
+	// the position relative to the start of the region, negative when closed
+	private long position = 0L;
+	// stages short bulk reads so that they allocate nothing without retaining the caller's array
+	private ByteBuffer staging = null;
+
+	RegionReadStream(FileChannel channel, long start, long length) {
+		this.channel = channel;
+		this.start = start;
+		this.limit = length;
+		StreamStatistics.opened(Type.REGION_READ);
+	}
+
+	@Override
+	public byte readByte() throws StreamException {
+		return read(buffer, 7).get();
+	}
+
+	@Override
+	public void readBytes(byte[] bs) throws StreamException {
+		if (readArray(bs, 0, bs.length) < bs.length) throw EndOfStreamException.instance();
+	}
+
+	@Override
+	public void readBytes(byte[] bs, int off, int len) throws StreamException {
+		if (readArray(bs, off, len) < len) throw EndOfStreamException.instance();
+	}
+
+	@Override
+	public int tryReadBytes(byte[] bs, int off, int len) throws StreamException {
+		return readArray(bs, off, len);
+	}
+
+	@Override
+	public int readInt() throws StreamException {
+		return read(buffer, 4).getInt();
+	}
+
+	@Override
+	public boolean readBoolean() throws StreamException {
+		return read(buffer, 7).get() != 0;
+	}
+
+	@Override
+	public short readShort() throws StreamException {
+		return read(buffer, 6).getShort();
+	}
+
+	@Override
+	public long readLong() throws StreamException {
+		return read(buffer, 0).getLong();
+	}
+
+	@Override
+	public float readFloat() throws StreamException {
+		return read(buffer, 4).getFloat();
+	}
+
+	@Override
+	public double readDouble() throws StreamException {
+		return read(buffer, 0).getDouble();
+	}
+
+	@Override
+	public char readChar() throws StreamException {
+		return read(buffer, 6).getChar();
+	}
+
+	@Override
+	public StreamBuffering getBuffering() {
+		return StreamBuffering.PREFER_DIRECT;
+	}
+
+	@Override
+	public void fillBuffer(ByteBuffer buffer) throws StreamException {
+		if (position < 0L) StreamException.raiseClosed();
+		position += readRegion(position, buffer);
+	}
+
+	@Override
+	public void readAt(long position, ByteBuffer buffer) throws StreamException {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (buffer == null) throw new IllegalArgumentException("null buffer");
+		if (this.position < 0L) StreamException.raiseClosed();
+		readRegion(position, buffer);
+	}
+
+	@Override
+	public void skip(long length) throws StreamException {
+		if (length < 0L) throw new IllegalArgumentException("negative length");
+		if (position < 0L) StreamException.raiseClosed();
+		long size = size();
+		if (length > size - position) {
+			position = size;
+			throw EndOfStreamException.instance();
+		}
+		position += length;
+	}
+
+	@Override
+	public long position() {
+		return position;
+	}
+
+	@Override
+	public long size() throws StreamException {
+		if (position < 0L) StreamException.raiseClosed();
+		try {
+			return Math.max(0L, Math.min(limit, channel.size() - start));
+		} catch (IOException e) {
+			throw new StreamException(e);
+		}
+	}
+
+	@Override
+	public void seek(long position) throws StreamException {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		long size = size();
+		if (position > size) {
+			this.position = size;
+			throw EndOfStreamException.instance();
+		}
+		this.position = position;
+	}
+
+	@Override
+	public void truncate(long size) throws StreamException {
+		if (size < 0L) throw new IllegalArgumentException("negative size");
+		if (position < 0L) StreamException.raiseClosed();
+		if (size >= limit) return;
+		limit = size;
+		if (position > limit) position = limit;
+	}
+
+	/**
+	 * Closes the stream but not the underlying channel.
+	 */
+
+	@Override
+	public void close() {
+		if (position < 0L) return;
+		StreamStatistics.closed(Type.REGION_READ);
+		position = -1L;
+	}
+
+	// reads from a position within the region into the buffer, returning the number of bytes read
+	private int readRegion(long position, ByteBuffer buffer) {
+		long available = limit - position;
+		if (available <= 0L) return 0;
+		int from = buffer.position();
+		int oldLimit = buffer.limit();
+		if (oldLimit - from > available) ((Buffer) buffer).limit(from + (int) available);
+		Object event = StreamEvents.beginBuffer();
+		try {
+			long offset = start + position - from;
+			while (buffer.hasRemaining()) {
+				int count = channel.read(buffer, offset + buffer.position());
+				if (count == -1) break;
+			}
+		} catch (IOException e) {
+			throw new StreamException(e);
+		} finally {
+			((Buffer) buffer).limit(oldLimit);
+		}
+		int count = buffer.position() - from;
+		StreamEvents.endFill(event, count, buffer);
+		return count;
+	}
+
+	private ByteBuffer read(ByteBuffer buffer, int position) {
+		((Buffer) buffer).position(position);
+		fillBuffer(buffer);
+		if (buffer.hasRemaining()) throw EndOfStreamException.instance();
+		((Buffer) buffer).position(position);
+		return buffer;
+	}
+
+	// reads into an array slice, returning the number of bytes read
+	private int readArray(byte[] bs, int off, int len) {
+		if (off < 0 || len < 0 || off + len > bs.length) throw new IndexOutOfBoundsException();
+		if (len > STAGED_LENGTH) {
+			ByteBuffer buffer = ByteBuffer.wrap(bs, off, len);
+			fillBuffer(buffer);
+			return buffer.position() - off;
+		}
+		if (staging == null) staging = ByteBuffer.allocate(STAGED_LENGTH);
+		((Buffer) staging).clear().limit(len);
+		fillBuffer(staging);
+		int count = staging.position();
+		((Buffer) staging).flip();
+		staging.get(bs, off, count);
+		return count;
+	}
+
+}
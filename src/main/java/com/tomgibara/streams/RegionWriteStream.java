@@ -0,0 +1,227 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.tomgibara.streams.StreamStatistics.Type;
+
+/**
+ * Writes values to a region of a {@link FileChannel} using positional writes.
+ * The stream maintains its own position and never modifies that of the
+ * channel. Calls to {@link #writeAt(long, ByteBuffer)} share no mutable state
+ * and so may be made concurrently. Closing the stream does not close the
+ * channel.
+ *
+ * @author Tom Gibara
+ *
+ * @see StreamRegion
+ */
+
+final class RegionWriteStream implements SeekableWriteStream {
+
+	// bulk writes of no more than this many bytes are staged through a buffer owned by the stream
+	private static final int STAGED_LENGTH = 1024;
+
+	private final FileChannel channel;
+	private final long start;
+	private final ByteBuffer buffer = ByteBuffer.allocate(8);
+	// the length of the region, which may be reduced by truncation
+	private long limit;
+	// the position relative to the start of the region, negative when closed
+	private long position = 0L;
+	// stages short bulk writes so that they allocate nothing without retaining the caller's array
+	private ByteBuffer staging = null;
+
+	RegionWriteStream(FileChannel channel, long start, long length) {
+		this.channel = channel;
+		this.start = start;
+		this.limit = length;
+		StreamStatistics.opened(Type.REGION_WRITE);
+	}
+
+	@Override
+	public void writeByte(byte v) throws StreamException {
+		write( buffer.put(v) );
+	}
+
+	@Override
+	public void writeBytes(byte[] bs) throws StreamException {
+		if (writeArray(bs, 0, bs.length) < bs.length) throw EndOfStreamException.instance();
+	}
+
+	@Override
+	public void writeBytes(byte[] bs, int off, int len) throws StreamException {
+		if (writeArray(bs, off, len) < len) throw EndOfStreamException.instance();
+	}
+
+	@Override
+	public int tryWriteBytes(byte[] bs, int off, int len) throws StreamException {
+		return writeArray(bs, off, len);
+	}
+
+	@Override
+	public void writeInt(int v) throws StreamException {
+		write( buffer.putInt(v) );
+	}
+
+	@Override
+	public void writeBoolean(boolean v) throws StreamException {
+		write( buffer.put(v ? (byte) 1 : (byte) 0) );
+	}
+
+	@Override
+	public void writeShort(short v) throws StreamException {
+		write( buffer.putShort(v) );
+	}
+
+	@Override
+	public void writeLong(long v) throws StreamException {
+		write( buffer.putLong(v) );
+	}
+
+	@Override
+	public void writeFloat(float v) throws StreamException {
+		write( buffer.putFloat(v) );
+	}
+
+	@Override
+	public void writeDouble(double v) throws StreamException {
+		write( buffer.putDouble(v) );
+	}
+
+	@Override
+	public void writeChar(char v) throws StreamException {
+		write( buffer.putChar(v) );
+	}
+
+	@Override
+	public StreamBuffering getBuffering() {
+		return StreamBuffering.PREFER_DIRECT;
+	}
+
+	@Override
+	public void drainBuffer(ByteBuffer buffer) throws StreamException {
+		if (position < 0L) StreamException.raiseClosed();
+		position += writeRegion(position, buffer);
+	}
+
+	@Override
+	public void writeAt(long position, ByteBuffer buffer) throws StreamException {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (buffer == null) throw new IllegalArgumentException("null buffer");
+		if (this.position < 0L) StreamException.raiseClosed();
+		if (position > limit) throw EndOfStreamException.instance();
+		writeRegion(position, buffer);
+	}
+
+	@Override
+	public long position() {
+		return position;
+	}
+
+	@Override
+	public long size() {
+		if (position < 0L) StreamException.raiseClosed();
+		return limit;
+	}
+
+	@Override
+	public void seek(long position) throws StreamException {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (this.position < 0L) StreamException.raiseClosed();
+		if (position > limit) {
+			this.position = limit;
+			throw EndOfStreamException.instance();
+		}
+		this.position = position;
+	}
+
+	@Override
+	public void truncate(long size) throws StreamException {
+		if (size < 0L) throw new IllegalArgumentException("negative size");
+		if (position < 0L) StreamException.raiseClosed();
+		if (size >= limit) return;
+		limit = size;
+		if (position > limit) position = limit;
+	}
+
+	/**
+	 * Closes the stream but not the underlying channel.
+	 */
+
+	@Override
+	public void close() {
+		if (position < 0L) return;
+		StreamStatistics.closed(Type.REGION_WRITE);
+		position = -1L;
+	}
+
+	// writes the buffer to a position within the region, returning the number of bytes written
+	private int writeRegion(long position, ByteBuffer buffer) {
+		long available = limit - position;
+		if (available <= 0L) return 0;
+		int from = buffer.position();
+		int oldLimit = buffer.limit();
+		if (oldLimit - from > available) ((Buffer) buffer).limit(from + (int) available);
+		Object event = StreamEvents.beginBuffer();
+		try {
+			long offset = start + position - from;
+			while (buffer.hasRemaining()) {
+				channel.write(buffer, offset + buffer.position());
+			}
+		} catch (IOException e) {
+			throw new StreamException(e);
+		} finally {
+			((Buffer) buffer).limit(oldLimit);
+		}
+		int count = buffer.position() - from;
+		StreamEvents.endDrain(event, count, buffer);
+		return count;
+	}
+
+	// values are never partially written
+	private void write(ByteBuffer buffer) {
+		if (buffer.position() > limit - position) {
+			((Buffer) buffer).clear();
+			if (position < 0L) StreamException.raiseClosed();
+			throw EndOfStreamException.instance();
+		}
+		((Buffer) buffer).flip();
+		drainBuffer(buffer);
+		((Buffer) buffer).clear();
+	}
+
+	// writes from an array slice, returning the number of bytes written
+	private int writeArray(byte[] bs, int off, int len) {
+		if (off < 0 || len < 0 || off + len > bs.length) throw new IndexOutOfBoundsException();
+		if (len > STAGED_LENGTH) {
+			ByteBuffer buffer = ByteBuffer.wrap(bs, off, len);
+			drainBuffer(buffer);
+			return buffer.position() - off;
+		}
+		if (staging == null) staging = ByteBuffer.allocate(STAGED_LENGTH);
+		((Buffer) staging).clear();
+		staging.put(bs, off, len).flip();
+		drainBuffer(staging);
+		return staging.position();
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Reads values from a {@link SeekableByteChannel}, exposing the seeking
+ * capabilities of the channel. Positions and sizes are those reported by the
+ * channel. Seeking beyond the size of the channel positions the stream at its
+ * end and raises an {@link EndOfStreamException}. Truncating the stream
+ * truncates the underlying channel, which must therefore be writable. Over a
+ * {@link FileChannel}, {@link #readAt(long, ByteBuffer)} uses positional reads
+ * which neither consult nor modify the channel position.
+ *
+ * @author Tom Gibara
+ *
+ * @see ChannelReadStream
+ */
+
+final class SeekableChannelReadStream extends ChannelReadStream implements SeekableReadStream {
+
+	private final SeekableByteChannel channel;
+
+	SeekableChannelReadStream(SeekableByteChannel channel) {
+		super(channel);
+		this.channel = channel;
+	}
+
+	@Override
+	public long size() throws StreamException {
+		try {
+			return channel.size();
+		} catch (IOException e) {
+			throw new StreamException(e);
+		}
+	}
+
+	@Override
+	public void seek(long position) throws StreamException {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		try {
+			long size = channel.size();
+			if (position > size) {
+				channel.position(size);
+				throw EndOfStreamException.instance();
+			}
+			channel.position(position);
+		} catch (IOException e) {
+			throw new StreamException(e);
+		}
+	}
+
+	@Override
+	public void truncate(long size) throws StreamException {
+		if (size < 0L) throw new IllegalArgumentException("negative size");
+		try {
+			channel.truncate(size);
+		} catch (IOException e) {
+			throw new StreamException(e);
+		}
+	}
+
+	@Override
+	public void readAt(long position, ByteBuffer buffer) throws StreamException {
+		if (!(channel instanceof FileChannel)) {
+			SeekableReadStream.super.readAt(position, buffer);
+			return;
+		}
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (buffer == null) throw new IllegalArgumentException("null buffer");
+		FileChannel file = (FileChannel) channel;
+		Object event = StreamEvents.beginBuffer();
+		int from = buffer.position();
+		long offset = position - from;
+		try {
+			while (buffer.hasRemaining()) {
+				int count = file.read(buffer, offset + buffer.position());
+				if (count == -1) break;
+			}
+		} catch (IOException e) {
+			throw new StreamException(e);
+		}
+		StreamEvents.endFill(event, buffer.position() - from, buffer);
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Writes values to a {@link SeekableByteChannel}, exposing the seeking
+ * capabilities of the channel. Positions and sizes are those reported by the
+ * channel. As with the channel itself, the stream may be positioned beyond its
+ * size; a subsequent write extends the channel, the content of any gap being
+ * unspecified. Over a {@link FileChannel},
+ * {@link #writeAt(long, ByteBuffer)} uses positional writes which neither
+ * consult nor modify the channel position.
+ *
+ * @author Tom Gibara
+ *
+ * @see ChannelWriteStream
+ */
+
+final class SeekableChannelWriteStream extends ChannelWriteStream implements SeekableWriteStream {
+
+	private final SeekableByteChannel channel;
+
+	SeekableChannelWriteStream(SeekableByteChannel channel) {
+		super(channel);
+		this.channel = channel;
+	}
+
+	@Override
+	public long size() throws StreamException {
+		try {
+			return channel.size();
+		} catch (IOException e) {
+			throw new StreamException(e);
+		}
+	}
+
+	@Override
+	public void seek(long position) throws StreamException {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		try {
+			channel.position(position);
+		} catch (IOException e) {
+			throw new StreamException(e);
+		}
+	}
+
+	@Override
+	public void truncate(long size) throws StreamException {
+		if (size < 0L) throw new IllegalArgumentException("negative size");
+		try {
+			channel.truncate(size);
+		} catch (IOException e) {
+			throw new StreamException(e);
+		}
+	}
+
+	@Override
+	public void writeAt(long position, ByteBuffer buffer) throws StreamException {
+		if (!(channel instanceof FileChannel)) {
+			SeekableWriteStream.super.writeAt(position, buffer);
+			return;
+		}
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (buffer == null) throw new IllegalArgumentException("null buffer");
+		FileChannel file = (FileChannel) channel;
+		Object event = StreamEvents.beginBuffer();
+		int from = buffer.position();
+		long offset = position - from;
+		try {
+			while (buffer.hasRemaining()) {
+				file.write(buffer, offset + buffer.position());
+			}
+		} catch (IOException e) {
+			throw new StreamException(e);
+		}
+		StreamEvents.endDrain(event, buffer.position() - from, buffer);
+	}
+
+}
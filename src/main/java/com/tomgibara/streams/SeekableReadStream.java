@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * A read stream that supports random access.
+ *
+ * <p>
+ * In addition to seeking, bytes may be read from any position without
+ * disturbing the position of the stream via
+ * {@link #readAt(long, ByteBuffer)}. Streams that can read directly from a
+ * position, such as those over a {@code FileChannel}, do so without any
+ * shared state, permitting multiple threads to read concurrently from the same
+ * stream; this is not true of the default implementation.
+ *
+ * @author Tom Gibara
+ *
+ * @see SeekableStream
+ */
+
+public interface SeekableReadStream extends ReadStream, SeekableStream {
+
+	/**
+	 * Reads bytes starting at the specified position into the supplied buffer
+	 * without changing the position of the stream. As per
+	 * {@link #fillBuffer(ByteBuffer)}, bytes are read until the buffer is full
+	 * or the stream is exhausted; an end-of-stream condition is indicated by
+	 * the buffer having remaining elements. The default implementation seeks
+	 * to the position, fills the buffer and then restores the original
+	 * position.
+	 *
+	 * @param position
+	 *            the position of the first byte to be read
+	 * @param buffer
+	 *            the buffer into which bytes are to be read
+	 * @throws StreamException
+	 *             if an error occurs reading from the stream
+	 */
+
+	default void readAt(long position, ByteBuffer buffer) throws StreamException {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (buffer == null) throw new IllegalArgumentException("null buffer");
+		if (position >= size()) return;
+		long original = position();
+		seek(position);
+		try {
+			fillBuffer(buffer);
+		} finally {
+			seek(original);
+		}
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+/**
+ * <p>
+ * A stream that supports random access. In addition to reporting its
+ * position, a seekable stream can move to any position within its extent,
+ * report the size of that extent and reduce it.
+ *
+ * <p>
+ * Positions are measured in bytes from the start of the stream, which need
+ * not be the start of the underlying storage; for example, a stream over a
+ * segment of a byte array reports the position of its first byte as zero.
+ * Unlike {@link PositionalStream#position()}, the position of a seekable
+ * stream is always available while the stream is open.
+ *
+ * @author Tom Gibara
+ *
+ * @see SeekableReadStream
+ * @see SeekableWriteStream
+ */
+
+public interface SeekableStream extends PositionalStream {
+
+	/**
+	 * The current position of the stream.
+	 *
+	 * @return the position of the stream, never negative while the stream is
+	 *         open
+	 * @throws StreamException
+	 *             if the position could not be obtained
+	 */
+
+	@Override
+	long position() throws StreamException;
+
+	/**
+	 * The size of the stream. For read streams this is the position at which
+	 * the stream is exhausted; for write streams it is the position beyond
+	 * which no data has been written or, for streams of fixed capacity, beyond
+	 * which no data can be written.
+	 *
+	 * @return the size of the stream in bytes
+	 * @throws StreamException
+	 *             if the size could not be obtained
+	 */
+
+	long size() throws StreamException;
+
+	/**
+	 * Moves the stream to the specified position. Subsequent reads or writes
+	 * will start at this position. A stream that cannot extend itself raises an
+	 * {@link EndOfStreamException} if the position exceeds its size, in which
+	 * case the stream is left positioned at its end.
+	 *
+	 * @param position
+	 *            the new position of the stream
+	 * @throws StreamException
+	 *             if the position could not be changed
+	 */
+
+	void seek(long position) throws StreamException;
+
+	/**
+	 * Reduces the size of the stream. If the supplied size is smaller than the
+	 * current size, all bytes beyond it are discarded and, if the stream is
+	 * positioned beyond the new size, it is moved to it. Otherwise the stream
+	 * is unmodified.
+	 *
+	 * @param size
+	 *            the new size of the stream
+	 * @throws StreamException
+	 *             if the stream could not be truncated
+	 */
+
+	void truncate(long size) throws StreamException;
+
+}
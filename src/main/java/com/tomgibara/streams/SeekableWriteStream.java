@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>
+ * A write stream that supports random access.
+ *
+ * <p>
+ * In addition to seeking, bytes may be written at any position without
+ * disturbing the position of the stream via
+ * {@link #writeAt(long, ByteBuffer)}. Streams that can write directly to a
+ * position, such as those over a {@code FileChannel}, do so without any
+ * shared state, permitting multiple threads to write concurrently to disjoint
+ * ranges of the same stream; this is not true of the default implementation.
+ *
+ * <p>
+ * Seekable streams are patchable; by default, a patch is applied by seeking
+ * to its position, writing the value and restoring the original position.
+ *
+ * @author Tom Gibara
+ *
+ * @see SeekableStream
+ * @see PatchableWriteStream
+ */
+
+public interface SeekableWriteStream extends PatchableWriteStream, SeekableStream {
+
+	/**
+	 * Writes bytes from the supplied buffer starting at the specified position
+	 * without changing the position of the stream. As per
+	 * {@link #drainBuffer(ByteBuffer)}, an end-of-stream condition is
+	 * indicated by the buffer having remaining elements, though a position
+	 * beyond the size of a stream that cannot extend itself raises an
+	 * {@link EndOfStreamException} as per {@link #seek(long)}. The default
+	 * implementation seeks to the position, drains the buffer and then
+	 * restores the original position.
+	 *
+	 * @param position
+	 *            the position at which the first byte is to be written
+	 * @param buffer
+	 *            the buffer from which bytes are to be written
+	 * @throws StreamException
+	 *             if an error occurs writing to the stream
+	 */
+
+	default void writeAt(long position, ByteBuffer buffer) throws StreamException {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (buffer == null) throw new IllegalArgumentException("null buffer");
+		long original = position();
+		seek(position);
+		try {
+			drainBuffer(buffer);
+		} finally {
+			seek(original);
+		}
+	}
+
+	@Override
+	default void patchByte(long position, byte v) throws StreamException {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (position > size() - 1) throw EndOfStreamException.instance();
+		long original = position();
+		seek(position);
+		try {
+			writeByte(v);
+		} finally {
+			seek(original);
+		}
+	}
+
+	@Override
+	default void patchShort(long position, short v) throws StreamException {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (position > size() - 2) throw EndOfStreamException.instance();
+		long original = position();
+		seek(position);
+		try {
+			writeShort(v);
+		} finally {
+			seek(original);
+		}
+	}
+
+	@Override
+	default void patchInt(long position, int v) throws StreamException {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (position > size() - 4) throw EndOfStreamException.instance();
+		long original = position();
+		seek(position);
+		try {
+			writeInt(v);
+		} finally {
+			seek(original);
+		}
+	}
+
+	@Override
+	default void patchLong(long position, long v) throws StreamException {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (position > size() - 8) throw EndOfStreamException.instance();
+		long original = position();
+		seek(position);
+		try {
+			writeLong(v);
+		} finally {
+			seek(original);
+		}
+	}
+
+}
@@ -17,25 +17,100 @@
 package com.tomgibara.streams;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Reads from a sequence of streams in turn. Sequencing a stream that is itself
+ * a sequence does not nest it; instead its streams are moved into a single
+ * flat array so that the cost of each read is independent of how many
+ * sequences were combined to produce it.
+ *
+ * <p>
+ * Each stream in the sequence (other than the last) is paired with the closer
+ * that is applied to it when it is exhausted (or when the sequence is closed).
+ * The last stream is closed directly when the sequence is closed. This
+ * reproduces the behaviour of nested sequences: the closer of an outer
+ * sequence, applied to an exhausted inner sequence, acts on the last stream of
+ * that inner sequence.
+ *
+ * <p>
+ * A sequence that is flattened into another is consumed: the new sequence
+ * takes ownership of its array and continues from its state, while the
+ * consumed sequence raises a {@link StreamException} if it is subsequently
+ * read or sequenced, and is unaffected by being closed. The array can grow at
+ * either end, so that both appending and prepending a stream to a sequence
+ * have an amortized constant cost.
+ */
 
 final class SeqReadStream implements ReadStream {
 
-	private final StreamCloser closer;
-	private final ReadStream[] streams;
+	private static final int MIN_CAPACITY = 4;
+
+	// combines two streams into a sequence, flattening either stream if it is itself a sequence
+	static SeqReadStream sequence(StreamCloser closer, ReadStream first, ReadStream second) {
+		SeqReadStream firstSeq = sequence(first);
+		SeqReadStream secondSeq = sequence(second);
+		StreamBuffering buffering = StreamBuffering.combine(first.getBuffering(), second.getBuffering());
+		if (firstSeq != null && firstSeq.stream != null) {
+			// continue from the current state of the first sequence
+			Elements elements = firstSeq.elements;
+			// appending may move the elements within the array
+			int offset = firstSeq.index - elements.head;
+			elements.closers[elements.tail - 1] = closer;
+			if (secondSeq != null && secondSeq != firstSeq && secondSeq.unread()) {
+				// an unread sequence can be spliced in its entirety
+				elements.append(secondSeq.consume());
+			} else {
+				elements.append(second);
+			}
+			long position = firstSeq.position;
+			return new SeqReadStream(firstSeq.consume(), elements.head + offset, position, buffering);
+		}
+		if (secondSeq != null && secondSeq.unread()) {
+			// prepend to an unread sequence
+			long position = secondSeq.position;
+			Elements elements = secondSeq.consume();
+			elements.prepend(first, closer);
+			return new SeqReadStream(elements, elements.head, position, buffering);
+		}
+		Elements elements = new Elements(MIN_CAPACITY);
+		elements.append(first);
+		elements.closers[0] = closer;
+		elements.append(second);
+		return new SeqReadStream(elements, 0, 0L, buffering);
+	}
+
+	// the stream as a sequence, or null if it is not a sequence
+	private static SeqReadStream sequence(ReadStream stream) {
+		if (!(stream instanceof SeqReadStream)) return null;
+		SeqReadStream seq = (SeqReadStream) stream;
+		seq.checkConsumed();
+		return seq;
+	}
+
+	// null once consumed by another sequence
+	private Elements elements;
 	private final StreamBuffering buffering;
 	private ReadStream stream;
-	private int index = 0;
-	private long position = 0L;
+	private int index;
+	private long position;
 
 	SeqReadStream(StreamCloser closer, ReadStream... streams) {
-		this.closer = closer;
-		this.streams = streams;
-		buffering = StreamBuffering.recommended(streams);
-		stream = streams.length == 0 ? null : streams[0];
+		this(new Elements(streams, closer), 0, 0L, StreamBuffering.recommended(streams));
+	}
+
+	private SeqReadStream(Elements elements, int index, long position, StreamBuffering buffering) {
+		this.elements = elements;
+		this.index = index;
+		this.position = position;
+		this.buffering = buffering;
+		stream = index == elements.tail ? null : elements.streams[index];
 	}
 
 	@Override
 	public byte readByte() {
+		checkConsumed();
 		while (stream != null) {
 			try {
 				return stream.readByte();
@@ -62,6 +137,7 @@ final class SeqReadStream implements ReadStream {
 
 	@Override
 	public void fillBuffer(ByteBuffer buffer) {
+		checkConsumed();
 		while (stream != null) {
 			stream.fillBuffer(buffer);
 			if (!buffer.hasRemaining()) return;
@@ -72,9 +148,11 @@ final class SeqReadStream implements ReadStream {
 
 	@Override
 	public void close() {
+		// the streams of a consumed sequence are closed by the sequence that consumed it
+		if (elements == null) return;
 		while (stream != null) advance();
-		if (index > 0) {
-			streams[streams.length - 1].close();
+		if (index > elements.head) {
+			elements.streams[elements.tail - 1].close();
 			index = -1;
 		}
 	}
@@ -86,22 +164,104 @@ final class SeqReadStream implements ReadStream {
 
 	@Override
 	public long position() throws StreamException {
+		checkConsumed();
 		if (position < 0L || stream == null) return position;
 		long p = stream.position();
 		return p < 0L ? position = -1L : position + p;
 	}
 
 	private void advance() {
-		index ++;
-		if (index == streams.length) {
+		int i = index ++;
+		if (index == elements.tail) {
 			stream = null;
 		} else {
 			if (position >= 0) {
 				long p = stream.position();
 				position = p < 0L ? -1L : position + p;
 			}
-			closer.close(stream);
-			stream = streams[index];
+			elements.closers[i].close(stream);
+			stream = elements.streams[index];
+		}
+	}
+
+	private boolean unread() {
+		return stream != null && index == elements.head;
+	}
+
+	// transfers ownership of the elements to a new sequence
+	private Elements consume() {
+		Elements elements = this.elements;
+		this.elements = null;
+		stream = null;
+		return elements;
+	}
+
+	private void checkConsumed() {
+		if (elements == null) throw new StreamException("sequence consumed");
+	}
+
+	// the streams of one or more sequences, and the closers applied to them
+	private static final class Elements {
+
+		ReadStream[] streams;
+		StreamCloser[] closers;
+		// the populated elements lie between the head (inclusive) and the tail (exclusive)
+		int head;
+		int tail;
+
+		Elements(int capacity) {
+			streams = new ReadStream[capacity];
+			closers = new StreamCloser[capacity];
+			head = 0;
+			tail = 0;
+		}
+
+		Elements(ReadStream[] streams, StreamCloser closer) {
+			this.streams = streams.clone();
+			closers = new StreamCloser[streams.length];
+			Arrays.fill(closers, closer);
+			head = 0;
+			tail = streams.length;
+		}
+
+		void append(ReadStream stream) {
+			ensureSpace(0, 1);
+			streams[tail] = stream;
+			closers[tail] = null;
+			tail ++;
+		}
+
+		void append(Elements elements) {
+			int length = elements.tail - elements.head;
+			ensureSpace(0, length);
+			System.arraycopy(elements.streams, elements.head, streams, tail, length);
+			System.arraycopy(elements.closers, elements.head, closers, tail, length);
+			tail += length;
+			// the closer of the last stream is assigned if the sequence is extended
+			closers[tail - 1] = null;
+		}
+
+		void prepend(ReadStream stream, StreamCloser closer) {
+			ensureSpace(1, 0);
+			head --;
+			streams[head] = stream;
+			closers[head] = closer;
+		}
+
+		// reallocates with space split evenly between the ends, so that growth at either end is amortized
+		private void ensureSpace(int before, int after) {
+			if (before <= head && after <= streams.length - tail) return;
+			int size = tail - head;
+			int capacity = Math.max(MIN_CAPACITY, (size + before + after) * 2);
+			int offset = before + (capacity - size - before - after) / 2;
+			ReadStream[] streams = new ReadStream[capacity];
+			StreamCloser[] closers = new StreamCloser[capacity];
+			System.arraycopy(this.streams, head, streams, offset, size);
+			System.arraycopy(this.closers, head, closers, offset, size);
+			this.streams = streams;
+			this.closers = closers;
+			head = offset;
+			tail = offset + size;
 		}
 	}
 }
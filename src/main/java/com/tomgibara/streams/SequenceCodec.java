@@ -0,0 +1,63 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+/**
+ * <p>
+ * Encodings for sequences of integral values. Sequences are encoded in blocks
+ * of 128 values, each block being prefixed by a header that records the
+ * encoding used and the number of bits occupied by each encoded value. As a
+ * result, sequences can be read without knowledge of the codec with which
+ * they were written.
+ *
+ * @author Tom Gibara
+ *
+ * @see WriteStream#writeLongSequence(long[], int, int, SequenceCodec)
+ * @see ReadStream#readLongSequence(long[], int, int)
+ */
+
+public enum SequenceCodec {
+
+	/**
+	 * Each value is stored with just enough bits to represent the largest
+	 * value in its block, treating values as unsigned. Suited to small
+	 * non-negative values.
+	 */
+	PACKED,
+
+	/**
+	 * The least value in each block is stored in full, and each value is
+	 * stored as its difference from that value. Suited to values that are
+	 * clustered in a narrow range.
+	 */
+	FRAME_OF_REFERENCE,
+
+	/**
+	 * The first value in each block is stored in full, and each subsequent
+	 * value is stored as its difference from its predecessor, relative to the
+	 * least such difference in the block. Suited to sorted values, such as
+	 * identifiers and timestamps.
+	 */
+	DELTA,
+
+	/**
+	 * Each block is encoded with whichever of the other codecs produces the
+	 * fewest bits.
+	 */
+	ADAPTIVE;
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+/**
+ * <p>
+ * Encodes and decodes sequences of longs as described by
+ * {@link SequenceCodec}. Each block of up to 128 values begins with a 9 bit
+ * header: the ordinal of the codec used (2 bits) followed by the width of the
+ * encoded values (7 bits). The header is followed by any full 64 bit values
+ * required by the codec and then the encoded values.
+ *
+ * <p>
+ * All differences are computed with wrap-around arithmetic and stored as
+ * unsigned values, so every codec can encode arbitrary values.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class SequenceCoding {
+
+	static final int BLOCK_SIZE = 128;
+
+	private static final int CODEC_PACKED = SequenceCodec.PACKED.ordinal();
+	private static final int CODEC_FOR = SequenceCodec.FRAME_OF_REFERENCE.ordinal();
+	private static final int CODEC_DELTA = SequenceCodec.DELTA.ordinal();
+
+	static void writeLongs(BitWriteStream bits, long[] values, int off, int len, SequenceCodec codec) {
+		int lim = off + len;
+		for (int start = off; start < lim; start += BLOCK_SIZE) {
+			writeBlock(bits, values, start, Math.min(start + BLOCK_SIZE, lim), codec);
+		}
+	}
+
+	static void readLongs(BitReadStream bits, long[] values, int off, int len) {
+		int lim = off + len;
+		for (int start = off; start < lim; start += BLOCK_SIZE) {
+			readBlock(bits, values, start, Math.min(start + BLOCK_SIZE, lim));
+		}
+	}
+
+	static void writeInts(BitWriteStream bits, int[] values, int off, int len, SequenceCodec codec) {
+		long[] scratch = bits.scratch();
+		int lim = off + len;
+		for (int start = off; start < lim; start += BLOCK_SIZE) {
+			int n = Math.min(BLOCK_SIZE, lim - start);
+			for (int i = 0; i < n; i++) {
+				scratch[i] = values[start + i];
+			}
+			writeBlock(bits, scratch, 0, n, codec);
+		}
+	}
+
+	static void readInts(BitReadStream bits, int[] values, int off, int len) {
+		long[] scratch = bits.scratch();
+		int lim = off + len;
+		for (int start = off; start < lim; start += BLOCK_SIZE) {
+			int n = Math.min(BLOCK_SIZE, lim - start);
+			readBlock(bits, scratch, 0, n);
+			for (int i = 0; i < n; i++) {
+				values[start + i] = (int) scratch[i];
+			}
+		}
+	}
+
+	private static void writeBlock(BitWriteStream bits, long[] values, int start, int end, SequenceCodec codec) {
+		int n = end - start;
+		switch (codec) {
+		case PACKED:
+			writePacked(bits, values, start, end, packedWidth(values, start, end));
+			break;
+		case FRAME_OF_REFERENCE: {
+			long min = min(values, start, end);
+			writeFrameOfReference(bits, values, start, end, min, frameWidth(values, start, end, min));
+			break;
+		}
+		case DELTA: {
+			long minDelta = minDelta(values, start, end);
+			writeDelta(bits, values, start, end, minDelta, deltaWidth(values, start, end, minDelta));
+			break;
+		}
+		case ADAPTIVE: {
+			int packedWidth = packedWidth(values, start, end);
+			long min = min(values, start, end);
+			int frameWidth = frameWidth(values, start, end, min);
+			long minDelta = minDelta(values, start, end);
+			int deltaWidth = deltaWidth(values, start, end, minDelta);
+			long packedCost = (long) n * packedWidth;
+			long frameCost = 64L + (long) n * frameWidth;
+			long deltaCost = n == 1 ? 64L : 128L + (long) (n - 1) * deltaWidth;
+			if (deltaCost < frameCost && deltaCost < packedCost) {
+				writeDelta(bits, values, start, end, minDelta, deltaWidth);
+			} else if (frameCost < packedCost) {
+				writeFrameOfReference(bits, values, start, end, min, frameWidth);
+			} else {
+				writePacked(bits, values, start, end, packedWidth);
+			}
+			break;
+		}
+		default:
+			throw new IllegalStateException("unsupported codec");
+		}
+	}
+
+	private static void readBlock(BitReadStream bits, long[] values, int start, int end) {
+		int header = (int) bits.readBits(9);
+		int codec = header >>> 7;
+		int width = header & 0x7f;
+		if (width > 64) throw new StreamException("invalid sequence header");
+		if (codec == CODEC_PACKED) {
+			for (int i = start; i < end; i++) {
+				values[i] = bits.readBits(width);
+			}
+		} else if (codec == CODEC_FOR) {
+			long min = bits.readBits(64);
+			for (int i = start; i < end; i++) {
+				values[i] = min + bits.readBits(width);
+			}
+		} else if (codec == CODEC_DELTA) {
+			long value = bits.readBits(64);
+			values[start] = value;
+			if (end - start > 1) {
+				long minDelta = bits.readBits(64);
+				for (int i = start + 1; i < end; i++) {
+					value += minDelta + bits.readBits(width);
+					values[i] = value;
+				}
+			}
+		} else {
+			throw new StreamException("invalid sequence header");
+		}
+	}
+
+	private static void writePacked(BitWriteStream bits, long[] values, int start, int end, int width) {
+		bits.writeBits(CODEC_PACKED << 7 | width, 9);
+		for (int i = start; i < end; i++) {
+			bits.writeBits(values[i], width);
+		}
+	}
+
+	private static void writeFrameOfReference(BitWriteStream bits, long[] values, int start, int end, long min, int width) {
+		bits.writeBits(CODEC_FOR << 7 | width, 9);
+		bits.writeBits(min, 64);
+		for (int i = start; i < end; i++) {
+			bits.writeBits(values[i] - min, width);
+		}
+	}
+
+	private static void writeDelta(BitWriteStream bits, long[] values, int start, int end, long minDelta, int width) {
+		bits.writeBits(CODEC_DELTA << 7 | width, 9);
+		bits.writeBits(values[start], 64);
+		if (end - start > 1) {
+			bits.writeBits(minDelta, 64);
+			for (int i = start + 1; i < end; i++) {
+				bits.writeBits(values[i] - values[i - 1] - minDelta, width);
+			}
+		}
+	}
+
+	private static int packedWidth(long[] values, int start, int end) {
+		long or = 0L;
+		for (int i = start; i < end; i++) {
+			or |= values[i];
+		}
+		return width(or);
+	}
+
+	private static long min(long[] values, int start, int end) {
+		long min = Long.MAX_VALUE;
+		for (int i = start; i < end; i++) {
+			min = Math.min(min, values[i]);
+		}
+		return min;
+	}
+
+	private static int frameWidth(long[] values, int start, int end, long min) {
+		long or = 0L;
+		for (int i = start; i < end; i++) {
+			or |= values[i] - min;
+		}
+		return width(or);
+	}
+
+	private static long minDelta(long[] values, int start, int end) {
+		if (end - start < 2) return 0L;
+		long min = Long.MAX_VALUE;
+		for (int i = start + 1; i < end; i++) {
+			min = Math.min(min, values[i] - values[i - 1]);
+		}
+		return min;
+	}
+
+	private static int deltaWidth(long[] values, int start, int end, long minDelta) {
+		long or = 0L;
+		for (int i = start + 1; i < end; i++) {
+			or |= values[i] - values[i - 1] - minDelta;
+		}
+		return width(or);
+	}
+
+	private static int width(long bits) {
+		return 64 - Long.numberOfLeadingZeros(bits);
+	}
+
+	private SequenceCoding() { }
+}
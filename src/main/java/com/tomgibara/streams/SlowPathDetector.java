@@ -0,0 +1,287 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.io.PrintWriter;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Detects streams that fall back to the byte-at-a-time default
+ * implementations of bulk operations in {@link ReadStream} and
+ * {@link WriteStream}. Streams that implement only {@link ReadStream#readByte()}
+ * or {@link WriteStream#writeByte(byte)}, including those defined by lambdas,
+ * silently inherit these default paths; the detector identifies which stream
+ * classes would benefit most from bulk overrides.
+ *
+ * <p>
+ * Detection is disabled by default, in which case the cost to the default
+ * methods is a single volatile read. It may be enabled at runtime via
+ * {@link #setEnabled(boolean)} or at startup by setting the system property
+ * <code>com.tomgibara.streams.slowPaths</code> to <code>true</code>; in the
+ * latter case the worst offenders are reported to the standard error stream
+ * when the JVM exits.
+ *
+ * <p>
+ * The detector is obtained via {@link Streams#slowPathDetector()}. Counts are
+ * accumulated with minimal contention and may be updated by streams on any
+ * thread.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+public final class SlowPathDetector {
+
+	/**
+	 * The default methods that are monitored by the detector.
+	 */
+
+	public enum Path {
+
+		/** {@link ReadStream#readBytes(byte[], int, int)} and {@link ReadStream#readBytes(byte[])}. */
+		READ_BYTES,
+		/** {@link ReadStream#tryReadBytes(byte[], int, int)}. */
+		TRY_READ_BYTES,
+		/** {@link ReadStream#readChars(char[], int, int)} and {@link ReadStream#readChars(char[])}. */
+		READ_CHARS,
+		/** {@link ReadStream#fillBuffer(java.nio.ByteBuffer)} with a buffer that has no array. */
+		FILL_BUFFER,
+		/** {@link ReadStream#skip(long)} when bytes must be read individually. */
+		SKIP,
+		/** {@link WriteStream#writeBytes(byte[], int, int)} and {@link WriteStream#writeBytes(byte[])}. */
+		WRITE_BYTES,
+		/** {@link WriteStream#tryWriteBytes(byte[], int, int)}. */
+		TRY_WRITE_BYTES,
+		/** {@link WriteStream#writeChars(char[], int, int)} and the other char writing methods. */
+		WRITE_CHARS,
+		/** {@link WriteStream#drainBuffer(java.nio.ByteBuffer)} with a buffer that has no array. */
+		DRAIN_BUFFER;
+
+		final String key() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	/**
+	 * The number of calls made by streams of a single class to a single
+	 * default method, together with the number of bytes processed by those
+	 * calls.
+	 */
+
+	public static final class Offender {
+
+		private final Class<?> streamClass;
+		private final Path path;
+		private final long calls;
+		private final long bytes;
+
+		Offender(Class<?> streamClass, Path path, long calls, long bytes) {
+			this.streamClass = streamClass;
+			this.path = path;
+			this.calls = calls;
+			this.bytes = bytes;
+		}
+
+		/**
+		 * The class of the stream that used the default method.
+		 *
+		 * @return the stream class
+		 */
+
+		public Class<?> streamClass() {
+			return streamClass;
+		}
+
+		/**
+		 * The default method that was used.
+		 *
+		 * @return the path taken
+		 */
+
+		public Path path() {
+			return path;
+		}
+
+		/**
+		 * The number of calls made to the default method.
+		 *
+		 * @return the number of calls
+		 */
+
+		public long calls() {
+			return calls;
+		}
+
+		/**
+		 * The number of bytes read, written or skipped by the calls; bytes
+		 * that could not be transferred due to an end-of-stream condition may
+		 * be included.
+		 *
+		 * @return the number of bytes
+		 */
+
+		public long bytes() {
+			return bytes;
+		}
+
+		@Override
+		public String toString() {
+			return streamClass.getName() + " " + path.key() + ": " + calls + " calls, " + bytes + " bytes";
+		}
+	}
+
+	private static final String PROPERTY = "com.tomgibara.streams.slowPaths";
+	// the number of offenders reported on exit
+	private static final int EXIT_REPORT_LIMIT = 20;
+	private static final Path[] PATHS = Path.values();
+
+	static final SlowPathDetector INSTANCE = new SlowPathDetector();
+
+	static {
+		PrivilegedAction<String> action = () -> { return System.getProperty(PROPERTY); };
+		if (Boolean.parseBoolean(AccessController.doPrivileged(action))) {
+			INSTANCE.enabled = true;
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				PrintWriter writer = new PrintWriter(System.err);
+				INSTANCE.report(writer, EXIT_REPORT_LIMIT);
+			}, "streams-slow-path-report"));
+		}
+	}
+
+	// called by default methods
+	static void detected(Object stream, Path path, long bytes) {
+		SlowPathDetector detector = INSTANCE;
+		if (detector.enabled) detector.record(stream.getClass(), path, bytes);
+	}
+
+	private volatile boolean enabled = false;
+	// for each class, a calls counter and a bytes counter for each path
+	private final Map<Class<?>, LongAdder[]> counts = new ConcurrentHashMap<>();
+
+	private SlowPathDetector() { }
+
+	/**
+	 * Whether the detector is currently counting default method invocations.
+	 *
+	 * @return true if detection is enabled
+	 */
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Enables or disables detection. Counts accumulated while detection was
+	 * enabled are retained until the detector is reset.
+	 *
+	 * @param enabled
+	 *            whether default method invocations should be counted
+	 */
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Discards all accumulated counts.
+	 */
+
+	public void reset() {
+		counts.clear();
+	}
+
+	/**
+	 * The stream classes and default methods that have been detected, worst
+	 * offenders first. Offenders are ordered by the number of bytes processed
+	 * and then by the number of calls made.
+	 *
+	 * @return an immutable list of offenders
+	 */
+
+	public List<Offender> offenders() {
+		List<Offender> list = new ArrayList<>();
+		counts.forEach((c, adders) -> {
+			for (int i = 0; i < PATHS.length; i++) {
+				long calls = adders[2 * i].sum();
+				if (calls > 0L) list.add(new Offender(c, PATHS[i], calls, adders[2 * i + 1].sum()));
+			}
+		});
+		list.sort((a, b) -> {
+			int cmp = Long.compare(b.bytes, a.bytes);
+			return cmp == 0 ? Long.compare(b.calls, a.calls) : cmp;
+		});
+		return Collections.unmodifiableList(list);
+	}
+
+	/**
+	 * Writes the worst offenders to the supplied writer, one per line. The
+	 * writer is flushed but not closed.
+	 *
+	 * @param writer
+	 *            the writer to which the offenders should be reported
+	 * @param limit
+	 *            the maximum number of offenders to report
+	 */
+
+	public void report(PrintWriter writer, int limit) {
+		if (writer == null) throw new IllegalArgumentException("null writer");
+		if (limit < 0) throw new IllegalArgumentException("negative limit");
+		List<Offender> offenders = offenders();
+		if (offenders.isEmpty()) {
+			writer.println("No stream slow paths detected");
+		} else {
+			writer.println("Stream slow paths, worst first:");
+			int count = Math.min(limit, offenders.size());
+			for (int i = 0; i < count; i++) {
+				writer.println("  " + offenders.get(i));
+			}
+			if (count < offenders.size()) writer.println("  (" + (offenders.size() - count) + " more)");
+		}
+		writer.flush();
+	}
+
+	@Override
+	public String toString() {
+		return "SlowPathDetector[enabled=" + enabled + ", offenders=" + offenders().size() + "]";
+	}
+
+	private void record(Class<?> streamClass, Path path, long bytes) {
+		LongAdder[] adders = counts.get(streamClass);
+		if (adders == null) adders = counts.computeIfAbsent(streamClass, c -> newAdders());
+		int i = path.ordinal();
+		adders[2 * i].increment();
+		adders[2 * i + 1].add(bytes);
+	}
+
+	private static LongAdder[] newAdders() {
+		LongAdder[] adders = new LongAdder[2 * PATHS.length];
+		for (int i = 0; i < adders.length; i++) {
+			adders[i] = new LongAdder();
+		}
+		return adders;
+	}
+
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * Accumulates scattered reads from a {@link SeekableReadStream} so that they
+ * can be performed together. When the batch is read, the requests are sorted
+ * by position and any whose ranges overlap, abut or are separated by no more
+ * than the gap threshold of the batch are coalesced into a single positional
+ * read, the results of which are then copied into the individual targets.
+ * Requests that cannot be coalesced are read directly into their targets.
+ *
+ * <p>
+ * All reads are made with {@link SeekableReadStream#readAt(long, ByteBuffer)},
+ * so the position of the source is not changed. As with that method, a
+ * target that extends beyond the end of the source is only partially filled,
+ * the end-of-stream condition being indicated by the target having remaining
+ * elements. Target buffers are filled from their positions at the time the
+ * request was added, and their positions are advanced by the number of bytes
+ * read.
+ *
+ * <p>
+ * Coalesced reads may be performed concurrently on a fork-join pool via
+ * {@link #read(ForkJoinPool)}. This is only safe for sources that support
+ * concurrent positional reads, such as those obtained from a
+ * {@link StreamRegion} or over a {@code FileChannel}.
+ *
+ * <p>
+ * Batches are not safe for concurrent use. Once read, a batch is empty and may
+ * be reused.
+ *
+ * @author Tom Gibara
+ *
+ * @see Streams#readBatch(SeekableReadStream, int)
+ */
+
+public final class StreamBatch {
+
+	// coalescing stops once a read would exceed this length
+	private static final int MAX_READ_LENGTH = 1 << 20;
+
+	private static final Comparator<Request> ORDER = (a, b) -> Long.compare(a.position, b.position);
+
+	private final SeekableReadStream source;
+	private final int gap;
+	private final List<Request> requests = new ArrayList<>();
+	// retained between sequential reads
+	private ByteBuffer scratch = null;
+	// retained between concurrent reads, each buffer being used by one task at a time
+	private final ConcurrentLinkedQueue<ByteBuffer> scratches = new ConcurrentLinkedQueue<>();
+
+	StreamBatch(SeekableReadStream source, int gap) {
+		this.source = source;
+		this.gap = gap;
+	}
+
+	/**
+	 * The stream from which the batch reads.
+	 *
+	 * @return the source stream
+	 */
+
+	public SeekableReadStream source() {
+		return source;
+	}
+
+	/**
+	 * The greatest number of unrequested bytes that may separate two requests
+	 * which are coalesced into a single read.
+	 *
+	 * @return the gap threshold
+	 */
+
+	public int gap() {
+		return gap;
+	}
+
+	/**
+	 * The number of requests that will be performed when the batch is read.
+	 *
+	 * @return the number of outstanding requests
+	 */
+
+	public int size() {
+		return requests.size();
+	}
+
+	/**
+	 * Requests that the remaining elements of a buffer be filled from the
+	 * specified position of the source.
+	 *
+	 * @param position
+	 *            the position in the source of the first byte to be read
+	 * @param target
+	 *            the buffer into which bytes are to be read
+	 * @return the batch, for chaining
+	 */
+
+	public StreamBatch add(long position, ByteBuffer target) {
+		if (position < 0L) throw new IllegalArgumentException("negative position");
+		if (target == null) throw new IllegalArgumentException("null target");
+		if (target.isReadOnly()) throw new IllegalArgumentException("read-only target");
+		requests.add(new Request(position, target));
+		return this;
+	}
+
+	/**
+	 * Requests that a segment of a byte array be filled from the specified
+	 * position of the source.
+	 *
+	 * @param position
+	 *            the position in the source of the first byte to be read
+	 * @param bytes
+	 *            the array into which bytes are to be read
+	 * @param off
+	 *            the index of the first byte to be populated
+	 * @param len
+	 *            the number of bytes to be read
+	 * @return the batch, for chaining
+	 */
+
+	public StreamBatch add(long position, byte[] bytes, int off, int len) {
+		if (bytes == null) throw new IllegalArgumentException("null bytes");
+		if (off < 0) throw new IllegalArgumentException("negative off");
+		if (len < 0) throw new IllegalArgumentException("negative len");
+		if (off + len > bytes.length) throw new IllegalArgumentException("off + len exceeds length");
+		return add(position, ByteBuffer.wrap(bytes, off, len));
+	}
+
+	/**
+	 * Performs all outstanding requests on the calling thread and empties the
+	 * batch.
+	 *
+	 * @return the number of positional reads made on the source
+	 * @throws StreamException
+	 *             if an error occurs reading from the source
+	 */
+
+	public int read() throws StreamException {
+		Run[] runs = runs();
+		try {
+			int max = 0;
+			for (Run run : runs) {
+				if (run.to - run.from > 1) max = Math.max(max, run.length());
+			}
+			if (max > 0 && (scratch == null || scratch.capacity() < max)) {
+				scratch = Streams.createTemporaryBuffer(scratchBuffering(), max);
+			}
+			for (Run run : runs) {
+				run.read(scratch);
+			}
+		} finally {
+			requests.clear();
+		}
+		return runs.length;
+	}
+
+	/**
+	 * Performs all outstanding requests on the supplied pool and empties the
+	 * batch. The source must support concurrent positional reads. The buffers
+	 * into which coalesced reads are made are retained by the batch for reuse
+	 * by subsequent reads, so no more are allocated than the number of reads
+	 * that have been performed concurrently.
+	 *
+	 * @param pool
+	 *            the pool on which the reads are made
+	 * @return the number of positional reads made on the source
+	 * @throws StreamException
+	 *             if an error occurs reading from the source
+	 */
+
+	public int read(ForkJoinPool pool) throws StreamException {
+		if (pool == null) throw new IllegalArgumentException("null pool");
+		Run[] runs = runs();
+		try {
+			if (runs.length > 0) pool.invoke(new Task(runs, 0, runs.length));
+		} finally {
+			requests.clear();
+		}
+		return runs.length;
+	}
+
+	@Override
+	public String toString() {
+		return "batch of " + requests.size() + " requests with gap " + gap;
+	}
+
+	private StreamBuffering scratchBuffering() {
+		StreamBuffering buffering = source.getBuffering();
+		return buffering == StreamBuffering.UNSUPPORTED ? StreamBuffering.PREFER_INDIRECT : buffering;
+	}
+
+	// sorts the requests and groups them into coalesced reads
+	private Run[] runs() {
+		int count = requests.size();
+		if (count == 0) return new Run[0];
+		Request[] sorted = requests.toArray(new Request[count]);
+		Arrays.sort(sorted, ORDER);
+		List<Run> runs = new ArrayList<>();
+		int from = 0;
+		long start = sorted[0].position;
+		long end = sorted[0].end();
+		for (int i = 1; i < count; i++) {
+			Request request = sorted[i];
+			long next = Math.max(end, request.end());
+			if (request.position - end > gap || next - start > MAX_READ_LENGTH) {
+				runs.add(new Run(sorted, from, i, start, end));
+				from = i;
+				start = request.position;
+				end = request.end();
+			} else {
+				end = next;
+			}
+		}
+		runs.add(new Run(sorted, from, count, start, end));
+		return runs.toArray(new Run[runs.size()]);
+	}
+
+	private static final class Request {
+
+		final long position;
+		final ByteBuffer target;
+		final int length;
+
+		Request(long position, ByteBuffer target) {
+			this.position = position;
+			this.target = target;
+			this.length = target.remaining();
+		}
+
+		long end() {
+			return position + length;
+		}
+	}
+
+	private final class Run {
+
+		private final Request[] requests;
+		final int from;
+		final int to;
+		private final long start;
+		private final long end;
+
+		Run(Request[] requests, int from, int to, long start, long end) {
+			this.requests = requests;
+			this.from = from;
+			this.to = to;
+			this.start = start;
+			this.end = end;
+		}
+
+		int length() {
+			return (int) (end - start);
+		}
+
+		// reads with a scratch buffer borrowed from those retained for concurrent reads
+		void readShared() {
+			if (to - from == 1) {
+				read(null);
+				return;
+			}
+			ByteBuffer buffer = scratches.poll();
+			// buffers too small for this run are discarded in favour of a larger one
+			if (buffer == null || buffer.capacity() < length()) buffer = Streams.createTemporaryBuffer(scratchBuffering(), length());
+			try {
+				read(buffer);
+			} finally {
+				scratches.offer(buffer);
+			}
+		}
+
+		void read(ByteBuffer scratch) {
+			if (to - from == 1) {
+				Request request = requests[from];
+				source.readAt(request.position, request.target);
+				return;
+			}
+			((Buffer) scratch).clear().limit(length());
+			source.readAt(start, scratch);
+			int available = scratch.position();
+			for (int i = from; i < to; i++) {
+				Request request = requests[i];
+				int offset = (int) (request.position - start);
+				int length = Math.min(request.length, available - offset);
+				if (length <= 0) continue;
+				((Buffer) scratch).limit(offset + length).position(offset);
+				request.target.put(scratch);
+			}
+		}
+	}
+
+	private static final class Task extends RecursiveAction {
+
+		private static final long serialVersionUID = -5467104185286338190L;
+
+		private final Run[] runs;
+		private final int from;
+		private final int to;
+
+		Task(Run[] runs, int from, int to) {
+			this.runs = runs;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				runs[from].readShared();
+				return;
+			}
+			int split = (from + to) >>> 1;
+			invokeAll(new Task(runs, from, split), new Task(runs, split, to));
+		}
+	}
+
+}
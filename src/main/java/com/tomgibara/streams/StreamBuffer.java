@@ -64,7 +64,7 @@ public final class StreamBuffer {
 	 * @see #buffer()
 	 */
 
-	public ReadStream readStream() {
+	public SeekableReadStream readStream() {
 		return new BufferReadStream(buffer);
 	}
 
@@ -76,7 +76,7 @@ public final class StreamBuffer {
 	 * @see #buffer()
 	 */
 
-	public WriteStream writeStream() {
+	public SeekableWriteStream writeStream() {
 		return new BufferWriteStream(buffer);
 	}
 }
@@ -16,6 +16,7 @@
  */
 package com.tomgibara.streams;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -47,6 +48,13 @@ import java.util.Arrays;
  * {@link #writeStream()} both support accessing the stream position via
  * {@link PositionalStream#position()}.
  *
+ * <p>
+ * Regions of the accumulated bytes can be shared without copying via
+ * {@link #slice(int, int)}, {@link #asByteBuffer()} and
+ * {@link #readStream(int, int)}. These views share the underlying byte array
+ * and so may observe changes made by writers subsequently attached to this
+ * object, at least until a writer needs to grow the array.
+ *
  * @author Tom Gibara
  *
  * @see Streams
@@ -58,6 +66,9 @@ import java.util.Arrays;
 public class StreamBytes {
 
 	private final int maxCapacity;
+	// non-zero only for slices
+	private final int offset;
+	private final boolean readOnly;
 	private byte[] bytes;
 	private int length;
 	private BytesWriteStream writer = null;
@@ -67,6 +78,29 @@ public class StreamBytes {
 		this.maxCapacity = maxCapacity;
 		this.length = length;
 		this.bytes = bytes;
+		offset = 0;
+		readOnly = false;
+	}
+
+	// constructs a read-only slice
+	private StreamBytes(StreamBytes source, int off, int len) {
+		maxCapacity = len;
+		offset = source.offset + off;
+		length = len;
+		bytes = source.bytes;
+		readOnly = true;
+	}
+
+	/**
+	 * Whether this object is a read-only view of the bytes of another, as
+	 * returned by {@link #slice(int, int)}. No writer can be attached to a
+	 * read-only object.
+	 *
+	 * @return true if the object is read-only, false otherwise
+	 */
+
+	public boolean isReadOnly() {
+		return readOnly;
 	}
 
 	/**
@@ -104,8 +138,12 @@ public class StreamBytes {
 	 * before a writer is created.
 	 *
 	 * @return the writer attached to this object
+	 * @throws IllegalStateException
+	 *             if this object is read-only
+	 * @see #isReadOnly()
 	 */
-	public WriteStream writeStream() {
+	public PatchableWriteStream writeStream() {
+		if (readOnly) throw new IllegalStateException("read-only");
 		detachReader();
 		if (writer == null) {
 			writer = new BytesWriteStream(bytes, maxCapacity);
@@ -122,14 +160,76 @@ public class StreamBytes {
 	 * @return the reader attached to this object
 	 */
 
-	public ReadStream readStream() {
+	public SeekableReadStream readStream() {
 		detachWriter();
 		if (reader == null) {
-			reader = new BytesReadStream(bytes, 0, length);
+			reader = new BytesReadStream(bytes, offset, length);
 		}
 		return reader;
 	}
 
+	/**
+	 * Creates a new reader over a range of the bytes stored by this object.
+	 * The reader is not attached to this object: it is unaffected by calls to
+	 * {@link #readStream()} and {@link #writeStream()}, and multiple such
+	 * readers may be used at the same time. If a writer is attached to the
+	 * object when this method is called, the writer is closed and immediately
+	 * detached before the reader is created.
+	 *
+	 * @param off
+	 *            the index of the first byte to be read
+	 * @param len
+	 *            the number of bytes that may be read
+	 * @return a reader over the specified range of bytes
+	 */
+
+	public SeekableReadStream readStream(int off, int len) {
+		detachWriter();
+		checkRange(off, len);
+		return new BytesReadStream(bytes, offset + off, len);
+	}
+
+	/**
+	 * <p>
+	 * Returns a read-only view of a range of the bytes stored by this object.
+	 * The view shares the byte array of this object; no bytes are copied. If a
+	 * writer is attached to the object when this method is called, the writer
+	 * is closed and immediately detached before the view is created.
+	 *
+	 * <p>
+	 * The returned object reports a length equal to <code>len</code> and
+	 * cannot be written to. Its {@link #directBytes()} method returns a copy of
+	 * the range since the shared array cannot be exposed without permitting
+	 * modification.
+	 *
+	 * @param off
+	 *            the index of the first byte in the view
+	 * @param len
+	 *            the number of bytes in the view
+	 * @return a read-only view of the specified range
+	 */
+
+	public StreamBytes slice(int off, int len) {
+		detachWriter();
+		checkRange(off, len);
+		return new StreamBytes(this, off, len);
+	}
+
+	/**
+	 * Returns a read-only buffer that wraps the bytes stored by this object.
+	 * The position of the buffer is zero and its limit (and capacity) is the
+	 * length of this object. If a writer is attached to the object when this
+	 * method is called, the writer is closed and immediately detached before
+	 * the buffer is created.
+	 *
+	 * @return a read-only buffer over the stored bytes
+	 */
+
+	public ByteBuffer asByteBuffer() {
+		detachWriter();
+		return ByteBuffer.wrap(bytes, offset, length).slice().asReadOnlyBuffer();
+	}
+
 	/**
 	 * <p>
 	 * Returns the bytes accumulated by this object. A copy of the internal data
@@ -141,7 +241,7 @@ public class StreamBytes {
 	 */
 
 	public byte[] bytes() {
-		return writer == null ? Arrays.copyOf(bytes, length) : writer.getBytes(false);
+		return writer == null ? Arrays.copyOfRange(bytes, offset, offset + length) : writer.getBytes(false);
 	}
 
 	/**
@@ -159,13 +259,23 @@ public class StreamBytes {
 	 * best reserved for situations where the initial capacity specified and not
 	 * exceeded.
 	 *
+	 * <p>
+	 * Read-only objects return a copy of their bytes.
+	 *
 	 * @return the byte data stored by this object
 	 */
 
 	public byte[] directBytes() {
+		if (readOnly) return bytes();
 		return writer == null ? bytes : writer.getBytes(true);
 	}
 
+	private void checkRange(int off, int len) {
+		if (off < 0) throw new IllegalArgumentException("negative off");
+		if (len < 0) throw new IllegalArgumentException("negative len");
+		if (off > length - len) throw new IllegalArgumentException("off + len exceeds length");
+	}
+
 	private void detachWriter() {
 		if (writer != null) {
 			bytes = writer.getBytes(true);
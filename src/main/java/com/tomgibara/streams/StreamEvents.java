@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+
+import com.tomgibara.streams.StreamTransfer.Result;
+
+/**
+ * <p>
+ * Reports significant stream activity to the JDK Flight Recorder.
+ *
+ * <p>
+ * This is the Java 8 implementation, in which every method does nothing and
+ * is compiled away. On Java 11 and later it is replaced by the version in the
+ * multi-release layer of the jar, which emits JFR events. Timed activities
+ * are bracketed by a <code>begin</code> method, which returns an opaque event
+ * (null when recording is disabled), and an <code>end</code> method to which
+ * the event is passed.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class StreamEvents {
+
+	static Object beginTransfer() {
+		return null;
+	}
+
+	static void endTransfer(Object event, Result result, ByteBuffer buffer) { }
+
+	static Object beginBuffer() {
+		return null;
+	}
+
+	static void endFill(Object event, int bytes, ByteBuffer buffer) { }
+
+	static void endDrain(Object event, int bytes, ByteBuffer buffer) { }
+
+	static Object beginSkip() {
+		return null;
+	}
+
+	static void endSkip(Object event, long length) { }
+
+	static void bytesGrown(int oldCapacity, int newCapacity) { }
+
+	private StreamEvents() { }
+
+}
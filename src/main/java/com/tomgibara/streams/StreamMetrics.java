@@ -0,0 +1,356 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Accumulates counts of the bytes, calls and end-of-stream conditions observed
+ * by metered streams, together with the time spent in bulk buffer operations
+ * and skips. Metrics are accumulated with minimal contention and may be
+ * shared by any number of streams operating on different threads.
+ *
+ * <p>
+ * The latencies of timed operations are recorded in log-linear histograms,
+ * each power-of-two range of nanoseconds being divided into four buckets, so
+ * that reported percentiles are accurate to within 25%.
+ *
+ * <p>
+ * Instances are obtained via {@link Streams#metrics()} and applied via
+ * {@link ReadStream#metered(StreamMetrics)} and
+ * {@link WriteStream#metered(StreamMetrics)}. The current state of the metrics
+ * is exported by taking a {@link #snapshot()}.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+public final class StreamMetrics {
+
+	/**
+	 * The types of stream operation that are distinguished by metrics. Each
+	 * type covers both the read and write forms of an operation.
+	 */
+
+	public enum Operation {
+
+		/** Single byte reads and writes. */
+		BYTE,
+		/** Single boolean reads and writes. */
+		BOOLEAN,
+		/** Single short reads and writes. */
+		SHORT,
+		/** Single char reads and writes. */
+		CHAR,
+		/** Single int reads and writes. */
+		INT,
+		/** Single long reads and writes. */
+		LONG,
+		/** Single float reads and writes. */
+		FLOAT,
+		/** Single double reads and writes. */
+		DOUBLE,
+		/** Bulk reads and writes of byte arrays. */
+		BYTES,
+		/** Bulk reads and writes of chars and strings. */
+		CHARS,
+		/** Buffer fills and drains; these are timed. */
+		BUFFER,
+		/** Skips; these are timed. */
+		SKIP,
+		/** Closing of streams. */
+		CLOSE;
+
+		/**
+		 * Whether the latencies of operations of this type are recorded.
+		 *
+		 * @return true if the operation is timed, false otherwise
+		 */
+
+		public boolean isTimed() {
+			return this == BUFFER || this == SKIP;
+		}
+
+		final String key() {
+			return name().toLowerCase(Locale.ROOT);
+		}
+	}
+
+	private static final Operation[] OPERATIONS = Operation.values();
+
+	// 4 linear buckets, then 4 buckets for each power of two up to 2^62
+	private static final int BUCKETS = 248;
+
+	// the smallest latency recorded in the bucket with the given index
+	static long bucketLowerBound(int index) {
+		if (index < 4) return index;
+		int exp = index / 4 + 1;
+		return (long) (4 + (index & 3)) << (exp - 2);
+	}
+
+	static int bucketIndex(long nanos) {
+		if (nanos < 4) return nanos < 0 ? 0 : (int) nanos;
+		int exp = 63 - Long.numberOfLeadingZeros(nanos);
+		int sub = (int) (nanos >>> (exp - 2)) & 3;
+		return (exp - 1) * 4 + sub;
+	}
+
+	/**
+	 * An immutable record of stream metrics at the time the snapshot was
+	 * taken. Since the underlying counters are updated concurrently, the
+	 * values of a snapshot are not guaranteed to be mutually consistent when
+	 * streams remain active during the snapshot.
+	 *
+	 * @see StreamMetrics#snapshot()
+	 */
+
+	public static final class Snapshot {
+
+		private final long bytesRead;
+		private final long bytesWritten;
+		private final long endOfStreams;
+		private final long[] calls;
+		private final long[] nanos;
+		private final long[][] latencies;
+
+		private Snapshot(StreamMetrics metrics) {
+			bytesRead = metrics.bytesRead.sum();
+			bytesWritten = metrics.bytesWritten.sum();
+			endOfStreams = metrics.endOfStreams.sum();
+			calls = new long[OPERATIONS.length];
+			nanos = new long[OPERATIONS.length];
+			latencies = new long[OPERATIONS.length][];
+			for (int i = 0; i < calls.length; i++) {
+				calls[i] = metrics.calls[i].sum();
+				if (OPERATIONS[i].isTimed()) {
+					nanos[i] = metrics.nanos[i].sum();
+					AtomicLongArray counts = metrics.latencies[i];
+					long[] copy = new long[BUCKETS];
+					for (int j = 0; j < BUCKETS; j++) {
+						copy[j] = counts.get(j);
+					}
+					latencies[i] = copy;
+				}
+			}
+		}
+
+		/**
+		 * The number of bytes read through metered streams.
+		 *
+		 * @return the number of bytes read
+		 */
+
+		public long bytesRead() {
+			return bytesRead;
+		}
+
+		/**
+		 * The number of bytes written through metered streams.
+		 *
+		 * @return the number of bytes written
+		 */
+
+		public long bytesWritten() {
+			return bytesWritten;
+		}
+
+		/**
+		 * The number of end-of-stream conditions encountered by metered
+		 * streams; this includes both exceptions and short bulk transfers.
+		 *
+		 * @return the number of end-of-stream conditions
+		 */
+
+		public long endOfStreams() {
+			return endOfStreams;
+		}
+
+		/**
+		 * The number of operations of the specified type that were called.
+		 *
+		 * @param operation
+		 *            a type of operation
+		 * @return the number of calls made
+		 */
+
+		public long calls(Operation operation) {
+			if (operation == null) throw new IllegalArgumentException("null operation");
+			return calls[operation.ordinal()];
+		}
+
+		/**
+		 * The total time spent in operations of the specified type. Zero is
+		 * returned for operations which are not timed.
+		 *
+		 * @param operation
+		 *            a type of operation
+		 * @return the total elapsed time in nanoseconds
+		 */
+
+		public long totalNanos(Operation operation) {
+			if (operation == null) throw new IllegalArgumentException("null operation");
+			return nanos[operation.ordinal()];
+		}
+
+		/**
+		 * An estimate of the latency of operations of the specified type at
+		 * the given percentile. The value returned is the upper bound of the
+		 * histogram bucket in which the percentile falls. Zero is returned
+		 * for operations which are not timed or have not been called.
+		 *
+		 * @param operation
+		 *            a type of operation
+		 * @param percentile
+		 *            a percentile in the range [0,100]
+		 * @return the estimated latency in nanoseconds
+		 */
+
+		public long latencyNanos(Operation operation, double percentile) {
+			if (operation == null) throw new IllegalArgumentException("null operation");
+			if (!(percentile >= 0.0 && percentile <= 100.0)) throw new IllegalArgumentException("invalid percentile");
+			long[] counts = latencies[operation.ordinal()];
+			if (counts == null) return 0L;
+			long total = 0L;
+			for (long count : counts) total += count;
+			if (total == 0L) return 0L;
+			long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100.0));
+			long seen = 0L;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += counts[i];
+				if (seen >= rank) return i == BUCKETS - 1 ? Long.MAX_VALUE : bucketLowerBound(i + 1) - 1;
+			}
+			return Long.MAX_VALUE;
+		}
+
+		/**
+		 * <p>
+		 * The snapshot as a map of named values, suitable for export to
+		 * external monitoring systems. The map is ordered and contains the
+		 * keys:
+		 *
+		 * <ul>
+		 * <li><code>bytes.read</code>, <code>bytes.written</code> and
+		 * <code>eos</code>
+		 * <li><code>calls.</code><i>op</i> for every operation
+		 * <li><code>nanos.</code><i>op</i>, <code>latency.</code><i>op</i>
+		 * <code>.p50</code>, <code>.p90</code>, <code>.p99</code> and
+		 * <code>.max</code> for every timed operation
+		 * </ul>
+		 *
+		 * where <i>op</i> is the lower-cased operation name.
+		 *
+		 * @return an unmodifiable map of metric values
+		 */
+
+		public Map<String, Long> toMap() {
+			Map<String, Long> map = new LinkedHashMap<>();
+			map.put("bytes.read", bytesRead);
+			map.put("bytes.written", bytesWritten);
+			map.put("eos", endOfStreams);
+			for (Operation op : OPERATIONS) {
+				map.put("calls." + op.key(), calls[op.ordinal()]);
+			}
+			for (Operation op : OPERATIONS) {
+				if (!op.isTimed()) continue;
+				String key = op.key();
+				map.put("nanos." + key, nanos[op.ordinal()]);
+				map.put("latency." + key + ".p50", latencyNanos(op, 50.0));
+				map.put("latency." + key + ".p90", latencyNanos(op, 90.0));
+				map.put("latency." + key + ".p99", latencyNanos(op, 99.0));
+				map.put("latency." + key + ".max", latencyNanos(op, 100.0));
+			}
+			return Collections.unmodifiableMap(map);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			for (Map.Entry<String, Long> entry : toMap().entrySet()) {
+				long value = entry.getValue();
+				if (value == 0L) continue;
+				if (sb.length() > 0) sb.append(", ");
+				sb.append(entry.getKey()).append('=').append(value);
+			}
+			return sb.insert(0, '{').append('}').toString();
+		}
+	}
+
+	private final LongAdder bytesRead = new LongAdder();
+	private final LongAdder bytesWritten = new LongAdder();
+	private final LongAdder endOfStreams = new LongAdder();
+	private final LongAdder[] calls = new LongAdder[OPERATIONS.length];
+	private final LongAdder[] nanos = new LongAdder[OPERATIONS.length];
+	private final AtomicLongArray[] latencies = new AtomicLongArray[OPERATIONS.length];
+
+	StreamMetrics() {
+		for (int i = 0; i < calls.length; i++) {
+			calls[i] = new LongAdder();
+			if (OPERATIONS[i].isTimed()) {
+				nanos[i] = new LongAdder();
+				latencies[i] = new AtomicLongArray(BUCKETS);
+			}
+		}
+	}
+
+	/**
+	 * Records the current state of the metrics.
+	 *
+	 * @return a snapshot of the metrics
+	 */
+
+	public Snapshot snapshot() {
+		return new Snapshot(this);
+	}
+
+	@Override
+	public String toString() {
+		return snapshot().toString();
+	}
+
+	// package scoped methods called by metered streams
+
+	void read(Operation operation, long bytes) {
+		calls[operation.ordinal()].increment();
+		if (bytes != 0L) bytesRead.add(bytes);
+	}
+
+	void written(Operation operation, long bytes) {
+		calls[operation.ordinal()].increment();
+		if (bytes != 0L) bytesWritten.add(bytes);
+	}
+
+	void called(Operation operation) {
+		calls[operation.ordinal()].increment();
+	}
+
+	void timed(Operation operation, long elapsed) {
+		int ordinal = operation.ordinal();
+		nanos[ordinal].add(elapsed);
+		latencies[ordinal].incrementAndGet(bucketIndex(elapsed));
+	}
+
+	void endOfStream() {
+		endOfStreams.increment();
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.channels.FileChannel;
+
+/**
+ * <p>
+ * Instances of this class expose a region of a <code>FileChannel</code> as
+ * any number of independent {@link SeekableReadStream} and
+ * {@link SeekableWriteStream} instances. Each stream maintains its own
+ * position within the region and accesses the channel exclusively through
+ * positional reads and writes, so the position of the channel is never
+ * consulted or modified.
+ *
+ * <p>
+ * This allows many threads to read or write disjoint parts of a single file
+ * concurrently, without locking and without opening additional file handles:
+ * each thread obtains its own stream, or the threads share a stream and use
+ * only its positional methods. Closing a stream does not close the channel,
+ * which remains the responsibility of the caller.
+ *
+ * @author Tom Gibara
+ * @see Streams#streamRegion(FileChannel, long, long)
+ */
+
+public final class StreamRegion {
+
+	private final FileChannel channel;
+	private final long start;
+	private final long length;
+
+	StreamRegion(FileChannel channel, long start, long length) {
+		this.channel = channel;
+		this.start = start;
+		this.length = length;
+	}
+
+	/**
+	 * The channel over which the region is defined.
+	 *
+	 * @return the channel
+	 */
+
+	public FileChannel channel() {
+		return channel;
+	}
+
+	/**
+	 * The position within the channel at which the region starts.
+	 *
+	 * @return the channel position of the first byte of the region
+	 */
+
+	public long start() {
+		return start;
+	}
+
+	/**
+	 * The greatest number of bytes in the region. Fewer bytes may be read from
+	 * the region if the channel ends before the region does.
+	 *
+	 * @return the length of the region
+	 */
+
+	public long length() {
+		return length;
+	}
+
+	/**
+	 * Creates a new stream that reads from the start of the region. The
+	 * stream is exhausted at the end of the region or the end of the channel,
+	 * whichever is sooner. Truncating the stream shortens the region visible
+	 * to it, but does not modify the channel.
+	 *
+	 * @return a new stream over the region
+	 */
+
+	public SeekableReadStream readStream() {
+		return new RegionReadStream(channel, start, length);
+	}
+
+	/**
+	 * Creates a new stream that writes from the start of the region. No more
+	 * than {@link #length()} bytes may be written to the stream. Truncating
+	 * the stream shortens the region visible to it, but does not modify the
+	 * channel.
+	 *
+	 * @return a new stream over the region
+	 */
+
+	public SeekableWriteStream writeStream() {
+		return new RegionWriteStream(channel, start, length);
+	}
+
+	@Override
+	public String toString() {
+		return "region of " + channel + " from " + start + " of length " + length;
+	}
+
+}
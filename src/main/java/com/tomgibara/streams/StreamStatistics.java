@@ -0,0 +1,250 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Gathers the library-wide statistics exposed by {@link StreamsMXBean}.
+ * Counters are striped so that updates from different threads do not
+ * contend. While statistics are disabled, the cost to the instrumented code
+ * is a single volatile read.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class StreamStatistics implements StreamsMXBean {
+
+	// the types of stream that are counted when opened and closed
+	enum Type {
+
+		BYTES_READ,
+		BYTES_WRITE,
+		BUFFER_READ,
+		BUFFER_WRITE,
+		CHANNEL_READ,
+		CHANNEL_WRITE,
+		REGION_READ,
+		REGION_WRITE,
+		CACHED_READ,
+		INPUT,
+		OUTPUT,
+		DATA_INPUT,
+		DATA_OUTPUT;
+
+		final String key() {
+			return name().toLowerCase(Locale.ROOT).replace('_', '.');
+		}
+	}
+
+	private static final String PROPERTY = "com.tomgibara.streams.jmx";
+	private static final Type[] TYPES = Type.values();
+
+	static final StreamStatistics INSTANCE = new StreamStatistics();
+
+	static {
+		PrivilegedAction<String> action = () -> { return System.getProperty(PROPERTY); };
+		if (Boolean.parseBoolean(AccessController.doPrivileged(action))) INSTANCE.register();
+	}
+
+	// methods called by instrumented code
+
+	static void transferred(long bytes) {
+		StreamStatistics s = INSTANCE;
+		if (s.enabled) {
+			s.transfers.increment();
+			s.bytesTransferred.add(bytes);
+		}
+	}
+
+	static ByteBuffer allocated(ByteBuffer buffer) {
+		StreamStatistics s = INSTANCE;
+		if (s.enabled) {
+			if (buffer.isDirect()) {
+				s.directBuffers.increment();
+				s.directBytes.add(buffer.capacity());
+			} else {
+				s.heapBuffers.increment();
+				s.heapBytes.add(buffer.capacity());
+			}
+		}
+		return buffer;
+	}
+
+	static void bytesGrown(int copied) {
+		StreamStatistics s = INSTANCE;
+		if (s.enabled) {
+			s.growthCopies.increment();
+			s.growthBytes.add(copied);
+		}
+	}
+
+	static void endOfStreamCreated() {
+		StreamStatistics s = INSTANCE;
+		if (s.enabled) s.endOfStreams.increment();
+	}
+
+	static void opened(Type type) {
+		StreamStatistics s = INSTANCE;
+		if (s.enabled) s.opened[type.ordinal()].increment();
+	}
+
+	static void closed(Type type) {
+		StreamStatistics s = INSTANCE;
+		if (s.enabled) s.closed[type.ordinal()].increment();
+	}
+
+	private static LongAdder[] adders() {
+		LongAdder[] adders = new LongAdder[TYPES.length];
+		for (int i = 0; i < adders.length; i++) {
+			adders[i] = new LongAdder();
+		}
+		return adders;
+	}
+
+	private static Map<String, Long> map(LongAdder[] adders) {
+		Map<String, Long> map = new LinkedHashMap<>();
+		for (int i = 0; i < adders.length; i++) {
+			map.put(TYPES[i].key(), adders[i].sum());
+		}
+		return Collections.unmodifiableMap(map);
+	}
+
+	private volatile boolean enabled = false;
+	private boolean registered = false;
+
+	private final LongAdder transfers = new LongAdder();
+	private final LongAdder bytesTransferred = new LongAdder();
+	private final LongAdder directBuffers = new LongAdder();
+	private final LongAdder directBytes = new LongAdder();
+	private final LongAdder heapBuffers = new LongAdder();
+	private final LongAdder heapBytes = new LongAdder();
+	private final LongAdder growthCopies = new LongAdder();
+	private final LongAdder growthBytes = new LongAdder();
+	private final LongAdder endOfStreams = new LongAdder();
+	private final LongAdder[] opened = adders();
+	private final LongAdder[] closed = adders();
+
+	private StreamStatistics() { }
+
+	// enables statistics and registers the bean if necessary
+	synchronized void register() {
+		enabled = true;
+		if (registered) return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+		} catch (InstanceAlreadyExistsException e) {
+			/* registered by another copy of the library, statistics will still be gathered */
+		} catch (JMException e) {
+			throw new IllegalStateException("failed to register MXBean", e);
+		}
+		registered = true;
+	}
+
+	boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public long getTransfers() {
+		return transfers.sum();
+	}
+
+	@Override
+	public long getBytesTransferred() {
+		return bytesTransferred.sum();
+	}
+
+	@Override
+	public long getDirectBuffersAllocated() {
+		return directBuffers.sum();
+	}
+
+	@Override
+	public long getDirectBufferBytes() {
+		return directBytes.sum();
+	}
+
+	@Override
+	public long getHeapBuffersAllocated() {
+		return heapBuffers.sum();
+	}
+
+	@Override
+	public long getHeapBufferBytes() {
+		return heapBytes.sum();
+	}
+
+	@Override
+	public long getBytesGrowthCopies() {
+		return growthCopies.sum();
+	}
+
+	@Override
+	public long getBytesGrowthBytesCopied() {
+		return growthBytes.sum();
+	}
+
+	@Override
+	public long getEndOfStreamExceptionsCreated() {
+		return endOfStreams.sum();
+	}
+
+	@Override
+	public Map<String, Long> getStreamsOpened() {
+		return map(opened);
+	}
+
+	@Override
+	public Map<String, Long> getStreamsClosed() {
+		return map(closed);
+	}
+
+	@Override
+	public void reset() {
+		transfers.reset();
+		bytesTransferred.reset();
+		directBuffers.reset();
+		directBytes.reset();
+		heapBuffers.reset();
+		heapBytes.reset();
+		growthCopies.reset();
+		growthBytes.reset();
+		endOfStreams.reset();
+		for (LongAdder adder : opened) adder.reset();
+		for (LongAdder adder : closed) adder.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "StreamStatistics[enabled=" + enabled + ", transfers=" + getTransfers() + ", bytesTransferred=" + getBytesTransferred() + "]";
+	}
+
+}
@@ -16,7 +16,6 @@
  */
 package com.tomgibara.streams;
 
-import static com.tomgibara.streams.StreamBuffering.PREFER_ANY;
 import static com.tomgibara.streams.StreamBuffering.PREFER_DIRECT;
 import static com.tomgibara.streams.StreamBuffering.PREFER_INDIRECT;
 import static com.tomgibara.streams.StreamBuffering.UNSUPPORTED;
@@ -29,6 +28,12 @@ import java.nio.ByteBuffer;
  * of this class are generally short lived objects that are used once to affect
  * the the transfer of bytes from a source stream to a target stream.
  *
+ * <p>
+ * Transfers allocate nothing per byte transferred; other than the buffer
+ * (when one is not supplied) and the {@link Result} returned from each
+ * transfer, together with any residual stream it holds, no objects are
+ * created.
+ *
  * @author Tom Gibara
  *
  * @see ReadStream#to(WriteStream)
@@ -37,14 +42,41 @@ import java.nio.ByteBuffer;
 
 public final class StreamTransfer {
 
+	// The buffering and default buffer size for each combination of source and
+	// target buffering, indexed by [source][target] ordinal. These were derived
+	// from the TransferBenchmark in the benchmarks module, which should be rerun
+	// to validate any changes. In summary: channels favour large direct buffers,
+	// arrays favour large heap buffers, and streams that prefer indirect
+	// buffering must never be given a direct buffer since they then fall back to
+	// transferring individual bytes.
+
+	private static final StreamBuffering[][] BUFFERINGS = {
+		//                   UNSUPPORTED      PREFER_DIRECT    PREFER_ANY       PREFER_INDIRECT
+		/* UNSUPPORTED     */ { UNSUPPORTED,     PREFER_DIRECT,   PREFER_DIRECT,   PREFER_INDIRECT },
+		/* PREFER_DIRECT   */ { PREFER_DIRECT,   PREFER_DIRECT,   PREFER_DIRECT,   PREFER_INDIRECT },
+		/* PREFER_ANY      */ { PREFER_DIRECT,   PREFER_DIRECT,   PREFER_INDIRECT, PREFER_INDIRECT },
+		/* PREFER_INDIRECT */ { PREFER_INDIRECT, PREFER_INDIRECT, PREFER_INDIRECT, PREFER_INDIRECT },
+	};
+
+	private static final int SMALL = 8 * 1024;
+	private static final int LARGE = 64 * 1024;
+
+	private static final int[][] BUFFER_SIZES = {
+		//                   UNSUPPORTED PREFER_DIRECT PREFER_ANY PREFER_INDIRECT
+		/* UNSUPPORTED     */ { 0,         SMALL,        SMALL,     SMALL },
+		/* PREFER_DIRECT   */ { SMALL,     LARGE,        LARGE,     SMALL },
+		/* PREFER_ANY      */ { SMALL,     LARGE,        LARGE,     SMALL },
+		/* PREFER_INDIRECT */ { SMALL,     SMALL,        SMALL,     SMALL },
+	};
+
 	private static StreamBuffering combine(StreamBuffering src, StreamBuffering dst) {
-		switch (src) {
-		case UNSUPPORTED:     return dst;
-		case PREFER_ANY:      return dst == UNSUPPORTED || dst == PREFER_ANY ? PREFER_DIRECT : dst;
-		case PREFER_DIRECT:   return dst == PREFER_INDIRECT ? PREFER_INDIRECT : PREFER_DIRECT;
-		case PREFER_INDIRECT: return src;
-		default: throw new IllegalStateException("Unexpected buffering type: " + src);
-		}
+		return BUFFERINGS[src.ordinal()][dst.ordinal()];
+	}
+
+	// a configured buffer size takes precedence over the table
+	private static int defaultBufferSize(StreamBuffering src, StreamBuffering dst) {
+		int size = Streams.CONFIGURED_BUFFER_SIZE;
+		return size == 0 ? BUFFER_SIZES[src.ordinal()][dst.ordinal()] : size;
 	}
 
 	private static ByteBuffer buffer(StreamBuffering src, StreamBuffering dst, int bufferSize) {
@@ -52,9 +84,8 @@ public final class StreamTransfer {
 		StreamBuffering buffering = combine(src, dst);
 		switch (buffering) {
 		case UNSUPPORTED:     return null;
-		case PREFER_DIRECT:   return ByteBuffer.allocateDirect(bufferSize);
-		case PREFER_INDIRECT: return ByteBuffer.allocate(bufferSize);
-		case PREFER_ANY:      return ByteBuffer.allocateDirect(bufferSize);
+		case PREFER_DIRECT:   return StreamStatistics.allocated(ByteBuffer.allocateDirect(bufferSize));
+		case PREFER_INDIRECT: return StreamStatistics.allocated(ByteBuffer.allocate(bufferSize));
 		default: throw new IllegalStateException("Unexpected buffer type: " + buffering);
 		}
 	}
@@ -119,6 +150,12 @@ public final class StreamTransfer {
 		 * target stream, since it is possible that residual data may exist;
 		 * having been read from the source but rejected by the target.
 		 *
+		 * <p>
+		 * Residual data is unread to the {@link ReadStream#pushback()} stream of
+		 * the source. Since this is the source itself when it already supports
+		 * pushback, repeatedly transferring from residual streams does not
+		 * accumulate wrapping streams.
+		 *
 		 * @return a stream containing all source bytes not written to the
 		 *         target
 		 */
@@ -131,13 +168,13 @@ public final class StreamTransfer {
 	private final ReadStream source;
 	private final WriteStream target;
 	private final ByteBuffer buffer;
-	private final boolean privateBuffer;
 
 	StreamTransfer(ReadStream source, WriteStream target) {
 		this.source = source;
 		this.target = target;
-		buffer = buffer(source.getBuffering(), target.getBuffering(), Streams.BUFFER_SIZE);
-		privateBuffer = true;
+		StreamBuffering src = source.getBuffering();
+		StreamBuffering dst = target.getBuffering();
+		buffer = buffer(src, dst, defaultBufferSize(src, dst));
 	}
 
 	StreamTransfer(ReadStream source, WriteStream target, int bufferSize) {
@@ -145,7 +182,6 @@ public final class StreamTransfer {
 		this.source = source;
 		this.target = target;
 		buffer = buffer(source.getBuffering(), target.getBuffering(), bufferSize);
-		privateBuffer = true;
 	}
 
 	StreamTransfer(ReadStream source, WriteStream target, ByteBuffer buffer) {
@@ -153,7 +189,6 @@ public final class StreamTransfer {
 		this.source = source;
 		this.target = target;
 		this.buffer = buffer != null && buffer.capacity() == 0 ? null : buffer;
-		privateBuffer = false;
 	}
 
 	/**
@@ -181,7 +216,11 @@ public final class StreamTransfer {
 
 	public Result transfer(long count) {
 		if (count < 0L) throw new IllegalArgumentException("negative count");
-		return buffer == null ? transferNoBuffer(count) : transferBuffered(count);
+		Object event = StreamEvents.beginTransfer();
+		Result result = buffer == null ? transferNoBuffer(count) : transferBuffered(count);
+		StreamEvents.endTransfer(event, result, buffer);
+		StreamStatistics.transferred(result.bytesTransfered());
+		return result;
 	}
 
 	/**
@@ -192,7 +231,11 @@ public final class StreamTransfer {
 	 */
 
 	public Result transferFully() {
-		return buffer == null ? transferNoBuffer() : transferBuffered();
+		Object event = StreamEvents.beginTransfer();
+		Result result = buffer == null ? transferNoBuffer() : transferBuffered();
+		StreamEvents.endTransfer(event, result, buffer);
+		StreamStatistics.transferred(result.bytesTransfered());
+		return result;
 	}
 
 	@SuppressWarnings("resource")
@@ -209,7 +252,7 @@ public final class StreamTransfer {
 			try {
 				target.writeByte(b);
 			} catch (EndOfStreamException e) {
-				return new Result(count, false, true, new SingleReadStream(b).andThen(source));
+				return new Result(count, false, true, residual(b));
 			}
 			count ++;
 		}
@@ -228,16 +271,7 @@ public final class StreamTransfer {
 			boolean dstExhausted = buffer.hasRemaining();
 			count -= buffer.remaining();
 			if (srcExhausted || dstExhausted) {
-				ReadStream residual;
-				if (privateBuffer) {
-					residual = new BufferReadStream(buffer);
-				} else {
-					byte[] bytes = new byte[buffer.remaining()];
-					buffer.put(bytes);
-					residual = new BytesReadStream(bytes);
-					((Buffer) buffer).clear();
-				}
-				return new Result(count, srcExhausted, dstExhausted, residual.andThen(source));
+				return new Result(count, srcExhausted, dstExhausted, residual(buffer));
 			}
 			buffer.clear();
 		}
@@ -256,7 +290,7 @@ public final class StreamTransfer {
 			try {
 				target.writeByte(b);
 			} catch (EndOfStreamException e) {
-				return new Result(c, false, true, new SingleReadStream(b).andThen(source));
+				return new Result(c, false, true, residual(b));
 			}
 			c++;
 		}
@@ -279,9 +313,30 @@ public final class StreamTransfer {
 			target.drainBuffer(buffer);
 			dstExhausted = buffer.hasRemaining();
 			c += buffer.remaining();
+			if (dstExhausted) return new Result(count - c, srcExhausted, true, residual(buffer));
 			buffer.clear();
-			if (srcExhausted || dstExhausted) break;
+			if (srcExhausted) break;
 		}
 		return new Result(count - c, srcExhausted, dstExhausted, source);
 	}
+
+	// returns to the source a byte that could not be written to the target
+	private ReadStream residual(byte b) {
+		PushbackReadStream stream = source.pushback();
+		stream.unread(b);
+		return stream;
+	}
+
+	// returns the bytes remaining in the buffer to the source, leaving the buffer cleared
+	private ReadStream residual(ByteBuffer buffer) {
+		if (!buffer.hasRemaining()) {
+			((Buffer) buffer).clear();
+			return source;
+		}
+		PushbackReadStream stream = source.pushback();
+		stream.unread(buffer);
+		((Buffer) buffer).clear();
+		return stream;
+	}
+
 }
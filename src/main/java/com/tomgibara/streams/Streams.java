@@ -21,13 +21,17 @@ import java.io.DataOutput;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PrintWriter;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.security.AccessController;
+import java.security.MessageDigest;
 import java.security.PrivilegedAction;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * <p>
@@ -61,7 +65,9 @@ public final class Streams {
 		@Override public long position() { return -1L; }
 	};
 
-	static final int BUFFER_SIZE = bufferSize();
+	// the buffer size specified by a system property, or zero
+	static final int CONFIGURED_BUFFER_SIZE = configuredBufferSize();
+	static final int BUFFER_SIZE = CONFIGURED_BUFFER_SIZE == 0 ? DEFAULT_BUFFER_SIZE : CONFIGURED_BUFFER_SIZE;
 	// the size of skip beyond which a temporary buffer will be allocated to batch skipped bytes
 	static final int SKIP_BUFFER_LIMIT = 64;
 	// the size of buffer used for default skip implementation
@@ -69,7 +75,7 @@ public final class Streams {
 	// heuristic: attempting skip five times, without ever advancing, indicates that skip is trivially implemented
 	static final int ZERO_SKIP_LIMIT = 5;
 
-	private static int bufferSize() {
+	private static int configuredBufferSize() {
 		PrivilegedAction<String> action = () -> { return System.getProperty(BUFFER_SIZE_PROPERTY); };
 		String str = AccessController.doPrivileged(action);
 		if (str != null) try {
@@ -79,7 +85,7 @@ public final class Streams {
 		} catch (NumberFormatException e) {
 			/* fall through */
 		}
-		return DEFAULT_BUFFER_SIZE;
+		return 0;
 	}
 
 	private static byte[] array(int capacity) {
@@ -94,8 +100,8 @@ public final class Streams {
 	static ByteBuffer createTemporaryBuffer(StreamBuffering buffering, int bufferSize) {
 		switch (buffering) {
 		case PREFER_ANY     :
-		case PREFER_INDIRECT: return ByteBuffer.allocate      (bufferSize);
-		case PREFER_DIRECT  : return ByteBuffer.allocateDirect(bufferSize);
+		case PREFER_INDIRECT: return StreamStatistics.allocated(ByteBuffer.allocate      (bufferSize));
+		case PREFER_DIRECT  : return StreamStatistics.allocated(ByteBuffer.allocateDirect(bufferSize));
 		default             : return null;
 		}
 	}
@@ -110,6 +116,22 @@ public final class Streams {
 		return chars == null ? "null" : "chars[" + chars.length + "]";
 	}
 
+	static String debugString(int[] ints) {
+		return ints == null ? "null" : "ints[" + ints.length + "]";
+	}
+
+	static String debugString(long[] longs) {
+		return longs == null ? "null" : "longs[" + longs.length + "]";
+	}
+
+	static String debugString(float[] floats) {
+		return floats == null ? "null" : "floats[" + floats.length + "]";
+	}
+
+	static String debugString(double[] doubles) {
+		return doubles == null ? "null" : "doubles[" + doubles.length + "]";
+	}
+
 	static String debugString(ByteBuffer buffer) {
 		return String.valueOf(buffer);
 	}
@@ -258,7 +280,8 @@ public final class Streams {
 	 * <p>
 	 * The returned stream supports accessing the stream position via
 	 * {@link PositionalStream#position()} only over channels that are
-	 * implementations of {@code SeekableByteChannel}.
+	 * implementations of {@code SeekableByteChannel}, in which case the stream
+	 * is also a {@link SeekableReadStream}.
 	 *
 	 * @param channel
 	 *            a byte channel
@@ -269,9 +292,29 @@ public final class Streams {
 
 	public static ReadStream streamReadable(ReadableByteChannel channel) {
 		if (channel == null) throw new IllegalArgumentException("null channel");
+		if (channel instanceof SeekableByteChannel) return new SeekableChannelReadStream((SeekableByteChannel) channel);
 		return new ChannelReadStream(channel);
 	}
 
+	/**
+	 * Creates a seekable stream that reads from the supplied channel. Bytes will be
+	 * read starting from the current channel position. The stream behaves as
+	 * per {@link #streamReadable(ReadableByteChannel)} but additionally exposes the
+	 * position, size and truncation of the channel via the methods of
+	 * {@link SeekableStream}.
+	 *
+	 * @param channel
+	 *            a seekable byte channel
+	 * @return a seekable stream over the supplied channel
+	 *
+	 * @see EndOfStreamException#EOS
+	 */
+
+	public static SeekableReadStream streamReadable(SeekableByteChannel channel) {
+		if (channel == null) throw new IllegalArgumentException("null channel");
+		return new SeekableChannelReadStream(channel);
+	}
+
 	/**
 	 * <p>
 	 * Creates a stream that writes to the supplied channel. Bytes will be
@@ -290,7 +333,8 @@ public final class Streams {
 	 * <p>
 	 * The returned stream supports accessing the stream position via
 	 * {@link PositionalStream#position()} only over channels that are
-	 * implementations of {@code SeekableByteChannel}.
+	 * implementations of {@code SeekableByteChannel}, in which case the stream
+	 * is also a {@link SeekableWriteStream}.
 	 *
 	 * @param channel
 	 *            a byte channel
@@ -301,9 +345,125 @@ public final class Streams {
 
 	public static WriteStream streamWritable(WritableByteChannel channel) {
 		if (channel == null) throw new IllegalArgumentException("null channel");
+		if (channel instanceof SeekableByteChannel) return new SeekableChannelWriteStream((SeekableByteChannel) channel);
 		return new ChannelWriteStream(channel);
 	}
 
+	/**
+	 * Creates a seekable stream that writes to the supplied channel. Bytes will be
+	 * written starting from the current channel position. The stream behaves as
+	 * per {@link #streamWritable(WritableByteChannel)} but additionally exposes the
+	 * position, size and truncation of the channel via the methods of
+	 * {@link SeekableStream}.
+	 *
+	 * @param channel
+	 *            a seekable byte channel
+	 * @return a seekable stream over the supplied channel
+	 *
+	 * @see EndOfStreamException#EOS
+	 */
+
+	public static SeekableWriteStream streamWritable(SeekableByteChannel channel) {
+		if (channel == null) throw new IllegalArgumentException("null channel");
+		return new SeekableChannelWriteStream(channel);
+	}
+
+	/**
+	 * <p>
+	 * Exposes a region of a file channel as independent seekable streams. The
+	 * streams obtained from the region each maintain a private position and
+	 * read or write the channel using only positional operations, so the
+	 * channel position is neither used nor modified.
+	 *
+	 * <p>
+	 * This permits many threads to access disjoint regions of a single file in
+	 * parallel, without locking and without opening additional file handles.
+	 *
+	 * @param channel
+	 *            a file channel
+	 * @param start
+	 *            the channel position at which the region starts
+	 * @param length
+	 *            the length of the region in bytes
+	 * @return a region of the channel
+	 *
+	 * @see SeekableReadStream#readAt(long, ByteBuffer)
+	 * @see SeekableWriteStream#writeAt(long, ByteBuffer)
+	 */
+
+	public static StreamRegion streamRegion(FileChannel channel, long start, long length) {
+		if (channel == null) throw new IllegalArgumentException("null channel");
+		if (start < 0L) throw new IllegalArgumentException("negative start");
+		if (length < 0L) throw new IllegalArgumentException("negative length");
+		if (start + length < 0L) throw new IllegalArgumentException("start + length overflows");
+		return new StreamRegion(channel, start, length);
+	}
+
+	/**
+	 * Creates a cache of blocks that may be shared by streams created with
+	 * {@link #cachedReadable(SeekableByteChannel, BlockCache)}. The cache
+	 * holds no more than <code>blockSize * blockCount</code> bytes; a block
+	 * size of 64KB is suitable for most files.
+	 *
+	 * @param blockSize
+	 *            the number of bytes in each block
+	 * @param blockCount
+	 *            the greatest number of blocks held by the cache
+	 * @return a new empty cache
+	 */
+
+	public static BlockCache blockCache(int blockSize, int blockCount) {
+		if (blockSize <= 0) throw new IllegalArgumentException("non-positive blockSize");
+		if (blockCount <= 0) throw new IllegalArgumentException("non-positive blockCount");
+		if (blockCount > 1 << 29) throw new IllegalArgumentException("blockCount too large");
+		return new BlockCache(blockSize, blockCount);
+	}
+
+	/**
+	 * Creates a seekable stream that reads from the supplied channel through
+	 * a block cache. Reads that hit the cache make no calls on the channel.
+	 * Sequential access is detected and served by reading multiple blocks
+	 * from the channel at once. The stream starts at position zero and reads
+	 * from the channel without modifying its position; closing the stream
+	 * does not close the channel. The content of the channel is assumed not
+	 * to change while it is cached.
+	 *
+	 * @param channel
+	 *            a seekable byte channel
+	 * @param cache
+	 *            the cache through which the channel is read
+	 * @return a cached stream over the channel
+	 *
+	 * @see BlockCache
+	 */
+
+	public static SeekableReadStream cachedReadable(SeekableByteChannel channel, BlockCache cache) {
+		if (channel == null) throw new IllegalArgumentException("null channel");
+		if (cache == null) throw new IllegalArgumentException("null cache");
+		return new CachedReadStream(channel, cache);
+	}
+
+	/**
+	 * Creates an empty batch for making scattered reads from the supplied
+	 * stream. Requests added to the batch are sorted and coalesced into larger
+	 * positional reads when the batch is read.
+	 *
+	 * @param source
+	 *            the stream from which bytes are to be read
+	 * @param gap
+	 *            the greatest number of unrequested bytes that may separate
+	 *            two requests which are coalesced into a single read
+	 * @return a new batch
+	 *
+	 * @see StreamBatch
+	 */
+
+	public static StreamBatch readBatch(SeekableReadStream source, int gap) {
+		if (source == null) throw new IllegalArgumentException("null source");
+		if (gap < 0) throw new IllegalArgumentException("negative gap");
+		return new StreamBatch(source, gap);
+	}
+
 	/**
 	 * <p>
 	 * Creates a new stream which obtains bytes data from an underlying
@@ -413,6 +573,84 @@ public final class Streams {
 		return EmptyWriteStream.INSTANCE;
 	}
 
+	/**
+	 * Creates new metrics with which streams may be metered. All counts are
+	 * initially zero.
+	 *
+	 * @return new stream metrics
+	 * @see ReadStream#metered(StreamMetrics)
+	 * @see WriteStream#metered(StreamMetrics)
+	 */
+
+	public static StreamMetrics metrics() {
+		return new StreamMetrics();
+	}
+
+	/**
+	 * Enables the gathering of library-wide statistics and registers a
+	 * {@link StreamsMXBean} that exposes them with the platform MBean server
+	 * under the name {@value StreamsMXBean#OBJECT_NAME}. Calling this method
+	 * more than once has no further effect.
+	 *
+	 * @return the MXBean exposing the statistics
+	 */
+
+	public static StreamsMXBean registerMXBean() {
+		StreamStatistics.INSTANCE.register();
+		return StreamStatistics.INSTANCE;
+	}
+
+	/**
+	 * The detector that identifies streams which fall back to the
+	 * byte-at-a-time default implementations of bulk operations. Detection
+	 * is disabled unless it has been enabled by system property or via
+	 * {@link SlowPathDetector#setEnabled(boolean)}.
+	 *
+	 * @return the slow path detector
+	 */
+
+	public static SlowPathDetector slowPathDetector() {
+		return SlowPathDetector.INSTANCE;
+	}
+
+	/**
+	 * Creates a recorder that retains the most recent operations made on
+	 * traced streams. The recorder is only dumped on demand.
+	 *
+	 * @param capacity
+	 *            the number of operations to retain, rounded up to a power of
+	 *            two
+	 * @return a new trace recorder
+	 * @see ReadStream#traced(TraceRecorder, String)
+	 * @see WriteStream#traced(TraceRecorder, String)
+	 */
+
+	public static TraceRecorder traceRecorder(int capacity) {
+		return new TraceRecorder(capacity, null);
+	}
+
+	/**
+	 * Creates a recorder that retains the most recent operations made on
+	 * traced streams. In addition to being dumped on demand, the recorder
+	 * dumps its entries to the supplied writer whenever a
+	 * {@link StreamException}, other than an {@link EndOfStreamException},
+	 * is thrown by a traced stream.
+	 *
+	 * @param capacity
+	 *            the number of operations to retain, rounded up to a power of
+	 *            two
+	 * @param dumpWriter
+	 *            the writer to which entries are dumped on failure
+	 * @return a new trace recorder
+	 * @see ReadStream#traced(TraceRecorder, String)
+	 * @see WriteStream#traced(TraceRecorder, String)
+	 */
+
+	public static TraceRecorder traceRecorder(int capacity, PrintWriter dumpWriter) {
+		if (dumpWriter == null) throw new IllegalArgumentException("null dumpWriter");
+		return new TraceRecorder(capacity, dumpWriter);
+	}
+
 	/**
 	 * <p>
 	 * A stream that reads byte data from a fixed sequence of underlying
@@ -534,6 +772,43 @@ public final class Streams {
 		return new SeqWriteStream(closer, streams);
 	}
 
+	/**
+	 * <p>
+	 * Computes a tree digest over the entire contents of a file channel. The
+	 * file is divided into leaves of a fixed size which are hashed in parallel
+	 * on the supplied pool before being combined pairwise into a single root
+	 * digest. Leaves are read with positional reads, so the position of the
+	 * channel is neither used nor modified.
+	 *
+	 * <p>
+	 * A leaf is hashed as <code>H(0x00 || leaf)</code> and an interior node as
+	 * <code>H(0x01 || left || right)</code>, with a range of <i>n</i> leaves
+	 * split at the largest power of two less than <i>n</i>. An empty channel
+	 * is treated as a single empty leaf. The resulting digest depends on the
+	 * leaf size and is not equal to a plain digest of the file contents.
+	 *
+	 * @param channel
+	 *            the channel to be digested
+	 * @param digest
+	 *            a prototype digest which is cloned for each node of the tree;
+	 *            its state is not modified
+	 * @param leafSize
+	 *            the number of bytes in each leaf
+	 * @param pool
+	 *            the pool on which leaves are hashed
+	 * @return the root digest of the tree
+	 * @throws StreamException
+	 *             if an error occurs reading from the channel
+	 */
+
+	public static byte[] treeDigest(FileChannel channel, MessageDigest digest, int leafSize, ForkJoinPool pool) {
+		if (channel == null) throw new IllegalArgumentException("null channel");
+		if (digest == null) throw new IllegalArgumentException("null digest");
+		if (leafSize <= 0) throw new IllegalArgumentException("non-positive leafSize");
+		if (pool == null) throw new IllegalArgumentException("null pool");
+		return new TreeDigest(channel, digest, leafSize).digest(pool);
+	}
+
 	private Streams() { }
 
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * A management interface that exposes library-wide statistics covering
+ * transfers, temporary buffer allocation, the growth of byte storage, the
+ * creation of end-of-stream exceptions and the streams opened and closed by
+ * type. All counts are cumulative since the statistics were enabled or last
+ * reset.
+ *
+ * <p>
+ * Statistics are not gathered unless they have been enabled, either by
+ * calling {@link Streams#registerMXBean()} or by setting the system property
+ * <code>com.tomgibara.streams.jmx</code> to <code>true</code>. In both cases
+ * an MXBean is registered with the platform MBean server under the name
+ * <code>com.tomgibara.streams:type=Streams</code>.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+public interface StreamsMXBean {
+
+	/**
+	 * The name under which the MXBean is registered.
+	 */
+
+	String OBJECT_NAME = "com.tomgibara.streams:type=Streams";
+
+	/**
+	 * The number of transfers performed by {@link StreamTransfer}.
+	 *
+	 * @return the number of transfers
+	 */
+
+	long getTransfers();
+
+	/**
+	 * The total number of bytes transferred by {@link StreamTransfer}.
+	 *
+	 * @return the number of bytes transferred
+	 */
+
+	long getBytesTransferred();
+
+	/**
+	 * The number of direct buffers allocated by the library for temporary
+	 * use, for example by transfers that were not supplied with a buffer.
+	 *
+	 * @return the number of direct buffers allocated
+	 */
+
+	long getDirectBuffersAllocated();
+
+	/**
+	 * The total capacity of the direct buffers allocated by the library for
+	 * temporary use.
+	 *
+	 * @return the number of bytes allocated in direct buffers
+	 */
+
+	long getDirectBufferBytes();
+
+	/**
+	 * The number of heap buffers allocated by the library for temporary use.
+	 *
+	 * @return the number of heap buffers allocated
+	 */
+
+	long getHeapBuffersAllocated();
+
+	/**
+	 * The total capacity of the heap buffers allocated by the library for
+	 * temporary use.
+	 *
+	 * @return the number of bytes allocated in heap buffers
+	 */
+
+	long getHeapBufferBytes();
+
+	/**
+	 * The number of times that the byte array underlying a
+	 * {@link StreamBytes} write stream was copied to increase its capacity.
+	 *
+	 * @return the number of growth copies
+	 */
+
+	long getBytesGrowthCopies();
+
+	/**
+	 * The total number of bytes copied in growing the byte arrays underlying
+	 * {@link StreamBytes} write streams.
+	 *
+	 * @return the number of bytes copied
+	 */
+
+	long getBytesGrowthBytesCopied();
+
+	/**
+	 * The number of {@link EndOfStreamException} instances created by the
+	 * library. This remains at zero when the shared exception instance is in
+	 * use.
+	 *
+	 * @return the number of end-of-stream exceptions created
+	 */
+
+	long getEndOfStreamExceptionsCreated();
+
+	/**
+	 * The number of streams opened, keyed by stream type. Types include
+	 * <code>bytes.read</code>, <code>buffer.write</code>,
+	 * <code>channel.read</code>, <code>input</code> and
+	 * <code>data.output</code>.
+	 *
+	 * @return the number of streams opened by type
+	 */
+
+	Map<String, Long> getStreamsOpened();
+
+	/**
+	 * The number of streams closed, keyed by stream type as per
+	 * {@link #getStreamsOpened()}.
+	 *
+	 * @return the number of streams closed by type
+	 */
+
+	Map<String, Long> getStreamsClosed();
+
+	/**
+	 * Resets all statistics to zero.
+	 */
+
+	void reset();
+
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Records the operations performed on traced streams into a fixed-size ring
+ * of compact entries. Each entry captures an operation code, its argument,
+ * the number of bytes involved, the time at which it was made and the
+ * position of the stream. Recording performs no allocation and no I/O, so it
+ * disturbs the timing of the traced code far less than debug streams do;
+ * once the ring is full, the oldest entries are overwritten.
+ *
+ * <p>
+ * The retained entries may be written out at any time via
+ * {@link #dump(PrintWriter)} in the same text format as produced by
+ * {@link ReadStream#debug(PrintWriter, String)}, with each line prefixed by
+ * the elapsed time and stream position. If the recorder was created with a
+ * dump writer, the entries are also dumped automatically whenever a
+ * {@link StreamException}, other than an {@link EndOfStreamException}, passes
+ * through a traced stream.
+ *
+ * <p>
+ * Like streams themselves, recorders are not safe for concurrent use; a
+ * recorder may be shared by multiple traced streams provided they are all
+ * used by the same thread.
+ *
+ * @author Tom Gibara
+ *
+ * @see Streams#traceRecorder(int)
+ * @see ReadStream#traced(TraceRecorder, String)
+ * @see WriteStream#traced(TraceRecorder, String)
+ */
+
+public final class TraceRecorder {
+
+	// operation codes
+
+	static final byte READ_BYTE          =  1;
+	static final byte READ_BYTES_ARRAY   =  2;
+	static final byte READ_BYTES         =  3;
+	static final byte TRY_READ_BYTES     =  4;
+	static final byte READ_BOOLEAN       =  5;
+	static final byte READ_SHORT         =  6;
+	static final byte READ_CHAR          =  7;
+	static final byte READ_INT           =  8;
+	static final byte READ_LONG          =  9;
+	static final byte READ_FLOAT         = 10;
+	static final byte READ_DOUBLE        = 11;
+	static final byte READ_CHARS_ARRAY   = 12;
+	static final byte READ_CHARS         = 13;
+	static final byte READ_STRING        = 14;
+	static final byte FILL_BUFFER        = 15;
+	static final byte SKIP               = 16;
+
+	static final byte WRITE_BYTE         = 17;
+	static final byte WRITE_BYTES_ARRAY  = 18;
+	static final byte WRITE_BYTES        = 19;
+	static final byte TRY_WRITE_BYTES    = 20;
+	static final byte WRITE_BOOLEAN      = 21;
+	static final byte WRITE_SHORT        = 22;
+	static final byte WRITE_CHAR         = 23;
+	static final byte WRITE_INT          = 24;
+	static final byte WRITE_LONG         = 25;
+	static final byte WRITE_FLOAT        = 26;
+	static final byte WRITE_DOUBLE       = 27;
+	static final byte WRITE_CHARS_ARRAY  = 28;
+	static final byte WRITE_CHARS        = 29;
+	static final byte WRITE_STRING       = 30;
+	static final byte DRAIN_BUFFER       = 31;
+
+	static final byte POSITION           = 32;
+	static final byte CLOSE              = 33;
+	static final byte THREW              = 34;
+
+	private static final int MAX_CAPACITY = 1 << 24;
+
+	// packs the details of an array slice into a single argument
+	static long slice(int length, int off) {
+		return (long) length << 32 | off & 0xffffffffL;
+	}
+
+	// packs the details of a buffer into a single argument, the capacity is recorded as the size
+	static long buffer(ByteBuffer buffer) {
+		return (long) buffer.position() << 32 | buffer.limit() & 0xffffffffL | (buffer.isDirect() ? Long.MIN_VALUE : 0L);
+	}
+
+	private final int mask;
+	private final PrintWriter dumpWriter;
+	private final byte[] ops;
+	private final byte[] sources;
+	private final long[] args;
+	private final int[] sizes;
+	private final long[] times;
+	private final long[] positions;
+	private final List<String> identities = new ArrayList<>();
+	private long count = 0L;
+
+	TraceRecorder(int capacity, PrintWriter dumpWriter) {
+		if (capacity <= 0) throw new IllegalArgumentException("non-positive capacity");
+		if (capacity > MAX_CAPACITY) throw new IllegalArgumentException("capacity too large");
+		capacity = Integer.highestOneBit(capacity - 1) << 1;
+		if (capacity == 0) capacity = 1;
+		mask = capacity - 1;
+		this.dumpWriter = dumpWriter;
+		ops = new byte[capacity];
+		sources = new byte[capacity];
+		args = new long[capacity];
+		sizes = new int[capacity];
+		times = new long[capacity];
+		positions = new long[capacity];
+	}
+
+	/**
+	 * The maximum number of entries retained by the recorder; this is the
+	 * requested capacity rounded up to a power of two.
+	 *
+	 * @return the number of entries that the ring can hold
+	 */
+
+	public int capacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * The total number of entries that have been recorded since the recorder
+	 * was created or last cleared, including those that have been
+	 * overwritten.
+	 *
+	 * @return the number of entries recorded
+	 */
+
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * Discards all recorded entries.
+	 */
+
+	public void clear() {
+		count = 0L;
+	}
+
+	/**
+	 * Writes the retained entries, oldest first, to the supplied writer. The
+	 * writer is flushed but not closed.
+	 *
+	 * @param writer
+	 *            the writer to which the entries should be written
+	 */
+
+	public void dump(PrintWriter writer) {
+		if (writer == null) throw new IllegalArgumentException("null writer");
+		int capacity = mask + 1;
+		long first = Math.max(0L, count - capacity);
+		if (first > 0L) writer.println("[" + first + " earlier entries discarded]");
+		long base = first < count ? times[(int) first & mask] : 0L;
+		StringBuilder sb = new StringBuilder();
+		for (long n = first; n < count; n++) {
+			int i = (int) n & mask;
+			sb.setLength(0);
+			sb.append("[+").append(times[i] - base).append("ns @").append(positions[i]).append("] ");
+			if (ops[i] == THREW) {
+				sb.append(sources[i] == 0 ? "" : identities.get((sources[i] & 0xff) - 1) + '.').append("threw ").append(args[i] == 0L ? "EndOfStreamException" : "StreamException");
+			} else {
+				if (sources[i] != 0) sb.append(identities.get((sources[i] & 0xff) - 1)).append('.');
+				describe(sb, ops[i], args[i], sizes[i]);
+			}
+			writer.println(sb);
+		}
+		writer.flush();
+	}
+
+	@Override
+	public String toString() {
+		return "TraceRecorder[capacity=" + capacity() + ", count=" + count + "]";
+	}
+
+	// package scoped methods called by traced streams
+
+	// returns a compact identifier for a traced stream; zero indicates no identity
+	byte register(String identity) {
+		if (identity == null) return 0;
+		int index = identities.indexOf(identity);
+		if (index == -1) {
+			if (identities.size() == 255) throw new IllegalStateException("too many identities");
+			identities.add(identity);
+			index = identities.size() - 1;
+		}
+		return (byte) (index + 1);
+	}
+
+	void record(byte source, byte op, long arg, int size, long position) {
+		int i = (int) count++ & mask;
+		ops[i] = op;
+		sources[i] = source;
+		args[i] = arg;
+		sizes[i] = size;
+		positions[i] = position;
+		times[i] = System.nanoTime();
+	}
+
+	StreamException failed(byte source, long position, StreamException e) {
+		boolean eos = e instanceof EndOfStreamException;
+		record(source, THREW, eos ? 0L : 1L, 0, position);
+		if (!eos && dumpWriter != null) dump(dumpWriter);
+		return e;
+	}
+
+	private static void describe(StringBuilder sb, byte op, long arg, int size) {
+		int hi = (int) (arg >>> 32);
+		int lo = (int) arg;
+		switch (op) {
+		case READ_BYTE:         sb.append("readByte()"); break;
+		case READ_BYTES_ARRAY:  sb.append("readBytes(bytes[").append(arg).append("])"); break;
+		case READ_BYTES:        sb.append("readBytes(bytes[").append(hi).append("],").append(lo).append(", ").append(size).append(')'); break;
+		case TRY_READ_BYTES:    sb.append("tryReadBytes(bytes[").append(hi).append("],").append(lo).append(", ").append(size).append(')'); break;
+		case READ_BOOLEAN:      sb.append("readBoolean()"); break;
+		case READ_SHORT:        sb.append("readShort()"); break;
+		case READ_CHAR:         sb.append("readChar()"); break;
+		case READ_INT:          sb.append("readInt()"); break;
+		case READ_LONG:         sb.append("readLong()"); break;
+		case READ_FLOAT:        sb.append("readFloat()"); break;
+		case READ_DOUBLE:       sb.append("readDouble()"); break;
+		case READ_CHARS_ARRAY:  sb.append("readChars(chars[").append(arg).append("])"); break;
+		case READ_CHARS:        sb.append("readChars(chars[").append(hi).append("], ").append(lo).append(", ").append(size / 2).append(')'); break;
+		case READ_STRING:       sb.append("readChars()"); break;
+		case FILL_BUFFER:       describeBuffer(sb.append("fillBuffer("), arg, size).append(')'); break;
+		case SKIP:              sb.append("skip(").append(arg).append(')'); break;
+		case WRITE_BYTE:        sb.append("writeByte(").append((byte) arg).append(')'); break;
+		case WRITE_BYTES_ARRAY: sb.append("writeBytes(bytes[").append(arg).append("])"); break;
+		case WRITE_BYTES:       sb.append("writeBytes(bytes[").append(hi).append("], ").append(lo).append(", ").append(size).append(')'); break;
+		case TRY_WRITE_BYTES:   sb.append("tryWriteBytes(bytes[").append(hi).append("], ").append(lo).append(", ").append(size).append(')'); break;
+		case WRITE_BOOLEAN:     sb.append("writeBoolean(").append(arg != 0L).append(')'); break;
+		case WRITE_SHORT:       sb.append("writeShort(").append((short) arg).append(')'); break;
+		case WRITE_CHAR:        sb.append("writeChar(").append((char) arg).append(')'); break;
+		case WRITE_INT:         sb.append("writeInt(").append((int) arg).append(')'); break;
+		case WRITE_LONG:        sb.append("writeLong(").append(arg).append(')'); break;
+		case WRITE_FLOAT:       sb.append("writeFloat(").append(Float.intBitsToFloat((int) arg)).append(')'); break;
+		case WRITE_DOUBLE:      sb.append("writeDouble(").append(Double.longBitsToDouble(arg)).append(')'); break;
+		case WRITE_CHARS_ARRAY: sb.append("writeChars(chars[").append(arg).append("])"); break;
+		case WRITE_CHARS:       sb.append("writeChars(chars[").append(hi).append("], ").append(lo).append(", ").append(size / 2).append(')'); break;
+		case WRITE_STRING:      sb.append("writeChars(chars[").append(arg).append("])"); break;
+		case DRAIN_BUFFER:      describeBuffer(sb.append("drainBuffer("), arg, size).append(')'); break;
+		case POSITION:          sb.append("position()"); break;
+		case CLOSE:             sb.append("close()"); break;
+		default:                sb.append("unknown(").append(op).append(')');
+		}
+	}
+
+	// matches ByteBuffer.toString()
+	private static StringBuilder describeBuffer(StringBuilder sb, long arg, int capacity) {
+		boolean direct = arg < 0L;
+		return sb
+			.append(direct ? "java.nio.DirectByteBuffer" : "java.nio.HeapByteBuffer")
+			.append("[pos=").append((int) (arg >>> 32) & 0x7fffffff)
+			.append(" lim=").append((int) arg)
+			.append(" cap=").append(capacity)
+			.append(']');
+	}
+
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static com.tomgibara.streams.TraceRecorder.CLOSE;
+import static com.tomgibara.streams.TraceRecorder.FILL_BUFFER;
+import static com.tomgibara.streams.TraceRecorder.POSITION;
+import static com.tomgibara.streams.TraceRecorder.READ_BOOLEAN;
+import static com.tomgibara.streams.TraceRecorder.READ_BYTE;
+import static com.tomgibara.streams.TraceRecorder.READ_BYTES;
+import static com.tomgibara.streams.TraceRecorder.READ_BYTES_ARRAY;
+import static com.tomgibara.streams.TraceRecorder.READ_CHAR;
+import static com.tomgibara.streams.TraceRecorder.READ_CHARS;
+import static com.tomgibara.streams.TraceRecorder.READ_CHARS_ARRAY;
+import static com.tomgibara.streams.TraceRecorder.READ_DOUBLE;
+import static com.tomgibara.streams.TraceRecorder.READ_FLOAT;
+import static com.tomgibara.streams.TraceRecorder.READ_INT;
+import static com.tomgibara.streams.TraceRecorder.READ_LONG;
+import static com.tomgibara.streams.TraceRecorder.READ_SHORT;
+import static com.tomgibara.streams.TraceRecorder.READ_STRING;
+import static com.tomgibara.streams.TraceRecorder.SKIP;
+import static com.tomgibara.streams.TraceRecorder.TRY_READ_BYTES;
+import static com.tomgibara.streams.TraceRecorder.buffer;
+import static com.tomgibara.streams.TraceRecorder.slice;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Records the operations performed on a wrapped stream into a
+ * {@link TraceRecorder}. The position recorded with each entry is the number
+ * of bytes read through this stream before the operation was made.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class TracedReadStream implements ReadStream {
+
+	private final ReadStream wrapped;
+	private final TraceRecorder recorder;
+	private final byte source;
+	private long position = 0L;
+
+	TracedReadStream(ReadStream wrapped, TraceRecorder recorder, String identity) {
+		this.wrapped = wrapped;
+		this.recorder = recorder;
+		source = recorder.register(identity);
+	}
+
+	@Override
+	public byte readByte() throws StreamException {
+		recorder.record(source, READ_BYTE, 0L, 1, position);
+		try {
+			byte v = wrapped.readByte();
+			position += 1;
+			return v;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void readBytes(byte[] bs) throws StreamException {
+		recorder.record(source, READ_BYTES_ARRAY, bs.length, bs.length, position);
+		try {
+			wrapped.readBytes(bs);
+			position += bs.length;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void readBytes(byte[] bs, int off, int len) throws StreamException {
+		recorder.record(source, READ_BYTES, slice(bs.length, off), len, position);
+		try {
+			wrapped.readBytes(bs, off, len);
+			position += len;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public int tryReadBytes(byte[] bs, int off, int len) throws StreamException {
+		recorder.record(source, TRY_READ_BYTES, slice(bs.length, off), len, position);
+		try {
+			int read = wrapped.tryReadBytes(bs, off, len);
+			position += read;
+			return read;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public boolean readBoolean() throws StreamException {
+		recorder.record(source, READ_BOOLEAN, 0L, 1, position);
+		try {
+			boolean v = wrapped.readBoolean();
+			position += 1;
+			return v;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public short readShort() throws StreamException {
+		recorder.record(source, READ_SHORT, 0L, 2, position);
+		try {
+			short v = wrapped.readShort();
+			position += 2;
+			return v;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public char readChar() throws StreamException {
+		recorder.record(source, READ_CHAR, 0L, 2, position);
+		try {
+			char v = wrapped.readChar();
+			position += 2;
+			return v;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public int readInt() throws StreamException {
+		recorder.record(source, READ_INT, 0L, 4, position);
+		try {
+			int v = wrapped.readInt();
+			position += 4;
+			return v;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public long readLong() throws StreamException {
+		recorder.record(source, READ_LONG, 0L, 8, position);
+		try {
+			long v = wrapped.readLong();
+			position += 8;
+			return v;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public float readFloat() throws StreamException {
+		recorder.record(source, READ_FLOAT, 0L, 4, position);
+		try {
+			float v = wrapped.readFloat();
+			position += 4;
+			return v;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public double readDouble() throws StreamException {
+		recorder.record(source, READ_DOUBLE, 0L, 8, position);
+		try {
+			double v = wrapped.readDouble();
+			position += 8;
+			return v;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void readChars(char[] cs) throws StreamException {
+		recorder.record(source, READ_CHARS_ARRAY, cs.length, 2 * cs.length, position);
+		try {
+			wrapped.readChars(cs);
+			position += 2L * cs.length;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void readChars(char[] cs, int off, int len) throws StreamException {
+		recorder.record(source, READ_CHARS, slice(cs.length, off), 2 * len, position);
+		try {
+			wrapped.readChars(cs, off, len);
+			position += 2L * len;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public String readChars() throws StreamException {
+		recorder.record(source, READ_STRING, 0L, 0, position);
+		try {
+			String str = wrapped.readChars();
+			// length prefix and chars
+			position += 4L + 2L * str.length();
+			return str;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void fillBuffer(ByteBuffer buffer) throws StreamException {
+		int p = buffer.position();
+		recorder.record(source, FILL_BUFFER, buffer(buffer), buffer.capacity(), position);
+		try {
+			wrapped.fillBuffer(buffer);
+			position += buffer.position() - p;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void skip(long length) throws StreamException {
+		recorder.record(source, SKIP, length, 0, position);
+		try {
+			wrapped.skip(length);
+			position += length;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public StreamBuffering getBuffering() {
+		return wrapped.getBuffering();
+	}
+
+	@Override
+	public long position() throws StreamException {
+		recorder.record(source, POSITION, 0L, 0, position);
+		return wrapped.position();
+	}
+
+	@Override
+	public void close() throws StreamException {
+		recorder.record(source, CLOSE, 0L, 0, position);
+		try {
+			wrapped.close();
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static com.tomgibara.streams.TraceRecorder.CLOSE;
+import static com.tomgibara.streams.TraceRecorder.DRAIN_BUFFER;
+import static com.tomgibara.streams.TraceRecorder.POSITION;
+import static com.tomgibara.streams.TraceRecorder.TRY_WRITE_BYTES;
+import static com.tomgibara.streams.TraceRecorder.WRITE_BOOLEAN;
+import static com.tomgibara.streams.TraceRecorder.WRITE_BYTE;
+import static com.tomgibara.streams.TraceRecorder.WRITE_BYTES;
+import static com.tomgibara.streams.TraceRecorder.WRITE_BYTES_ARRAY;
+import static com.tomgibara.streams.TraceRecorder.WRITE_CHAR;
+import static com.tomgibara.streams.TraceRecorder.WRITE_CHARS;
+import static com.tomgibara.streams.TraceRecorder.WRITE_CHARS_ARRAY;
+import static com.tomgibara.streams.TraceRecorder.WRITE_DOUBLE;
+import static com.tomgibara.streams.TraceRecorder.WRITE_FLOAT;
+import static com.tomgibara.streams.TraceRecorder.WRITE_INT;
+import static com.tomgibara.streams.TraceRecorder.WRITE_LONG;
+import static com.tomgibara.streams.TraceRecorder.WRITE_SHORT;
+import static com.tomgibara.streams.TraceRecorder.WRITE_STRING;
+import static com.tomgibara.streams.TraceRecorder.buffer;
+import static com.tomgibara.streams.TraceRecorder.slice;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Records the operations performed on a wrapped stream into a
+ * {@link TraceRecorder}. The position recorded with each entry is the number
+ * of bytes written through this stream before the operation was made.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class TracedWriteStream implements WriteStream {
+
+	private final WriteStream wrapped;
+	private final TraceRecorder recorder;
+	private final byte source;
+	private long position = 0L;
+
+	TracedWriteStream(WriteStream wrapped, TraceRecorder recorder, String identity) {
+		this.wrapped = wrapped;
+		this.recorder = recorder;
+		source = recorder.register(identity);
+	}
+
+	@Override
+	public void writeByte(byte v) throws StreamException {
+		recorder.record(source, WRITE_BYTE, v, 1, position);
+		try {
+			wrapped.writeByte(v);
+			position += 1;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void writeBytes(byte[] bs) throws StreamException {
+		recorder.record(source, WRITE_BYTES_ARRAY, bs.length, bs.length, position);
+		try {
+			wrapped.writeBytes(bs);
+			position += bs.length;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void writeBytes(byte[] bs, int off, int len) throws StreamException {
+		recorder.record(source, WRITE_BYTES, slice(bs.length, off), len, position);
+		try {
+			wrapped.writeBytes(bs, off, len);
+			position += len;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public int tryWriteBytes(byte[] bs, int off, int len) throws StreamException {
+		recorder.record(source, TRY_WRITE_BYTES, slice(bs.length, off), len, position);
+		try {
+			int written = wrapped.tryWriteBytes(bs, off, len);
+			position += written;
+			return written;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void writeBoolean(boolean v) throws StreamException {
+		recorder.record(source, WRITE_BOOLEAN, v ? 1L : 0L, 1, position);
+		try {
+			wrapped.writeBoolean(v);
+			position += 1;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void writeShort(short v) throws StreamException {
+		recorder.record(source, WRITE_SHORT, v, 2, position);
+		try {
+			wrapped.writeShort(v);
+			position += 2;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void writeChar(char v) throws StreamException {
+		recorder.record(source, WRITE_CHAR, v, 2, position);
+		try {
+			wrapped.writeChar(v);
+			position += 2;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void writeInt(int v) throws StreamException {
+		recorder.record(source, WRITE_INT, v, 4, position);
+		try {
+			wrapped.writeInt(v);
+			position += 4;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void writeLong(long v) throws StreamException {
+		recorder.record(source, WRITE_LONG, v, 8, position);
+		try {
+			wrapped.writeLong(v);
+			position += 8;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void writeFloat(float v) throws StreamException {
+		recorder.record(source, WRITE_FLOAT, Float.floatToRawIntBits(v), 4, position);
+		try {
+			wrapped.writeFloat(v);
+			position += 4;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void writeDouble(double v) throws StreamException {
+		recorder.record(source, WRITE_DOUBLE, Double.doubleToRawLongBits(v), 8, position);
+		try {
+			wrapped.writeDouble(v);
+			position += 8;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void writeChars(char[] cs) throws StreamException {
+		recorder.record(source, WRITE_CHARS_ARRAY, cs.length, 2 * cs.length, position);
+		try {
+			wrapped.writeChars(cs);
+			position += 2L * cs.length;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void writeChars(char[] cs, int off, int len) throws StreamException {
+		recorder.record(source, WRITE_CHARS, slice(cs.length, off), 2 * len, position);
+		try {
+			wrapped.writeChars(cs, off, len);
+			position += 2L * len;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void writeChars(CharSequence cs) throws StreamException {
+		int length = cs.length();
+		// length prefix and chars
+		recorder.record(source, WRITE_STRING, length, 4 + 2 * length, position);
+		try {
+			wrapped.writeChars(cs);
+			position += 4L + 2L * length;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public void drainBuffer(ByteBuffer buffer) throws StreamException {
+		int p = buffer.position();
+		recorder.record(source, DRAIN_BUFFER, buffer(buffer), buffer.capacity(), position);
+		try {
+			wrapped.drainBuffer(buffer);
+			position += buffer.position() - p;
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+	@Override
+	public StreamBuffering getBuffering() {
+		return wrapped.getBuffering();
+	}
+
+	@Override
+	public long position() throws StreamException {
+		recorder.record(source, POSITION, 0L, 0, position);
+		return wrapped.position();
+	}
+
+	@Override
+	public void close() throws StreamException {
+		recorder.record(source, CLOSE, 0L, 0, position);
+		try {
+			wrapped.close();
+		} catch (StreamException e) {
+			throw recorder.failed(source, position, e);
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * <p>
+ * Computes a hash tree over fixed-size leaves of a file channel. Leaves are
+ * read with positional reads so that they may be hashed concurrently on a
+ * fork-join pool without coordinating over the channel position.
+ *
+ * <p>
+ * The tree shape follows RFC 6962: a leaf hash is <code>H(0x00 || leaf)</code>,
+ * an interior hash is <code>H(0x01 || left || right)</code> and a range of
+ * <i>n</i> leaves is split at the largest power of two less than <i>n</i>.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class TreeDigest {
+
+	private static final byte LEAF_PREFIX = 0x00;
+	private static final byte NODE_PREFIX = 0x01;
+
+	private final FileChannel channel;
+	private final MessageDigest prototype;
+	private final int leafSize;
+	private final long size;
+
+	TreeDigest(FileChannel channel, MessageDigest prototype, int leafSize) {
+		this.channel = channel;
+		this.prototype = prototype;
+		this.leafSize = leafSize;
+		try {
+			size = channel.size();
+		} catch (IOException e) {
+			throw new StreamException(e);
+		}
+	}
+
+	byte[] digest(ForkJoinPool pool) {
+		long leafCount = Math.max(1L, (size + leafSize - 1) / leafSize);
+		return pool.invoke(new Task(0L, leafCount));
+	}
+
+	private MessageDigest newDigest() {
+		try {
+			MessageDigest digest = (MessageDigest) prototype.clone();
+			digest.reset();
+			return digest;
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalArgumentException("digest not cloneable", e);
+		}
+	}
+
+	private byte[] leaf(long index) {
+		long position = index * leafSize;
+		int length = (int) Math.min(leafSize, size - position);
+		MessageDigest digest = newDigest();
+		digest.update(LEAF_PREFIX);
+		if (length > 0) {
+			ByteBuffer buffer = ByteBuffer.allocate(length);
+			try {
+				while (buffer.hasRemaining()) {
+					int count = channel.read(buffer, position + buffer.position());
+					if (count == -1) break;
+				}
+			} catch (IOException e) {
+				throw new StreamException(e);
+			}
+			buffer.flip();
+			digest.update(buffer);
+		}
+		return digest.digest();
+	}
+
+	private byte[] node(byte[] left, byte[] right) {
+		MessageDigest digest = newDigest();
+		digest.update(NODE_PREFIX);
+		digest.update(left);
+		digest.update(right);
+		return digest.digest();
+	}
+
+	private final class Task extends RecursiveTask<byte[]> {
+
+		private static final long serialVersionUID = 2591440573413227766L;
+
+		private final long from;
+		private final long to;
+
+		Task(long from, long to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected byte[] compute() {
+			long count = to - from;
+			if (count == 1L) return leaf(from);
+			long split = from + Long.highestOneBit(count - 1L);
+			Task left = new Task(from, split);
+			left.fork();
+			byte[] right = new Task(split, to).compute();
+			return node(left.join(), right);
+		}
+	}
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Holds unread bytes in a growable ring ahead of an underlying stream. When
+ * no bytes are held, all reads are delegated to the underlying stream.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class UnreadReadStream implements PushbackReadStream {
+
+	private static final int MIN_CAPACITY = 16;
+	private static final byte[] NO_BYTES = {};
+
+	private final ReadStream stream;
+	private byte[] ring = NO_BYTES;
+	// the index in the ring of the next byte to be read, and the number of bytes held
+	private int head = 0;
+	private int count = 0;
+
+	UnreadReadStream(ReadStream stream) {
+		this.stream = stream;
+	}
+
+	// pushback methods
+
+	@Override
+	public void unread(byte b) {
+		ensureCapacity(1);
+		head = head - 1 & ring.length - 1;
+		ring[head] = b;
+		count++;
+	}
+
+	@Override
+	public void unread(byte[] bs, int off, int len) {
+		if (bs == null) throw new IllegalArgumentException("null bs");
+		if (off < 0 || len < 0 || off + len > bs.length) throw new IndexOutOfBoundsException();
+		if (len == 0) return;
+		ensureCapacity(len);
+		head = head - len & ring.length - 1;
+		int first = Math.min(len, ring.length - head);
+		System.arraycopy(bs, off, ring, head, first);
+		System.arraycopy(bs, off + first, ring, 0, len - first);
+		count += len;
+	}
+
+	@Override
+	public void unread(ByteBuffer buffer) {
+		if (buffer == null) throw new IllegalArgumentException("null buffer");
+		int len = buffer.remaining();
+		if (len == 0) return;
+		ensureCapacity(len);
+		head = head - len & ring.length - 1;
+		int first = Math.min(len, ring.length - head);
+		buffer.get(ring, head, first);
+		buffer.get(ring, 0, len - first);
+		count += len;
+	}
+
+	@Override
+	public int unreadCount() {
+		return count;
+	}
+
+	// read methods
+
+	@Override
+	public byte readByte() throws StreamException {
+		if (count == 0) return stream.readByte();
+		byte b = ring[head];
+		head = head + 1 & ring.length - 1;
+		count--;
+		return b;
+	}
+
+	@Override
+	public void readBytes(byte[] bs) throws StreamException {
+		readBytes(bs, 0, bs.length);
+	}
+
+	@Override
+	public void readBytes(byte[] bs, int off, int len) throws StreamException {
+		int n = take(bs, off, len);
+		if (n < len) stream.readBytes(bs, off + n, len - n);
+	}
+
+	@Override
+	public int tryReadBytes(byte[] bs, int off, int len) throws StreamException {
+		int n = take(bs, off, len);
+		return n < len ? n + stream.tryReadBytes(bs, off + n, len - n) : n;
+	}
+
+	@Override
+	public boolean readBoolean() throws StreamException {
+		return count == 0 ? stream.readBoolean() : readByte() != 0;
+	}
+
+	@Override
+	public short readShort() throws StreamException {
+		return count == 0 ? stream.readShort() : PushbackReadStream.super.readShort();
+	}
+
+	@Override
+	public char readChar() throws StreamException {
+		return count == 0 ? stream.readChar() : PushbackReadStream.super.readChar();
+	}
+
+	@Override
+	public int readInt() throws StreamException {
+		return count == 0 ? stream.readInt() : PushbackReadStream.super.readInt();
+	}
+
+	@Override
+	public long readLong() throws StreamException {
+		return count == 0 ? stream.readLong() : PushbackReadStream.super.readLong();
+	}
+
+	@Override
+	public float readFloat() throws StreamException {
+		return count == 0 ? stream.readFloat() : Float.intBitsToFloat(readInt());
+	}
+
+	@Override
+	public double readDouble() throws StreamException {
+		return count == 0 ? stream.readDouble() : Double.longBitsToDouble(readLong());
+	}
+
+	@Override
+	public void fillBuffer(ByteBuffer buffer) throws StreamException {
+		while (count > 0 && buffer.hasRemaining()) {
+			int length = Math.min(Math.min(count, ring.length - head), buffer.remaining());
+			buffer.put(ring, head, length);
+			consume(length);
+		}
+		if (buffer.hasRemaining()) stream.fillBuffer(buffer);
+	}
+
+	@Override
+	public void skip(long length) throws StreamException {
+		if (length < 0L) throw new IllegalArgumentException("negative length");
+		int n = (int) Math.min(length, count);
+		consume(n);
+		if (n < length) stream.skip(length - n);
+	}
+
+	@Override
+	public StreamBuffering getBuffering() {
+		return stream.getBuffering();
+	}
+
+	@Override
+	public long position() throws StreamException {
+		long position = stream.position();
+		if (position < 0L) return position;
+		// bytes unread beyond the start of the stream leave no meaningful position
+		return count > position ? -1L : position - count;
+	}
+
+	@Override
+	public PushbackReadStream pushback() {
+		return this;
+	}
+
+	@Override
+	public void close() throws StreamException {
+		stream.close();
+	}
+
+	private int take(byte[] bs, int off, int len) {
+		if (off < 0 || len < 0 || off + len > bs.length) throw new IndexOutOfBoundsException();
+		int n = Math.min(len, count);
+		int first = Math.min(n, ring.length - head);
+		System.arraycopy(ring, head, bs, off, first);
+		System.arraycopy(ring, 0, bs, off + first, n - first);
+		consume(n);
+		return n;
+	}
+
+	private void consume(int n) {
+		if (n == 0) return;
+		head = head + n & ring.length - 1;
+		count -= n;
+	}
+
+	// the ring length is always a power of two
+	private void ensureCapacity(int n) {
+		int required = count + n;
+		if (required < 0) throw new IllegalStateException("too many unread bytes");
+		if (required <= ring.length) return;
+		int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(required - 1) << 1);
+		if (capacity < 0) throw new IllegalStateException("too many unread bytes");
+		byte[] bytes = new byte[capacity];
+		// unwrap the held bytes to the end of the new ring, leaving room at the front
+		int start = capacity - count;
+		int first = Math.min(count, ring.length - head);
+		if (count > 0) {
+			System.arraycopy(ring, head, bytes, start, first);
+			System.arraycopy(ring, 0, bytes, start + first, count - first);
+		}
+		ring = bytes;
+		head = start & capacity - 1;
+	}
+
+}
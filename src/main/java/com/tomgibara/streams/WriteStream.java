@@ -18,10 +18,14 @@ package com.tomgibara.streams;
 
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.util.concurrent.ForkJoinPool;
 
 import com.tomgibara.fundament.Consumer;
+import com.tomgibara.streams.SlowPathDetector.Path;
 
 /**
  * <p>
@@ -37,6 +41,11 @@ import com.tomgibara.fundament.Consumer;
  * Unless otherwise indicated, attempting to write beyond the capacity of the
  * stream will raise an {@link EndOfStreamException}.
  *
+ * <p>
+ * Once constructed, the streams provided by this package allocate nothing
+ * when writing primitives, writing from arrays or draining buffers, except
+ * where a stream must grow its storage to accommodate the bytes written.
+ *
  * @author Tom Gibara
  * @see EndOfStreamException
  */
@@ -85,6 +94,7 @@ public interface WriteStream extends CloseableStream {
 	 */
 
 	default void writeBytes(byte bs[], int off, int len) throws StreamException {
+		SlowPathDetector.detected(this, Path.WRITE_BYTES, len);
 		final int lim = off + len;
 		for (int i = off; i < lim; i++) writeByte(bs[i]);
 	}
@@ -109,6 +119,7 @@ public interface WriteStream extends CloseableStream {
 	 */
 
 	default int tryWriteBytes(byte bs[], int off, int len) throws StreamException {
+		SlowPathDetector.detected(this, Path.TRY_WRITE_BYTES, len);
 		int i = off;
 		int lim = off + len;
 		try {
@@ -273,10 +284,154 @@ public interface WriteStream extends CloseableStream {
 	 */
 
 	default void writeChars(char[] cs, int off, int len) throws StreamException {
+		SlowPathDetector.detected(this, Path.WRITE_CHARS, 2L * len);
 		final int lim = off + len;
 		for (int i = off; i < lim; i++) writeChar(cs[i]);
 	}
 
+	/**
+	 * <p>
+	 * Writes an array slice of longs to the stream using the specified codec.
+	 * The values are encoded in blocks, each of which records the codec used,
+	 * so that the sequence can be read with
+	 * {@link ReadStream#readLongSequence(long[], int, int)}. The length of the
+	 * sequence is not recorded.
+	 *
+	 * <p>
+	 * In the default implementation, the encoded bits are written via a
+	 * {@link BitWriteStream} and padded to a whole number of longs.
+	 *
+	 * @param values
+	 *            a long array
+	 * @param off
+	 *            the index from which the first value written is read
+	 * @param len
+	 *            the number of values to be written
+	 * @param codec
+	 *            the codec with which the values are encoded
+	 * @throws StreamException
+	 *             if an error occurs writing the values
+	 * @see SequenceCodec
+	 */
+
+	default void writeLongSequence(long[] values, int off, int len, SequenceCodec codec) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		if (codec == null) throw new IllegalArgumentException("null codec");
+		BitWriteStream bits = BitWriteStream.borrow(this);
+		try {
+			SequenceCoding.writeLongs(bits, values, off, len, codec);
+			bits.align(64);
+		} finally {
+			bits.release();
+		}
+	}
+
+	/**
+	 * Writes an array slice of ints to the stream using the specified codec.
+	 * The values are encoded as per
+	 * {@link #writeLongSequence(long[], int, int, SequenceCodec)} and can be
+	 * read with {@link ReadStream#readIntSequence(int[], int, int)}.
+	 *
+	 * @param values
+	 *            an int array
+	 * @param off
+	 *            the index from which the first value written is read
+	 * @param len
+	 *            the number of values to be written
+	 * @param codec
+	 *            the codec with which the values are encoded
+	 * @throws StreamException
+	 *             if an error occurs writing the values
+	 * @see SequenceCodec
+	 */
+
+	default void writeIntSequence(int[] values, int off, int len, SequenceCodec codec) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		if (codec == null) throw new IllegalArgumentException("null codec");
+		BitWriteStream bits = BitWriteStream.borrow(this);
+		try {
+			SequenceCoding.writeInts(bits, values, off, len, codec);
+			bits.align(64);
+		} finally {
+			bits.release();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Writes an array slice of doubles to the stream, compressing each value
+	 * by XORing its bits with those of its predecessor. The encoding is
+	 * compact for slowly changing series, such as sampled metrics. The values
+	 * can be read with
+	 * {@link ReadStream#readDoubleSequence(double[], int, int, int)}; the
+	 * length of the sequence is not recorded.
+	 *
+	 * <p>
+	 * If a non-zero block size is specified, the values are encoded in
+	 * independent blocks, each prefixed with its encoded length, so that whole
+	 * blocks can be skipped by a reader via
+	 * {@link ReadStream#skipDoubleSequence(int, int)}.
+	 *
+	 * <p>
+	 * In the default implementation, the encoded bits are written via a
+	 * {@link BitWriteStream} and padded to a whole number of longs.
+	 *
+	 * @param values
+	 *            a double array
+	 * @param off
+	 *            the index from which the first value written is read
+	 * @param len
+	 *            the number of values to be written
+	 * @param blockSize
+	 *            the number of values in each block, or zero if the values
+	 *            are not to be divided into blocks
+	 * @throws StreamException
+	 *             if an error occurs writing the values
+	 */
+
+	default void writeDoubleSequence(double[] values, int off, int len, int blockSize) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		if (blockSize < 0) throw new IllegalArgumentException("negative blockSize");
+		BitWriteStream bits = BitWriteStream.borrow(this);
+		try {
+			XorCoding.writeDoubles(bits, values, off, len, blockSize);
+			bits.align(64);
+		} finally {
+			bits.release();
+		}
+	}
+
+	/**
+	 * Writes an array slice of floats to the stream, compressing each value
+	 * by XORing its bits with those of its predecessor. The encoding is as per
+	 * {@link #writeDoubleSequence(double[], int, int, int)} and the values can
+	 * be read with {@link ReadStream#readFloatSequence(float[], int, int, int)}.
+	 *
+	 * @param values
+	 *            a float array
+	 * @param off
+	 *            the index from which the first value written is read
+	 * @param len
+	 *            the number of values to be written
+	 * @param blockSize
+	 *            the number of values in each block, or zero if the values
+	 *            are not to be divided into blocks
+	 * @throws StreamException
+	 *             if an error occurs writing the values
+	 */
+
+	default void writeFloatSequence(float[] values, int off, int len, int blockSize) throws StreamException {
+		if (values == null) throw new IllegalArgumentException("null values");
+		if (blockSize < 0) throw new IllegalArgumentException("negative blockSize");
+		BitWriteStream bits = BitWriteStream.borrow(this);
+		try {
+			XorCoding.writeFloats(bits, values, off, len, blockSize);
+			bits.align(64);
+		} finally {
+			bits.release();
+		}
+	}
+
 	/**
 	 * <p>
 	 * Writes a character sequence (typically a String instance) to the stream.
@@ -299,6 +454,7 @@ public interface WriteStream extends CloseableStream {
 		if (cs instanceof String) {
 			writeChars(((String) cs).toCharArray());
 		} else {
+			SlowPathDetector.detected(this, Path.WRITE_CHARS, 2L * length);
 			for (int i = 0; i < length; i++) {
 				writeChar(cs.charAt(i));
 			}
@@ -320,12 +476,13 @@ public interface WriteStream extends CloseableStream {
 	default void drainBuffer(ByteBuffer buffer) throws StreamException {
 		if (!buffer.hasRemaining()) return; // nothing to do
 		if (buffer.hasArray()) {
-			int offset = buffer.arrayOffset();
+			int position = buffer.position();
 			byte[] array = buffer.array();
 			int remaining = buffer.remaining();
-			int written = tryWriteBytes(array, offset, remaining);
-			buffer.position(buffer.position() + written);
+			int written = tryWriteBytes(array, buffer.arrayOffset() + position, remaining);
+			((Buffer) buffer).position(position + written);
 		} else {
+			SlowPathDetector.detected(this, Path.DRAIN_BUFFER, buffer.remaining());
 			try {
 				for (int i = buffer.remaining(); i > 0; i--) {
 					writeByte(buffer.get());
@@ -337,6 +494,58 @@ public interface WriteStream extends CloseableStream {
 		}
 	}
 
+	/**
+	 * <p>
+	 * Claims space for the specified number of bytes, returning a buffer into
+	 * which they may be written. The bytes are populated with the relative
+	 * <code>put</code> methods of the buffer, which perform none of the
+	 * per-value checks and dispatch of the stream's own write methods, and
+	 * are then written to the stream in a single call to
+	 * {@link #commit(ByteBuffer)}. Bytes up to the position of the buffer
+	 * are committed; its limit permits no more than the claimed number of
+	 * bytes to be put. No other writes should be made to the stream while a
+	 * claim is outstanding.
+	 *
+	 * <p>
+	 * The default implementation allocates a heap buffer with a position of
+	 * zero; the bytes are drained to the stream on commit. Streams backed by
+	 * arrays or buffers return a view of their storage that is reused for
+	 * each claim (and which need not have a position of zero) so that the
+	 * bytes are written in place without allocation. Such streams will raise
+	 * an {@link EndOfStreamException} from this method if the bytes cannot be
+	 * accommodated.
+	 *
+	 * @param length
+	 *            the number of bytes claimed
+	 * @return a buffer in which the claimed bytes may be put
+	 * @throws StreamException
+	 *             if the bytes could not be claimed
+	 * @see #commit(ByteBuffer)
+	 */
+
+	default ByteBuffer claim(int length) throws StreamException {
+		if (length < 0) throw new IllegalArgumentException("negative length");
+		return ByteBuffer.allocate(length);
+	}
+
+	/**
+	 * Writes the bytes put into a buffer obtained from {@link #claim(int)}. An
+	 * {@link EndOfStreamException} is raised if not all of the bytes could be
+	 * written.
+	 *
+	 * @param claim
+	 *            the buffer returned from the most recent claim
+	 * @throws StreamException
+	 *             if the bytes could not be written
+	 */
+
+	default void commit(ByteBuffer claim) throws StreamException {
+		if (claim == null) throw new IllegalArgumentException("null claim");
+		((Buffer) claim).flip();
+		drainBuffer(claim);
+		if (claim.hasRemaining()) throw EndOfStreamException.instance();
+	}
+
 	// convenience methods
 
 	/**
@@ -354,6 +563,30 @@ public interface WriteStream extends CloseableStream {
 		return new BoundedWriteStream(this, length);
 	}
 
+	/**
+	 * <p>
+	 * A writer that contributes to the same stream of bytes, but in which
+	 * space may be reserved for values, such as length prefixes, that are only
+	 * known after subsequent bytes have been written. Calling this method on a
+	 * stream that is already patchable returns the same stream.
+	 *
+	 * <p>
+	 * The returned stream writes directly to this stream except while a
+	 * reservation is unpatched; from the earliest unpatched reservation
+	 * onwards, bytes are held back until the reservation is patched. Only held
+	 * bytes may be patched and positions are measured from the creation of the
+	 * returned stream. Closing the returned stream writes any held bytes
+	 * (including unpatched reservations, which remain zero) before closing
+	 * this stream.
+	 *
+	 * @return a stream supporting reservations and patching
+	 * @see PatchableWriteStream#reserve(int)
+	 */
+
+	default PatchableWriteStream patchable() {
+		return new PatchingWriteStream(this);
+	}
+
 	/**
 	 * A writer that guards the close method of this writer with the specified
 	 * closer implementation.
@@ -380,6 +613,11 @@ public interface WriteStream extends CloseableStream {
 	 * stream. If the returned stream is closed before this stream is full then
 	 * both streams are closed.
 	 *
+	 * <p>
+	 * Sequences are flattened rather than nested: if either stream was itself
+	 * produced by sequencing streams, it may be consumed by this method, after
+	 * which writing to it raises a {@link StreamException}.
+	 *
 	 * @param stream
 	 *            a stream to which data should be written once this stream is
 	 *            full
@@ -390,7 +628,7 @@ public interface WriteStream extends CloseableStream {
 
 	default WriteStream andThen(WriteStream stream) {
 		if (stream == null) throw new IllegalArgumentException("null stream");
-		return new SeqWriteStream(StreamCloser.closeStream(), this, stream);
+		return SeqWriteStream.sequence(StreamCloser.closeStream(), this, stream);
 	}
 
 	/**
@@ -407,6 +645,11 @@ public interface WriteStream extends CloseableStream {
 	 * {@link StreamCloser} is applied to this stream before the secondary
 	 * stream is closed.
 	 *
+	 * <p>
+	 * Sequences are flattened rather than nested: if either stream was itself
+	 * produced by sequencing streams, it may be consumed by this method, after
+	 * which writing to it raises a {@link StreamException}.
+	 *
 	 * @param closer
 	 *            logic to be performed on this stream before writing data to
 	 *            the secondary stream
@@ -421,7 +664,7 @@ public interface WriteStream extends CloseableStream {
 	default WriteStream andThen(StreamCloser closer, WriteStream stream) {
 		if (closer == null) throw new IllegalArgumentException("null closer");
 		if (stream == null) throw new IllegalArgumentException("null stream");
-		return new SeqWriteStream(closer, this, stream);
+		return SeqWriteStream.sequence(closer, this, stream);
 	}
 
 	/**
@@ -435,6 +678,11 @@ public interface WriteStream extends CloseableStream {
 	 * If the returned stream is closed before the supplied stream is full then
 	 * both streams are closed.
 	 *
+	 * <p>
+	 * Sequences are flattened rather than nested: if either stream was itself
+	 * produced by sequencing streams, it may be consumed by this method, after
+	 * which writing to it raises a {@link StreamException}.
+	 *
 	 * @param stream
 	 *            a stream to which data should be written before this stream is
 	 *            written to
@@ -445,7 +693,7 @@ public interface WriteStream extends CloseableStream {
 
 	default WriteStream butFirst(WriteStream stream) {
 		if (stream == null) throw new IllegalArgumentException("null stream");
-		return new SeqWriteStream(StreamCloser.closeStream(), stream, this);
+		return SeqWriteStream.sequence(StreamCloser.closeStream(), stream, this);
 	}
 
 	/**
@@ -461,6 +709,11 @@ public interface WriteStream extends CloseableStream {
 	 * {@link StreamCloser} is applied to it stream before the this stream is
 	 * closed.
 	 *
+	 * <p>
+	 * Sequences are flattened rather than nested: if either stream was itself
+	 * produced by sequencing streams, it may be consumed by this method, after
+	 * which writing to it raises a {@link StreamException}.
+	 *
 	 * @param stream
 	 *            a stream to which data should be written before this stream is
 	 *            written to
@@ -475,7 +728,7 @@ public interface WriteStream extends CloseableStream {
 	default WriteStream butFirst(WriteStream stream, StreamCloser closer) {
 		if (stream == null) throw new IllegalArgumentException("null stream");
 		if (closer == null) throw new IllegalArgumentException("null closer");
-		return new SeqWriteStream(closer, stream, this);
+		return SeqWriteStream.sequence(closer, stream, this);
 	}
 
 	/**
@@ -501,6 +754,172 @@ public interface WriteStream extends CloseableStream {
 		return new DebugWriteStream(this, writer, identity);
 	}
 
+	/**
+	 * <p>
+	 * A writer that contributes to the same stream of bytes, but which
+	 * records its usage in the supplied metrics: the number of bytes written,
+	 * the number of calls made to each type of operation, the end-of-stream
+	 * conditions encountered and the time spent in
+	 * {@link #drainBuffer(ByteBuffer)}.
+	 *
+	 * <p>
+	 * Unlike {@link #debug(PrintWriter, String)}, metering is inexpensive
+	 * enough to remain enabled in production. The same metrics may be shared
+	 * by any number of streams.
+	 *
+	 * @param metrics
+	 *            the metrics to be updated
+	 * @return a stream that meters this stream
+	 * @see Streams#metrics()
+	 */
+
+	default WriteStream metered(StreamMetrics metrics) {
+		if (metrics == null) throw new IllegalArgumentException("null metrics");
+		return new MeteredWriteStream(this, metrics);
+	}
+
+	/**
+	 * <p>
+	 * A writer that writes to the same stream of bytes, but which records each
+	 * operation into the supplied trace recorder. Recording is performed
+	 * without allocation and without I/O so that, unlike
+	 * {@link #debug(PrintWriter, String)}, tracing has little effect on the
+	 * timing of the code being investigated.
+	 *
+	 * <p>
+	 * The recorded operations are output in the same format as debug streams
+	 * when the recorder is dumped. The same recorder may be shared by multiple
+	 * streams, in which case the supplied identity distinguishes their
+	 * entries.
+	 *
+	 * @param recorder
+	 *            the recorder into which operations should be recorded
+	 * @param identity
+	 *            an identifier for the traced stream, may be null
+	 * @return a stream that wraps this stream with tracing
+	 * @see Streams#traceRecorder(int)
+	 */
+
+	default WriteStream traced(TraceRecorder recorder, String identity) {
+		if (recorder == null) throw new IllegalArgumentException("null recorder");
+		return new TracedWriteStream(this, recorder, identity);
+	}
+
+	/**
+	 * <p>
+	 * A writer that contributes to the same stream of bytes, but which updates
+	 * the supplied digest with every byte that is written. Bytes written in
+	 * bulk (for example via {@link #drainBuffer(ByteBuffer)}) are passed to the
+	 * digest in a single update.
+	 *
+	 * <p>
+	 * The digest is not reset by the returned stream; the caller remains
+	 * responsible for obtaining the digest value, typically after the stream
+	 * has been closed.
+	 *
+	 * @param digest
+	 *            the digest to be updated with the bytes written
+	 * @return a stream that digests the bytes written to this stream
+	 */
+
+	default WriteStream digested(MessageDigest digest) {
+		if (digest == null) throw new IllegalArgumentException("null digest");
+		return new DigestWriteStream(this, digest);
+	}
+
+	/**
+	 * <p>
+	 * A writer that compresses bytes in the zlib format before writing them to
+	 * this stream. The compressed data is only completed when the returned
+	 * stream is closed, which also closes this stream; a
+	 * {@link StreamCloser} may be applied to this stream if it must remain
+	 * open.
+	 *
+	 * <p>
+	 * The <code>Deflater</code> used by the returned stream is drawn from a
+	 * bounded pool and is returned to that pool when the stream is closed.
+	 *
+	 * @param level
+	 *            the compression level, from 0 to 9 inclusive, or -1 for the
+	 *            default level
+	 * @return a stream that compresses bytes written to this stream
+	 * @see ReadStream#inflated()
+	 */
+
+	default WriteStream deflated(int level) {
+		if (level < -1 || level > 9) throw new IllegalArgumentException("invalid level");
+		return new DeflateWriteStream(this, level);
+	}
+
+	/**
+	 * <p>
+	 * A writer that compresses bytes in independent blocks that are deflated
+	 * concurrently on the supplied pool before being written, in order, to
+	 * this stream. Each block is preceded by its compressed and uncompressed
+	 * lengths so that the blocks may also be decompressed concurrently. The
+	 * compressed data is only completed when the returned stream is closed,
+	 * which also closes this stream.
+	 *
+	 * <p>
+	 * The format is specific to this library and is not compatible with
+	 * {@link ReadStream#inflated()}; the data must be read with
+	 * {@link ReadStream#inflatedParallel(ForkJoinPool)}. Smaller blocks
+	 * increase parallelism at some cost to the compression ratio.
+	 *
+	 * @param level
+	 *            the compression level, from 0 to 9 inclusive, or -1 for the
+	 *            default level
+	 * @param blockSize
+	 *            the number of uncompressed bytes in each block, at most 64MB
+	 * @param pool
+	 *            the pool on which blocks are compressed
+	 * @return a stream that compresses bytes written to this stream
+	 * @see ReadStream#inflatedParallel(ForkJoinPool)
+	 */
+
+	default WriteStream deflatedParallel(int level, int blockSize, ForkJoinPool pool) {
+		if (level < -1 || level > 9) throw new IllegalArgumentException("invalid level");
+		if (blockSize <= 0) throw new IllegalArgumentException("non-positive blockSize");
+		if (blockSize > ParallelDeflateWriteStream.MAX_BLOCK_SIZE) throw new IllegalArgumentException("blockSize too large");
+		if (pool == null) throw new IllegalArgumentException("null pool");
+		return new ParallelDeflateWriteStream(this, level, blockSize, pool);
+	}
+
+	/**
+	 * A writer of values with arbitrary bit lengths. Bits are accumulated and
+	 * written to this stream as longs; closing the returned stream writes any
+	 * partially accumulated long, padded with zero bits, and closes this
+	 * stream.
+	 *
+	 * @return a stream that writes bits to this stream
+	 * @see ReadStream#bits()
+	 */
+
+	default BitWriteStream bits() {
+		return new BitWriteStream(this);
+	}
+
+	/**
+	 * <p>
+	 * A writer that compresses bytes with a fast LZ block codec before writing
+	 * them to this stream. Compression is considerably faster than
+	 * {@link #deflated(int)}, typically at the cost of a lower compression
+	 * ratio. The compressed data is only completed when the returned stream is
+	 * closed, which also closes this stream.
+	 *
+	 * <p>
+	 * Bytes are compressed in independent blocks of up to 64KB; blocks that do
+	 * not compress are stored, so the compressed size never greatly exceeds the
+	 * uncompressed size.
+	 *
+	 * @return a stream that compresses bytes written to this stream
+	 * @see ReadStream#decompressedFast()
+	 */
+
+	default WriteStream compressedFast() {
+		return new LZWriteStream(this);
+	}
+
 	/**
 	 * Returns an <code>OutputStream</code> that draws from the same stream of
 	 * bytes.
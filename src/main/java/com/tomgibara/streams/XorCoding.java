@@ -0,0 +1,240 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+/**
+ * <p>
+ * Encodes and decodes sequences of floating point values by XORing the bits
+ * of each value with those of its predecessor, after the scheme used by
+ * Facebook's Gorilla time series database. The first value is stored in full.
+ * Each subsequent value is encoded as:
+ *
+ * <ul>
+ * <li><code>0</code> if it is identical to its predecessor,
+ * <li><code>10</code> followed by the meaningful bits of the XOR if they lie
+ * within the window of meaningful bits last recorded,
+ * <li><code>11</code> followed by the number of leading zeros (5 bits), the
+ * number of meaningful bits less one (6 bits for doubles, 5 for floats) and
+ * the meaningful bits themselves, establishing a new window.
+ * </ul>
+ *
+ * <p>
+ * When a block size is specified, the sequence is divided into blocks that
+ * are encoded independently. Each block begins on a 64-bit boundary with a 32
+ * bit header that records the number of encoded bits which follow, so that
+ * whole blocks can be skipped without being decoded.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class XorCoding {
+
+	private static final int LEADING_BITS = 5;
+	private static final int MAX_LEADING = (1 << LEADING_BITS) - 1;
+
+	static void writeDoubles(BitWriteStream bits, double[] values, int off, int len, int blockSize) {
+		if (blockSize == 0) {
+			XorCoding coder = bits.coder(64);
+			int lim = off + len;
+			for (int i = off; i < lim; i++) {
+				coder.encode(bits, Double.doubleToRawLongBits(values[i]));
+			}
+			return;
+		}
+		bits.align(64);
+		int lim = off + len;
+		for (int start = off; start < lim; start += blockSize) {
+			int end = Math.min(start + blockSize, lim);
+			// measure the block before writing it
+			XorCoding coder = bits.coder(64);
+			long length = 0L;
+			for (int i = start; i < end; i++) {
+				length += coder.encode(null, Double.doubleToRawLongBits(values[i]));
+			}
+			writeHeader(bits, length);
+			coder.reset(64);
+			for (int i = start; i < end; i++) {
+				coder.encode(bits, Double.doubleToRawLongBits(values[i]));
+			}
+			bits.align(64);
+		}
+	}
+
+	static void writeFloats(BitWriteStream bits, float[] values, int off, int len, int blockSize) {
+		if (blockSize == 0) {
+			XorCoding coder = bits.coder(32);
+			int lim = off + len;
+			for (int i = off; i < lim; i++) {
+				coder.encode(bits, Float.floatToRawIntBits(values[i]) & 0xffffffffL);
+			}
+			return;
+		}
+		bits.align(64);
+		int lim = off + len;
+		for (int start = off; start < lim; start += blockSize) {
+			int end = Math.min(start + blockSize, lim);
+			// measure the block before writing it
+			XorCoding coder = bits.coder(32);
+			long length = 0L;
+			for (int i = start; i < end; i++) {
+				length += coder.encode(null, Float.floatToRawIntBits(values[i]) & 0xffffffffL);
+			}
+			writeHeader(bits, length);
+			coder.reset(32);
+			for (int i = start; i < end; i++) {
+				coder.encode(bits, Float.floatToRawIntBits(values[i]) & 0xffffffffL);
+			}
+			bits.align(64);
+		}
+	}
+
+	static void readDoubles(BitReadStream bits, double[] values, int off, int len, int blockSize) {
+		if (blockSize == 0) {
+			XorCoding coder = bits.coder(64);
+			int lim = off + len;
+			for (int i = off; i < lim; i++) {
+				values[i] = Double.longBitsToDouble(coder.decode(bits));
+			}
+			return;
+		}
+		bits.align(64);
+		int lim = off + len;
+		for (int start = off; start < lim; start += blockSize) {
+			int end = Math.min(start + blockSize, lim);
+			bits.readBits(32);
+			XorCoding coder = bits.coder(64);
+			for (int i = start; i < end; i++) {
+				values[i] = Double.longBitsToDouble(coder.decode(bits));
+			}
+			bits.align(64);
+		}
+	}
+
+	static void readFloats(BitReadStream bits, float[] values, int off, int len, int blockSize) {
+		if (blockSize == 0) {
+			XorCoding coder = bits.coder(32);
+			int lim = off + len;
+			for (int i = off; i < lim; i++) {
+				values[i] = Float.intBitsToFloat((int) coder.decode(bits));
+			}
+			return;
+		}
+		bits.align(64);
+		int lim = off + len;
+		for (int start = off; start < lim; start += blockSize) {
+			int end = Math.min(start + blockSize, lim);
+			bits.readBits(32);
+			XorCoding coder = bits.coder(32);
+			for (int i = start; i < end; i++) {
+				values[i] = Float.intBitsToFloat((int) coder.decode(bits));
+			}
+			bits.align(64);
+		}
+	}
+
+	// skips whole blocks without decoding them
+	static void skipBlocks(BitReadStream bits, int len, int blockSize) {
+		bits.align(64);
+		for (int i = 0; i < len; i += blockSize) {
+			bits.skipBits(bits.readBits(32));
+			bits.align(64);
+		}
+	}
+
+	private static void writeHeader(BitWriteStream bits, long length) {
+		if (length > 0xffffffffL) throw new IllegalArgumentException("block too large");
+		bits.writeBits(length, 32);
+	}
+
+	private int wordSize;
+	private int lengthBits;
+	private boolean started;
+	private long previous;
+	// a negative value indicates that no window has been established
+	private int leading;
+	private int trailing;
+
+	// instances are obtained from bit streams which reuse them
+	XorCoding() {
+	}
+
+	// prepares the coder for a new sequence of values with the given word size
+	XorCoding reset(int wordSize) {
+		this.wordSize = wordSize;
+		lengthBits = wordSize == 64 ? 6 : 5;
+		started = false;
+		previous = 0L;
+		leading = -1;
+		trailing = 0;
+		return this;
+	}
+
+	// writes the value if bits is not null, returning the number of bits in its encoding
+	private int encode(BitWriteStream bits, long value) {
+		if (!started) {
+			started = true;
+			previous = value;
+			if (bits != null) bits.writeBits(value, wordSize);
+			return wordSize;
+		}
+		long xor = value ^ previous;
+		previous = value;
+		if (xor == 0L) {
+			if (bits != null) bits.writeBits(0L, 1);
+			return 1;
+		}
+		int lz = Math.min(Long.numberOfLeadingZeros(xor) - (64 - wordSize), MAX_LEADING);
+		int tz = Long.numberOfTrailingZeros(xor);
+		if (leading >= 0 && lz >= leading && tz >= trailing) {
+			int length = wordSize - leading - trailing;
+			if (bits != null) {
+				bits.writeBits(2L, 2);
+				bits.writeBits(xor >>> trailing, length);
+			}
+			return 2 + length;
+		}
+		leading = lz;
+		trailing = tz;
+		int length = wordSize - lz - tz;
+		if (bits != null) {
+			bits.writeBits((3L << LEADING_BITS | lz) << lengthBits | length - 1, 2 + LEADING_BITS + lengthBits);
+			bits.writeBits(xor >>> tz, length);
+		}
+		return 2 + LEADING_BITS + lengthBits + length;
+	}
+
+	private long decode(BitReadStream bits) {
+		if (!started) {
+			started = true;
+			return previous = bits.readBits(wordSize);
+		}
+		if (bits.readBits(1) == 0L) return previous;
+		if (bits.readBits(1) == 0L) {
+			if (leading < 0) throw new StreamException("invalid floating point sequence");
+			return previous ^= bits.readBits(wordSize - leading - trailing) << trailing;
+		}
+		int header = (int) bits.readBits(LEADING_BITS + lengthBits);
+		int lz = header >>> lengthBits;
+		int length = (header & ((1 << lengthBits) - 1)) + 1;
+		int tz = wordSize - lz - length;
+		if (tz < 0) throw new StreamException("invalid floating point sequence");
+		leading = lz;
+		trailing = tz;
+		return previous ^= bits.readBits(length) << tz;
+	}
+}
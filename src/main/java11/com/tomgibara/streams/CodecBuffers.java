@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * <p>
+ * Passes buffers directly to zlib codecs.
+ *
+ * <p>
+ * This is the Java 11 implementation, which uses the buffer methods of
+ * {@link Deflater} and {@link Inflater}, so that direct buffers are read and
+ * written by the codecs without being copied through arrays. The position of
+ * each buffer is advanced as its bytes are consumed or produced.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class CodecBuffers {
+
+	static boolean supported() {
+		return true;
+	}
+
+	static void setInput(Deflater deflater, ByteBuffer input) {
+		deflater.setInput(input);
+	}
+
+	static int inflate(Inflater inflater, ByteBuffer output) throws DataFormatException {
+		return inflater.inflate(output);
+	}
+
+	private CodecBuffers() { }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+
+import com.tomgibara.streams.StreamTransfer.Result;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * <p>
+ * Reports significant stream activity to the JDK Flight Recorder.
+ *
+ * <p>
+ * This is the Java 11 implementation. Events are only allocated and timed
+ * when their type is enabled in a recording (as reported by the cached
+ * {@link EventType} of each event), and are only committed when
+ * they exceed their configured threshold. The default thresholds may be
+ * overridden in a JFR settings file using the event names, for example
+ * <code>com.tomgibara.streams.Transfer#threshold</code>.
+ *
+ * @author Tom Gibara
+ *
+ */
+
+final class StreamEvents {
+
+	private static final String CATEGORY = "Streams";
+
+	@Name("com.tomgibara.streams.Transfer")
+	@Label("Stream Transfer")
+	@Description("Bytes transferred between streams by a StreamTransfer")
+	@Category(CATEGORY)
+	@Threshold("1 ms")
+	static final class TransferEvent extends Event {
+
+		@Label("Bytes")
+		@DataAmount
+		long bytes;
+
+		@Label("Buffer")
+		@Description("The type of buffer used: heap, direct or none")
+		String buffer;
+
+		@Label("Source Exhausted")
+		boolean sourceExhausted;
+
+		@Label("Residual")
+		@Description("Whether the target filled, leaving a residual stream")
+		boolean residual;
+	}
+
+	@Name("com.tomgibara.streams.Buffer")
+	@Label("Stream Buffer")
+	@Description("A fill or drain of a buffer by a channel stream")
+	@Category(CATEGORY)
+	@Threshold("10 ms")
+	static final class BufferEvent extends Event {
+
+		@Label("Operation")
+		String operation;
+
+		@Label("Bytes")
+		@DataAmount
+		int bytes;
+
+		@Label("Direct")
+		boolean direct;
+	}
+
+	@Name("com.tomgibara.streams.SkipFallback")
+	@Label("Stream Skip Fallback")
+	@Description("A skip performed by reading individual bytes")
+	@Category(CATEGORY)
+	@Threshold("0 ms")
+	static final class SkipEvent extends Event {
+
+		@Label("Length")
+		@DataAmount
+		long length;
+	}
+
+	@Name("com.tomgibara.streams.BytesGrowth")
+	@Label("Stream Bytes Growth")
+	@Description("A copy made to increase the capacity of a byte array")
+	@Category(CATEGORY)
+	static final class GrowthEvent extends Event {
+
+		@Label("Old Capacity")
+		@DataAmount
+		int oldCapacity;
+
+		@Label("New Capacity")
+		@DataAmount
+		int newCapacity;
+	}
+
+	private static final EventType TRANSFER = EventType.getEventType(TransferEvent.class);
+	private static final EventType BUFFER = EventType.getEventType(BufferEvent.class);
+	private static final EventType SKIP = EventType.getEventType(SkipEvent.class);
+	private static final EventType GROWTH = EventType.getEventType(GrowthEvent.class);
+
+	static Object beginTransfer() {
+		if (!TRANSFER.isEnabled()) return null;
+		TransferEvent event = new TransferEvent();
+		event.begin();
+		return event;
+	}
+
+	static void endTransfer(Object obj, Result result, ByteBuffer buffer) {
+		if (obj == null) return;
+		TransferEvent event = (TransferEvent) obj;
+		event.end();
+		if (!event.shouldCommit()) return;
+		event.bytes = result.bytesTransfered();
+		event.buffer = buffer == null ? "none" : buffer.isDirect() ? "direct" : "heap";
+		event.sourceExhausted = result.sourceExhausted();
+		event.residual = result.targetFull();
+		event.commit();
+	}
+
+	static Object beginBuffer() {
+		if (!BUFFER.isEnabled()) return null;
+		BufferEvent event = new BufferEvent();
+		event.begin();
+		return event;
+	}
+
+	static void endFill(Object event, int bytes, ByteBuffer buffer) {
+		endBuffer(event, "fill", bytes, buffer);
+	}
+
+	static void endDrain(Object event, int bytes, ByteBuffer buffer) {
+		endBuffer(event, "drain", bytes, buffer);
+	}
+
+	static Object beginSkip() {
+		if (!SKIP.isEnabled()) return null;
+		SkipEvent event = new SkipEvent();
+		event.begin();
+		return event;
+	}
+
+	static void endSkip(Object obj, long length) {
+		if (obj == null) return;
+		SkipEvent event = (SkipEvent) obj;
+		event.end();
+		if (!event.shouldCommit()) return;
+		event.length = length;
+		event.commit();
+	}
+
+	static void bytesGrown(int oldCapacity, int newCapacity) {
+		if (!GROWTH.isEnabled()) return;
+		GrowthEvent event = new GrowthEvent();
+		if (!event.shouldCommit()) return;
+		event.oldCapacity = oldCapacity;
+		event.newCapacity = newCapacity;
+		event.commit();
+	}
+
+	private static void endBuffer(Object obj, String operation, int bytes, ByteBuffer buffer) {
+		if (obj == null) return;
+		BufferEvent event = (BufferEvent) obj;
+		event.end();
+		if (!event.shouldCommit()) return;
+		event.operation = operation;
+		event.bytes = bytes;
+		event.direct = buffer.isDirect();
+		event.commit();
+	}
+
+	private StreamEvents() { }
+
+}
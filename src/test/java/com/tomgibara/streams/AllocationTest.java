@@ -0,0 +1,411 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.function.Supplier;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Asserts that the steady-state operations of the built-in streams allocate
+ * nothing. Each path is exercised over a large number of operations on a
+ * stream that has already been constructed and primed (so that any lazily
+ * allocated state already exists), and the bytes allocated by the current
+ * thread are compared before and after.
+ */
+
+public class AllocationTest {
+
+	// number of iterations measured for each path, each iteration performs several operations
+	private static final int ITERATIONS = 1 << 18;
+	// number of untimed passes made over each path before it is measured
+	private static final int WARMUPS = 3;
+	private static final int CHUNK = 256;
+
+	private static ThreadMXBean threads;
+	private static long threadId;
+	private static long overhead;
+
+	@BeforeClass
+	public static void checkSupported() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof ThreadMXBean);
+		threads = (ThreadMXBean) bean;
+		Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+		threadId = Thread.currentThread().getId();
+		// the cost of taking a measurement, if any
+		long min = Long.MAX_VALUE;
+		for (int i = 0; i < 10; i++) {
+			long before = allocated();
+			long after = allocated();
+			min = Math.min(min, after - before);
+		}
+		overhead = min;
+	}
+
+	private static long allocated() {
+		return threads.getThreadAllocatedBytes(threadId);
+	}
+
+	private interface Pass {
+		void run(int iterations) throws Exception;
+	}
+
+	// the supplier prepares the streams (allocating as necessary) and returns a pass over them
+	// each stream must support ITERATIONS + 1 iterations, the first of which primes the stream
+	private static void assertNoAllocation(String path, Supplier<Pass> passes) throws Exception {
+		for (int i = 0; i < WARMUPS; i++) {
+			passes.get().run(ITERATIONS + 1);
+		}
+		long least = Long.MAX_VALUE;
+		// repeat to discount allocations made by the VM on this thread, such as deoptimization
+		for (int i = 0; i < 3 && least > 0L; i++) {
+			Pass pass = passes.get();
+			pass.run(1);
+			long before = allocated();
+			pass.run(ITERATIONS);
+			long after = allocated();
+			least = Math.min(least, after - before - overhead);
+		}
+		assertEquals(path + " allocated", 0L, least);
+	}
+
+	private static byte[] data(int length) {
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = (byte) i;
+		}
+		return data;
+	}
+
+	private static OutputStream discard() {
+		return new OutputStream() {
+			@Override public void write(int b) { }
+			@Override public void write(byte[] b, int off, int len) { }
+		};
+	}
+
+	private static InputStream repeat() {
+		return new InputStream() {
+			@Override public int read() { return 1; }
+			@Override public int read(byte[] b, int off, int len) { return len; }
+			@Override public int available() { return Integer.MAX_VALUE; }
+			// the inherited implementation allocates a buffer on every call
+			@Override public long skip(long n) { return n; }
+		};
+	}
+
+	// read paths
+
+	private static Pass readPrimitives(ReadStream r) {
+		return n -> {
+			for (int i = 0; i < n; i++) {
+				r.readByte();
+				r.readShort();
+				r.readInt();
+				r.readLong();
+			}
+		};
+	}
+
+	private static Pass readChunks(ReadStream r) {
+		byte[] bs = new byte[CHUNK];
+		ByteBuffer buffer = ByteBuffer.allocate(CHUNK);
+		return n -> {
+			for (int i = 0; i < n; i++) {
+				r.readBytes(bs);
+				buffer.clear();
+				r.fillBuffer(buffer);
+				r.skip(CHUNK);
+			}
+		};
+	}
+
+	// consumes fewer bytes than readPrimitives
+	private static Pass parse(MarkableReadStream r) {
+		ByteBuffer peeked = ByteBuffer.allocate(8);
+		return n -> {
+			for (int i = 0; i < n; i++) {
+				r.mark();
+				r.peekByte();
+				peeked.clear();
+				r.peek(peeked);
+				r.readLong();
+				r.reset();
+				r.readLong();
+				r.readShort();
+			}
+		};
+	}
+
+	// the number of bytes consumed by readPrimitives
+	private static final int PRIMITIVE_BYTES = (ITERATIONS + 1) * 15;
+	// the number of bytes consumed by readChunks
+	private static final int CHUNK_BYTES = (ITERATIONS + 1) * 3 * CHUNK;
+
+	@Test
+	public void testBytesRead() throws Exception {
+		byte[] prims = data(PRIMITIVE_BYTES);
+		byte[] chunks = data(CHUNK_BYTES);
+		assertNoAllocation("bytes primitives", () -> readPrimitives(Streams.bytes(prims).readStream()));
+		assertNoAllocation("bytes chunks", () -> readChunks(Streams.bytes(chunks).readStream()));
+	}
+
+	@Test
+	public void testBufferRead() throws Exception {
+		ByteBuffer prims = ByteBuffer.wrap(data(PRIMITIVE_BYTES));
+		ByteBuffer chunks = ByteBuffer.allocateDirect(CHUNK_BYTES);
+		assertNoAllocation("buffer primitives", () -> { prims.clear(); return readPrimitives(Streams.streamBuffer(prims).readStream()); });
+		assertNoAllocation("buffer chunks", () -> { chunks.clear(); return readChunks(Streams.streamBuffer(chunks).readStream()); });
+	}
+
+	@Test
+	public void testChannelRead() throws Exception {
+		byte[] prims = data(PRIMITIVE_BYTES);
+		byte[] chunks = data(CHUNK_BYTES);
+		assertNoAllocation("channel primitives", () -> readPrimitives(Streams.streamReadable(new ByteArrayChannel(prims))));
+		assertNoAllocation("channel chunks", () -> readChunks(Streams.streamReadable(new ByteArrayChannel(chunks))));
+	}
+
+	@Test
+	public void testInputRead() throws Exception {
+		assertNoAllocation("input primitives", () -> readPrimitives(Streams.streamInput(repeat())));
+		assertNoAllocation("input chunks", () -> readChunks(Streams.streamInput(repeat())));
+	}
+
+	@Test
+	public void testDataRead() throws Exception {
+		byte[] prims = data(PRIMITIVE_BYTES);
+		byte[] chunks = data(CHUNK_BYTES);
+		assertNoAllocation("data primitives", () -> readPrimitives(Streams.streamDataInput(new DataInputStream(new ByteArrayInputStream(prims)))));
+		assertNoAllocation("data chunks", () -> readChunks(Streams.streamDataInput(new DataInputStream(new ByteArrayInputStream(chunks)))));
+	}
+
+	@Test
+	public void testDecoratedRead() throws Exception {
+		byte[] prims = data(PRIMITIVE_BYTES);
+		byte[] chunks = data(CHUNK_BYTES);
+		MessageDigest digest = sha256();
+		StreamMetrics metrics = Streams.metrics();
+		TraceRecorder recorder = Streams.traceRecorder(1024);
+		assertNoAllocation("bounded primitives", () -> readPrimitives(Streams.bytes(prims).readStream().bounded(PRIMITIVE_BYTES)));
+		assertNoAllocation("bounded chunks", () -> readChunks(Streams.bytes(chunks).readStream().bounded(CHUNK_BYTES)));
+		assertNoAllocation("digested primitives", () -> readPrimitives(Streams.bytes(prims).readStream().digested(digest)));
+		assertNoAllocation("digested chunks", () -> readChunks(Streams.bytes(chunks).readStream().digested(digest)));
+		assertNoAllocation("metered primitives", () -> readPrimitives(Streams.bytes(prims).readStream().metered(metrics)));
+		assertNoAllocation("metered chunks", () -> readChunks(Streams.bytes(chunks).readStream().metered(metrics)));
+		assertNoAllocation("traced primitives", () -> readPrimitives(Streams.bytes(prims).readStream().traced(recorder, "r")));
+		assertNoAllocation("traced chunks", () -> readChunks(Streams.bytes(chunks).readStream().traced(recorder, "r")));
+		assertNoAllocation("markable primitives", () -> readPrimitives(Streams.bytes(prims).readStream().markable(16)));
+		assertNoAllocation("markable chunks", () -> readChunks(Streams.bytes(chunks).readStream().markable(16)));
+		assertNoAllocation("markable parse", () -> parse(Streams.bytes(prims).readStream().markable(16)));
+	}
+
+	// write paths
+
+	private static Pass writePrimitives(WriteStream w) {
+		return n -> {
+			for (int i = 0; i < n; i++) {
+				w.writeByte((byte) i);
+				w.writeShort((short) i);
+				w.writeInt(i);
+				w.writeLong(i);
+			}
+		};
+	}
+
+	private static Pass writeChunks(WriteStream w) {
+		byte[] bs = data(CHUNK);
+		ByteBuffer buffer = ByteBuffer.allocate(CHUNK);
+		return n -> {
+			for (int i = 0; i < n; i++) {
+				w.writeBytes(bs);
+				buffer.clear();
+				w.drainBuffer(buffer);
+			}
+		};
+	}
+
+	private static Pass writeClaims(WriteStream w) {
+		return n -> {
+			for (int i = 0; i < n; i++) {
+				w.commit(w.claim(15).put((byte) i).putShort((short) i).putInt(i).putLong(i));
+			}
+		};
+	}
+
+	// the number of bytes that writePrimitives or writeChunks may produce
+	private static final int WRITTEN_BYTES = (ITERATIONS + 1) * 2 * CHUNK;
+
+	@Test
+	public void testBytesWrite() throws Exception {
+		byte[] bytes = new byte[WRITTEN_BYTES];
+		assertNoAllocation("bytes primitives", () -> writePrimitives(Streams.bytes(bytes, 0).writeStream()));
+		assertNoAllocation("bytes chunks", () -> writeChunks(Streams.bytes(bytes, 0).writeStream()));
+		assertNoAllocation("bytes claims", () -> writeClaims(Streams.bytes(bytes, 0).writeStream()));
+	}
+
+	@Test
+	public void testBufferWrite() throws Exception {
+		ByteBuffer heap = ByteBuffer.allocate(WRITTEN_BYTES);
+		ByteBuffer direct = ByteBuffer.allocateDirect(WRITTEN_BYTES);
+		assertNoAllocation("buffer primitives", () -> { heap.clear(); return writePrimitives(Streams.streamBuffer(heap).writeStream()); });
+		assertNoAllocation("buffer chunks", () -> { direct.clear(); return writeChunks(Streams.streamBuffer(direct).writeStream()); });
+		assertNoAllocation("buffer claims", () -> { direct.clear(); return writeClaims(Streams.streamBuffer(direct).writeStream()); });
+	}
+
+	@Test
+	public void testChannelWrite() throws Exception {
+		byte[] bytes = new byte[WRITTEN_BYTES];
+		assertNoAllocation("channel primitives", () -> writePrimitives(Streams.streamWritable(new ByteArrayChannel(bytes))));
+		assertNoAllocation("channel chunks", () -> writeChunks(Streams.streamWritable(new ByteArrayChannel(bytes))));
+	}
+
+	@Test
+	public void testOutputWrite() throws Exception {
+		assertNoAllocation("output primitives", () -> writePrimitives(Streams.streamOutput(discard())));
+		assertNoAllocation("output chunks", () -> writeChunks(Streams.streamOutput(discard())));
+	}
+
+	@Test
+	public void testDataWrite() throws Exception {
+		assertNoAllocation("data primitives", () -> writePrimitives(Streams.streamDataOutput(new DataOutputStream(discard()))));
+		assertNoAllocation("data chunks", () -> writeChunks(Streams.streamDataOutput(new DataOutputStream(discard()))));
+	}
+
+	@Test
+	public void testDecoratedWrite() throws Exception {
+		MessageDigest digest = sha256();
+		StreamMetrics metrics = Streams.metrics();
+		TraceRecorder recorder = Streams.traceRecorder(1024);
+		assertNoAllocation("bounded primitives", () -> writePrimitives(Streams.streamOutput(discard()).bounded(WRITTEN_BYTES)));
+		assertNoAllocation("bounded chunks", () -> writeChunks(Streams.streamOutput(discard()).bounded(WRITTEN_BYTES)));
+		assertNoAllocation("digested primitives", () -> writePrimitives(Streams.streamOutput(discard()).digested(digest)));
+		assertNoAllocation("digested chunks", () -> writeChunks(Streams.streamOutput(discard()).digested(digest)));
+		assertNoAllocation("metered primitives", () -> writePrimitives(Streams.streamOutput(discard()).metered(metrics)));
+		assertNoAllocation("metered chunks", () -> writeChunks(Streams.streamOutput(discard()).metered(metrics)));
+		assertNoAllocation("traced primitives", () -> writePrimitives(Streams.streamOutput(discard()).traced(recorder, "w")));
+		assertNoAllocation("traced chunks", () -> writeChunks(Streams.streamOutput(discard()).traced(recorder, "w")));
+	}
+
+	// sequence paths
+
+	private static final int SEQUENCE = 8;
+
+	private static Pass writeSequences(WriteStream w) {
+		long[] longs = new long[SEQUENCE];
+		int[] ints = new int[SEQUENCE];
+		double[] doubles = new double[SEQUENCE];
+		float[] floats = new float[SEQUENCE];
+		for (int i = 0; i < SEQUENCE; i++) {
+			longs[i] = 1000L + i * i;
+			ints[i] = -i;
+			doubles[i] = i * 0.5;
+			floats[i] = i / 3f;
+		}
+		return n -> {
+			for (int i = 0; i < n; i++) {
+				w.writeLongSequence(longs, 0, SEQUENCE, SequenceCodec.ADAPTIVE);
+				w.writeIntSequence(ints, 0, SEQUENCE, SequenceCodec.DELTA);
+				w.writeDoubleSequence(doubles, 0, SEQUENCE, 0);
+				w.writeFloatSequence(floats, 0, SEQUENCE, 4);
+				w.writeDoubleSequence(doubles, 0, SEQUENCE, 4);
+			}
+		};
+	}
+
+	private static Pass readSequences(ReadStream r) {
+		long[] longs = new long[SEQUENCE];
+		int[] ints = new int[SEQUENCE];
+		double[] doubles = new double[SEQUENCE];
+		float[] floats = new float[SEQUENCE];
+		return n -> {
+			for (int i = 0; i < n; i++) {
+				r.readLongSequence(longs, 0, SEQUENCE);
+				r.readIntSequence(ints, 0, SEQUENCE);
+				r.readDoubleSequence(doubles, 0, SEQUENCE, 0);
+				r.readFloatSequence(floats, 0, SEQUENCE, 4);
+				r.skipDoubleSequence(SEQUENCE, 4);
+			}
+		};
+	}
+
+	@Test
+	public void testSequences() throws Exception {
+		assertNoAllocation("sequence writes", () -> writeSequences(Streams.streamOutput(discard())));
+		// every pass writes the same bytes, so those of a single pass are repeated for reading
+		StreamBytes once = Streams.bytes();
+		writeSequences(once.writeStream()).run(1);
+		byte[] pass = once.bytes();
+		byte[] passes = new byte[pass.length * (ITERATIONS + 1)];
+		for (int i = 0; i <= ITERATIONS; i++) {
+			System.arraycopy(pass, 0, passes, i * pass.length, pass.length);
+		}
+		assertNoAllocation("sequence reads", () -> readSequences(Streams.bytes(passes).readStream()));
+	}
+
+
+	@Test
+	public void testTransfer() throws Exception {
+		byte[] source = data((ITERATIONS + 2) * CHUNK);
+		byte[] target = new byte[source.length];
+		ByteBuffer heap = ByteBuffer.allocate(CHUNK);
+		ByteBuffer direct = ByteBuffer.allocateDirect(CHUNK);
+		assertTransferAllocation("heap transfer", () -> Streams.bytes(source).readStream().to(Streams.bytes(target, 0).writeStream(), heap));
+		assertTransferAllocation("direct transfer", () -> Streams.streamReadable(new ByteArrayChannel(source)).to(Streams.streamWritable(new ByteArrayChannel(target)), direct));
+	}
+
+	// every call allocates its result, but nothing should be allocated per chunk transferred
+	private static void assertTransferAllocation(String path, Supplier<StreamTransfer> transfers) {
+		long least = Long.MAX_VALUE;
+		for (int i = 0; i < WARMUPS + 3 && least > 0L; i++) {
+			StreamTransfer transfer = transfers.get();
+			long start = allocated();
+			transfer.transfer(CHUNK);
+			long mid = allocated();
+			transfer.transfer((long) ITERATIONS * CHUNK);
+			long end = allocated();
+			if (i >= WARMUPS) least = Math.min(least, (end - mid) - (mid - start));
+		}
+		assertEquals(path + " allocated", 0L, least);
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+}
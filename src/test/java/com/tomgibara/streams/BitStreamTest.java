@@ -0,0 +1,189 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BitStreamTest {
+
+	@Test
+	public void testRandomBits() {
+		Random r = new Random(0L);
+		for (int i = 0; i < 100; i++) {
+			int n = r.nextInt(1000);
+			long[] values = new long[n];
+			int[] counts = new int[n];
+			StreamBytes bytes = Streams.bytes();
+			try (BitWriteStream w = bytes.writeStream().bits()) {
+				for (int j = 0; j < n; j++) {
+					counts[j] = r.nextInt(65);
+					values[j] = r.nextLong();
+					w.writeBits(values[j], counts[j]);
+				}
+			}
+			Assert.assertEquals(0, bytes.length() % 8);
+			try (BitReadStream s = bytes.readStream().bits()) {
+				for (int j = 0; j < n; j++) {
+					long expected = counts[j] == 64 ? values[j] : values[j] & ((1L << counts[j]) - 1);
+					Assert.assertEquals(expected, s.readBits(counts[j]));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMsbFirstLayout() {
+		StreamBytes bytes = Streams.bytes();
+		try (BitWriteStream w = bytes.writeStream().bits()) {
+			w.writeBit(true);
+			w.writeBits(0, 3);
+			w.writeBits(0xf, 4);
+			w.writeByte((byte) 0xa5);
+		}
+		byte[] expected = { (byte) 0x8f, (byte) 0xa5, 0, 0, 0, 0, 0, 0 };
+		Assert.assertArrayEquals(expected, bytes.bytes());
+	}
+
+	@Test
+	public void testUnalignedPrimitives() {
+		StreamBytes bytes = Streams.bytes();
+		byte[] data = new byte[100];
+		new Random(0L).nextBytes(data);
+		try (BitWriteStream w = bytes.writeStream().bits()) {
+			w.writeBits(5, 3);
+			w.writeInt(0x12345678);
+			w.writeLong(Long.MIN_VALUE + 1);
+			w.writeChars("bits");
+			w.writeBytes(data);
+			w.writeBit(true);
+			w.align(64);
+			w.writeBytes(data);
+		}
+		try (BitReadStream r = bytes.readStream().bits()) {
+			Assert.assertEquals(5, r.readBits(3));
+			Assert.assertEquals(0x12345678, r.readInt());
+			Assert.assertEquals(Long.MIN_VALUE + 1, r.readLong());
+			Assert.assertEquals("bits", r.readChars());
+			byte[] actual = new byte[data.length];
+			r.readBytes(actual);
+			Assert.assertArrayEquals(data, actual);
+			Assert.assertTrue(r.readBit());
+			Assert.assertEquals(64 - r.bitPosition() % 64, r.align(64));
+			r.readBytes(actual);
+			Assert.assertArrayEquals(data, actual);
+		}
+	}
+
+	@Test
+	public void testAlign() {
+		StreamBytes bytes = Streams.bytes();
+		try (BitWriteStream w = bytes.writeStream().bits()) {
+			w.writeBits(1, 3);
+			Assert.assertEquals(5, w.align(8));
+			Assert.assertEquals(0, w.align(8));
+			w.writeBits(1, 1);
+			Assert.assertEquals(7, w.align(16));
+			Assert.assertEquals(16, w.bitPosition());
+		}
+		Assert.assertEquals(8, bytes.length());
+		try (BitReadStream r = bytes.readStream().bits()) {
+			Assert.assertEquals(1, r.readBits(3));
+			Assert.assertEquals(5, r.align(8));
+			Assert.assertEquals(1, r.readBits(1));
+			Assert.assertEquals(7, r.align(16));
+			Assert.assertEquals(0, r.readBits(48));
+		}
+	}
+
+	@Test
+	public void testPackedInts() {
+		Random r = new Random(0L);
+		for (int width = 0; width <= 32; width++) {
+			int[] values = new int[r.nextInt(500)];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = width == 0 ? 0 : r.nextInt() >>> (32 - width);
+			}
+			StreamBytes bytes = Streams.bytes();
+			try (BitWriteStream w = bytes.writeStream().bits()) {
+				w.writeInts(values, 0, values.length, width);
+				Assert.assertEquals((long) width * values.length, w.bitPosition());
+			}
+			Assert.assertEquals((width * values.length + 63) / 64 * 8, bytes.length());
+			int[] actual = new int[values.length];
+			try (BitReadStream s = bytes.readStream().bits()) {
+				s.readInts(actual, 0, actual.length, width);
+			}
+			Assert.assertArrayEquals(values, actual);
+		}
+	}
+
+	@Test
+	public void testEndOfStream() {
+		StreamBytes bytes = Streams.bytes();
+		try (BitWriteStream w = bytes.writeStream().bits()) {
+			w.writeBits(3, 2);
+		}
+		try (BitReadStream r = bytes.readStream().bits()) {
+			r.readBits(64);
+			r.readBit();
+			Assert.fail();
+		} catch (EndOfStreamException e) {
+			/* expected */
+		}
+	}
+
+	@Test
+	public void testInvalidArguments() {
+		BitWriteStream w = Streams.bytes().writeStream().bits();
+		try {
+			w.writeBits(0, 65);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+		try {
+			w.align(3);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+		try {
+			w.writeInts(new int[1], 0, 1, 33);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+		try {
+			w.writeInts(new int[2], 1, 2, 8);
+			Assert.fail();
+		} catch (IndexOutOfBoundsException e) {
+			/* expected */
+		}
+		Assert.assertEquals(0L, w.bitPosition());
+		BitReadStream r = Streams.bytes(new byte[8]).readStream().bits();
+		try {
+			r.readInts(new int[2], -1, 1, 8);
+			Assert.fail();
+		} catch (IndexOutOfBoundsException e) {
+			/* expected */
+		}
+		Assert.assertEquals(0L, r.bitPosition());
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BlockCacheTest {
+
+	private static final class CountingChannel extends ByteArrayChannel {
+
+		int reads = 0;
+
+		CountingChannel(byte[] bytes) {
+			super(bytes);
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws java.nio.channels.ClosedChannelException {
+			reads++;
+			return super.read(dst);
+		}
+	}
+
+	private static byte[] data(int length) {
+		byte[] data = new byte[length];
+		new Random(0L).nextBytes(data);
+		return data;
+	}
+
+	@Test
+	public void testRepeatedReads() {
+		byte[] data = data(1000);
+		CountingChannel channel = new CountingChannel(data);
+		BlockCache cache = Streams.blockCache(64, 32);
+		SeekableReadStream s = Streams.cachedReadable(channel, cache);
+		assertEquals(1000L, s.size());
+		s.seek(100L);
+		int first = s.readInt();
+		int reads = channel.reads;
+		assertTrue(reads > 0);
+		// another stream over the same channel shares the cached block
+		SeekableReadStream t = Streams.cachedReadable(channel, cache);
+		t.seek(100L);
+		assertEquals(first, t.readInt());
+		assertEquals(reads, channel.reads);
+		assertEquals(1L, cache.hits());
+		assertEquals(1L, cache.misses());
+		assertEquals(0L, channel.position());
+		assertEquals(ByteBuffer.wrap(data).getInt(100), first);
+	}
+
+	@Test
+	public void testSequentialReadAhead() {
+		byte[] data = data(64 * 100 + 10);
+		CountingChannel channel = new CountingChannel(data);
+		BlockCache cache = Streams.blockCache(64, 200);
+		SeekableReadStream s = Streams.cachedReadable(channel, cache);
+		byte[] actual = new byte[data.length];
+		for (int i = 0; i < actual.length; i++) actual[i] = s.readByte();
+		assertArrayEquals(data, actual);
+		try {
+			s.readByte();
+			fail();
+		} catch (EndOfStreamException e) {
+			/* expected */
+		}
+		assertTrue(cache.prefetches() > 0);
+		assertTrue(cache.misses() < 30);
+		assertEquals(101L, cache.misses() + cache.prefetches());
+	}
+
+	@Test
+	public void testEviction() {
+		byte[] data = data(10000);
+		BlockCache cache = Streams.blockCache(32, 8);
+		SeekableReadStream s = Streams.cachedReadable(new ByteArrayChannel(data), cache);
+		Random r = new Random(1L);
+		ByteBuffer expected = ByteBuffer.wrap(data);
+		for (int i = 0; i < 5000; i++) {
+			int position = r.nextInt(data.length - 8);
+			s.seek(position);
+			switch (r.nextInt(3)) {
+			case 0: assertEquals(expected.get(position), s.readByte()); break;
+			case 1: assertEquals(expected.getInt(position), s.readInt()); break;
+			case 2: assertEquals(expected.getLong(position), s.readLong()); break;
+			}
+		}
+		assertTrue(cache.evictions() > 0);
+		assertTrue(cache.hits() > 0);
+		cache.clear();
+		assertEquals(0L, cache.hits());
+		s.seek(0L);
+		byte[] all = new byte[data.length];
+		s.readBytes(all);
+		assertArrayEquals(data, all);
+	}
+
+	@Test
+	public void testTruncate() {
+		SeekableReadStream s = Streams.cachedReadable(new ByteArrayChannel(data(100)), Streams.blockCache(16, 4));
+		s.readInt();
+		s.truncate(6L);
+		assertEquals(6L, s.size());
+		s.readShort();
+		try {
+			s.readByte();
+			fail();
+		} catch (EndOfStreamException e) {
+			/* expected */
+		}
+	}
+
+	@Test
+	public void testSeekBeforeCopiedRange() {
+		byte[] data = data(256);
+		ByteArrayChannel channel = new ByteArrayChannel(data);
+		BlockCache cache = Streams.blockCache(64, 4);
+		Streams.cachedReadable(channel, cache).readLong();
+		// the cached block is only copied from the position requested
+		SeekableReadStream s = Streams.cachedReadable(channel, cache);
+		ByteBuffer expected = ByteBuffer.wrap(data);
+		s.seek(40L);
+		assertEquals(expected.getLong(40), s.readLong());
+		s.seek(8L);
+		assertEquals(expected.getLong(8), s.readLong());
+		assertEquals(2L, cache.hits());
+	}
+
+	@Test
+	public void testConcurrentReads() throws Exception {
+		byte[] data = data(64 * 1024);
+		ByteArrayChannel channel = new ByteArrayChannel(data);
+		BlockCache cache = Streams.blockCache(256, 64);
+		ByteBuffer expected = ByteBuffer.wrap(data).asReadOnlyBuffer();
+		Thread[] threads = new Thread[4];
+		Throwable[] failures = new Throwable[threads.length];
+		for (int t = 0; t < threads.length; t++) {
+			int index = t;
+			threads[t] = new Thread(() -> {
+				try {
+					SeekableReadStream s = Streams.cachedReadable(channel, cache);
+					Random r = new Random(index);
+					for (int i = 0; i < 20000; i++) {
+						int position = r.nextInt(data.length - 8);
+						s.seek(position);
+						assertEquals(expected.getLong(position), s.readLong());
+					}
+				} catch (Throwable e) {
+					failures[index] = e;
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) thread.join();
+		for (Throwable failure : failures) {
+			if (failure != null) throw new AssertionError(failure);
+		}
+		assertTrue(cache.evictions() > 0);
+	}
+
+	@Test
+	public void testBlockBeyondRange() {
+		BlockCache cache = Streams.blockCache(16, 4);
+		long channelKey = cache.register(new ByteArrayChannel(data(16)));
+		assertEquals(-1, cache.get(channelKey, (1L << 40) - 1, 0, new byte[16]));
+		try {
+			cache.get(channelKey, 1L << 40, 0, new byte[16]);
+			fail();
+		} catch (StreamException e) {
+			/* expected */
+		}
+	}
+
+	@Test
+	public void testChannelIdsRecycled() throws Exception {
+		BlockCache cache = new BlockCache(16, 8, 2);
+		for (int i = 0; i < 10; i++) {
+			byte[] data = new byte[64];
+			Arrays.fill(data, (byte) i);
+			SeekableReadStream s = null;
+			// ids of earlier channels become available once they are collected
+			for (int attempt = 0; s == null; attempt++) {
+				try {
+					s = Streams.cachedReadable(new ByteArrayChannel(data), cache);
+				} catch (IllegalStateException e) {
+					if (attempt == 20) throw e;
+					System.gc();
+					Thread.sleep(10L);
+				}
+			}
+			// blocks cached for collected channels must not be served
+			s.seek(i);
+			assertEquals(i, s.readByte());
+		}
+	}
+
+}
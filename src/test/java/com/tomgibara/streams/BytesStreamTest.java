@@ -16,6 +16,7 @@
  */
 package com.tomgibara.streams;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import org.junit.Assert;
@@ -110,4 +111,58 @@ public class BytesStreamTest extends FuzzStreamTest {
 		}
 	}
 
+	public void testSlices() {
+		StreamBytes bytes = Streams.bytes();
+		WriteStream w = bytes.writeStream();
+		for (int i = 0; i < 10; i++) {
+			w.writeByte((byte) i);
+		}
+
+		StreamBytes slice = bytes.slice(2, 6);
+		assertTrue(slice.isReadOnly());
+		assertFalse(bytes.isReadOnly());
+		assertEquals(6, slice.length());
+		Assert.assertArrayEquals(new byte[] {2, 3, 4, 5, 6, 7}, slice.bytes());
+		Assert.assertArrayEquals(new byte[] {2, 3, 4, 5, 6, 7}, slice.directBytes());
+		assertEquals(2, slice.readStream().readByte());
+		try {
+			slice.writeStream();
+			fail();
+		} catch (IllegalStateException e) {
+			/* expected */
+		}
+
+		// slices of slices, and readers over ranges
+		StreamBytes sub = slice.slice(1, 3);
+		Assert.assertArrayEquals(new byte[] {3, 4, 5}, sub.bytes());
+		SeekableReadStream r = slice.readStream(4, 2);
+		assertEquals(2, r.size());
+		assertEquals(6, r.readByte());
+		assertEquals(7, r.readByte());
+		try {
+			r.readByte();
+			fail();
+		} catch (EndOfStreamException e) {
+			/* expected */
+		}
+		try {
+			slice.readStream(4, 3);
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+
+		// buffers are limited to the length
+		ByteBuffer buffer = slice.asByteBuffer();
+		assertTrue(buffer.isReadOnly());
+		assertEquals(0, buffer.position());
+		assertEquals(6, buffer.limit());
+		assertEquals(2, buffer.get(0));
+		assertEquals(10, bytes.asByteBuffer().remaining());
+
+		// slices share the array
+		bytes.writeStream().writeBytes(new byte[] {-1, -1, -1});
+		assertEquals(-1, slice.readStream(0, 1).readByte());
+	}
+
 }
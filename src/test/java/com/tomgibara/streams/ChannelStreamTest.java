@@ -16,8 +16,15 @@
  */
 package com.tomgibara.streams;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.lang.ref.WeakReference;
 import java.util.WeakHashMap;
 
+import org.junit.Test;
+
 public class ChannelStreamTest extends FuzzStreamTest {
 
 	private final WeakHashMap<ChannelWriteStream, ByteArrayChannel> channels = new WeakHashMap<>();
@@ -40,4 +47,40 @@ public class ChannelStreamTest extends FuzzStreamTest {
 		return reader;
 	}
 
+	@Test
+	public void testBulkArrays() {
+		byte[] data = new byte[4096];
+		for (int i = 0; i < data.length; i++) data[i] = (byte) (i * 7);
+		// short transfers are staged, longer ones wrap the array
+		ByteArrayChannel channel = new ByteArrayChannel(data.length);
+		WriteStream w = new ChannelWriteStream(channel);
+		w.writeBytes(data, 0, 100);
+		w.writeBytes(data, 100, data.length - 100);
+		channel.position(0L);
+		ReadStream r = new ChannelReadStream(channel);
+		byte[] actual = new byte[data.length];
+		assertEquals(100, r.tryReadBytes(actual, 0, 100));
+		r.readBytes(actual, 100, data.length - 100);
+		assertArrayEquals(data, actual);
+		assertEquals(0, r.tryReadBytes(actual, 0, 10));
+	}
+
+	@Test
+	public void testArraysNotRetained() throws Exception {
+		WriteStream w = new ChannelWriteStream(new ByteArrayChannel(16));
+		ReadStream r = new ChannelReadStream(new ByteArrayChannel(new byte[16]));
+		byte[] bytes = new byte[16];
+		WeakReference<byte[]> ref = new WeakReference<>(bytes);
+		w.writeBytes(bytes);
+		r.readBytes(bytes);
+		bytes = null;
+		for (int i = 0; i < 10 && ref.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10L);
+		}
+		assertNull(ref.get());
+		// keep the streams reachable until the array has been collected
+		assertEquals(32L, w.position() + r.position());
+	}
+
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class ClaimStreamTest {
+
+	// writes a record through a claim and a trailing byte without one
+	private static void writeRecord(WriteStream w, int i) {
+		ByteBuffer claim = w.claim(15);
+		assertEquals(15, claim.remaining());
+		claim.put((byte) i).putShort((short) i).putInt(i).putLong(i);
+		w.commit(claim);
+		w.writeByte((byte) -1);
+	}
+
+	private static void checkRecords(byte[] bytes, int count) {
+		ReadStream r = Streams.bytes(bytes).readStream();
+		for (int i = 0; i < count; i++) {
+			assertEquals((byte) i, r.readByte());
+			assertEquals((short) i, r.readShort());
+			assertEquals(i, r.readInt());
+			assertEquals(i, r.readLong());
+			assertEquals(-1, r.readByte());
+		}
+		assertEquals(16L * count, r.position());
+	}
+
+	@Test
+	public void testBytes() {
+		StreamBytes bytes = Streams.bytes(4);
+		WriteStream w = bytes.writeStream();
+		for (int i = 0; i < 100; i++) {
+			writeRecord(w, i);
+		}
+		assertEquals(1600L, w.position());
+		checkRecords(bytes.bytes(), 100);
+
+		// claims are reused while the array is not grown
+		ByteBuffer claim = w.claim(0);
+		assertSame(claim, w.claim(1));
+
+		bytes = Streams.bytes(0, 10);
+		try {
+			bytes.writeStream().claim(11);
+			fail();
+		} catch (EndOfStreamException e) {
+			/* expected */
+		}
+	}
+
+	@Test
+	public void testBuffer() {
+		ByteBuffer buffer = ByteBuffer.allocate(1600);
+		WriteStream w = Streams.streamBuffer(buffer).writeStream();
+		for (int i = 0; i < 100; i++) {
+			writeRecord(w, i);
+		}
+		assertEquals(1600L, w.position());
+		checkRecords(buffer.array(), 100);
+		try {
+			w.claim(1);
+			fail();
+		} catch (EndOfStreamException e) {
+			/* expected */
+		}
+	}
+
+	@Test
+	public void testDefault() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		WriteStream w = Streams.streamOutput(out);
+		for (int i = 0; i < 100; i++) {
+			writeRecord(w, i);
+		}
+		checkRecords(out.toByteArray(), 100);
+	}
+
+	@Test
+	public void testPartialCommit() {
+		StreamBytes bytes = Streams.bytes();
+		WriteStream w = bytes.writeStream();
+		w.commit(w.claim(8).putInt(7));
+		w.writeInt(8);
+		assertArrayEquals(new byte[] {0, 0, 0, 7, 0, 0, 0, 8}, bytes.bytes());
+		try {
+			w.commit(ByteBuffer.allocate(4));
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+	}
+
+}
@@ -16,10 +16,16 @@
  */
 package com.tomgibara.streams;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import org.junit.Test;
+
 public class DefaultStreamTest extends FuzzStreamTest {
 
 	@Override
@@ -32,6 +38,24 @@ public class DefaultStreamTest extends FuzzStreamTest {
 		return new TestReadStream((TestWriteStream) writer);
 	}
 
+	@Test
+	public void testBufferPosition() {
+		TestWriteStream writer = new TestWriteStream();
+		// a slice gives the buffer a non-zero array offset
+		ByteBuffer buffer = ByteBuffer.wrap(new byte[] {0, 1, 2, 3, 4, 5}, 1, 5).slice();
+		buffer.position(2);
+		writer.drainBuffer(buffer);
+		assertEquals(5, buffer.position());
+		assertEquals(3, writer.list.size());
+		assertEquals(3, writer.list.get(0).byteValue());
+
+		ByteBuffer target = ByteBuffer.wrap(new byte[6], 1, 5).slice();
+		target.position(2);
+		new TestReadStream(writer).fillBuffer(target);
+		assertEquals(5, target.position());
+		assertArrayEquals(new byte[] {0, 0, 0, 3, 4, 5}, target.array());
+	}
+
 	private static final class TestWriteStream implements WriteStream {
 
 		final List<Byte> list = new ArrayList<Byte>();
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.WeakHashMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.Assert;
+
+public class DeflateStreamTest extends FuzzStreamTest {
+
+	private final WeakHashMap<WriteStream, BytesWriteStream> writers = new WeakHashMap<>();
+
+	@Override
+	WriteStream newWriter() {
+		BytesWriteStream bytes = new BytesWriteStream(new byte[32], Integer.MAX_VALUE);
+		WriteStream writer = bytes.deflated(-1);
+		writers.put(writer, bytes);
+		return writer;
+	}
+
+	@Override
+	ReadStream newReader(WriteStream writer) {
+		writer.close();
+		return new BytesReadStream(writers.get(writer).getBytes(false)).inflated();
+	}
+
+	public void testCompatibleWithJavaUtilZip() throws IOException {
+		Random r = new Random(0L);
+		for (int i = 0; i < 50; i++) {
+			byte[] data = new byte[r.nextInt(50000)];
+			for (int j = 0; j < data.length; j++) {
+				data[j] = (byte) r.nextInt(16);
+			}
+
+			// deflated stream read by InflaterInputStream
+			StreamBytes bytes = Streams.bytes();
+			try (WriteStream w = bytes.writeStream().deflated(r.nextInt(10))) {
+				ByteBuffer buffer = r.nextBoolean() ? ByteBuffer.allocateDirect(data.length) : ByteBuffer.allocate(data.length);
+				buffer.put(data).flip();
+				w.drainBuffer(buffer);
+			}
+			byte[] inflated = new byte[data.length];
+			try (ReadStream s = Streams.streamInput(new InflaterInputStream(new ByteArrayInputStream(bytes.bytes())))) {
+				s.readBytes(inflated);
+			}
+			Assert.assertArrayEquals(data, inflated);
+
+			// DeflaterOutputStream read by inflated stream
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			try (DeflaterOutputStream dos = new DeflaterOutputStream(out)) {
+				dos.write(data);
+			}
+			ByteBuffer buffer = r.nextBoolean() ? ByteBuffer.allocateDirect(data.length + 1) : ByteBuffer.allocate(data.length + 1);
+			try (ReadStream s = Streams.bytes(out.toByteArray()).readStream().inflated()) {
+				s.fillBuffer(buffer);
+			}
+			assertEquals(1, buffer.remaining());
+			buffer.flip();
+			byte[] actual = new byte[data.length];
+			buffer.get(actual);
+			Assert.assertArrayEquals(data, actual);
+		}
+	}
+
+	public void testManyShortMessages() {
+		for (int i = 0; i < 1000; i++) {
+			StreamBytes bytes = Streams.bytes();
+			try (WriteStream w = bytes.writeStream().deflated(6)) {
+				w.writeInt(i);
+				w.writeChars("message");
+			}
+			try (ReadStream r = bytes.readStream().inflated()) {
+				assertEquals(i, r.readInt());
+				assertEquals("message", r.readChars());
+			}
+		}
+	}
+
+	public void testFinishedOnFailedClose() {
+		boolean[] finished = { false };
+		WriteStream w = new CodecWriteStream(Streams.bytes().writeStream(), 16) {
+			@Override
+			void consume(byte[] bs, int off, int len) {
+				throw new StreamException("failed");
+			}
+			@Override
+			void finish() {
+				finished[0] = true;
+			}
+		};
+		w.writeInt(1);
+		try {
+			w.close();
+			fail();
+		} catch (StreamException e) {
+			/* expected */
+		}
+		// finishing is what returns a pooled codec
+		assertTrue(finished[0]);
+	}
+
+	public void testInvalidLevel() {
+		try {
+			Streams.bytes().writeStream().deflated(10);
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+
+public class DigestStreamTest extends FuzzStreamTest {
+
+	private final WeakHashMap<WriteStream, BytesWriteStream> writers = new WeakHashMap<>();
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	WriteStream newWriter() {
+		BytesWriteStream bytes = new BytesWriteStream(new byte[32], Integer.MAX_VALUE);
+		WriteStream writer = bytes.digested(sha256());
+		writers.put(writer, bytes);
+		return writer;
+	}
+
+	@Override
+	ReadStream newReader(WriteStream writer) {
+		return new BytesReadStream(writers.get(writer).getBytes(false)).digested(sha256());
+	}
+
+	public void testDigestsMatch() {
+		Random r = new Random(0L);
+		for (int i = 0; i < 100; i++) {
+			byte[] data = new byte[r.nextInt(3000)];
+			r.nextBytes(data);
+			byte[] expected = sha256().digest(data);
+
+			MessageDigest wd = sha256();
+			StreamBytes bytes = Streams.bytes();
+			try (WriteStream w = bytes.writeStream().digested(wd)) {
+				int split = r.nextInt(data.length + 1);
+				w.writeBytes(data, 0, split);
+				w.drainBuffer(ByteBuffer.wrap(data, split, data.length - split));
+			}
+			Assert.assertArrayEquals(expected, wd.digest());
+
+			MessageDigest rd = sha256();
+			ByteBuffer buffer = r.nextBoolean() ? ByteBuffer.allocateDirect(data.length) : ByteBuffer.allocate(data.length);
+			try (ReadStream s = bytes.readStream().digested(rd)) {
+				s.fillBuffer(buffer);
+			}
+			Assert.assertArrayEquals(expected, rd.digest());
+		}
+	}
+
+	public void testPrimitivesDigested() {
+		MessageDigest wd = sha256();
+		StreamBytes bytes = Streams.bytes();
+		try (WriteStream w = bytes.writeStream().digested(wd)) {
+			w.writeInt(1);
+			w.writeLong(-2L);
+			w.writeChars("digest");
+		}
+		Assert.assertArrayEquals(sha256().digest(bytes.bytes()), wd.digest());
+	}
+
+	public void testTreeDigest() throws IOException {
+		File file = File.createTempFile("tree-digest", ".bin");
+		file.deleteOnExit();
+		Random r = new Random(0L);
+		int leafSize = 1024;
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int length : new int[] {0, 1, leafSize - 1, leafSize, leafSize + 1, 7 * leafSize + 3, 64 * leafSize}) {
+				byte[] data = new byte[length];
+				r.nextBytes(data);
+				Files.write(file.toPath(), data);
+				try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+					byte[] actual = Streams.treeDigest(channel, sha256(), leafSize, pool);
+					Assert.assertArrayEquals("length " + length, treeDigest(data, 0, Math.max(1, (length + leafSize - 1) / leafSize), leafSize), actual);
+					assertEquals(0L, channel.position());
+				}
+			}
+		} finally {
+			pool.shutdown();
+			file.delete();
+		}
+	}
+
+	// sequential reference implementation
+	private static byte[] treeDigest(byte[] data, int from, int to, int leafSize) {
+		MessageDigest digest = sha256();
+		if (to - from == 1) {
+			digest.update((byte) 0);
+			int start = from * leafSize;
+			digest.update(Arrays.copyOfRange(data, Math.min(start, data.length), Math.min(start + leafSize, data.length)));
+		} else {
+			int split = from + Integer.highestOneBit(to - from - 1);
+			digest.update((byte) 1);
+			digest.update(treeDigest(data, from, split, leafSize));
+			digest.update(treeDigest(data, split, to, leafSize));
+		}
+		return digest.digest();
+	}
+}
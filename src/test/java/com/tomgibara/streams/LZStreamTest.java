@@ -0,0 +1,163 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.WeakHashMap;
+
+import org.junit.Assert;
+
+public class LZStreamTest extends FuzzStreamTest {
+
+	private final WeakHashMap<WriteStream, BytesWriteStream> writers = new WeakHashMap<>();
+
+	@Override
+	WriteStream newWriter() {
+		BytesWriteStream bytes = new BytesWriteStream(new byte[32], Integer.MAX_VALUE);
+		WriteStream writer = bytes.compressedFast();
+		writers.put(writer, bytes);
+		return writer;
+	}
+
+	@Override
+	ReadStream newReader(WriteStream writer) {
+		writer.close();
+		return new BytesReadStream(writers.get(writer).getBytes(false)).decompressedFast();
+	}
+
+	public void testBlockRoundTrip() {
+		Random r = new Random(0L);
+		int[] table = new int[LZBlocks.HASH_TABLE_SIZE];
+		for (int i = 0; i < 200; i++) {
+			byte[] data = randomData(r, r.nextInt(70000));
+			int off = r.nextInt(10);
+			byte[] src = new byte[off + data.length];
+			System.arraycopy(data, 0, src, off, data.length);
+			byte[] compressed = new byte[LZBlocks.maxCompressedLength(data.length) + 3];
+			int length = LZBlocks.compress(src, off, data.length, compressed, 3, table);
+			byte[] decompressed = new byte[data.length + 5];
+			LZBlocks.decompress(compressed, 3, length, decompressed, 5, data.length);
+			byte[] actual = new byte[data.length];
+			System.arraycopy(decompressed, 5, actual, 0, data.length);
+			Assert.assertArrayEquals(data, actual);
+		}
+	}
+
+	public void testMatchesEndAtEveryOffset() {
+		// matches are extended a word at a time, so they must end correctly at every position within a word and near the end of the block
+		int[] table = new int[LZBlocks.HASH_TABLE_SIZE];
+		for (int length = 0; length < 64; length++) {
+			for (int diff = -1; diff < length; diff++) {
+				byte[] data = new byte[length];
+				if (diff >= 0) data[diff] = 1;
+				byte[] compressed = new byte[LZBlocks.maxCompressedLength(length)];
+				int compressedLength = LZBlocks.compress(data, 0, length, compressed, 0, table);
+				byte[] decompressed = new byte[length];
+				LZBlocks.decompress(compressed, 0, compressedLength, decompressed, 0, length);
+				Assert.assertArrayEquals(data, decompressed);
+			}
+		}
+	}
+
+	public void testCompressesRepetitiveData() {
+		Random r = new Random(0L);
+		byte[] data = randomData(r, 1 << 20);
+		StreamBytes bytes = Streams.bytes();
+		try (WriteStream w = bytes.writeStream().compressedFast()) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+			buffer.put(data).flip();
+			w.drainBuffer(buffer);
+			assertEquals(data.length, w.position());
+		}
+		assertTrue(bytes.length() < data.length * 3 / 4);
+		byte[] actual = new byte[data.length];
+		try (ReadStream s = bytes.readStream().decompressedFast()) {
+			s.readBytes(actual);
+			assertEquals(0, s.tryReadBytes(new byte[1], 0, 1));
+		}
+		Assert.assertArrayEquals(data, actual);
+	}
+
+	public void testIncompressibleDataIsStored() {
+		Random r = new Random(0L);
+		byte[] data = new byte[200000];
+		r.nextBytes(data);
+		StreamBytes bytes = Streams.bytes();
+		try (WriteStream w = bytes.writeStream().compressedFast()) {
+			w.writeBytes(data);
+		}
+		// magic, end marker and one header per block
+		assertEquals(data.length + 8 + 4 * 4, bytes.length());
+		byte[] actual = new byte[data.length];
+		try (ReadStream s = bytes.readStream().decompressedFast()) {
+			s.readBytes(actual);
+		}
+		Assert.assertArrayEquals(data, actual);
+	}
+
+	public void testTrailingBytesNotConsumed() {
+		StreamBytes bytes = Streams.bytes();
+		try (WriteStream w = bytes.writeStream()) {
+			try (WriteStream c = w.closedWith(StreamCloser.doNothing()).compressedFast()) {
+				c.writeChars("compressed");
+			}
+			w.writeInt(42);
+		}
+		try (ReadStream r = bytes.readStream()) {
+			ReadStream d = r.closedWith(StreamCloser.doNothing()).decompressedFast();
+			assertEquals("compressed", d.readChars());
+			assertEquals(0, d.tryReadBytes(new byte[100], 0, 100));
+			assertEquals(42, r.readInt());
+		}
+	}
+
+	public void testMalformedBlocksRejected() {
+		Random r = new Random(0L);
+		int[] table = new int[LZBlocks.HASH_TABLE_SIZE];
+		byte[] data = randomData(r, 10000);
+		byte[] compressed = new byte[LZBlocks.maxCompressedLength(data.length)];
+		int length = LZBlocks.compress(data, 0, data.length, compressed, 0, table);
+		byte[] output = new byte[data.length];
+		int failures = 0;
+		for (int i = 0; i < 1000; i++) {
+			byte[] corrupt = compressed.clone();
+			corrupt[r.nextInt(length)] = (byte) r.nextInt();
+			try {
+				LZBlocks.decompress(corrupt, 0, r.nextBoolean() ? length : r.nextInt(length), output, 0, output.length);
+			} catch (StreamException e) {
+				failures++;
+			}
+		}
+		assertTrue(failures > 0);
+	}
+
+	private static byte[] randomData(Random r, int length) {
+		byte[] data = new byte[length];
+		int i = 0;
+		while (i < length) {
+			int run = Math.min(length - i, 1 + r.nextInt(40));
+			if (i > 0 && r.nextBoolean()) {
+				int offset = 1 + r.nextInt(Math.min(i, 1000));
+				for (int j = 0; j < run; j++, i++) data[i] = data[i - offset];
+			} else {
+				for (int j = 0; j < run; j++, i++) data[i] = (byte) r.nextInt(8);
+			}
+		}
+		return data;
+	}
+}
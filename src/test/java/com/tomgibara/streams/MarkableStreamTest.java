@@ -0,0 +1,149 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MarkableStreamTest {
+
+	private static byte[] data(int length) {
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++) data[i] = (byte) i;
+		return data;
+	}
+
+	@Test
+	public void testPeek() {
+		MarkableReadStream s = Streams.bytes(data(10)).readStream().markable(4);
+		assertEquals(0, s.peekByte());
+		assertEquals(0, s.readByte());
+		ByteBuffer buffer = ByteBuffer.allocate(8);
+		assertEquals(4, s.peek(buffer));
+		assertArrayEquals(new byte[] {1, 2, 3, 4}, Arrays.copyOf(buffer.array(), 4));
+		assertEquals(0x01020304, s.readInt());
+		s.skip(3L);
+		buffer.clear();
+		assertEquals(2, s.peek(buffer));
+		assertEquals(0x0809, s.readShort());
+		try {
+			s.peekByte();
+			fail();
+		} catch (EndOfStreamException e) {
+			/* expected */
+		}
+	}
+
+	@Test
+	public void testMarkReset() {
+		MarkableReadStream s = Streams.bytes(data(100)).readStream().markable(8);
+		assertFalse(s.isMarked());
+		try {
+			s.reset();
+			fail();
+		} catch (StreamException e) {
+			/* expected */
+		}
+		s.skip(10L);
+		s.mark();
+		assertEquals(0x0a0b0c0d, s.readInt());
+		s.reset();
+		assertEquals(0x0a0b0c0d0e0f1011L, s.readLong());
+		s.reset();
+		assertEquals(10L, s.position());
+		// reading past the lookahead invalidates the mark
+		s.readLong();
+		assertTrue(s.isMarked());
+		s.readByte();
+		assertFalse(s.isMarked());
+		assertEquals(19, s.readByte());
+	}
+
+	@Test
+	public void testBulkReads() {
+		byte[] data = data(200);
+		MarkableReadStream s = Streams.bytes(data).readStream().markable(16);
+		s.mark();
+		byte[] bs = new byte[10];
+		s.readBytes(bs);
+		s.reset();
+		// exceeds the lookahead, so reads directly beyond the buffer
+		byte[] more = new byte[50];
+		s.readBytes(more);
+		assertArrayEquals(Arrays.copyOf(data, 50), more);
+		assertFalse(s.isMarked());
+		s.mark();
+		ByteBuffer buffer = ByteBuffer.allocate(12);
+		s.fillBuffer(buffer);
+		s.reset();
+		assertEquals(50, s.readByte());
+		assertEquals(149, s.tryReadBytes(new byte[200], 0, 200));
+	}
+
+	@Test
+	public void testRandomAgainstReference() {
+		byte[] data = new byte[5000];
+		Random r = new Random(0L);
+		r.nextBytes(data);
+		MarkableReadStream s = Streams.bytes(data).readStream().markable(32);
+		int position = 0;
+		int mark = -1;
+		while (position < data.length - 64) {
+			switch (r.nextInt(6)) {
+			case 0:
+				s.mark();
+				mark = position;
+				break;
+			case 1:
+				if (mark >= 0 && position - mark <= 32) {
+					s.reset();
+					position = mark;
+				}
+				break;
+			case 2:
+				assertEquals(data[position], s.peekByte());
+				break;
+			default:
+				int len = r.nextInt(20);
+				byte[] bs = new byte[len];
+				s.readBytes(bs);
+				assertArrayEquals(Arrays.copyOfRange(data, position, position + len), bs);
+				position += len;
+				break;
+			}
+			assertEquals(position, s.position());
+		}
+	}
+
+	@Test
+	public void testReuse() {
+		MarkableReadStream s = Streams.bytes(data(10)).readStream().markable(4);
+		assertSame(s, s.markable(2));
+		assertTrue(s.markable(8) != s);
+	}
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Assert;
+
+public class ParallelDeflateStreamTest extends FuzzStreamTest {
+
+	private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+	private final WeakHashMap<WriteStream, BytesWriteStream> writers = new WeakHashMap<>();
+
+	@Override
+	WriteStream newWriter() {
+		BytesWriteStream bytes = new BytesWriteStream(new byte[32], Integer.MAX_VALUE);
+		// a small block size ensures that multiple blocks are exercised
+		WriteStream writer = bytes.deflatedParallel(-1, 100, pool);
+		writers.put(writer, bytes);
+		return writer;
+	}
+
+	@Override
+	ReadStream newReader(WriteStream writer) {
+		writer.close();
+		return new BytesReadStream(writers.get(writer).getBytes(false)).inflatedParallel(pool);
+	}
+
+	public void testLargeRoundTrip() {
+		Random r = new Random(0L);
+		for (int i = 0; i < 10; i++) {
+			byte[] data = new byte[r.nextInt(1 << 21)];
+			for (int j = 0; j < data.length; j++) {
+				data[j] = (byte) r.nextInt(16);
+			}
+			int blockSize = 1 + r.nextInt(1 << 18);
+			StreamBytes bytes = Streams.bytes();
+			try (WriteStream w = bytes.writeStream().deflatedParallel(r.nextInt(10), blockSize, pool)) {
+				ByteBuffer buffer = r.nextBoolean() ? ByteBuffer.allocateDirect(data.length) : ByteBuffer.allocate(data.length);
+				buffer.put(data).flip();
+				w.drainBuffer(buffer);
+			}
+			byte[] actual = new byte[data.length];
+			try (ReadStream s = bytes.readStream().inflatedParallel(pool)) {
+				s.readBytes(actual);
+				assertEquals(0, s.tryReadBytes(new byte[1], 0, 1));
+			}
+			Assert.assertArrayEquals(data, actual);
+		}
+	}
+
+	public void testTrailingBytesNotConsumed() {
+		StreamBytes bytes = Streams.bytes();
+		try (WriteStream w = bytes.writeStream()) {
+			try (WriteStream c = w.closedWith(StreamCloser.doNothing()).deflatedParallel(6, 4, pool)) {
+				c.writeChars("compressed");
+			}
+			w.writeInt(42);
+		}
+		try (ReadStream r = bytes.readStream()) {
+			ReadStream d = r.closedWith(StreamCloser.doNothing()).inflatedParallel(pool);
+			assertEquals("compressed", d.readChars());
+			assertEquals(0, d.tryReadBytes(new byte[100], 0, 100));
+			assertEquals(42, r.readInt());
+		}
+	}
+
+	public void testExcessiveBlockLengthRejected() {
+		StreamBytes bytes = Streams.bytes();
+		try (WriteStream w = bytes.writeStream()) {
+			w.writeInt(ParallelDeflateWriteStream.MAGIC);
+			w.writeInt(Integer.MAX_VALUE);
+			w.writeInt(100);
+		}
+		try (ReadStream r = bytes.readStream().inflatedParallel(pool)) {
+			r.readByte();
+			fail();
+		} catch (StreamException e) {
+			assertEquals("invalid block length", e.getMessage());
+		}
+	}
+
+	public void testIncompressibleRoundTrip() {
+		Random r = new Random(0L);
+		for (int level = 0; level < 10; level++) {
+			byte[] data = new byte[r.nextInt(5000)];
+			r.nextBytes(data);
+			StreamBytes bytes = Streams.bytes();
+			try (WriteStream w = bytes.writeStream().deflatedParallel(level, 1 + r.nextInt(1000), pool)) {
+				w.writeBytes(data);
+			}
+			byte[] actual = new byte[data.length];
+			try (ReadStream s = bytes.readStream().inflatedParallel(pool)) {
+				s.readBytes(actual);
+			}
+			Assert.assertArrayEquals(data, actual);
+		}
+	}
+
+	public void testTruncatedDataRejected() {
+		StreamBytes bytes = Streams.bytes();
+		try (WriteStream w = bytes.writeStream().deflatedParallel(6, 1000, pool)) {
+			for (int i = 0; i < 1000; i++) w.writeInt(i);
+		}
+		byte[] truncated = new byte[bytes.length() - 10];
+		System.arraycopy(bytes.bytes(), 0, truncated, 0, truncated.length);
+		try (ReadStream r = Streams.bytes(truncated).readStream().inflatedParallel(pool)) {
+			for (int i = 0; i < 1000; i++) r.readInt();
+			fail();
+		} catch (EndOfStreamException e) {
+			fail();
+		} catch (StreamException e) {
+			/* expected */
+		}
+	}
+
+	public void testInvalidArguments() {
+		WriteStream w = Streams.bytes().writeStream();
+		try {
+			w.deflatedParallel(10, 1000, pool);
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+		try {
+			w.deflatedParallel(6, 0, pool);
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+		try {
+			w.deflatedParallel(6, 1000, null);
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+	}
+}
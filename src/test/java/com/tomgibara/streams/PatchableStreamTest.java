@@ -0,0 +1,227 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class PatchableStreamTest {
+
+	// writes a length prefixed record, returning the expected bytes
+	private static byte[] writeRecord(PatchableWriteStream w) {
+		long mark = w.reserve(4);
+		assertEquals(0L, mark);
+		w.writeLong(-1L);
+		w.writeShort((short) 3);
+		w.patchInt(mark, 10);
+		assertEquals(14L, w.position());
+		return new byte[] {0, 0, 0, 10, -1, -1, -1, -1, -1, -1, -1, -1, 0, 3};
+	}
+
+	private static void checkBounds(PatchableWriteStream w) {
+		try {
+			w.patchLong(w.position() - 4, 0L);
+			fail();
+		} catch (EndOfStreamException e) {
+			/* expected */
+		}
+		try {
+			w.patchByte(-1L, (byte) 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+	}
+
+	@Test
+	public void testBytes() {
+		StreamBytes bytes = Streams.bytes();
+		PatchableWriteStream w = bytes.writeStream();
+		assertSame(w, w.patchable());
+		byte[] expected = writeRecord(w);
+		checkBounds(w);
+		w.patchShort(12L, (short) 4);
+		expected[13] = 4;
+		assertArrayEquals(expected, bytes.bytes());
+	}
+
+	@Test
+	public void testBuffer() {
+		ByteBuffer buffer = ByteBuffer.allocate(14);
+		SeekableWriteStream w = Streams.streamBuffer(buffer).writeStream();
+		byte[] expected = writeRecord(w);
+		checkBounds(w);
+		w.patchByte(13L, (byte) 5);
+		expected[13] = 5;
+		assertArrayEquals(expected, buffer.array());
+	}
+
+	@Test
+	public void testChannel() {
+		ByteArrayChannel channel = new ByteArrayChannel(14);
+		SeekableWriteStream w = Streams.streamWritable(channel);
+		byte[] expected = writeRecord(w);
+		checkBounds(w);
+		assertArrayEquals(expected, channel.getBytes());
+	}
+
+	@Test
+	public void testHeldBytes() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PatchableWriteStream w = Streams.streamOutput(out).patchable();
+		assertSame(w, w.patchable());
+
+		// bytes pass directly through without reservations
+		w.writeInt(1);
+		assertEquals(4, out.size());
+
+		// bytes are held from the earliest unpatched reservation
+		long outer = w.reserve(2);
+		w.writeByte((byte) 2);
+		long inner = w.reserve(4);
+		w.writeLong(3L);
+		assertEquals(4, out.size());
+		assertEquals(19L, w.position());
+		try {
+			w.patchInt(0L, 0);
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+		checkBounds(w);
+
+		// patching the inner reservation releases nothing
+		w.patchInt(inner, 8);
+		assertEquals(4, out.size());
+		// patching the outer reservation releases everything
+		w.patchShort(outer, (short) 13);
+		assertEquals(19, out.size());
+
+		// a later reservation holds only its own bytes onwards
+		w.writeByte((byte) 4);
+		long last = w.reserve(1);
+		w.writeByte((byte) 5);
+		assertEquals(20, out.size());
+		w.patchByte(last, (byte) 1);
+		assertEquals(22, out.size());
+
+		// unpatched reservations are written on close
+		w.reserve(2);
+		w.close();
+		byte[] expected = {0, 0, 0, 1, 0, 13, 2, 0, 0, 0, 8, 0, 0, 0, 0, 0, 0, 0, 3, 4, 1, 5, 0, 0};
+		assertArrayEquals(expected, out.toByteArray());
+	}
+
+	@Test
+	public void testManyReservations() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PatchableWriteStream w = Streams.streamOutput(out).patchable();
+		int count = 1000;
+		long[] marks = new long[count];
+		for (int i = 0; i < count; i++) {
+			marks[i] = w.reserve(4);
+			w.writeInt(i);
+		}
+		// patch in reverse so that everything is held until the end
+		for (int i = count - 1; i >= 0; i--) {
+			w.patchInt(marks[i], -i);
+			assertEquals(i == 0 ? count * 8 : 0, out.size());
+		}
+		w.close();
+		ReadStream r = Streams.bytes(out.toByteArray()).readStream();
+		for (int i = 0; i < count; i++) {
+			assertEquals(-i, r.readInt());
+			assertEquals(i, r.readInt());
+		}
+	}
+
+	@Test
+	public void testSplitPatches() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PatchableWriteStream w = Streams.streamOutput(out).patchable();
+		StreamBytes bytes = Streams.bytes();
+		PatchableWriteStream b = bytes.writeStream();
+
+		// a long reservation patched as two ints
+		long mark = w.reserve(8);
+		assertEquals(mark, b.reserve(8));
+		w.writeByte((byte) 1);
+		b.writeByte((byte) 1);
+		w.patchInt(mark, 2);
+		b.patchInt(mark, 2);
+		assertEquals(0, out.size());
+		w.patchInt(mark + 4, 3);
+		b.patchInt(mark + 4, 3);
+		assertEquals(9, out.size());
+
+		// an int reservation patched from the middle outwards, with a byte patched twice
+		mark = w.reserve(4);
+		assertEquals(mark, b.reserve(4));
+		w.patchByte(mark + 2, (byte) 4);
+		b.patchByte(mark + 2, (byte) 4);
+		w.patchByte(mark + 2, (byte) 5);
+		b.patchByte(mark + 2, (byte) 5);
+		w.patchByte(mark, (byte) 6);
+		b.patchByte(mark, (byte) 6);
+		assertEquals(9, out.size());
+		w.patchByte(mark + 3, (byte) 7);
+		b.patchByte(mark + 3, (byte) 7);
+		assertEquals(9, out.size());
+		w.patchByte(mark + 1, (byte) 8);
+		b.patchByte(mark + 1, (byte) 8);
+		assertEquals(13, out.size());
+
+		// a single patch spanning two reservations
+		long first = w.reserve(2);
+		long second = w.reserve(2);
+		assertEquals(first, b.reserve(2));
+		assertEquals(second, b.reserve(2));
+		w.patchInt(first, 9);
+		b.patchInt(first, 9);
+		assertEquals(17, out.size());
+
+		w.close();
+		assertArrayEquals(bytes.bytes(), out.toByteArray());
+	}
+
+	@Test
+	public void testPartialPatches() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PatchableWriteStream w = Streams.streamOutput(out).patchable();
+		long mark = w.reserve(4);
+		w.writeByte((byte) 1);
+		// a narrower patch does not release the reservation
+		w.patchShort(mark, (short) 2);
+		assertEquals(0, out.size());
+		long later = w.reserve(1);
+		w.patchShort(mark + 2, (short) 3);
+		// only the bytes preceding the later reservation are released
+		assertEquals(5, out.size());
+		w.patchByte(later, (byte) 4);
+		assertEquals(6, out.size());
+		w.close();
+		assertArrayEquals(new byte[] {0, 2, 0, 3, 1, 4}, out.toByteArray());
+	}
+
+}
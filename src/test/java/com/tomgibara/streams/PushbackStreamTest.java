@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PushbackStreamTest {
+
+	private static byte[] data(int length) {
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++) data[i] = (byte) i;
+		return data;
+	}
+
+	@Test
+	public void testUnread() {
+		PushbackReadStream s = Streams.bytes(data(100)).readStream().pushback();
+		assertSame(s, s.pushback());
+		assertEquals(0x00010203, s.readInt());
+		s.unread((byte) 3);
+		s.unread(new byte[] {1, 2});
+		assertEquals(3, s.unreadCount());
+		assertEquals(1L, s.position());
+		assertEquals(0x01020304, s.readInt());
+		assertEquals(0, s.unreadCount());
+		s.unread(ByteBuffer.wrap(new byte[] {-1, -2, -3}));
+		byte[] bs = new byte[5];
+		s.readBytes(bs);
+		assertArrayEquals(new byte[] {-1, -2, -3, 5, 6}, bs);
+		s.unread(new byte[] {9, 9});
+		s.skip(3L);
+		assertEquals(8, s.readByte());
+	}
+
+	@Test
+	public void testPositionBeforeStart() {
+		PushbackReadStream s = Streams.bytes(data(10)).readStream().pushback();
+		// a header unread at the start of the stream has no position
+		s.unread(new byte[] {7, 7});
+		assertEquals(-1L, s.position());
+		s.readByte();
+		assertEquals(-1L, s.position());
+		s.readByte();
+		assertEquals(0L, s.position());
+		s.readShort();
+		s.unread((byte) 1);
+		assertEquals(1L, s.position());
+		s.unread(new byte[] {2, 3});
+		assertEquals(-1L, s.position());
+	}
+
+	@Test
+	public void testRing() {
+		// interleaves reads and unreads so that the ring wraps and grows
+		byte[] data = new byte[10000];
+		new Random(0L).nextBytes(data);
+		PushbackReadStream s = Streams.bytes(data).readStream().pushback();
+		Random r = new Random(1L);
+		int position = 0;
+		while (position < data.length - 200) {
+			int read = r.nextInt(100);
+			byte[] bs = new byte[read];
+			s.readBytes(bs);
+			position += read;
+			int unread = r.nextInt(Math.min(position, read + 30) + 1);
+			position -= unread;
+			s.unread(data, position, unread);
+			assertEquals(data[position], s.readByte());
+			position++;
+			assertEquals(position, s.position());
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(data.length - position);
+		s.fillBuffer(buffer);
+		assertTrue(!buffer.hasRemaining());
+		assertEquals(data[data.length - 1], buffer.get(buffer.capacity() - 1));
+	}
+
+	@Test
+	public void testTransferResiduals() {
+		byte[] data = data(1000);
+		ReadStream source = Streams.bytes(data).readStream();
+		PushbackReadStream previous = null;
+		for (int i = 0; i < 20; i++) {
+			StreamTransfer.Result result = source.to(Streams.bytes(new byte[37], 0, 37).writeStream()).transferFully();
+			assertTrue(result.targetFull());
+			source = result.residualStream();
+			if (previous != null) assertSame(previous, source);
+			previous = (PushbackReadStream) source;
+		}
+		// the residual stream continues from the last byte transferred
+		assertEquals((byte) (20 * 37), source.readByte());
+	}
+
+	@Test
+	public void testCountedTransferResidual() {
+		byte[] data = data(100);
+		ReadStream source = Streams.bytes(data).readStream();
+		StreamTransfer.Result result = source.to(Streams.bytes(new byte[10], 0, 10).writeStream(), ByteBuffer.allocate(16)).transfer(50);
+		assertTrue(result.targetFull());
+		assertEquals(10L, result.bytesTransfered());
+		assertEquals(10, result.residualStream().readByte());
+	}
+
+}
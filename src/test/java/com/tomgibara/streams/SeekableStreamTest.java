@@ -0,0 +1,175 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+import org.junit.Test;
+
+public class SeekableStreamTest {
+
+	private static byte[] data() {
+		byte[] data = new byte[32];
+		for (int i = 0; i < data.length; i++) data[i] = (byte) i;
+		return data;
+	}
+
+	// expects a stream over bytes 0 to 31
+	private static void checkReads(SeekableReadStream s) {
+		assertEquals(0L, s.position());
+		assertEquals(32L, s.size());
+		s.seek(10L);
+		assertEquals(10L, s.position());
+		assertEquals(10, s.readByte());
+		s.seek(2L);
+		assertEquals(0x02030405, s.readInt());
+		s.seek(32L);
+		try {
+			s.readByte();
+			fail();
+		} catch (EndOfStreamException e) {
+			/* expected */
+		}
+		try {
+			s.seek(33L);
+			fail();
+		} catch (EndOfStreamException e) {
+			/* expected */
+		}
+		assertEquals(32L, s.position());
+		try {
+			s.seek(-1L);
+			fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+	}
+
+	@Test
+	public void testReadAt() {
+		SeekableReadStream[] streams = {
+				new BytesReadStream(data(), 0, 32),
+				Streams.streamBuffer(ByteBuffer.wrap(data())).readStream(),
+				Streams.streamReadable(new ByteArrayChannel(data())),
+		};
+		for (SeekableReadStream s : streams) {
+			s.seek(5L);
+			ByteBuffer buffer = ByteBuffer.allocate(4);
+			s.readAt(30L, buffer);
+			assertEquals(2, buffer.position());
+			assertEquals(30, buffer.get(0));
+			buffer.clear();
+			s.readAt(40L, buffer);
+			assertEquals(0, buffer.position());
+			assertEquals(5L, s.position());
+			assertEquals(5, s.readByte());
+		}
+	}
+
+	@Test
+	public void testBytesRead() {
+		checkReads(Streams.bytes(data()).readStream());
+		checkReads(new BytesReadStream(data(), 0, 32));
+		SeekableReadStream s = new BytesReadStream(new byte[64], 16, 32);
+		assertEquals(0L, s.position());
+		assertEquals(32L, s.size());
+		s.seek(20L);
+		s.truncate(8L);
+		assertEquals(8L, s.size());
+		assertEquals(8L, s.position());
+		s.truncate(16L);
+		assertEquals(8L, s.size());
+	}
+
+	@Test
+	public void testBufferRead() {
+		checkReads(Streams.streamBuffer(ByteBuffer.wrap(data())).readStream());
+		ByteBuffer buffer = ByteBuffer.allocate(40);
+		buffer.position(8);
+		buffer.put(data()).position(8);
+		SeekableReadStream s = Streams.streamBuffer(buffer).readStream();
+		checkReads(s);
+		s.truncate(4L);
+		assertEquals(4L, s.size());
+		assertEquals(12, buffer.limit());
+	}
+
+	@Test
+	public void testBufferWrite() {
+		ByteBuffer buffer = ByteBuffer.allocate(16);
+		SeekableWriteStream s = Streams.streamBuffer(buffer).writeStream();
+		assertEquals(16L, s.size());
+		s.writeInt(0);
+		s.writeInt(7);
+		s.seek(0L);
+		s.writeInt(3);
+		assertEquals(4L, s.position());
+		assertEquals(3, buffer.getInt(0));
+		assertEquals(7, buffer.getInt(4));
+		s.truncate(6L);
+		try {
+			s.writeInt(0);
+			fail();
+		} catch (EndOfStreamException e) {
+			/* expected */
+		}
+		try {
+			s.seek(7L);
+			fail();
+		} catch (EndOfStreamException e) {
+			/* expected */
+		}
+	}
+
+	@Test
+	public void testChannelRead() {
+		ReadStream r = Streams.streamReadable(new ByteArrayChannel(data()));
+		assertTrue(r instanceof SeekableReadStream);
+		checkReads((SeekableReadStream) r);
+		checkReads(Streams.streamReadable(new ByteArrayChannel(data())));
+	}
+
+	@Test
+	public void testChannelWrite() {
+		ByteArrayChannel channel = new ByteArrayChannel(8);
+		SeekableWriteStream s = Streams.streamWritable(channel);
+		s.writeLong(-1L);
+		assertEquals(8L, s.size());
+		s.seek(2L);
+		s.writeShort((short) 0);
+		assertEquals(4L, s.position());
+		s.truncate(6L);
+		assertEquals(6L, s.size());
+		assertArrayEquals(new byte[] {-1, -1, 0, 0, -1, -1}, channel.getBytes());
+	}
+
+	@Test
+	public void testUnseekableChannelSkip() {
+		ReadStream r = Streams.streamReadable(Channels.newChannel(new ByteArrayInputStream(data())));
+		assertTrue(!(r instanceof SeekableReadStream));
+		r.skip(3L);
+		assertEquals(3, r.readByte());
+	}
+
+}
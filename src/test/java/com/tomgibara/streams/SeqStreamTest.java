@@ -154,4 +154,157 @@ public class SeqStreamTest /*extends FuzzStreamTest*/ extends TestCase {
 			}
 		}
 	}
+
+	public void testLongChains() {
+		// chains this long would overflow the stack if sequences were nested
+		int count = 100000;
+		{
+			ReadStream s = Streams.bytes(new byte[] {0}).readStream();
+			for (int i = 1; i < count; i++) {
+				s = s.andThen(Streams.bytes(new byte[] {(byte) i}).readStream());
+				if ((i & 1) == 0) {
+					assertEquals(i / 2 - 1, s.position());
+					assertEquals((byte) (i / 2 - 1), s.readByte());
+				}
+			}
+			for (int i = count / 2 - 1; i < count; i++) {
+				assertEquals(i, s.position());
+				assertEquals((byte) i, s.readByte());
+			}
+			try {
+				s.readByte();
+				fail();
+			} catch (EndOfStreamException e) {
+				/* expected */
+			}
+		}
+		{
+			StreamBytes[] bytes = new StreamBytes[count];
+			for (int i = 0; i < count; i++) {
+				bytes[i] = Streams.bytes(1, 1);
+			}
+			WriteStream s = bytes[0].writeStream();
+			for (int i = 1; i < count; i++) {
+				s = s.butFirst(bytes[i].writeStream());
+			}
+			for (int i = 0; i < count; i++) {
+				assertEquals(i, s.position());
+				s.writeByte((byte) i);
+			}
+			for (int i = 0; i < count; i++) {
+				assertEquals((byte) (count - 1 - i), bytes[i].bytes()[0]);
+			}
+		}
+	}
+
+	public void testFlattenedClosers() {
+		int[] closes = new int[4];
+		int[] reports = new int[4];
+		ReadStream[] streams = new ReadStream[4];
+		for (int i = 0; i < streams.length; i++) {
+			int j = i;
+			streams[i] = new ReadStream() {
+				private final ReadStream s = Streams.bytes(new byte[] {(byte) j}).readStream();
+				@Override public byte readByte() { return s.readByte(); }
+				@Override public long position() { return s.position(); }
+				@Override public void close() { closes[j]++; }
+			};
+		}
+		StreamCloser report = s -> {
+			for (int i = 0; i < streams.length; i++) {
+				if (streams[i] == s) reports[i]++;
+			}
+			return true;
+		};
+		// the outer closer applies to the last stream of an inner sequence
+		ReadStream a = streams[0].andThen(StreamCloser.doNothing(), streams[1]);
+		ReadStream b = streams[2].andThen(report, streams[3]);
+		ReadStream s = a.andThen(report, b);
+		for (int i = 0; i < 4; i++) {
+			assertEquals(i, s.position());
+			assertEquals(i, s.readByte());
+		}
+		assertEquals(4, s.position());
+		assertTrue(Arrays.equals(new int[] {0, 0, 0, 0}, closes));
+		assertTrue(Arrays.equals(new int[] {0, 1, 1, 0}, reports));
+		s.close();
+		assertTrue(Arrays.equals(new int[] {0, 0, 0, 1}, closes));
+	}
+
+	public void testConsumedSequences() {
+		int[] closes = new int[1];
+		ReadStream last = new ReadStream() {
+			private final ReadStream s = Streams.bytes(new byte[] {3}).readStream();
+			@Override public byte readByte() { return s.readByte(); }
+			@Override public long position() { return s.position(); }
+			@Override public void close() { closes[0]++; }
+		};
+		// an extended sequence continues from the state of the sequence it consumes
+		ReadStream x = Streams.bytes(new byte[] {1, 2}).readStream().andThen(last);
+		assertEquals(1, x.readByte());
+		ReadStream y = x.andThen(Streams.bytes(new byte[] {4}).readStream());
+		assertConsumed(x);
+		x.close();
+		assertEquals(0, closes[0]);
+		assertEquals(1, y.position());
+		byte[] bs = new byte[3];
+		y.readBytes(bs);
+		assertTrue(Arrays.equals(new byte[] {2, 3, 4}, bs));
+		assertEquals(4, y.position());
+		assertEquals(1, closes[0]);
+
+		// an unread sequence is consumed by prepending to it
+		x = Streams.bytes(new byte[] {2}).readStream().andThen(Streams.bytes(new byte[] {3}).readStream());
+		y = x.butFirst(Streams.bytes(new byte[] {1}).readStream());
+		assertConsumed(x);
+		y.readBytes(bs);
+		assertTrue(Arrays.equals(new byte[] {1, 2, 3}, bs));
+
+		// as is an unread sequence appended to another
+		x = Streams.bytes(new byte[] {2}).readStream().andThen(Streams.bytes(new byte[] {3}).readStream());
+		y = Streams.bytes(new byte[] {0}).readStream().andThen(Streams.bytes(new byte[] {1}).readStream()).andThen(x);
+		assertConsumed(x);
+		bs = new byte[4];
+		y.readBytes(bs);
+		assertTrue(Arrays.equals(new byte[] {0, 1, 2, 3}, bs));
+
+		StreamBytes bytes1 = Streams.bytes(1, 1);
+		StreamBytes bytes2 = Streams.bytes(1, 1);
+		StreamBytes bytes3 = Streams.bytes(1, 1);
+		WriteStream w = bytes1.writeStream().andThen(bytes2.writeStream());
+		w.writeByte((byte) 1);
+		WriteStream v = w.andThen(bytes3.writeStream());
+		try {
+			w.writeByte((byte) 0);
+			fail();
+		} catch (StreamException e) {
+			/* expected */
+		}
+		v.writeByte((byte) 2);
+		v.writeByte((byte) 3);
+		assertEquals(3, v.position());
+		assertTrue(Arrays.equals(new byte[] {1, 2, 3}, new byte[] {bytes1.bytes()[0], bytes2.bytes()[0], bytes3.bytes()[0]}));
+	}
+
+	private static void assertConsumed(ReadStream s) {
+		try {
+			s.readByte();
+			fail();
+		} catch (StreamException e) {
+			assertFalse(e instanceof EndOfStreamException);
+		}
+		try {
+			s.position();
+			fail();
+		} catch (StreamException e) {
+			/* expected */
+		}
+		try {
+			s.andThen(Streams.bytes(new byte[] {0}).readStream());
+			fail();
+		} catch (StreamException e) {
+			/* expected */
+		}
+	}
+
 }
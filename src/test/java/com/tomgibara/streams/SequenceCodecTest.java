@@ -0,0 +1,204 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SequenceCodecTest {
+
+	private static long[] sortedIds(Random r, int length) {
+		long[] values = new long[length];
+		long value = 1_000_000_000_000L + r.nextInt(1000);
+		for (int i = 0; i < length; i++) {
+			value += 1 + r.nextInt(50);
+			values[i] = value;
+		}
+		return values;
+	}
+
+	private static long[] randomLongs(Random r, int length) {
+		long[] values = new long[length];
+		for (int i = 0; i < length; i++) {
+			switch (r.nextInt(4)) {
+			case 0: values[i] = r.nextLong(); break;
+			case 1: values[i] = r.nextInt(100) - 50; break;
+			case 2: values[i] = r.nextBoolean() ? Long.MIN_VALUE : Long.MAX_VALUE; break;
+			default: values[i] = r.nextInt(1 << 20);
+			}
+		}
+		return values;
+	}
+
+	@Test
+	public void testRoundTrip() {
+		Random r = new Random(0L);
+		for (int i = 0; i < 200; i++) {
+			SequenceCodec codec = SequenceCodec.values()[r.nextInt(SequenceCodec.values().length)];
+			int length = r.nextInt(1000);
+			long[] values = r.nextBoolean() ? sortedIds(r, length) : randomLongs(r, length);
+			int off = r.nextInt(5);
+			long[] array = new long[off + length];
+			System.arraycopy(values, 0, array, off, length);
+
+			StreamBytes bytes = Streams.bytes();
+			try (WriteStream w = bytes.writeStream()) {
+				w.writeInt(i);
+				w.writeLongSequence(array, off, length, codec);
+				w.writeInt(-i);
+			}
+			long[] actual = new long[length];
+			try (ReadStream s = bytes.readStream()) {
+				Assert.assertEquals(i, s.readInt());
+				s.readLongSequence(actual, 0, length);
+				Assert.assertEquals(-i, s.readInt());
+			}
+			Assert.assertArrayEquals(codec.toString(), values, actual);
+		}
+	}
+
+	@Test
+	public void testIntRoundTrip() {
+		Random r = new Random(0L);
+		for (int i = 0; i < 100; i++) {
+			SequenceCodec codec = SequenceCodec.values()[r.nextInt(SequenceCodec.values().length)];
+			int[] values = new int[r.nextInt(1000)];
+			for (int j = 0; j < values.length; j++) {
+				values[j] = r.nextBoolean() ? r.nextInt() : r.nextInt(64);
+			}
+			StreamBytes bytes = Streams.bytes();
+			try (WriteStream w = bytes.writeStream()) {
+				w.writeIntSequence(values, 0, values.length, codec);
+			}
+			int[] actual = new int[values.length];
+			try (ReadStream s = bytes.readStream()) {
+				s.readIntSequence(actual, 0, actual.length);
+			}
+			Assert.assertArrayEquals(values, actual);
+		}
+	}
+
+	@Test
+	public void testUnalignedOnBitStream() {
+		Random r = new Random(0L);
+		long[] ids = sortedIds(r, 300);
+		long[] misc = randomLongs(r, 300);
+		StreamBytes bytes = Streams.bytes();
+		try (BitWriteStream w = bytes.writeStream().bits()) {
+			w.writeBits(5, 3);
+			w.writeLongSequence(ids, 0, ids.length, SequenceCodec.ADAPTIVE);
+			w.writeBit(true);
+			w.writeLongSequence(misc, 0, misc.length, SequenceCodec.PACKED);
+		}
+		long[] actual = new long[300];
+		try (BitReadStream s = bytes.readStream().bits()) {
+			Assert.assertEquals(5, s.readBits(3));
+			s.readLongSequence(actual, 0, actual.length);
+			Assert.assertArrayEquals(ids, actual);
+			Assert.assertTrue(s.readBit());
+			s.readLongSequence(actual, 0, actual.length);
+			Assert.assertArrayEquals(misc, actual);
+		}
+	}
+
+	@Test
+	public void testSortedIdsCompress() {
+		long[] ids = sortedIds(new Random(0L), 10000);
+		for (SequenceCodec codec : new SequenceCodec[] { SequenceCodec.DELTA, SequenceCodec.ADAPTIVE }) {
+			StreamBytes bytes = Streams.bytes();
+			try (WriteStream w = bytes.writeStream()) {
+				w.writeLongSequence(ids, 0, ids.length, codec);
+			}
+			Assert.assertTrue(codec.toString(), bytes.length() * 5 < ids.length * 8);
+		}
+	}
+
+	@Test
+	public void testEmptySequence() {
+		StreamBytes bytes = Streams.bytes();
+		try (WriteStream w = bytes.writeStream()) {
+			w.writeLongSequence(new long[0], 0, 0, SequenceCodec.ADAPTIVE);
+		}
+		Assert.assertEquals(0, bytes.length());
+	}
+
+	@Test
+	public void testInvalidHeader() {
+		StreamBytes bytes = Streams.bytes();
+		try (BitWriteStream w = bytes.writeStream().bits()) {
+			w.writeBits(3 << 7, 9);
+		}
+		try (ReadStream s = bytes.readStream()) {
+			s.readLongSequence(new long[1], 0, 1);
+			Assert.fail();
+		} catch (EndOfStreamException e) {
+			Assert.fail();
+		} catch (StreamException e) {
+			/* expected */
+		}
+	}
+
+	@Test
+	public void testNestedSequences() {
+		Random r = new Random(0L);
+		long[] values = randomLongs(r, 300);
+		StreamBytes outer = Streams.bytes();
+		StreamBytes inner = Streams.bytes();
+		WriteStream innerW = inner.writeStream();
+		WriteStream outerW = outer.writeStream();
+		// every long written for the outer sequence writes a sequence of its own
+		WriteStream nesting = new WriteStream() {
+			@Override public void writeByte(byte v) { outerW.writeByte(v); }
+			@Override public void writeLong(long v) {
+				innerW.writeLongSequence(new long[] { v, ~v }, 0, 2, SequenceCodec.PACKED);
+				outerW.writeLong(v);
+			}
+		};
+		nesting.writeLongSequence(values, 0, values.length, SequenceCodec.ADAPTIVE);
+		long[] actual = new long[values.length];
+		outer.readStream().readLongSequence(actual, 0, actual.length);
+		Assert.assertArrayEquals(values, actual);
+		ReadStream innerR = inner.readStream();
+		long[] pair = new long[2];
+		for (int i = 0; i < outer.length() / 8; i++) {
+			innerR.readLongSequence(pair, 0, 2);
+			Assert.assertEquals(~pair[0], pair[1]);
+		}
+	}
+
+	@Test
+	public void testSequenceAfterFailure() {
+		StreamBytes invalid = Streams.bytes();
+		try (BitWriteStream w = invalid.writeStream().bits()) {
+			w.writeBits(0x7f, 9);
+		}
+		try {
+			invalid.readStream().readLongSequence(new long[1], 0, 1);
+			Assert.fail();
+		} catch (StreamException e) {
+			/* expected */
+		}
+		long[] values = sortedIds(new Random(0L), 200);
+		StreamBytes bytes = Streams.bytes();
+		bytes.writeStream().writeLongSequence(values, 0, values.length, SequenceCodec.DELTA);
+		long[] actual = new long[values.length];
+		bytes.readStream().readLongSequence(actual, 0, actual.length);
+		Assert.assertArrayEquals(values, actual);
+	}
+}
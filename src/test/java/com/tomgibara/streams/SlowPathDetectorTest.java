@@ -0,0 +1,146 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tomgibara.streams.SlowPathDetector.Offender;
+import com.tomgibara.streams.SlowPathDetector.Path;
+
+public class SlowPathDetectorTest {
+
+	private final SlowPathDetector detector = Streams.slowPathDetector();
+
+	@Before
+	public void enable() {
+		detector.reset();
+		detector.setEnabled(true);
+	}
+
+	@After
+	public void disable() {
+		detector.setEnabled(false);
+		detector.reset();
+	}
+
+	private Offender offender(Class<?> streamClass, Path path) {
+		for (Offender offender : detector.offenders()) {
+			if (offender.streamClass() == streamClass && offender.path() == path) return offender;
+		}
+		return null;
+	}
+
+	@Test
+	public void testDefaultPaths() {
+		ReadStream reader = () -> (byte) 1;
+		reader.readBytes(new byte[10]);
+		reader.readBytes(new byte[10], 2, 5);
+		reader.fillBuffer(ByteBuffer.allocateDirect(16));
+		reader.skip(7L);
+		// heap buffers are filled via tryReadBytes
+		reader.fillBuffer(ByteBuffer.allocate(20));
+
+		Class<?> c = reader.getClass();
+		Offender bytes = offender(c, Path.READ_BYTES);
+		assertEquals(2, bytes.calls());
+		assertEquals(15, bytes.bytes());
+		assertEquals(16, offender(c, Path.FILL_BUFFER).bytes());
+		assertEquals(7, offender(c, Path.SKIP).bytes());
+		assertEquals(20, offender(c, Path.TRY_READ_BYTES).bytes());
+
+		List<Offender> offenders = detector.offenders();
+		assertEquals(4, offenders.size());
+		assertEquals(Path.TRY_READ_BYTES, offenders.get(0).path());
+		assertEquals(Path.SKIP, offenders.get(3).path());
+
+		WriteStream writer = v -> {};
+		writer.writeChars("text");
+		writer.writeChars(new StringBuilder("builder"));
+		assertEquals(2, offender(writer.getClass(), Path.WRITE_CHARS).calls());
+		assertEquals(22, offender(writer.getClass(), Path.WRITE_CHARS).bytes());
+	}
+
+	@Test
+	public void testDisabled() {
+		detector.setEnabled(false);
+		ReadStream reader = () -> (byte) 1;
+		reader.readBytes(new byte[10]);
+		assertTrue(detector.offenders().isEmpty());
+		detector.setEnabled(true);
+		reader.readBytes(new byte[10]);
+		assertFalse(detector.offenders().isEmpty());
+		detector.reset();
+		assertTrue(detector.offenders().isEmpty());
+	}
+
+	@Test
+	public void testBuiltInStreams() {
+		byte[] bytes = new byte[64];
+		ByteBuffer buffer = ByteBuffer.allocate(16);
+		for (ReadStream reader : new ReadStream[] {
+				Streams.bytes(bytes).readStream(),
+				Streams.streamBuffer(ByteBuffer.wrap(bytes)).readStream(),
+				Streams.streamInput(new ByteArrayInputStream(bytes)),
+				Streams.streamReadable(new ByteArrayChannel(bytes)),
+		}) {
+			reader.readBytes(new byte[8]);
+			reader.tryReadBytes(new byte[8], 0, 8);
+			buffer.clear();
+			reader.fillBuffer(buffer);
+			reader.skip(8L);
+		}
+		for (WriteStream writer : new WriteStream[] {
+				Streams.bytes().writeStream(),
+				Streams.streamBuffer(ByteBuffer.allocate(64)).writeStream(),
+				Streams.streamOutput(new ByteArrayOutputStream()),
+				Streams.streamWritable(new ByteArrayChannel(64)),
+		}) {
+			writer.writeBytes(new byte[8]);
+			writer.tryWriteBytes(new byte[8], 0, 8);
+			buffer.clear();
+			writer.drainBuffer(buffer);
+		}
+		assertEquals(detector.offenders().toString(), 0, detector.offenders().size());
+	}
+
+	@Test
+	public void testReport() {
+		WriteStream writer = v -> {};
+		writer.writeBytes(new byte[5]);
+		writer.drainBuffer(ByteBuffer.allocateDirect(3));
+		StringWriter sw = new StringWriter();
+		detector.report(new PrintWriter(sw), 1);
+		String[] lines = sw.toString().split("\\R");
+		assertEquals(3, lines.length);
+		assertTrue(lines[1].endsWith("write_bytes: 1 calls, 5 bytes"));
+		assertEquals("  (1 more)", lines[2]);
+	}
+
+}
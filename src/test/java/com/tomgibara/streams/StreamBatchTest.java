@@ -0,0 +1,153 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class StreamBatchTest {
+
+	private static byte[] data(int length) {
+		byte[] data = new byte[length];
+		new Random(0L).nextBytes(data);
+		return data;
+	}
+
+	private static void checkRandom(SeekableReadStream source, byte[] data, ForkJoinPool pool) {
+		Random r = new Random(1L);
+		StreamBatch batch = Streams.readBatch(source, 64);
+		byte[][] targets = new byte[500][];
+		int[] positions = new int[targets.length];
+		for (int i = 0; i < targets.length; i++) {
+			positions[i] = r.nextInt(data.length);
+			targets[i] = new byte[r.nextInt(100)];
+			batch.add(positions[i], targets[i], 0, targets[i].length);
+		}
+		assertEquals(targets.length, batch.size());
+		if (pool == null) batch.read(); else batch.read(pool);
+		assertEquals(0, batch.size());
+		for (int i = 0; i < targets.length; i++) {
+			int from = positions[i];
+			int to = Math.min(data.length, from + targets[i].length);
+			byte[] expected = Arrays.copyOf(Arrays.copyOfRange(data, from, to), targets[i].length);
+			assertArrayEquals(expected, targets[i]);
+		}
+	}
+
+	@Test
+	public void testCoalescing() {
+		SeekableReadStream source = Streams.bytes(data(1000)).readStream();
+		StreamBatch batch = Streams.readBatch(source, 10);
+		ByteBuffer a = ByteBuffer.allocate(10);
+		ByteBuffer b = ByteBuffer.allocate(10);
+		ByteBuffer c = ByteBuffer.allocate(10);
+		ByteBuffer d = ByteBuffer.allocate(10);
+		// added out of order; a, b and c overlap or lie within the gap, d does not
+		batch.add(500, d).add(115, c).add(100, a).add(105, b);
+		assertEquals(2, batch.read());
+		assertEquals(0L, source.position());
+		byte[] data = data(1000);
+		assertArrayEquals(Arrays.copyOfRange(data, 100, 110), a.array());
+		assertArrayEquals(Arrays.copyOfRange(data, 105, 115), b.array());
+		assertArrayEquals(Arrays.copyOfRange(data, 115, 125), c.array());
+		assertArrayEquals(Arrays.copyOfRange(data, 500, 510), d.array());
+		assertEquals(0, a.remaining());
+
+		// nothing coalesced without a gap
+		batch = Streams.readBatch(source, 0);
+		batch.add(0, new byte[5], 0, 5).add(6, new byte[5], 0, 5).add(11, new byte[5], 0, 5);
+		assertEquals(2, batch.read());
+	}
+
+	@Test
+	public void testEndOfStream() {
+		SeekableReadStream source = Streams.bytes(data(100)).readStream();
+		StreamBatch batch = Streams.readBatch(source, 16);
+		ByteBuffer a = ByteBuffer.allocate(10);
+		ByteBuffer b = ByteBuffer.allocate(10);
+		ByteBuffer c = ByteBuffer.allocate(10);
+		batch.add(85, a).add(95, b).add(200, c);
+		batch.read();
+		assertEquals(0, a.remaining());
+		assertEquals(5, b.position());
+		assertEquals(0, c.position());
+	}
+
+	@Test
+	public void testRandom() {
+		byte[] data = data(10000);
+		checkRandom(Streams.bytes(data).readStream(), data, null);
+		checkRandom(Streams.streamBuffer(ByteBuffer.wrap(data)).readStream(), data, null);
+	}
+
+	@Test
+	public void testParallel() throws IOException {
+		byte[] data = data(100000);
+		File file = File.createTempFile("stream-batch", ".bin");
+		file.deleteOnExit();
+		Files.write(file.toPath(), data);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			checkRandom(Streams.streamRegion(channel, 0L, data.length).readStream(), data, pool);
+			checkRandom(Streams.streamReadable(channel), data, pool);
+			assertEquals(0L, channel.position());
+		} finally {
+			pool.shutdown();
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testParallelScratchReused() throws IOException {
+		byte[] data = data(100000);
+		File file = File.createTempFile("stream-batch", ".bin");
+		file.deleteOnExit();
+		Files.write(file.toPath(), data);
+		StreamsMXBean bean = Streams.registerMXBean();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			StreamBatch batch = Streams.readBatch(Streams.streamRegion(channel, 0L, data.length).readStream(), 16);
+			bean.reset();
+			for (int round = 0; round < 10; round++) {
+				// pairs of adjacent requests, each pair coalesced into its own read
+				for (int i = 0; i < 50; i++) {
+					batch.add(i * 2000, new byte[10], 0, 10).add(i * 2000 + 12, new byte[10], 0, 10);
+				}
+				assertEquals(50, batch.read(pool));
+			}
+			long allocated = bean.getHeapBuffersAllocated() + bean.getDirectBuffersAllocated();
+			assertTrue("allocated " + allocated, allocated <= 2 * pool.getParallelism());
+		} finally {
+			pool.shutdown();
+			file.delete();
+		}
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/**
+ * Exercises the events as loaded from the class directory, where the Java 8
+ * implementation, which never creates events, is always used.
+ */
+
+public class StreamEventsTest {
+
+	@Test
+	public void testNoEvents() {
+		assertNull(StreamEvents.beginTransfer());
+		assertNull(StreamEvents.beginBuffer());
+		assertNull(StreamEvents.beginSkip());
+		// ending an absent event has no effect
+		StreamEvents.endTransfer(null, null, null);
+		StreamEvents.endFill(null, 0, null);
+		StreamEvents.endDrain(null, 0, null);
+		StreamEvents.endSkip(null, 0L);
+		StreamEvents.bytesGrown(16, 32);
+	}
+
+	@Test
+	public void testStreamsUnaffected() {
+		StreamBytes bytes = Streams.bytes(1);
+		bytes.writeStream().writeLong(1L);
+		ReadStream r = bytes.readStream();
+		r.skip(4L);
+		ByteBuffer buffer = ByteBuffer.allocate(4);
+		r.fillBuffer(buffer);
+		assertEquals(1, buffer.getInt(0));
+	}
+
+}
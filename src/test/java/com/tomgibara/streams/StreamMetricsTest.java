@@ -0,0 +1,108 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.tomgibara.streams.StreamMetrics.Operation;
+import com.tomgibara.streams.StreamMetrics.Snapshot;
+
+public class StreamMetricsTest {
+
+	@Test
+	public void testCounts() {
+		StreamMetrics metrics = Streams.metrics();
+		StreamBytes bytes = Streams.bytes();
+		try (WriteStream w = bytes.writeStream().metered(metrics)) {
+			w.writeInt(1);
+			w.writeLong(2L);
+			w.writeChars("abc");
+			w.writeBytes(new byte[5]);
+			w.drainBuffer(ByteBuffer.allocate(7));
+		}
+		try (ReadStream r = bytes.readStream().metered(metrics)) {
+			assertEquals(1, r.readInt());
+			assertEquals(2L, r.readLong());
+			assertEquals("abc", r.readChars());
+			r.skip(5L);
+			ByteBuffer buffer = ByteBuffer.allocate(10);
+			r.fillBuffer(buffer);
+			assertEquals(7, buffer.position());
+			try {
+				r.readByte();
+				fail();
+			} catch (EndOfStreamException e) {
+				/* expected */
+			}
+		}
+		Snapshot snapshot = metrics.snapshot();
+		assertEquals(4 + 8 + 10 + 5 + 7, snapshot.bytesWritten());
+		assertEquals(4 + 8 + 10 + 5 + 7, snapshot.bytesRead());
+		assertEquals(2, snapshot.calls(Operation.INT));
+		assertEquals(2, snapshot.calls(Operation.LONG));
+		assertEquals(2, snapshot.calls(Operation.CHARS));
+		assertEquals(1, snapshot.calls(Operation.BYTES));
+		assertEquals(2, snapshot.calls(Operation.BUFFER));
+		assertEquals(1, snapshot.calls(Operation.SKIP));
+		assertEquals(0, snapshot.calls(Operation.BYTE));
+		assertEquals(2, snapshot.calls(Operation.CLOSE));
+		// the short fill and the failed read
+		assertEquals(2, snapshot.endOfStreams());
+		assertTrue(snapshot.latencyNanos(Operation.BUFFER, 100.0) > 0L);
+		assertEquals(0L, snapshot.latencyNanos(Operation.INT, 50.0));
+
+		Map<String, Long> map = snapshot.toMap();
+		assertEquals(snapshot.bytesRead(), map.get("bytes.read").longValue());
+		assertEquals(2L, map.get("calls.int").longValue());
+		assertTrue(map.containsKey("latency.skip.p99"));
+	}
+
+	@Test
+	public void testHistogramBuckets() {
+		for (int i = 0; i < 247; i++) {
+			long lower = StreamMetrics.bucketLowerBound(i);
+			long upper = StreamMetrics.bucketLowerBound(i + 1) - 1;
+			assertTrue(upper >= lower);
+			assertEquals(i, StreamMetrics.bucketIndex(lower));
+			assertEquals(i, StreamMetrics.bucketIndex(upper));
+		}
+		assertEquals(247, StreamMetrics.bucketIndex(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testPercentiles() {
+		StreamMetrics metrics = Streams.metrics();
+		for (int i = 1; i <= 100; i++) {
+			metrics.timed(Operation.SKIP, i * 1000L);
+		}
+		Snapshot snapshot = metrics.snapshot();
+		long p50 = snapshot.latencyNanos(Operation.SKIP, 50.0);
+		long p99 = snapshot.latencyNanos(Operation.SKIP, 99.0);
+		// buckets are accurate to within 25%
+		assertTrue(p50 >= 50000L && p50 <= 50000L * 5 / 4);
+		assertTrue(p99 >= 99000L && p99 <= 99000L * 5 / 4);
+		assertEquals(5050000L, snapshot.totalNanos(Operation.SKIP));
+	}
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class StreamRegionTest {
+
+	private static final int REGIONS = 8;
+	private static final int REGION_LENGTH = 4096;
+
+	@Test
+	public void testConcurrentRegions() throws Exception {
+		File file = File.createTempFile("stream-region", ".bin");
+		file.deleteOnExit();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < REGIONS; i++) {
+				int index = i;
+				futures.add(executor.submit(() -> {
+					try (WriteStream w = Streams.streamRegion(channel, index * REGION_LENGTH, REGION_LENGTH).writeStream()) {
+						for (int j = 0; j < REGION_LENGTH / 4; j++) w.writeInt(index * REGION_LENGTH + j);
+						try {
+							w.writeByte((byte) 0);
+							fail();
+						} catch (EndOfStreamException e) {
+							/* expected */
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) future.get();
+			assertEquals(REGIONS * REGION_LENGTH, channel.size());
+			assertEquals(0L, channel.position());
+
+			futures.clear();
+			for (int i = REGIONS - 1; i >= 0; i--) {
+				int index = i;
+				futures.add(executor.submit(() -> {
+					try (ReadStream r = Streams.streamRegion(channel, index * REGION_LENGTH, REGION_LENGTH).readStream()) {
+						for (int j = 0; j < REGION_LENGTH / 4; j++) assertEquals(index * REGION_LENGTH + j, r.readInt());
+						try {
+							r.readByte();
+							fail();
+						} catch (EndOfStreamException e) {
+							/* expected */
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) future.get();
+			assertEquals(0L, channel.position());
+			assertTrue(channel.isOpen());
+		} finally {
+			executor.shutdown();
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testPositionalAccess() throws IOException {
+		File file = File.createTempFile("stream-region", ".bin");
+		file.deleteOnExit();
+		byte[] data = new byte[64];
+		for (int i = 0; i < data.length; i++) data[i] = (byte) i;
+		Files.write(file.toPath(), data);
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			StreamRegion region = Streams.streamRegion(channel, 16L, 64L);
+			SeekableReadStream r = region.readStream();
+			// region extends beyond the file
+			assertEquals(48L, r.size());
+			r.seek(4L);
+			ByteBuffer buffer = ByteBuffer.allocate(4);
+			r.readAt(40L, buffer);
+			assertArrayEquals(new byte[] {56, 57, 58, 59}, buffer.array());
+			buffer.clear();
+			r.readAt(46L, buffer);
+			assertEquals(2, buffer.position());
+			assertEquals(4L, r.position());
+			assertEquals(20, r.readByte());
+
+			SeekableWriteStream w = region.writeStream();
+			w.writeAt(2L, ByteBuffer.wrap(new byte[] {-1, -1}));
+			assertEquals(0L, w.position());
+			buffer.clear();
+			Streams.streamRegion(channel, 0L, 64L).readStream().readAt(16L, buffer);
+			assertArrayEquals(new byte[] {16, 17, -1, -1}, buffer.array());
+			w.truncate(1L);
+			try {
+				w.writeShort((short) 0);
+				fail();
+			} catch (EndOfStreamException e) {
+				/* expected */
+			}
+			assertEquals(0L, w.position());
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testChannelReadAt() throws IOException {
+		File file = File.createTempFile("stream-region", ".bin");
+		file.deleteOnExit();
+		Files.write(file.toPath(), new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			SeekableReadStream r = Streams.streamReadable(channel);
+			ByteBuffer buffer = ByteBuffer.allocate(3);
+			r.readAt(6L, buffer);
+			assertEquals(2, buffer.position());
+			assertEquals(0L, channel.position());
+			assertEquals(1, r.readByte());
+			assertEquals(7, buffer.get(0));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testBulkArrays() throws IOException {
+		File file = File.createTempFile("stream-region", ".bin");
+		file.deleteOnExit();
+		byte[] data = new byte[REGION_LENGTH];
+		for (int i = 0; i < data.length; i++) data[i] = (byte) (i * 7);
+		// short transfers are staged, longer ones wrap the array
+		int[] lengths = { 100, 2000, REGION_LENGTH - 2100 };
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			try (WriteStream w = Streams.streamRegion(channel, 0L, REGION_LENGTH).writeStream()) {
+				int off = 0;
+				for (int length : lengths) {
+					w.writeBytes(data, off, length);
+					off += length;
+				}
+				assertEquals(0, w.tryWriteBytes(data, 0, 1));
+			}
+			try (ReadStream r = Streams.streamRegion(channel, 0L, REGION_LENGTH).readStream()) {
+				byte[] actual = new byte[REGION_LENGTH];
+				int off = 0;
+				for (int length : lengths) {
+					r.readBytes(actual, off, length);
+					off += length;
+				}
+				assertArrayEquals(data, actual);
+				try {
+					r.readBytes(new byte[1]);
+					fail();
+				} catch (EndOfStreamException e) {
+					/* expected */
+				}
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testArraysNotRetained() throws Exception {
+		File file = File.createTempFile("stream-region", ".bin");
+		file.deleteOnExit();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			StreamRegion region = Streams.streamRegion(channel, 0L, REGION_LENGTH);
+			WriteStream w = region.writeStream();
+			ReadStream r = region.readStream();
+			byte[] bytes = new byte[16];
+			WeakReference<byte[]> ref = new WeakReference<>(bytes);
+			w.writeBytes(bytes);
+			r.readBytes(bytes);
+			bytes = null;
+			for (int i = 0; i < 10 && ref.get() != null; i++) {
+				System.gc();
+				Thread.sleep(10L);
+			}
+			assertNull(ref.get());
+			// keep the streams reachable until the array has been collected
+			assertEquals(32L, w.position() + r.position());
+		} finally {
+			file.delete();
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class StreamStatisticsTest {
+
+	private StreamsMXBean bean;
+
+	@Before
+	public void register() {
+		bean = Streams.registerMXBean();
+		assertSame(bean, Streams.registerMXBean());
+		bean.reset();
+	}
+
+	@Test
+	public void testTransfers() {
+		byte[] bytes = new byte[1000];
+		Streams.bytes(bytes).readStream().to(Streams.bytes().writeStream(), 100).transferFully();
+		Streams.bytes(bytes).readStream().to(Streams.streamBuffer(ByteBuffer.allocateDirect(1000)).writeStream(), 200).transfer(300);
+		assertEquals(2, bean.getTransfers());
+		assertEquals(1300, bean.getBytesTransferred());
+		assertEquals(2, bean.getHeapBuffersAllocated() + bean.getDirectBuffersAllocated());
+		assertEquals(300, bean.getHeapBufferBytes() + bean.getDirectBufferBytes());
+	}
+
+	@Test
+	public void testGrowth() {
+		WriteStream w = Streams.bytes(16).writeStream();
+		w.writeBytes(new byte[40]);
+		assertEquals(1, bean.getBytesGrowthCopies());
+		assertEquals(16, bean.getBytesGrowthBytesCopied());
+	}
+
+	@Test
+	public void testOpenedAndClosed() {
+		ReadStream r = Streams.bytes(new byte[4]).readStream();
+		r.readInt();
+		try {
+			r.readByte();
+			fail();
+		} catch (EndOfStreamException e) {
+			/* expected */
+		}
+		r.close();
+		r.close();
+		Streams.streamBuffer(ByteBuffer.allocate(4)).writeStream();
+		Map<String, Long> opened = bean.getStreamsOpened();
+		Map<String, Long> closed = bean.getStreamsClosed();
+		assertEquals(1L, opened.get("bytes.read").longValue());
+		assertEquals(1L, closed.get("bytes.read").longValue());
+		assertEquals(1L, opened.get("buffer.write").longValue());
+		assertEquals(0L, closed.get("buffer.write").longValue());
+		assertEquals(0L, opened.get("data.input").longValue());
+		assertEquals(1L, bean.getEndOfStreamExceptionsCreated());
+	}
+
+	@Test
+	public void testRepeatedClose() {
+		CloseableStream[] streams = {
+				Streams.streamBuffer(ByteBuffer.allocate(4)).readStream(),
+				Streams.streamBuffer(ByteBuffer.allocate(4)).writeStream(),
+				Streams.streamReadable(new ByteArrayChannel(new byte[4])),
+				Streams.streamWritable(new ByteArrayChannel(new byte[4])),
+				Streams.streamInput(new ByteArrayInputStream(new byte[4])),
+				Streams.streamOutput(new ByteArrayOutputStream()),
+				Streams.streamDataInput(new DataInputStream(new ByteArrayInputStream(new byte[4]))),
+				Streams.streamDataOutput(new DataOutputStream(new ByteArrayOutputStream())),
+		};
+		for (CloseableStream stream : streams) {
+			stream.close();
+			stream.close();
+		}
+		Map<String, Long> opened = bean.getStreamsOpened();
+		Map<String, Long> closed = bean.getStreamsClosed();
+		for (String key : new String[] { "buffer.read", "buffer.write", "channel.read", "channel.write", "input", "output", "data.input", "data.output" }) {
+			assertEquals(key, 1L, opened.get(key).longValue());
+			assertEquals(key, 1L, closed.get(key).longValue());
+		}
+	}
+
+	@Test
+	public void testRegistration() throws Exception {
+		Streams.bytes(new byte[1]).readStream().to(Streams.bytes().writeStream()).transferFully();
+		StreamsMXBean proxy = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(), new ObjectName(StreamsMXBean.OBJECT_NAME), StreamsMXBean.class);
+		assertEquals(1L, proxy.getBytesTransferred());
+		assertEquals(1L, proxy.getStreamsOpened().get("bytes.write").longValue());
+		proxy.reset();
+		assertEquals(0L, bean.getTransfers());
+	}
+
+}
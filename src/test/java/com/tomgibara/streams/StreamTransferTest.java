@@ -103,6 +103,21 @@ public class StreamTransferTest {
 		}
 	}
 
+	@Test
+	public void testDefaultBuffering() {
+		ReadStream bytes = Streams.bytes(new byte[10]).readStream();
+		ReadStream channel = new ChannelReadStream(new ByteArrayChannel(new byte[10]));
+		ReadStream input = new InputReadStream(new ByteArrayInputStream(new byte[10]));
+		WriteStream output = new OutputWriteStream(new ByteArrayOutputStream());
+		WriteStream empty = Streams.streamToEmpty();
+		// streams that prefer indirect buffering must never receive a direct buffer
+		assertEquals(StreamBuffering.PREFER_INDIRECT, channel.to(output).buffering());
+		assertEquals(StreamBuffering.PREFER_INDIRECT, input.to(new ChannelWriteStream(new ByteArrayChannel(10))).buffering());
+		assertEquals(StreamBuffering.PREFER_DIRECT, channel.to(new ChannelWriteStream(new ByteArrayChannel(10))).buffering());
+		assertEquals(StreamBuffering.PREFER_INDIRECT, bytes.to(Streams.bytes().writeStream()).buffering());
+		assertEquals(StreamBuffering.UNSUPPORTED, new SingleReadStream((byte) 0).to(empty).buffering());
+	}
+
 	private void test(ReadStream in, Producer<byte[]> inToBytes, WriteStream out, Producer<byte[]> outToBytes, long length, ByteBuffer buffer) {
 		// do the transfer
 		StreamTransfer transfer = in.to(out, buffer);
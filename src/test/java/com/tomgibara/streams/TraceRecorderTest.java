@@ -0,0 +1,178 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+public class TraceRecorderTest {
+
+	private static String[] lines(StringWriter sw) {
+		return sw.toString().split("\\R");
+	}
+
+	// removes the time and position prefix
+	private static String[] entries(StringWriter sw) {
+		String[] lines = lines(sw);
+		for (int i = 0; i < lines.length; i++) {
+			lines[i] = lines[i].substring(lines[i].indexOf("] ") + 2);
+		}
+		return lines;
+	}
+
+	private static void exercise(WriteStream w) {
+		w.writeInt(1);
+		w.writeByte((byte) -2);
+		w.writeDouble(2.5);
+		w.writeChar('x');
+		w.writeBytes(new byte[6], 1, 3);
+		w.drainBuffer(ByteBuffer.allocate(5));
+		w.close();
+	}
+
+	private static void exercise(ReadStream r) {
+		r.readInt();
+		r.readByte();
+		r.readDouble();
+		r.readChar();
+		r.readBytes(new byte[6], 1, 3);
+		r.fillBuffer(ByteBuffer.allocate(5));
+		r.close();
+	}
+
+	@Test
+	public void testDebugFormat() {
+		StreamBytes bytes = Streams.bytes();
+
+		TraceRecorder recorder = Streams.traceRecorder(64);
+		exercise(bytes.writeStream().traced(recorder, "w"));
+		byte[] data = bytes.bytes();
+		exercise(Streams.bytes(data).readStream().traced(recorder, "r"));
+		StringWriter traced = new StringWriter();
+		recorder.dump(new PrintWriter(traced));
+
+		StringWriter debugged = new StringWriter();
+		PrintWriter writer = new PrintWriter(debugged);
+		exercise(Streams.bytes().writeStream().debug(writer, "w"));
+		exercise(Streams.bytes(data).readStream().debug(writer, "r"));
+		writer.flush();
+
+		String[] expected = lines(debugged);
+		String[] actual = entries(traced);
+		assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], actual[i]);
+		}
+		assertEquals(expected.length, recorder.count());
+		assertTrue(lines(traced)[expected.length - 1].startsWith("[+"));
+	}
+
+	@Test
+	public void testSkip() {
+		TraceRecorder recorder = Streams.traceRecorder(4);
+		ReadStream r = Streams.bytes(new byte[10]).readStream().traced(recorder, "r");
+		r.skip(3L);
+		r.readShort();
+		StringWriter sw = new StringWriter();
+		recorder.dump(new PrintWriter(sw));
+		String[] lines = lines(sw);
+		assertTrue(lines[0].endsWith("@0] r.skip(3)"));
+		assertTrue(lines[1].endsWith("@3] r.readShort()"));
+	}
+
+	@Test
+	public void testRing() {
+		TraceRecorder recorder = Streams.traceRecorder(5);
+		assertEquals(8, recorder.capacity());
+		WriteStream w = Streams.bytes().writeStream().traced(recorder, null);
+		for (int i = 0; i < 20; i++) {
+			w.writeInt(i);
+		}
+		assertEquals(20, recorder.count());
+		StringWriter sw = new StringWriter();
+		recorder.dump(new PrintWriter(sw));
+		String[] lines = lines(sw);
+		assertEquals(9, lines.length);
+		assertEquals("[12 earlier entries discarded]", lines[0]);
+		assertTrue(lines[1].endsWith("@48] writeInt(12)"));
+		assertTrue(lines[8].endsWith("@76] writeInt(19)"));
+		recorder.clear();
+		sw = new StringWriter();
+		recorder.dump(new PrintWriter(sw));
+		assertEquals("", sw.toString());
+	}
+
+	@Test
+	public void testAutomaticDump() {
+		StringWriter sw = new StringWriter();
+		TraceRecorder recorder = Streams.traceRecorder(16, new PrintWriter(sw));
+
+		// end of stream is not treated as a failure
+		ReadStream r = Streams.bytes(new byte[2]).readStream().traced(recorder, "r");
+		try {
+			r.readInt();
+			fail();
+		} catch (EndOfStreamException e) {
+			/* expected */
+		}
+		assertEquals("", sw.toString());
+
+		WriteStream w = Streams.bytes().writeStream().traced(recorder, "w");
+		w.writeShort((short) 3);
+		w.close();
+		try {
+			w.writeShort((short) 4);
+			fail();
+		} catch (StreamException e) {
+			/* expected */
+		}
+		String[] entries = entries(sw);
+		assertEquals(6, entries.length);
+		assertEquals("r.readInt()", entries[0]);
+		assertEquals("r.threw EndOfStreamException", entries[1]);
+		assertEquals("w.writeShort(4)", entries[4]);
+		assertEquals("w.threw StreamException", entries[5]);
+	}
+
+	@Test
+	public void testManyIdentities() {
+		TraceRecorder recorder = Streams.traceRecorder(256);
+		for (int i = 0; i < 255; i++) {
+			Streams.bytes(new byte[1]).readStream().traced(recorder, "r" + i).readByte();
+		}
+		StringWriter sw = new StringWriter();
+		recorder.dump(new PrintWriter(sw));
+		String[] entries = entries(sw);
+		assertEquals(255, entries.length);
+		assertEquals("r127.readByte()", entries[127]);
+		assertEquals("r254.readByte()", entries[254]);
+		try {
+			Streams.bytes(new byte[1]).readStream().traced(recorder, "r255");
+			fail();
+		} catch (IllegalStateException e) {
+			/* expected */
+		}
+	}
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class XorSequenceTest {
+
+	private static double[] metric(Random r, int length) {
+		double[] values = new double[length];
+		double value = 100.0;
+		for (int i = 0; i < length; i++) {
+			// gauge-like: mostly unchanged, otherwise small steps
+			switch (r.nextInt(4)) {
+			case 0: value += 0.25; break;
+			case 1: value -= 0.5; break;
+			default: break;
+			}
+			values[i] = value;
+		}
+		return values;
+	}
+
+	private static double[] awkward(Random r, int length) {
+		double[] special = { 0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.MIN_VALUE, Double.MAX_VALUE, Double.longBitsToDouble(0x7ff0000000000123L) };
+		double[] values = new double[length];
+		for (int i = 0; i < length; i++) {
+			values[i] = r.nextBoolean() ? special[r.nextInt(special.length)] : Double.longBitsToDouble(r.nextLong());
+		}
+		return values;
+	}
+
+	private static void assertBitsEqual(double[] expected, double[] actual) {
+		Assert.assertEquals(expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			Assert.assertEquals(Double.doubleToRawLongBits(expected[i]), Double.doubleToRawLongBits(actual[i]));
+		}
+	}
+
+	@Test
+	public void testDoubleRoundTrip() {
+		Random r = new Random(0L);
+		for (int i = 0; i < 200; i++) {
+			int length = r.nextInt(1000);
+			double[] values = r.nextBoolean() ? metric(r, length) : awkward(r, length);
+			int blockSize = r.nextBoolean() ? 0 : 1 + r.nextInt(100);
+			StreamBytes bytes = Streams.bytes();
+			try (WriteStream w = bytes.writeStream()) {
+				w.writeInt(i);
+				w.writeDoubleSequence(values, 0, length, blockSize);
+				w.writeInt(-i);
+			}
+			double[] actual = new double[length];
+			try (ReadStream s = bytes.readStream()) {
+				Assert.assertEquals(i, s.readInt());
+				s.readDoubleSequence(actual, 0, length, blockSize);
+				Assert.assertEquals(-i, s.readInt());
+			}
+			assertBitsEqual(values, actual);
+		}
+	}
+
+	@Test
+	public void testFloatRoundTrip() {
+		Random r = new Random(0L);
+		for (int i = 0; i < 200; i++) {
+			float[] values = new float[r.nextInt(1000)];
+			float value = r.nextFloat();
+			for (int j = 0; j < values.length; j++) {
+				if (r.nextInt(10) == 0) value = Float.intBitsToFloat(r.nextInt());
+				else if (r.nextBoolean()) value += 0.125f;
+				values[j] = value;
+			}
+			int blockSize = r.nextBoolean() ? 0 : 1 + r.nextInt(100);
+			StreamBytes bytes = Streams.bytes();
+			try (WriteStream w = bytes.writeStream()) {
+				w.writeFloatSequence(values, 0, values.length, blockSize);
+			}
+			float[] actual = new float[values.length];
+			try (ReadStream s = bytes.readStream()) {
+				s.readFloatSequence(actual, 0, actual.length, blockSize);
+			}
+			for (int j = 0; j < values.length; j++) {
+				Assert.assertEquals(Float.floatToRawIntBits(values[j]), Float.floatToRawIntBits(actual[j]));
+			}
+		}
+	}
+
+	@Test
+	public void testSlowlyChangingValuesCompress() {
+		double[] values = metric(new Random(0L), 10000);
+		StreamBytes bytes = Streams.bytes();
+		try (WriteStream w = bytes.writeStream()) {
+			w.writeDoubleSequence(values, 0, values.length, 0);
+		}
+		Assert.assertTrue(bytes.length() * 2 < values.length * 8);
+	}
+
+	@Test
+	public void testSkipBlocks() {
+		Random r = new Random(0L);
+		int blockSize = 60;
+		double[] values = metric(r, 1000);
+		StreamBytes bytes = Streams.bytes();
+		try (WriteStream w = bytes.writeStream()) {
+			w.writeDoubleSequence(values, 0, values.length, blockSize);
+			w.writeInt(42);
+		}
+		// skip to a window, read it, skip again and read the tail
+		try (ReadStream s = bytes.readStream()) {
+			s.skipDoubleSequence(5 * blockSize, blockSize);
+			double[] window = new double[2 * blockSize];
+			s.readDoubleSequence(window, 0, window.length, blockSize);
+			assertBitsEqual(Arrays.copyOfRange(values, 5 * blockSize, 7 * blockSize), window);
+			s.skipDoubleSequence(6 * blockSize, blockSize);
+			double[] tail = new double[values.length - 13 * blockSize];
+			s.readDoubleSequence(tail, 0, tail.length, blockSize);
+			assertBitsEqual(Arrays.copyOfRange(values, 13 * blockSize, values.length), tail);
+			Assert.assertEquals(42, s.readInt());
+		}
+	}
+
+	@Test
+	public void testOnBitStream() {
+		Random r = new Random(0L);
+		double[] values = metric(r, 500);
+		StreamBytes bytes = Streams.bytes();
+		try (BitWriteStream w = bytes.writeStream().bits()) {
+			w.writeBits(1, 3);
+			w.writeDoubleSequence(values, 0, values.length, 0);
+			w.writeBits(2, 3);
+			w.writeDoubleSequence(values, 0, values.length, 100);
+			w.writeBits(3, 3);
+		}
+		try (BitReadStream s = bytes.readStream().bits()) {
+			double[] actual = new double[values.length];
+			Assert.assertEquals(1, s.readBits(3));
+			s.readDoubleSequence(actual, 0, actual.length, 0);
+			assertBitsEqual(values, actual);
+			Assert.assertEquals(2, s.readBits(3));
+			s.skipDoubleSequence(200, 100);
+			double[] tail = new double[300];
+			s.readDoubleSequence(tail, 0, tail.length, 100);
+			assertBitsEqual(Arrays.copyOfRange(values, 200, 500), tail);
+			Assert.assertEquals(3, s.readBits(3));
+		}
+	}
+
+	@Test
+	public void testInvalidSkip() {
+		try {
+			Streams.bytes().readStream().skipDoubleSequence(150, 100);
+			Assert.fail();
+		} catch (IllegalArgumentException e) {
+			/* expected */
+		}
+	}
+}
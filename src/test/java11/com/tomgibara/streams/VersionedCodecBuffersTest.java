@@ -0,0 +1,139 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Loads the codec buffers from a multi-release jar built from the compiled
+ * classes, so that the Java 11 implementation is used, and checks that direct
+ * buffers are passed to the codecs and to the codec streams without staging.
+ */
+
+public class VersionedCodecBuffersTest {
+
+	private static VersionedJar jar;
+	private static Class<?> buffers;
+
+	@BeforeClass
+	public static void loadVersionedBuffers() throws Exception {
+		jar = new VersionedJar();
+		buffers = jar.load(CodecBuffers.class);
+	}
+
+	@AfterClass
+	public static void cleanUp() throws Exception {
+		jar.close();
+	}
+
+	private static Object invoke(Class<?> clss, Object target, String name, Class<?>[] types, Object... args) throws Exception {
+		Method method = clss.getDeclaredMethod(name, types);
+		method.setAccessible(true);
+		return method.invoke(target, args);
+	}
+
+	private static byte[] data(int length) {
+		byte[] data = new byte[length];
+		Random r = new Random(0L);
+		for (int i = 0; i < length; i++) {
+			data[i] = (byte) r.nextInt(8);
+		}
+		return data;
+	}
+
+	private static ByteBuffer direct(byte[] data) {
+		ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+		buffer.put(data).flip();
+		return buffer;
+	}
+
+	@Test
+	public void testSupported() throws Exception {
+		assertFalse(CodecBuffers.supported());
+		assertTrue(buffers != CodecBuffers.class);
+		assertEquals(true, invoke(buffers, null, "supported", new Class<?>[0]));
+	}
+
+	@Test
+	public void testCodecs() throws Exception {
+		byte[] data = data(10000);
+		ByteBuffer input = direct(data);
+		Deflater deflater = new Deflater();
+		invoke(buffers, null, "setInput", new Class<?>[] { Deflater.class, ByteBuffer.class }, deflater, input);
+		deflater.finish();
+		byte[] compressed = new byte[data.length];
+		int length = deflater.deflate(compressed);
+		assertTrue(deflater.finished());
+		assertFalse(input.hasRemaining());
+		deflater.end();
+
+		Inflater inflater = new Inflater();
+		inflater.setInput(compressed, 0, length);
+		ByteBuffer output = ByteBuffer.allocateDirect(data.length);
+		int count = (int) invoke(buffers, null, "inflate", new Class<?>[] { Inflater.class, ByteBuffer.class }, inflater, output);
+		assertEquals(data.length, count);
+		assertEquals(data.length, output.position());
+		assertTrue(inflater.finished());
+		inflater.end();
+		byte[] inflated = new byte[data.length];
+		output.flip();
+		output.get(inflated);
+		assertArrayEquals(data, inflated);
+	}
+
+	@Test
+	public void testStreams() throws Exception {
+		Class<?> streams = jar.load(Streams.class);
+		Class<?> bytesClass = jar.load(StreamBytes.class);
+		Class<?> writeClass = jar.load(WriteStream.class);
+		Class<?> readClass = jar.load(ReadStream.class);
+		byte[] data = data(100000);
+
+		Object bytes = streams.getMethod("bytes").invoke(null);
+		Object writer = writeClass.getMethod("deflated", int.class).invoke(bytesClass.getMethod("writeStream").invoke(bytes), Deflater.DEFAULT_COMPRESSION);
+		ByteBuffer input = direct(data);
+		writeClass.getMethod("drainBuffer", ByteBuffer.class).invoke(writer, input);
+		assertFalse(input.hasRemaining());
+		assertEquals((long) data.length, writeClass.getMethod("position").invoke(writer));
+		writeClass.getMethod("close").invoke(writer);
+
+		Object reader = readClass.getMethod("inflated").invoke(bytesClass.getMethod("readStream").invoke(bytes));
+		ByteBuffer output = ByteBuffer.allocateDirect(data.length + 1);
+		readClass.getMethod("fillBuffer", ByteBuffer.class).invoke(reader, output);
+		assertEquals(data.length, output.position());
+		assertEquals((long) data.length, readClass.getMethod("position").invoke(reader));
+		readClass.getMethod("close").invoke(reader);
+		byte[] inflated = new byte[data.length];
+		output.flip();
+		output.get(inflated);
+		assertArrayEquals(data, inflated);
+	}
+
+}
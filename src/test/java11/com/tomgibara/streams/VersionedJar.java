@@ -0,0 +1,84 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.tomgibara.fundament.Consumer;
+
+/**
+ * Builds a multi-release jar from the compiled classes in a temporary
+ * directory and loads classes from it, so that tests can exercise the Java 11
+ * implementations of versioned classes.
+ */
+
+final class VersionedJar implements AutoCloseable {
+
+	final Path dir;
+	final URLClassLoader loader;
+
+	VersionedJar() throws Exception {
+		Path classes = Paths.get(Streams.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		dir = Files.createTempDirectory("streams");
+		Path jar = dir.resolve("streams.jar");
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().put(new Attributes.Name("Multi-Release"), "true");
+		try (
+				OutputStream out = Files.newOutputStream(jar);
+				JarOutputStream jarOut = new JarOutputStream(out, manifest);
+				Stream<Path> paths = Files.walk(classes)
+				) {
+			for (Path path : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+				String name = classes.relativize(path).toString().replace('\\', '/');
+				jarOut.putNextEntry(new JarEntry(name));
+				Files.copy(path, jarOut);
+				jarOut.closeEntry();
+			}
+		}
+		// dependencies are loaded from their own jars
+		URL fundament = Consumer.class.getProtectionDomain().getCodeSource().getLocation();
+		loader = new URLClassLoader(new URL[] { jar.toUri().toURL(), fundament }, ClassLoader.getPlatformClassLoader());
+	}
+
+	Class<?> load(Class<?> clss) throws ClassNotFoundException {
+		return loader.loadClass(clss.getName());
+	}
+
+	@Override
+	public void close() throws IOException {
+		loader.close();
+		try (Stream<Path> paths = Files.walk(dir)) {
+			for (Path path : paths.sorted((a, b) -> b.compareTo(a)).collect(Collectors.toList())) {
+				Files.delete(path);
+			}
+		}
+	}
+
+}
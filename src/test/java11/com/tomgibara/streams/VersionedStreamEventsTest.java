@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 Tom Gibara
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.tomgibara.streams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Loads the events from a multi-release jar built from the compiled classes,
+ * so that the Java 11 implementation is used, and checks that it emits JFR
+ * events only when they are enabled.
+ */
+
+public class VersionedStreamEventsTest {
+
+	private static final String GROWTH = "com.tomgibara.streams.BytesGrowth";
+	private static final String TRANSFER = "com.tomgibara.streams.Transfer";
+
+	private static VersionedJar jar;
+	private static Path dir;
+	private static Class<?> events;
+
+	@BeforeClass
+	public static void loadVersionedEvents() throws Exception {
+		jar = new VersionedJar();
+		dir = jar.dir;
+		events = jar.load(StreamEvents.class);
+	}
+
+	@AfterClass
+	public static void cleanUp() throws IOException {
+		jar.close();
+	}
+
+	private static Object invoke(String name, Class<?>[] types, Object... args) throws Exception {
+		Method method = events.getDeclaredMethod(name, types);
+		method.setAccessible(true);
+		return method.invoke(null, args);
+	}
+
+	private static Object beginTransfer() throws Exception {
+		return invoke("beginTransfer", new Class<?>[0]);
+	}
+
+	private static void bytesGrown(int oldCapacity, int newCapacity) throws Exception {
+		invoke("bytesGrown", new Class<?>[] { int.class, int.class }, oldCapacity, newCapacity);
+	}
+
+	private static List<RecordedEvent> recorded(Recording recording) throws IOException {
+		Path file = dir.resolve("recording.jfr");
+		recording.dump(file);
+		try {
+			return RecordingFile.readAllEvents(file);
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testVersionedClassLoaded() {
+		assertTrue(events != StreamEvents.class);
+		assertEquals(4, events.getDeclaredClasses().length);
+	}
+
+	@Test
+	public void testEnabled() throws Exception {
+		try (Recording recording = new Recording()) {
+			recording.enable(GROWTH);
+			recording.enable(TRANSFER);
+			recording.start();
+			assertNotNull(beginTransfer());
+			bytesGrown(16, 32);
+			recording.stop();
+			List<RecordedEvent> recorded = recorded(recording);
+			List<RecordedEvent> growths = recorded.stream().filter(e -> e.getEventType().getName().equals(GROWTH)).collect(Collectors.toList());
+			assertEquals(1, growths.size());
+			assertEquals(16, growths.get(0).getInt("oldCapacity"));
+			assertEquals(32, growths.get(0).getInt("newCapacity"));
+		}
+	}
+
+	@Test
+	public void testDisabled() throws Exception {
+		try (Recording recording = new Recording()) {
+			recording.disable(GROWTH);
+			recording.disable(TRANSFER);
+			recording.start();
+			assertNull(beginTransfer());
+			bytesGrown(16, 32);
+			recording.stop();
+			assertTrue(recorded(recording).stream().noneMatch(e -> e.getEventType().getName().startsWith("com.tomgibara.streams.")));
+		}
+	}
+
+}